@@ -0,0 +1,101 @@
+package org.brotmanbaty.homework.dna.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.brotmanbaty.homework.dna.BinaryStreamUtils;
+import org.brotmanbaty.homework.dna.FragmentReader;
+import org.brotmanbaty.homework.dna.ReadingBase;
+import org.brotmanbaty.homework.dna.ReadingFragment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures reading the binary format: each operation reads the entire (~16 MB) input either base-by-base,
+ * fragment-by-fragment, or raw fragment-by-raw fragment.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecodeBenchmark {
+    @Param({"2", "150", "10000", "1000000"})
+    int numReadingBasesPerFragment;
+    @Param
+    InputSource source;
+
+    private FragmentData data;
+
+    @Setup
+    public void setUp() {
+        data = FragmentData.generate(numReadingBasesPerFragment);
+    }
+
+    @TearDown
+    public void tearDown() {
+        data.close();
+    }
+
+    @Benchmark
+    public void readReadingBase(Blackhole blackhole) throws IOException {
+        try (InputStream stream = source.open(data)) {
+            for (ReadingBase base; (base = BinaryStreamUtils.readReadingBase(stream)) != null;) {
+                blackhole.consume(base);
+            }
+        }
+    }
+
+    @Benchmark
+    public void readReadingFragment(Blackhole blackhole) throws IOException {
+        try (InputStream stream = source.open(data)) {
+            for (ReadingFragment fragment; (fragment = BinaryStreamUtils.readReadingFragment(stream,
+                    numReadingBasesPerFragment)) != null;) {
+                blackhole.consume(fragment);
+            }
+        }
+    }
+
+    @Benchmark
+    public void readRawFragment(Blackhole blackhole) throws IOException {
+        byte[] rawFragment = new byte[numReadingBasesPerFragment];
+        try (InputStream stream = source.open(data)) {
+            while (BinaryStreamUtils.readRawFragment(stream, rawFragment)) {
+                blackhole.consume(rawFragment);
+            }
+        }
+    }
+
+    @Benchmark
+    public void fragmentReaderRead(Blackhole blackhole) throws IOException {
+        try (FragmentReader reader = FragmentReader.of(source.open(data), numReadingBasesPerFragment)) {
+            for (ReadingFragment fragment; (fragment = reader.read()) != null;) {
+                blackhole.consume(fragment);
+            }
+        }
+    }
+
+    @Benchmark
+    public void fragmentReaderReadRawFragments(Blackhole blackhole) throws IOException {
+        int fragmentsPerBatch = Math.max(1, 1024 * 1024 / numReadingBasesPerFragment);
+        byte[] rawFragments = new byte[fragmentsPerBatch * numReadingBasesPerFragment];
+        try (FragmentReader reader = FragmentReader.of(source.open(data), numReadingBasesPerFragment)) {
+            while (reader.readRawFragments(rawFragments) > 0) {
+                blackhole.consume(rawFragments);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.brotmanbaty.homework.dna.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.brotmanbaty.homework.dna.BinaryStreamUtils;
+import org.brotmanbaty.homework.dna.FastqByteWriter;
+import org.brotmanbaty.homework.dna.FastqTranscoder;
+import org.brotmanbaty.homework.dna.FastqWriterUtils;
+import org.brotmanbaty.homework.dna.ReadingFragment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures writing fragments that have already been read: each operation writes all of the (~16 MB of) fragments to a
+ * sink that discards its input, so that only the cost of encoding is measured. The input source doesn't apply here, as
+ * nothing is read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncodeBenchmark {
+    @Param({"2", "150", "10000", "1000000"})
+    int numReadingBasesPerFragment;
+
+    private FragmentData data;
+    private List<ReadingFragment> fragments;
+    private byte[] decoded;
+
+    @Setup
+    public void setUp() {
+        data = FragmentData.generate(numReadingBasesPerFragment);
+        fragments = new ArrayList<>(data.getNumFragments());
+        InputStream stream = new ByteArrayInputStream(data.getContent());
+        for (ReadingFragment fragment; (fragment = BinaryStreamUtils.readReadingFragment(stream,
+                numReadingBasesPerFragment)) != null;) {
+            fragments.add(fragment);
+        }
+        decoded = new byte[data.getContent().length];
+    }
+
+    @TearDown
+    public void tearDown() {
+        data.close();
+    }
+
+    @Benchmark
+    public void binaryWriteReadingFragment() {
+        OutputStream stream = OutputStream.nullOutputStream();
+        for (ReadingFragment fragment : fragments) {
+            BinaryStreamUtils.writeReadingFragment(stream, fragment);
+        }
+    }
+
+    @Benchmark
+    public void fastqWriteReadingFragment() {
+        Writer writer = Writer.nullWriter();
+        long fragmentNumber = 1;
+        for (ReadingFragment fragment : fragments) {
+            FastqWriterUtils.writeReadingFragment(writer, fragment, fragmentNumber++);
+        }
+    }
+
+    @Benchmark
+    public void fastqWriteRawFragment() {
+        OutputStream stream = OutputStream.nullOutputStream();
+        byte[] content = data.getContent();
+        long fragmentNumber = 1;
+        for (int offset = 0; offset < content.length; offset += numReadingBasesPerFragment) {
+            FastqWriterUtils.writeRawFragment(stream, content, offset, numReadingBasesPerFragment, fragmentNumber++);
+        }
+    }
+
+    @Benchmark
+    public void fastqByteWriterWriteRawFragment() {
+        byte[] content = data.getContent();
+        try (FastqByteWriter writer = FastqByteWriter.of(Channels.newChannel(OutputStream.nullOutputStream()))) {
+            for (int offset = 0; offset < content.length; offset += numReadingBasesPerFragment) {
+                writer.writeRawFragment(content, offset, numReadingBasesPerFragment);
+            }
+        }
+    }
+
+    /**
+     * Decodes the whole input into sequence and then quality characters, with the Vector API kernel where it's
+     * available; run with -jvmArgsAppend -Dorg.brotmanbaty.homework.dna.vectorize=false to compare with the tables.
+     */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+    public byte[] fastqTranscoderDecode() {
+        byte[] content = data.getContent();
+        FastqTranscoder.decodeSequence(content, 0, decoded, 0, content.length);
+        FastqTranscoder.decodeQuality(content, 0, decoded, 0, content.length);
+        return decoded;
+    }
+}
@@ -0,0 +1,79 @@
+package org.brotmanbaty.homework.dna.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.brotmanbaty.homework.dna.Main;
+import org.brotmanbaty.homework.dna.ParallelFastqConverter;
+import org.brotmanbaty.homework.dna.PipelinedFastqConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures converting a whole (~16 MB) binary file into a FASTQ file, the way Main does. The input is always a file
+ * here, since that's what Main reads; the file will usually be in the page cache, so this mostly measures CPU cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EndToEndBenchmark {
+    @Param({"2", "150", "10000", "1000000"})
+    int numReadingBasesPerFragment;
+
+    private FragmentData data;
+    private Path outputDirectory;
+    private Path output;
+
+    @Setup
+    public void setUp() throws IOException {
+        data = FragmentData.generate(numReadingBasesPerFragment);
+        outputDirectory = Files.createTempDirectory("dna-benchmark-");
+        output = outputDirectory.resolve("output.txt");
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteOutput() throws IOException {
+        // Main refuses to overwrite existing output, so every invocation needs to start clean
+        Files.deleteIfExists(output);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        data.close();
+        Files.deleteIfExists(outputDirectory);
+    }
+
+    @Benchmark
+    public void mainSequential() throws IOException {
+        Main.convertSequentially(data.getFile(), numReadingBasesPerFragment, output);
+    }
+
+    @Benchmark
+    public void mainParallel() {
+        ParallelFastqConverter.of(ForkJoinPool.commonPool())
+                .convert(data.getFile(), numReadingBasesPerFragment, output);
+    }
+
+    @Benchmark
+    public void mainPipelined() {
+        PipelinedFastqConverter.of(ForkJoinPool.commonPool())
+                .convert(data.getFile(), numReadingBasesPerFragment, output);
+    }
+}
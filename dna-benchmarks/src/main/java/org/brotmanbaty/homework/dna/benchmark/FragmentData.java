@@ -0,0 +1,77 @@
+package org.brotmanbaty.homework.dna.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Randomly-generated binary fragment input, available in memory, as a file, and as a memory-mapped file. The total size
+ * is roughly constant regardless of the fragment length, so that benchmark scores are comparable across lengths.
+ */
+class FragmentData implements AutoCloseable {
+    private static final int TARGET_TOTAL_BYTES = 16 * 1024 * 1024;
+
+    private final int numReadingBasesPerFragment;
+    private final byte[] content;
+    private final Path file;
+    private final MappedByteBuffer mappedFile;
+
+    private FragmentData(int numReadingBasesPerFragment, byte[] content, Path file, MappedByteBuffer mappedFile) {
+        this.numReadingBasesPerFragment = numReadingBasesPerFragment;
+        this.content = content;
+        this.file = file;
+        this.mappedFile = mappedFile;
+    }
+
+    static FragmentData generate(int numReadingBasesPerFragment) {
+        int numFragments = Math.max(1, TARGET_TOTAL_BYTES / numReadingBasesPerFragment);
+        byte[] content = new byte[numFragments * numReadingBasesPerFragment];
+        // Use a fixed seed, so that every run sees the same data
+        new Random(numReadingBasesPerFragment).nextBytes(content);
+        try {
+            Path file = Files.createTempFile("dna-benchmark-", ".binary");
+            Files.write(file, content);
+            try (FileChannel channel = FileChannel.open(file)) {
+                MappedByteBuffer mappedFile = channel.map(MapMode.READ_ONLY, 0, content.length);
+                mappedFile.load();
+                return new FragmentData(numReadingBasesPerFragment, content, file, mappedFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    int getNumReadingBasesPerFragment() {
+        return numReadingBasesPerFragment;
+    }
+
+    int getNumFragments() {
+        return content.length / numReadingBasesPerFragment;
+    }
+
+    byte[] getContent() {
+        return content;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    MappedByteBuffer getMappedFile() {
+        return mappedFile;
+    }
+
+    @Override
+    public void close() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
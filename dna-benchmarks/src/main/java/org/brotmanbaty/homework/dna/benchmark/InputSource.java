@@ -0,0 +1,62 @@
+package org.brotmanbaty.homework.dna.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+/** The different places that benchmarks can read their binary input from. */
+public enum InputSource {
+    /** An in-memory array, which isolates the cost of decoding from the cost of I/O. */
+    HEAP {
+        @Override
+        InputStream open(FragmentData data) {
+            return new ByteArrayInputStream(data.getContent());
+        }
+    },
+    /** A file on disk read through a BufferedInputStream, as Main does. */
+    BUFFERED_FILE {
+        @Override
+        InputStream open(FragmentData data) throws IOException {
+            return new BufferedInputStream(Files.newInputStream(data.getFile()));
+        }
+    },
+    /** A memory-mapped file, as ParallelFastqConverter uses. */
+    MAPPED_FILE {
+        @Override
+        InputStream open(FragmentData data) {
+            return new ByteBufferInputStream(data.getMappedFile());
+        }
+    };
+
+    abstract InputStream open(FragmentData data) throws IOException;
+
+    /** An InputStream that reads a (shared) ByteBuffer without changing its position. */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer.duplicate();
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int numRead = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, numRead);
+            return numRead;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Converts many binary fragment files into FASTQ files within a single JVM, running every {@link ConversionJob} on its
+ * own thread. Jobs spend much of their time waiting on I/O, so a thread per job keeps the disks busy; the CPU-bound
+ * decoding, on the other hand, is limited by a fixed number of permits, so that hundreds of jobs don't all compete for
+ * the cores at once. On JVMs that support virtual threads, each job gets a virtual thread, which makes a thread per job
+ * cheap even for very large batches; otherwise, each job gets a platform thread.
+ *
+ * A failing job doesn't affect the others: its failure is reported to the {@link Listener} and returned at the end.
+ */
+public class BatchConverter {
+    private static final int BATCH_SIZE = 1024 * 1024;
+
+    private final int maxConcurrentDecodes;
+    private final ConversionMetrics metrics;
+
+    private BatchConverter(int maxConcurrentDecodes, ConversionMetrics metrics) {
+        if (maxConcurrentDecodes <= 0) {
+            throw new IllegalArgumentException(
+                    "maxConcurrentDecodes must be greater than 0, but found " + maxConcurrentDecodes);
+        }
+        this.maxConcurrentDecodes = maxConcurrentDecodes;
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /** Creates a converter that decodes at most one batch per available processor at once. */
+    public static BatchConverter of() {
+        return new BatchConverter(Runtime.getRuntime().availableProcessors(), ConversionMetrics.of());
+    }
+
+    /**
+     * Creates a converter that decodes at most maxConcurrentDecodes batches at once, across all jobs.
+     *
+     * @throws IllegalArgumentException if maxConcurrentDecodes <= 0
+     */
+    public static BatchConverter of(int maxConcurrentDecodes) {
+        return new BatchConverter(maxConcurrentDecodes, ConversionMetrics.of());
+    }
+
+    /**
+     * Same as {@link #of(int)}, except that every job is recorded in the given metrics, which then report the totals
+     * of all jobs.
+     *
+     * @throws IllegalArgumentException if maxConcurrentDecodes <= 0
+     */
+    public static BatchConverter of(int maxConcurrentDecodes, ConversionMetrics metrics) {
+        return new BatchConverter(maxConcurrentDecodes, metrics);
+    }
+
+    /**
+     * Receives updates on the jobs of a batch conversion. Jobs run concurrently, so implementations must be thread
+     * safe. Exceptions thrown by a listener fail the job that it was called for.
+     */
+    public interface Listener {
+        /** Called when the job starts converting its numFragments fragments. */
+        default void onStarted(ConversionJob job, long numFragments) {}
+
+        /** Called whenever the job has converted another batch, where numFragmentsConverted is the running total. */
+        default void onProgress(ConversionJob job, long numFragmentsConverted) {}
+
+        /** Called when the job has converted all of its fragments. */
+        default void onSucceeded(ConversionJob job) {}
+
+        /** Called when the job fails, after which it receives no more updates. */
+        default void onFailed(ConversionJob job, RuntimeException failure) {}
+    }
+
+    /**
+     * Runs all of the given jobs concurrently and waits for them to finish. Each job converts its input the same as
+     * {@link Main#convertSequentially(Path, int, Path)}, except that the output's parent directories are created if
+     * needed. Returns the failure of each failed job, in the order that the jobs were given; an empty map means that
+     * all jobs succeeded.
+     *
+     * @throws UncheckedIOException if the calling thread is interrupted while waiting, where the cause of the
+     *         UncheckedIOException is an InterruptedIOException. In that case, all jobs are interrupted too.
+     */
+    public Map<ConversionJob, RuntimeException> convertAll(List<ConversionJob> jobs, Listener listener) {
+        Objects.requireNonNull(listener);
+        Semaphore decodePermits = new Semaphore(maxConcurrentDecodes);
+        ExecutorService executor = newThreadPerJobExecutor();
+        try {
+            List<Future<RuntimeException>> results = new ArrayList<>(jobs.size());
+            for (ConversionJob job : jobs) {
+                results.add(executor.submit(() -> runJob(job, decodePermits, listener)));
+            }
+
+            Map<ConversionJob, RuntimeException> failures = new LinkedHashMap<>();
+            Throwable error = null;
+            for (int i = 0; i < jobs.size(); ++i) {
+                RuntimeException failure;
+                try {
+                    failure = results.get(i).get();
+                } catch (ExecutionException e) {
+                    // Jobs catch their own failures and those of their listener calls, so this can only be an Error.
+                    // It's only rethrown once every other job has finished, so that they aren't aborted by it.
+                    if (error == null) {
+                        error = e.getCause();
+                    } else {
+                        error.addSuppressed(e.getCause());
+                    }
+                    continue;
+                }
+                if (failure != null) {
+                    failures.put(jobs.get(i), failure);
+                }
+            }
+            if (error != null) {
+                throw new IllegalStateException(error);
+            }
+            return failures;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for jobs"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates an executor that runs each task on a new virtual thread if the JVM supports them, or on a (cached)
+     * platform thread otherwise. This code targets Java 11, so virtual threads can only be reached reflectively.
+     */
+    private static ExecutorService newThreadPerJobExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Runs the given job, returning its failure, or null if it succeeded. A listener call that throws fails the job,
+     * and if that call is {@link Listener#onFailed(ConversionJob, RuntimeException)} itself, its exception is added to
+     * the job's failure as suppressed.
+     */
+    private RuntimeException runJob(ConversionJob job, Semaphore decodePermits, Listener listener) {
+        RuntimeException failure;
+        try {
+            convert(job, decodePermits, listener);
+            listener.onSucceeded(job);
+            return null;
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        try {
+            listener.onFailed(job, failure);
+        } catch (RuntimeException e) {
+            // A listener may well rethrow the failure it was given, which can't suppress itself
+            if (e != failure) {
+                failure.addSuppressed(e);
+            }
+        }
+        return failure;
+    }
+
+    private void convert(ConversionJob job, Semaphore decodePermits, Listener listener) {
+        int numReadingBasesPerFragment = job.getNumReadingBasesPerFragment();
+        try {
+            long inputSize = Files.size(job.getInputPath());
+            if (inputSize % numReadingBasesPerFragment != 0) {
+                String message = String.format("Expected to find %s base readings per fragment in input, but only "
+                        + "found %s in the last fragment before end of input.", numReadingBasesPerFragment,
+                        inputSize % numReadingBasesPerFragment);
+                throw new IllegalStateException(message);
+            }
+            listener.onStarted(job, inputSize / numReadingBasesPerFragment);
+
+            Path outputParent = job.getOutputPath().toAbsolutePath().getParent();
+            if (outputParent != null) {
+                Files.createDirectories(outputParent);
+            }
+            try (FragmentReader reader = FragmentReader.of(job.getInputPath(), numReadingBasesPerFragment);
+                    WritableByteChannel output = metrics.meter(FileChannel.open(job.getOutputPath(),
+                            StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))) {
+                int fragmentsPerBatch = Math.max(1, BATCH_SIZE / numReadingBasesPerFragment);
+                byte[] rawFragments = new byte[fragmentsPerBatch * numReadingBasesPerFragment];
+                while (true) {
+                    long firstFragmentNumber = reader.getNumFragmentsRead() + 1;
+                    int numFragments = metrics.readRawFragments(reader, rawFragments);
+                    if (numFragments == 0) {
+                        break;
+                    }
+                    ByteBuffer fastq = decode(rawFragments, numFragments, numReadingBasesPerFragment,
+                            firstFragmentNumber, decodePermits);
+                    while (fastq.hasRemaining()) {
+                        output.write(fastq);
+                    }
+                    listener.onProgress(job, reader.getNumFragmentsRead());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Decodes a batch while holding a decode permit, so that reading and writing don't hold up other jobs. */
+    private ByteBuffer decode(byte[] rawFragments, int numFragments, int numReadingBasesPerFragment,
+            long firstFragmentNumber, Semaphore decodePermits) throws InterruptedIOException {
+        try {
+            decodePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to decode");
+        }
+        try {
+            return metrics.encodeRawFragments(ByteBuffer.wrap(rawFragments), numFragments,
+                    numReadingBasesPerFragment, firstFragmentNumber);
+        } finally {
+            decodePermits.release();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An OutputStream that compresses its output in the block gzip format (BGZF), as used by samtools/htslib. BGZF is a
+ * series of independent gzip members, each holding at most 64 KB, so any gzip reader can read it, while BGZF-aware
+ * tools can also seek within it. Since the blocks are independent, they're compressed concurrently on an
+ * ExecutorService; the compressed blocks are then written to the underlying stream in their original order. Closing the
+ * stream writes the standard empty end-of-file block.
+ *
+ * The number of blocks being compressed at once is bounded, so writes block when compression falls behind. This class
+ * is not thread safe.
+ */
+public class BgzfOutputStream extends OutputStream {
+    // Leave room for the (rare) case where compression makes the data larger, so that a block always fits in 64 KB
+    private static final int MAX_UNCOMPRESSED_BLOCK_SIZE = 0xff00;
+    private static final int MAX_BLOCK_SIZE = 0x10000;
+    private static final int HEADER_SIZE = 18;
+    private static final int FOOTER_SIZE = 8;
+    private static final byte[] EOF_BLOCK = {0x1f, (byte) 0x8b, 0x08, 0x04, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) 0xff,
+            0x06, 0x00, 0x42, 0x43, 0x02, 0x00, 0x1b, 0x00, 0x03, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00};
+
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final int compressionLevel;
+    private final int maxBlocksInFlight;
+    private final Deque<Future<byte[]>> blocksInFlight;
+    // Deflaters hold native memory, so share them between blocks rather than creating one per block. Guarded by
+    // itself, since compress tasks take and return them concurrently.
+    private final Deque<Deflater> idleDeflaters = new ArrayDeque<>();
+    // Whether close has ended the idle deflaters, after which tasks still running end their own. Guarded by
+    // idleDeflaters.
+    private boolean deflatersEnded;
+    private byte[] block = new byte[MAX_UNCOMPRESSED_BLOCK_SIZE];
+    private int blockSize;
+    private boolean closed;
+
+    private BgzfOutputStream(OutputStream out, ExecutorService executor, int compressionLevel, int maxBlocksInFlight) {
+        this.out = Objects.requireNonNull(out);
+        this.executor = Objects.requireNonNull(executor);
+        if ((compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)
+                && compressionLevel != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+        if (maxBlocksInFlight <= 0) {
+            throw new IllegalArgumentException(
+                    "maxBlocksInFlight must be greater than 0, but found " + maxBlocksInFlight);
+        }
+        this.maxBlocksInFlight = maxBlocksInFlight;
+        this.blocksInFlight = new ArrayDeque<>(maxBlocksInFlight);
+    }
+
+    /**
+     * Creates a stream that compresses blocks on the given executor at the default compression level, with a few blocks
+     * per available processor in flight at once. The stream takes ownership of out (i.e. closing this stream closes
+     * out), but not of the executor.
+     */
+    public static BgzfOutputStream of(OutputStream out, ExecutorService executor) {
+        return new BgzfOutputStream(out, executor, Deflater.DEFAULT_COMPRESSION,
+                4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Same as {@link #of(OutputStream, ExecutorService)}, but with the given compression level and bound on the number
+     * of blocks being compressed at once.
+     *
+     * @throws IllegalArgumentException if compressionLevel is not a valid Deflater level or maxBlocksInFlight <= 0
+     */
+    public static BgzfOutputStream of(OutputStream out, ExecutorService executor, int compressionLevel,
+            int maxBlocksInFlight) {
+        return new BgzfOutputStream(out, executor, compressionLevel, maxBlocksInFlight);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        requireOpen();
+        block[blockSize++] = (byte) b;
+        if (blockSize == block.length) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        requireOpen();
+        while (length > 0) {
+            int numToCopy = Math.min(length, block.length - blockSize);
+            System.arraycopy(bytes, offset, block, blockSize, numToCopy);
+            blockSize += numToCopy;
+            offset += numToCopy;
+            length -= numToCopy;
+            if (blockSize == block.length) {
+                submitBlock();
+            }
+        }
+    }
+
+    private void requireOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        if (blocksInFlight.size() == maxBlocksInFlight) {
+            writeNextCompressedBlock();
+        }
+        byte[] uncompressed = block;
+        int uncompressedSize = blockSize;
+        blocksInFlight.addLast(executor.submit(() -> compress(uncompressed, uncompressedSize)));
+        block = new byte[MAX_UNCOMPRESSED_BLOCK_SIZE];
+        blockSize = 0;
+    }
+
+    private void writeNextCompressedBlock() throws IOException {
+        try {
+            out.write(blocksInFlight.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a block to be compressed");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to compress block", e.getCause());
+        }
+    }
+
+    private byte[] compress(byte[] uncompressed, int uncompressedSize) {
+        Deflater deflater;
+        synchronized (idleDeflaters) {
+            deflater = idleDeflaters.isEmpty() ? new Deflater(compressionLevel, true) : idleDeflaters.pop();
+        }
+        try {
+            byte[] compressed = deflate(deflater, compressionLevel, uncompressed, uncompressedSize);
+            if (compressed == null) {
+                // Incompressible data grew too much at the requested level, but storing it uncompressed always fits
+                compressed = deflate(deflater, Deflater.NO_COMPRESSION, uncompressed, uncompressedSize);
+            }
+            return compressed;
+        } finally {
+            // A task cancelled by close may still be running, and its deflater must not outlive the stream
+            synchronized (idleDeflaters) {
+                if (deflatersEnded) {
+                    deflater.end();
+                } else {
+                    idleDeflaters.push(deflater);
+                }
+            }
+        }
+    }
+
+    /** Returns the complete BGZF block for the given data, or null if it doesn't fit into a single block. */
+    private static byte[] deflate(Deflater deflater, int level, byte[] uncompressed, int uncompressedSize) {
+        deflater.reset();
+        deflater.setLevel(level);
+        deflater.setInput(uncompressed, 0, uncompressedSize);
+        deflater.finish();
+        byte[] output = new byte[MAX_BLOCK_SIZE];
+        int maxCompressedSize = MAX_BLOCK_SIZE - HEADER_SIZE - FOOTER_SIZE;
+        int compressedSize = 0;
+        while (!deflater.finished()) {
+            if (compressedSize == maxCompressedSize) {
+                return null;
+            }
+            compressedSize += deflater.deflate(output, HEADER_SIZE + compressedSize,
+                    maxCompressedSize - compressedSize);
+        }
+
+        int blockSize = HEADER_SIZE + compressedSize + FOOTER_SIZE;
+        ByteBuffer header = ByteBuffer.wrap(output, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        // gzip magic, deflate method, FEXTRA flag, no modification time, no extra flags, unknown OS
+        header.put(new byte[] {0x1f, (byte) 0x8b, 0x08, 0x04, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) 0xff});
+        // A single extra field, "BC", containing the total block size minus one
+        header.putShort((short) 6).put((byte) 'B').put((byte) 'C').putShort((short) 2);
+        header.putShort((short) (blockSize - 1));
+
+        CRC32 crc = new CRC32();
+        crc.update(uncompressed, 0, uncompressedSize);
+        ByteBuffer footer = ByteBuffer.wrap(output, HEADER_SIZE + compressedSize, FOOTER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        footer.putInt((int) crc.getValue()).putInt(uncompressedSize);
+        return Arrays.copyOf(output, blockSize);
+    }
+
+    /**
+     * Compresses any buffered data as a (possibly short) block, waits for all blocks to be compressed, writes them, and
+     * then flushes the underlying stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        requireOpen();
+        if (blockSize > 0) {
+            submitBlock();
+        }
+        while (!blocksInFlight.isEmpty()) {
+            writeNextCompressedBlock();
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes all remaining data and the end-of-file block, and then closes the underlying stream. Closing an already
+     * closed stream has no effect.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try (out) {
+            flush();
+            out.write(EOF_BLOCK);
+        } finally {
+            closed = true;
+            blocksInFlight.forEach(future -> future.cancel(true));
+            synchronized (idleDeflaters) {
+                deflatersEnded = true;
+                idleDeflaters.forEach(Deflater::end);
+                idleDeflaters.clear();
+            }
+        }
+    }
+}
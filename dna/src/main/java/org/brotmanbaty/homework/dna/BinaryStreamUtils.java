@@ -2,8 +2,6 @@ package org.brotmanbaty.homework.dna;
 
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.Callable;
 
 /** A set of utility methods for reading/writing fragments from/into a binary format. */
@@ -19,29 +17,63 @@ public class BinaryStreamUtils {
      *         the IOException.
      */
     public static ReadingFragment readReadingFragment(InputStream stream, int numReadingBases) {
-        List<ReadingBase> readingBases = new ArrayList<>(numReadingBases);
-        for (int i = 0; i < numReadingBases; ++i) {
-            ReadingBase readingBase = readReadingBase(stream);
-            if (readingBase == null) {
+        // Read the bases in their binary form, which the fragment stores directly, rather than creating ReadingBases
+        byte[] binary = new byte[numReadingBases];
+        int numRead = 0;
+        for (; numRead < numReadingBases; ++numRead) {
+            int intInput = uncheckedCall(() -> stream.read());
+            if (intInput == -1) {
                 break;
             }
-            readingBases.add(readingBase);
+            binary[numRead] = (byte) intInput;
         }
 
         // If there was nothing there to begin with, quit
-        if (readingBases.isEmpty() & numReadingBases != 0) {
+        if (numRead == 0 & numReadingBases != 0) {
             return null;
         }
 
         // Check if read as much as requested
-        if (readingBases.size() < numReadingBases) {
+        if (numRead < numReadingBases) {
             String message = String.format(
                     "Expected to find %s base readings in stream, but only found %s before end of stream.",
-                    numReadingBases, readingBases.size());
+                    numReadingBases, numRead);
             throw new IllegalStateException(message);
         }
 
-        return ReadingFragment.of(readingBases);
+        return ReadingFragment.wrapBinary(binary);
+    }
+
+    /**
+     * Reads rawFragment.length raw (i.e. still binary-encoded) bases from the given stream into rawFragment, without
+     * creating any per-base objects. If rawFragment is empty, then nothing is read and true is returned. If the end of
+     * the stream is reached before any bases are read, then false is returned.
+     * 
+     * @throws IllegalStateException if the stream reaches its end before rawFragment.length bases are read.
+     * @throws RuntimeException if reading the stream throws an IOException, where the cause of the RuntimeException is
+     *         the IOException.
+     */
+    public static boolean readRawFragment(InputStream stream, byte[] rawFragment) {
+        if (rawFragment.length == 0) {
+            return true;
+        }
+
+        int numRead = uncheckedCall(() -> stream.readNBytes(rawFragment, 0, rawFragment.length));
+
+        // If there was nothing there to begin with, quit
+        if (numRead == 0) {
+            return false;
+        }
+
+        // Check if read as much as requested
+        if (numRead < rawFragment.length) {
+            String message = String.format(
+                    "Expected to find %s base readings in stream, but only found %s before end of stream.",
+                    rawFragment.length, numRead);
+            throw new IllegalStateException(message);
+        }
+
+        return true;
     }
 
     /**
@@ -59,10 +91,7 @@ public class BinaryStreamUtils {
 
         // Must wait until after the check above to convert to byte, otherwise, values of 255 (a valid reading) and -1
         // (end of stream) would be ambiguous
-        byte byteInput = (byte) intInput;
-        Base base = convertBinaryToBase(byteInput);
-        QualityScore score = convertBinaryToQualityScore(byteInput);
-        return ReadingBase.of(base, score);
+        return ReadingBase.ofBinary((byte) intInput);
     }
 
     private static <T> T uncheckedCall(Callable<T> callable) {
@@ -73,29 +102,6 @@ public class BinaryStreamUtils {
         }
     }
 
-    private static Base convertBinaryToBase(byte binary) {
-        // Need to mask the bits due to int promotion: https://stackoverflow.com/a/3948303
-        int binaryWithCorrectBitsAsInt = binary & 0xFF;
-        byte firstTwoBits = (byte) (binaryWithCorrectBitsAsInt >>> 6);
-        switch (firstTwoBits) {
-            case 0b00000000:
-                return Base.A;
-            case 0b00000001:
-                return Base.C;
-            case 0b00000010:
-                return Base.G;
-            case 0b00000011:
-                return Base.T;
-            default:
-                throw new IllegalStateException("Encountered unexpected value for first two bits: " + firstTwoBits);
-        }
-    }
-
-    private static QualityScore convertBinaryToQualityScore(byte binary) {
-        byte lastSixBits = (byte) (binary & 0b00111111);
-        return QualityScore.ofBinary(lastSixBits);
-    }
-
     /**
      * Writes a ReadingFragment to the given output stream. If the fragment has no bases, then nothing is written.
      * 
@@ -103,7 +109,14 @@ public class BinaryStreamUtils {
      *         the IOException.
      */
     public static void writeReadingFragment(OutputStream stream, ReadingFragment fragment) {
-        fragment.getReadingBases().forEach(base -> writeReadingBase(stream, base));
+        byte[] binary = fragment.toBinary();
+        if (binary.length == 0) {
+            return;
+        }
+        uncheckedCall(() -> {
+            stream.write(binary);
+            return null;
+        });
     }
 
     /**
@@ -114,27 +127,21 @@ public class BinaryStreamUtils {
      *         the IOException.
      */
     public static void writeReadingBase(OutputStream stream, ReadingBase readingBase) {
-        byte baseByte = convertBaseToBinary(readingBase.getBase());
-        byte scoreByte = readingBase.getQualityScore().toBinary();
-        byte overallByte = (byte) (baseByte | scoreByte);
+        byte overallByte = readingBase.toBinary();
         uncheckedCall(() -> {
             stream.write(overallByte);
             return null;
         });
     }
 
-    private static byte convertBaseToBinary(Base base) {
-        switch (base) {
-            case A:
-                return 0b00000000;
-            case C:
-                return 0b01000000;
-            case G:
-                return (byte) 0b10000000;
-            case T:
-                return (byte) 0b11000000;
-            default:
-                throw new IllegalStateException("Encountered unexpected value for base: " + base);
-        }
+    /**
+     * Writes a single base to the given output stream, after binning its quality score with the given binning.
+     * 
+     * @throws NullPointerException if readingBase is null.
+     * @throws RuntimeException if writing the stream throws an IOException, where the cause of the RuntimeException is
+     *         the IOException.
+     */
+    public static void writeReadingBase(OutputStream stream, ReadingBase readingBase, QualityBinning binning) {
+        writeReadingBase(stream, binning.bin(readingBase));
     }
 }
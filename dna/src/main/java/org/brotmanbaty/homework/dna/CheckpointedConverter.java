@@ -0,0 +1,328 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * Converts a binary fragment file into a FASTQ file on the calling thread, the same as
+ * {@link Main#convertSequentially(Path, int, Path)}, while recording its progress in a checkpoint file next to the
+ * output, so that a conversion that dies partway through can be resumed rather than started over.
+ *
+ * The input is converted in chunks of about checkpointInterval input bytes. Once a chunk's output has been forced to
+ * disk, a line is appended to the checkpoint file with the number of fragments converted so far, the input and output
+ * offsets that the next chunk starts at, and the CRC32C checksum of the chunk's output. Resuming checks every chunk of
+ * the existing output against its checksum, and continues after the last chunk that is intact, truncating whatever
+ * came after it: a partly written chunk, a torn checkpoint line, or output that was damaged since. The checkpoint file
+ * is kept after the conversion finishes, so that the output can be checked against it later.
+ */
+public class CheckpointedConverter {
+    /** The suffix appended to the output's file name to get the path of its checkpoint file. */
+    public static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    private static final long DEFAULT_CHECKPOINT_INTERVAL = 64L * 1024 * 1024;
+    private static final int BATCH_SIZE = 1024 * 1024;
+    private static final int WRITER_BUFFER_SIZE = 64 * 1024;
+    private static final int VERIFY_BUFFER_SIZE = 1024 * 1024;
+    private static final String BASES_PER_FRAGMENT_HEADER = "#bases_per_fragment\t";
+    private static final String COLUMNS_HEADER = "#fragments\tinput_offset\toutput_offset\tcrc32c";
+
+    private final long checkpointInterval;
+    private final ConversionMetrics metrics;
+
+    private CheckpointedConverter(long checkpointInterval, ConversionMetrics metrics) {
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException(
+                    "checkpointInterval must be greater than 0, but found " + checkpointInterval);
+        }
+        this.checkpointInterval = checkpointInterval;
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /** Creates a converter that checkpoints about every 64 MB of input. */
+    public static CheckpointedConverter of() {
+        return new CheckpointedConverter(DEFAULT_CHECKPOINT_INTERVAL, ConversionMetrics.of());
+    }
+
+    /**
+     * Creates a converter that checkpoints after every chunk of at least checkpointInterval input bytes (and at least
+     * one fragment), recording its conversions in the given metrics.
+     *
+     * @throws IllegalArgumentException if checkpointInterval <= 0
+     */
+    public static CheckpointedConverter of(long checkpointInterval, ConversionMetrics metrics) {
+        return new CheckpointedConverter(checkpointInterval, metrics);
+    }
+
+    /** Returns the path of the checkpoint file for the given output path. */
+    public static Path getCheckpointPath(Path outputPath) {
+        return outputPath.resolveSibling(outputPath.getFileName() + CHECKPOINT_SUFFIX);
+    }
+
+    /** The state of a conversion after a completed chunk. */
+    private static class Checkpoint {
+        private static final Checkpoint START = new Checkpoint(0, 0, 0, 0);
+
+        private final long numFragments;
+        private final long inputOffset;
+        private final long outputOffset;
+        private final long checksum;
+
+        private Checkpoint(long numFragments, long inputOffset, long outputOffset, long checksum) {
+            this.numFragments = numFragments;
+            this.inputOffset = inputOffset;
+            this.outputOffset = outputOffset;
+            this.checksum = checksum;
+        }
+
+        /** Parses a checkpoint line, without its newline, returning null if it's malformed (e.g. torn). */
+        private static Checkpoint parse(String line) {
+            String[] fields = line.split("\t");
+            if (fields.length != 4 || fields[3].length() != 8) {
+                return null;
+            }
+            try {
+                return new Checkpoint(Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                        Long.parseLong(fields[3], 16));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private String toLine() {
+            return String.format("%s\t%s\t%s\t%08x\n", numFragments, inputOffset, outputOffset, checksum);
+        }
+    }
+
+    /**
+     * Converts the input, writing the output and its checkpoint file, neither of which may already exist. Returns the
+     * number of fragments converted.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     * @throws IllegalStateException if the last fragment is truncated, in which case all chunks before it have been
+     *         checkpointed
+     * @throws UncheckedIOException if reading the input or writing the output or the checkpoint file throws an
+     *         IOException, e.g. because one of the outputs already exists, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public long convert(Path inputPath, int numReadingBasesPerFragment, Path outputPath) {
+        requirePositive(numReadingBasesPerFragment);
+        try (FileChannel checkpoints = FileChannel.open(getCheckpointPath(outputPath), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE);
+                FileChannel output = FileChannel.open(outputPath, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE)) {
+            writeLine(checkpoints, BASES_PER_FRAGMENT_HEADER + numReadingBasesPerFragment + "\n");
+            writeLine(checkpoints, COLUMNS_HEADER + "\n");
+            checkpoints.force(false);
+            return convertFrom(Checkpoint.START, inputPath, numReadingBasesPerFragment, output, checkpoints);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Resumes an earlier conversion of the input into the output: the existing output is checked against the
+     * checkpoint file, and the conversion continues after the last intact chunk. If there's no checkpoint file, the
+     * input is converted from the start, as {@link #convert(Path, int, Path)}. Returns the number of fragments
+     * converted by this call, which is 0 if the earlier conversion had already finished.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     * @throws IllegalStateException if the checkpoint file is for a different numReadingBasesPerFragment or is not a
+     *         checkpoint file, if the input is shorter than the last intact chunk says it is, or if the last fragment
+     *         is truncated
+     * @throws UncheckedIOException if reading the input, the output, or the checkpoint file, or writing the output or
+     *         the checkpoint file, throws an IOException, where the cause of the UncheckedIOException is the
+     *         IOException.
+     */
+    public long resume(Path inputPath, int numReadingBasesPerFragment, Path outputPath) {
+        requirePositive(numReadingBasesPerFragment);
+        Path checkpointPath = getCheckpointPath(outputPath);
+        if (!Files.exists(checkpointPath)) {
+            return convert(inputPath, numReadingBasesPerFragment, outputPath);
+        }
+        try (FileChannel checkpoints = FileChannel.open(checkpointPath, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+                FileChannel output = FileChannel.open(outputPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)) {
+            Checkpoint last = verify(checkpointPath, numReadingBasesPerFragment, output, checkpoints);
+            return convertFrom(last, inputPath, numReadingBasesPerFragment, output, checkpoints);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void requirePositive(int numReadingBasesPerFragment) {
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+    }
+
+    /**
+     * Returns the last checkpoint whose chunk, and all chunks before it, match the output, and truncates the checkpoint
+     * file after it, leaving the checkpoint file positioned at its end.
+     */
+    private static Checkpoint verify(Path checkpointPath, int numReadingBasesPerFragment, FileChannel output,
+            FileChannel checkpoints) throws IOException {
+        // Checkpoint lines are short and there's one per chunk, so the whole file fits in memory even for huge inputs
+        String content = new String(Files.readAllBytes(checkpointPath), StandardCharsets.US_ASCII);
+        String expectedHeader = BASES_PER_FRAGMENT_HEADER + numReadingBasesPerFragment;
+        if (!content.startsWith(BASES_PER_FRAGMENT_HEADER)) {
+            throw new IllegalStateException("Expected a checkpoint file at " + checkpointPath);
+        }
+        if (!content.startsWith(expectedHeader + "\n")) {
+            String message = String.format("Expected a checkpoint file for %s bases per fragment at %s, but found %s",
+                    numReadingBasesPerFragment, checkpointPath, content.lines().findFirst().orElse(""));
+            throw new IllegalStateException(message);
+        }
+
+        Checkpoint last = Checkpoint.START;
+        long verifiedLength = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(VERIFY_BUFFER_SIZE);
+        CRC32C checksum = new CRC32C();
+        for (int lineStart = 0, lineEnd; (lineEnd = content.indexOf('\n', lineStart)) >= 0; lineStart = lineEnd + 1) {
+            String line = content.substring(lineStart, lineEnd).strip();
+            if (line.startsWith("#")) {
+                verifiedLength = lineEnd + 1;
+                continue;
+            }
+            Checkpoint checkpoint = Checkpoint.parse(line);
+            if (checkpoint == null || checkpoint.numFragments <= last.numFragments
+                    || checkpoint.inputOffset != checkpoint.numFragments * numReadingBasesPerFragment
+                    || checkpoint.outputOffset < last.outputOffset || checkpoint.outputOffset > output.size()
+                    || computeChecksum(output, last.outputOffset, checkpoint.outputOffset, buffer, checksum)
+                            != checkpoint.checksum) {
+                break;
+            }
+            last = checkpoint;
+            verifiedLength = lineEnd + 1;
+        }
+        checkpoints.truncate(verifiedLength);
+        checkpoints.position(verifiedLength);
+        return last;
+    }
+
+    private static long computeChecksum(FileChannel channel, long start, long end, ByteBuffer buffer,
+            CRC32C checksum) throws IOException {
+        checksum.reset();
+        for (long position = start; position < end;) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IllegalStateException("Output ended while verifying it, at " + position);
+            }
+            buffer.flip();
+            checksum.update(buffer);
+            position += read;
+        }
+        return checksum.getValue();
+    }
+
+    /** Converts the input after the given checkpoint, appending a checkpoint after every chunk. */
+    private long convertFrom(Checkpoint start, Path inputPath, int numReadingBasesPerFragment, FileChannel output,
+            FileChannel checkpoints) throws IOException {
+        output.truncate(start.outputOffset);
+        output.position(start.outputOffset);
+        try (FileChannel input = FileChannel.open(inputPath, StandardOpenOption.READ)) {
+            if (input.size() < start.inputOffset) {
+                String message = String.format("Expected an input of at least %s bytes, as checkpointed, but found %s",
+                        start.inputOffset, input.size());
+                throw new IllegalStateException(message);
+            }
+            input.position(start.inputOffset);
+            try (FragmentReader reader = FragmentReader.of(Channels.newInputStream(input),
+                    numReadingBasesPerFragment)) {
+                // Don't close the writer or these channels, as that would close the output
+                ConversionMetrics.MeteredChannel meteredOutput = metrics.meter(output);
+                ChecksummingChannel checksummedOutput = new ChecksummingChannel(meteredOutput);
+                FastqByteWriter writer = FastqByteWriter.of(checksummedOutput, start.numFragments + 1,
+                        WRITER_BUFFER_SIZE);
+                // Chunks end at batch boundaries, so batches must not be larger than chunks
+                long fragmentsPerChunk = Math.max(1, checkpointInterval / numReadingBasesPerFragment);
+                int fragmentsPerBatch = (int) Math.min(Math.max(1, BATCH_SIZE / numReadingBasesPerFragment),
+                        fragmentsPerChunk);
+                byte[] rawFragments = new byte[fragmentsPerBatch * numReadingBasesPerFragment];
+                long numFragmentsCheckpointed = 0;
+                for (int numFragments; (numFragments = metrics.readRawFragments(reader, rawFragments)) > 0;) {
+                    long decodeStart = System.nanoTime();
+                    long nanosWritingBefore = meteredOutput.getNanosWriting();
+                    for (int i = 0; i < numFragments; ++i) {
+                        writer.writeRawFragment(rawFragments, i * numReadingBasesPerFragment,
+                                numReadingBasesPerFragment);
+                    }
+                    long nanosWriting = meteredOutput.getNanosWriting() - nanosWritingBefore;
+                    metrics.recordDecode(System.nanoTime() - decodeStart - nanosWriting, numFragments,
+                            numReadingBasesPerFragment);
+
+                    if (reader.getNumFragmentsRead() - numFragmentsCheckpointed >= fragmentsPerChunk) {
+                        checkpoint(start.numFragments + reader.getNumFragmentsRead(), numReadingBasesPerFragment,
+                                writer, checksummedOutput, output, checkpoints);
+                        numFragmentsCheckpointed = reader.getNumFragmentsRead();
+                    }
+                }
+                if (reader.getNumFragmentsRead() > numFragmentsCheckpointed) {
+                    checkpoint(start.numFragments + reader.getNumFragmentsRead(), numReadingBasesPerFragment, writer,
+                            checksummedOutput, output, checkpoints);
+                }
+                return reader.getNumFragmentsRead();
+            }
+        }
+    }
+
+    /** Makes the chunk written so far durable, and only then records it in the checkpoint file. */
+    private static void checkpoint(long numFragments, int numReadingBasesPerFragment, FastqByteWriter writer,
+            ChecksummingChannel checksummedOutput, FileChannel output, FileChannel checkpoints) throws IOException {
+        writer.flush();
+        output.force(false);
+        Checkpoint checkpoint = new Checkpoint(numFragments, numFragments * numReadingBasesPerFragment,
+                output.position(), checksummedOutput.checksum.getValue());
+        writeLine(checkpoints, checkpoint.toLine());
+        checkpoints.force(false);
+        checksummedOutput.checksum.reset();
+    }
+
+    private static void writeLine(FileChannel channel, String line) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /** A channel that keeps a running checksum of all bytes written to it. */
+    private static class ChecksummingChannel implements WritableByteChannel {
+        private final WritableByteChannel channel;
+        private final CRC32C checksum = new CRC32C();
+
+        private ChecksummingChannel(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            ByteBuffer written = source.duplicate();
+            int numWritten = channel.write(source);
+            written.limit(written.position() + numWritten);
+            checksum.update(written);
+            return numWritten;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
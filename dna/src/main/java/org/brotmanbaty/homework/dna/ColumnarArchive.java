@@ -0,0 +1,432 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+/**
+ * A compact, randomly accessible archive of the fragments of a binary fragment file. In the binary format, each byte
+ * interleaves a 2-bit base with a 6-bit quality score, which hides the very different statistics of the two from a
+ * compressor. An archive instead stores the fragments in blocks of a fixed number of fragments, each with a sequence
+ * column of 4 bases per byte and a separately compressed column of quality scores (see {@link ColumnarBlockCodec}).
+ * Archives are lossless: extracting one gives back the exact binary fragment file it was created from.
+ *
+ * The file starts with a header: the magic bytes "DNAC", a format version, the number of bases per fragment, the number
+ * of fragments per block, and the number of fragments (as big-endian ints, and a long for the last). The blocks follow,
+ * and then an index of the file offsets of all blocks plus the offset where the last block ends (i.e. where the index
+ * starts), and finally the offset of the index itself. Since every block but the last has the same number of
+ * fragments, the block of any fragment is known from its number, so it can be read with a single lookup in the index.
+ *
+ * Blocks are independent of each other, so they're encoded and decoded concurrently on an ExecutorService. Reading
+ * fragments decodes their whole block, so the most recently decoded blocks are kept in a small LRU cache. As a result,
+ * the archive must not change while it's open. Fragments are numbered from 1, the same as in FASTQ output. This class
+ * is thread safe.
+ */
+public class ColumnarArchive implements Closeable {
+    private static final byte[] MAGIC = "DNAC".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 3 * Integer.BYTES + Long.BYTES;
+    private static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+    private static final int NUM_CACHED_BLOCKS = 4;
+
+    private final FileChannel channel;
+    private final int numReadingBasesPerFragment;
+    private final int fragmentsPerBlock;
+    private final long numFragments;
+    private final long[] blockOffsets;
+    private final Map<Integer, byte[]> blockCache;
+
+    private ColumnarArchive(FileChannel channel, int numReadingBasesPerFragment, int fragmentsPerBlock,
+            long numFragments, long[] blockOffsets) {
+        this.channel = channel;
+        this.numReadingBasesPerFragment = numReadingBasesPerFragment;
+        this.fragmentsPerBlock = fragmentsPerBlock;
+        this.numFragments = numFragments;
+        this.blockOffsets = blockOffsets;
+        // An access-ordered LinkedHashMap that drops its eldest entry is exactly an LRU cache
+        this.blockCache = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
+                return size() > NUM_CACHED_BLOCKS;
+            }
+        };
+    }
+
+    /**
+     * Opens the archive at the given path.
+     *
+     * @throws IllegalStateException if the file is not an archive, or its header or index is malformed
+     * @throws UncheckedIOException if opening or reading the file throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public static ColumnarArchive of(Path path) {
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                return read(channel);
+            } catch (RuntimeException | IOException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ColumnarArchive read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE + 2 * Long.BYTES) {
+            throw new IllegalStateException("Expected an archive of at least " + (HEADER_SIZE + 2 * Long.BYTES)
+                    + " bytes, but found " + size);
+        }
+        ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+        byte[] magic = new byte[MAGIC.length];
+        header.get(magic);
+        int version = header.getInt();
+        if (!Arrays.equals(magic, MAGIC) || version != VERSION) {
+            throw new IllegalStateException("Expected an archive of version " + VERSION + ", but found magic bytes "
+                    + Arrays.toString(magic) + " and version " + version);
+        }
+        int numReadingBasesPerFragment = header.getInt();
+        int fragmentsPerBlock = header.getInt();
+        long numFragments = header.getLong();
+        if (numReadingBasesPerFragment <= 0 || fragmentsPerBlock <= 0 || numFragments < 0
+                || (long) numReadingBasesPerFragment * fragmentsPerBlock > Integer.MAX_VALUE) {
+            String message = String.format("Expected a valid header, but found %s bases per fragment, %s fragments "
+                    + "per block and %s fragments", numReadingBasesPerFragment, fragmentsPerBlock, numFragments);
+            throw new IllegalStateException(message);
+        }
+
+        long numBlocks = (numFragments + fragmentsPerBlock - 1) / fragmentsPerBlock;
+        long indexOffset = readFully(channel, size - Long.BYTES, Long.BYTES).getLong();
+        long indexSize = (numBlocks + 1) * Long.BYTES;
+        if (indexOffset != size - Long.BYTES - indexSize) {
+            throw new IllegalStateException("Expected an index of " + (numBlocks + 1) + " offsets at "
+                    + (size - Long.BYTES - indexSize) + ", but found one at " + indexOffset);
+        }
+        ByteBuffer index = readFully(channel, indexOffset, (int) indexSize);
+        long[] blockOffsets = new long[(int) numBlocks + 1];
+        for (int i = 0; i < blockOffsets.length; ++i) {
+            blockOffsets[i] = index.getLong();
+            long previous = i == 0 ? HEADER_SIZE : blockOffsets[i - 1];
+            if (blockOffsets[i] < previous || blockOffsets[i] - previous > Integer.MAX_VALUE
+                    || (i == 0 && blockOffsets[i] != HEADER_SIZE)) {
+                throw new IllegalStateException("Expected increasing block offsets, but found " + blockOffsets[i]
+                        + " after " + previous);
+            }
+        }
+        if (blockOffsets[blockOffsets.length - 1] != indexOffset) {
+            throw new IllegalStateException("Expected the last block to end at the index, but found it ending at "
+                    + blockOffsets[blockOffsets.length - 1]);
+        }
+        return new ColumnarArchive(channel, numReadingBasesPerFragment, fragmentsPerBlock, numFragments,
+                blockOffsets);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("File ended before byte " + (position + size));
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Creates an archive at archivePath, which must not already exist, from the binary fragment file at inputPath,
+     * with as many fragments per block as fit into about 1 MB of input (but always at least one), with the default
+     * compression level.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     * @throws IllegalStateException if the size of the input file is not a multiple of numReadingBasesPerFragment
+     *         (i.e. the last fragment is truncated). In that case, the archive is not created.
+     * @throws UncheckedIOException if reading the input or writing the archive throws an IOException, or if the calling
+     *         thread is interrupted, where the cause of the UncheckedIOException is the IOException (an
+     *         InterruptedIOException if interrupted).
+     */
+    public static void create(Path inputPath, int numReadingBasesPerFragment, Path archivePath,
+            ExecutorService executor) {
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+        create(inputPath, numReadingBasesPerFragment, archivePath, executor,
+                Math.max(1, DEFAULT_BLOCK_SIZE / numReadingBasesPerFragment), Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Same as {@link #create(Path, int, Path, ExecutorService)}, except that each block has fragmentsPerBlock
+     * fragments (except for the last one, which may have fewer), and the quality columns are compressed with the given
+     * Deflate compression level.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0, if fragmentsPerBlock <= 0, if a block would
+     *         have more than Integer.MAX_VALUE bases, or if compressionLevel is invalid
+     */
+    public static void create(Path inputPath, int numReadingBasesPerFragment, Path archivePath,
+            ExecutorService executor, int fragmentsPerBlock, int compressionLevel) {
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+        if (fragmentsPerBlock <= 0 || (long) fragmentsPerBlock * numReadingBasesPerFragment > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("fragmentsPerBlock must be greater than 0 and hold at most "
+                    + Integer.MAX_VALUE + " bases, but found " + fragmentsPerBlock);
+        }
+        if ((compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)
+                && compressionLevel != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + compressionLevel);
+        }
+
+        try (FileChannel input = FileChannel.open(inputPath, StandardOpenOption.READ)) {
+            long inputSize = input.size();
+            if (inputSize % numReadingBasesPerFragment != 0) {
+                String message = String.format("Expected to find %s base readings per fragment in input, but only "
+                        + "found %s in the last fragment before end of input.", numReadingBasesPerFragment,
+                        inputSize % numReadingBasesPerFragment);
+                throw new IllegalStateException(message);
+            }
+            long numFragments = inputSize / numReadingBasesPerFragment;
+            try (FileChannel output = FileChannel.open(archivePath, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                writeArchive(input, numReadingBasesPerFragment, numFragments, fragmentsPerBlock, compressionLevel,
+                        executor, output);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while creating archive"));
+        }
+    }
+
+    private static void writeArchive(FileChannel input, int numReadingBasesPerFragment, long numFragments,
+            int fragmentsPerBlock, int compressionLevel, ExecutorService executor, FileChannel output)
+            throws IOException, InterruptedException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).put(MAGIC).putInt(VERSION)
+                .putInt(numReadingBasesPerFragment).putInt(fragmentsPerBlock).putLong(numFragments);
+        writeFully(output, header.flip());
+
+        // Each block reads its own range of the input, and the encoded blocks are written in order, with a bounded
+        // number of them in flight so that memory use doesn't depend on the input size
+        int maxBlocksInFlight = 2 * Runtime.getRuntime().availableProcessors();
+        Deque<Future<byte[]>> blocksInFlight = new ArrayDeque<>(maxBlocksInFlight);
+        List<Long> blockOffsets = new ArrayList<>();
+        long offset = HEADER_SIZE;
+        try {
+            for (long first = 0; first < numFragments; first += fragmentsPerBlock) {
+                long firstFragment = first;
+                int blockFragments = (int) Math.min(fragmentsPerBlock, numFragments - first);
+                if (blocksInFlight.size() == maxBlocksInFlight) {
+                    blockOffsets.add(offset);
+                    offset += writeFully(output, ByteBuffer.wrap(await(blocksInFlight.removeFirst())));
+                }
+                blocksInFlight.addLast(executor.submit(() -> {
+                    byte[] rawFragments = new byte[blockFragments * numReadingBasesPerFragment];
+                    readFully(input, firstFragment * numReadingBasesPerFragment, ByteBuffer.wrap(rawFragments));
+                    return ColumnarBlockCodec.encode(rawFragments, blockFragments, numReadingBasesPerFragment,
+                            compressionLevel);
+                }));
+            }
+            while (!blocksInFlight.isEmpty()) {
+                blockOffsets.add(offset);
+                offset += writeFully(output, ByteBuffer.wrap(await(blocksInFlight.removeFirst())));
+            }
+        } finally {
+            blocksInFlight.forEach(block -> block.cancel(true));
+        }
+
+        blockOffsets.add(offset);
+        ByteBuffer index = ByteBuffer.allocate((blockOffsets.size() + 1) * Long.BYTES);
+        blockOffsets.forEach(index::putLong);
+        index.putLong(offset);
+        writeFully(output, index.flip());
+    }
+
+    private static byte[] await(Future<byte[]> block) throws IOException, InterruptedException {
+        try {
+            return block.get();
+        } catch (ExecutionException e) {
+            // Rethrow the block's exception as the calling thread would have thrown it
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void readFully(FileChannel input, long position, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (input.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Input ended before byte " + (position + buffer.limit()));
+            }
+        }
+    }
+
+    private static int writeFully(FileChannel output, ByteBuffer buffer) throws IOException {
+        int size = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+        return size;
+    }
+
+    public int getNumReadingBasesPerFragment() {
+        return numReadingBasesPerFragment;
+    }
+
+    public int getFragmentsPerBlock() {
+        return fragmentsPerBlock;
+    }
+
+    public long getNumFragments() {
+        return numFragments;
+    }
+
+    /**
+     * Returns the fragment with the given number.
+     *
+     * @throws IndexOutOfBoundsException if fragmentNumber is not between 1 and {@link #getNumFragments()}, inclusive.
+     * @throws IllegalStateException if the fragment's block is malformed
+     * @throws UncheckedIOException if reading the file throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public ReadingFragment get(long fragmentNumber) {
+        if (fragmentNumber < 1 || fragmentNumber > numFragments) {
+            String message = String.format("Fragment %s is outside of fragments [1, %s]", fragmentNumber,
+                    numFragments);
+            throw new IndexOutOfBoundsException(message);
+        }
+        int blockIndex = (int) ((fragmentNumber - 1) / fragmentsPerBlock);
+        int start = (int) ((fragmentNumber - 1) % fragmentsPerBlock) * numReadingBasesPerFragment;
+        byte[] rawFragments = getBlock(blockIndex);
+        return ReadingFragment.wrapBinary(Arrays.copyOfRange(rawFragments, start, start + numReadingBasesPerFragment));
+    }
+
+    private byte[] getBlock(int blockIndex) {
+        synchronized (blockCache) {
+            byte[] rawFragments = blockCache.get(blockIndex);
+            if (rawFragments != null) {
+                return rawFragments;
+            }
+        }
+
+        // Decode outside of the lock, so that cache hits don't wait on I/O. Positional reads are safe concurrently.
+        byte[] rawFragments = decodeBlock(blockIndex);
+        synchronized (blockCache) {
+            blockCache.put(blockIndex, rawFragments);
+        }
+        return rawFragments;
+    }
+
+    /** Reads and decodes the block with the given index (from 0) into its raw fragments. */
+    private byte[] decodeBlock(int blockIndex) {
+        int blockFragments = (int) Math.min(fragmentsPerBlock, numFragments - (long) blockIndex * fragmentsPerBlock);
+        int blockLength = (int) (blockOffsets[blockIndex + 1] - blockOffsets[blockIndex]);
+        try {
+            byte[] block = readFully(channel, blockOffsets[blockIndex], blockLength).array();
+            byte[] rawFragments = new byte[blockFragments * numReadingBasesPerFragment];
+            ColumnarBlockCodec.decode(block, 0, blockLength, blockFragments, numReadingBasesPerFragment, rawFragments,
+                    0);
+            return rawFragments;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Extracts the whole archive back into a binary fragment file at outputPath, which must not already exist, decoding
+     * the blocks concurrently on the given executor. The blocks' positions in the output are known up front, so each
+     * one is written there as soon as it's decoded.
+     *
+     * @throws IllegalStateException if a block is malformed
+     * @throws UncheckedIOException if reading the archive or writing the output throws an IOException, or if the
+     *         calling thread is interrupted, where the cause of the UncheckedIOException is the IOException (an
+     *         InterruptedIOException if interrupted). In that case, the output is left incomplete.
+     */
+    public void extract(Path outputPath, ExecutorService executor) {
+        try (FileChannel output = FileChannel.open(outputPath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)) {
+            List<Future<?>> blocks = new ArrayList<>();
+            try {
+                for (int i = 0; i < blockOffsets.length - 1; ++i) {
+                    int blockIndex = i;
+                    long position = (long) blockIndex * fragmentsPerBlock * numReadingBasesPerFragment;
+                    blocks.add(executor.submit(() -> {
+                        // Bypass the cache, as every block is needed exactly once
+                        ByteBuffer rawFragments = ByteBuffer.wrap(decodeBlock(blockIndex));
+                        while (rawFragments.hasRemaining()) {
+                            output.write(rawFragments, position + rawFragments.position());
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> block : blocks) {
+                    block.get();
+                }
+            } finally {
+                // Stop any remaining blocks if one failed, since the output must no longer be written once it's closed
+                for (Future<?> block : blocks) {
+                    block.cancel(true);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while extracting archive"));
+        } catch (ExecutionException e) {
+            // Rethrow the block's exception as the calling thread would have thrown it
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** Returns the size in bytes of the archive file. */
+    public long getSize() {
+        return blockOffsets[blockOffsets.length - 1] + (blockOffsets.length + 1) * Long.BYTES;
+    }
+
+    /**
+     * Closes the archive.
+     *
+     * @throws UncheckedIOException if closing the file throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
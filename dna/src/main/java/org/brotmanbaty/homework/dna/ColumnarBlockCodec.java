@@ -0,0 +1,151 @@
+package org.brotmanbaty.homework.dna;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes a block of raw fragments into the two columns of a {@link ColumnarArchive} block, and back. The sequence
+ * column packs the 2-bit base codes 4 to a byte, with the first base in the highest bits. The quality column holds the
+ * difference (mod 64) between each quality score and the previous one in the same fragment (or 0, for the first base),
+ * since neighbouring scores tend to be close or equal. Runs of zero differences are then collapsed into single tokens,
+ * and the tokens are Deflate-compressed:
+ * <ul>
+ * <li>1 to 63: a single non-zero difference</li>
+ * <li>64 to 255: a run of 1 to 192 zero differences</li>
+ * </ul>
+ * A block is the sequence column followed by the compressed quality column. All methods are thread safe.
+ */
+class ColumnarBlockCodec {
+    private static final int BASE_SHIFT = 6;
+    private static final int QUALITY_MASK = 0b0011_1111;
+    private static final int MAX_DIFFERENCE = 63;
+    private static final int MAX_ZERO_RUN = 255 - MAX_DIFFERENCE;
+
+    private ColumnarBlockCodec() {}
+
+    /** Returns the number of bytes in the sequence column of a block of numBases bases. */
+    static int getSequenceColumnSize(int numBases) {
+        return (numBases + 3) / 4;
+    }
+
+    /**
+     * Encodes numFragments fragments of numReadingBasesPerFragment raw bases each, from the start of rawFragments, into
+     * a block.
+     */
+    static byte[] encode(byte[] rawFragments, int numFragments, int numReadingBasesPerFragment,
+            int compressionLevel) {
+        int numBases = numFragments * numReadingBasesPerFragment;
+        int sequenceColumnSize = getSequenceColumnSize(numBases);
+        byte[] tokens = new byte[numBases];
+        int numTokens = 0;
+        int zeroRun = 0;
+        // Deflate output is at most a little larger than its input, so this is enough for the block in one go
+        byte[] block = new byte[sequenceColumnSize + numBases + numBases / 1000 + 64];
+        for (int fragment = 0; fragment < numFragments; ++fragment) {
+            int previousQuality = 0;
+            for (int i = fragment * numReadingBasesPerFragment; i < (fragment + 1) * numReadingBasesPerFragment; ++i) {
+                int raw = rawFragments[i] & 0xff;
+                block[i >>> 2] |= (byte) ((raw >>> BASE_SHIFT) << (6 - 2 * (i & 3)));
+                int quality = raw & QUALITY_MASK;
+                int difference = (quality - previousQuality) & QUALITY_MASK;
+                previousQuality = quality;
+                if (difference == 0 && zeroRun < MAX_ZERO_RUN) {
+                    ++zeroRun;
+                    continue;
+                }
+                if (zeroRun > 0) {
+                    tokens[numTokens++] = (byte) (MAX_DIFFERENCE + zeroRun);
+                    zeroRun = 0;
+                }
+                if (difference == 0) {
+                    zeroRun = 1;
+                } else {
+                    tokens[numTokens++] = (byte) difference;
+                }
+            }
+        }
+        if (zeroRun > 0) {
+            tokens[numTokens++] = (byte) (MAX_DIFFERENCE + zeroRun);
+        }
+
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            deflater.setInput(tokens, 0, numTokens);
+            deflater.finish();
+            int blockSize = sequenceColumnSize;
+            while (!deflater.finished()) {
+                if (blockSize == block.length) {
+                    block = Arrays.copyOf(block, 2 * block.length);
+                }
+                blockSize += deflater.deflate(block, blockSize, block.length - blockSize);
+            }
+            return Arrays.copyOf(block, blockSize);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decodes the block of numFragments fragments of numReadingBasesPerFragment bases each, which is blockLength bytes
+     * of block starting at blockOffset, into raw fragments, which are written into rawFragments starting at offset.
+     *
+     * @throws IllegalStateException if the block is malformed
+     */
+    static void decode(byte[] block, int blockOffset, int blockLength, int numFragments,
+            int numReadingBasesPerFragment, byte[] rawFragments, int offset) {
+        int numBases = numFragments * numReadingBasesPerFragment;
+        int sequenceColumnSize = getSequenceColumnSize(numBases);
+        if (blockLength < sequenceColumnSize) {
+            throw new IllegalStateException("Expected a block of at least " + sequenceColumnSize + " bytes, but found "
+                    + blockLength);
+        }
+        // One more than the most tokens there can be, so that a column with too many tokens doesn't look complete
+        byte[] tokens = new byte[numBases + 1];
+        int numTokens;
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(block, blockOffset + sequenceColumnSize, blockLength - sequenceColumnSize);
+            numTokens = inflater.inflate(tokens);
+            if (!inflater.finished() || numTokens > numBases) {
+                throw new IllegalStateException("Expected a complete quality column of at most " + numBases
+                        + " tokens");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Expected a Deflate-compressed quality column", e);
+        } finally {
+            inflater.end();
+        }
+
+        int token = 0;
+        int zeroRun = 0;
+        for (int fragment = 0; fragment < numFragments; ++fragment) {
+            int previousQuality = 0;
+            for (int i = fragment * numReadingBasesPerFragment; i < (fragment + 1) * numReadingBasesPerFragment; ++i) {
+                int difference = 0;
+                if (zeroRun > 0) {
+                    --zeroRun;
+                } else {
+                    if (token == numTokens) {
+                        throw new IllegalStateException("Expected quality differences for " + numBases
+                                + " bases, but found only " + i);
+                    }
+                    int value = tokens[token++] & 0xff;
+                    if (value > MAX_DIFFERENCE) {
+                        zeroRun = value - MAX_DIFFERENCE - 1;
+                    } else {
+                        difference = value;
+                    }
+                }
+                int quality = (previousQuality + difference) & QUALITY_MASK;
+                previousQuality = quality;
+                int base = (block[blockOffset + (i >>> 2)] >>> (6 - 2 * (i & 3))) & 0b11;
+                rawFragments[offset + i] = (byte) (base << BASE_SHIFT | quality);
+            }
+        }
+        if (token != numTokens || zeroRun != 0) {
+            throw new IllegalStateException("Expected quality differences for exactly " + numBases + " bases");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A request to convert one binary fragment file with numReadingBasesPerFragment bases per fragment into a FASTQ file.
+ * Jobs are usually read from a manifest file with {@link #readManifest(Path)} and run with {@link BatchConverter}.
+ */
+public class ConversionJob {
+    private final Path inputPath;
+    private final int numReadingBasesPerFragment;
+    private final Path outputPath;
+
+    private ConversionJob(Path inputPath, int numReadingBasesPerFragment, Path outputPath) {
+        this.inputPath = Objects.requireNonNull(inputPath);
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+        this.numReadingBasesPerFragment = numReadingBasesPerFragment;
+        this.outputPath = Objects.requireNonNull(outputPath);
+    }
+
+    /** @throws IllegalArgumentException if numReadingBasesPerFragment <= 0 */
+    public static ConversionJob of(Path inputPath, int numReadingBasesPerFragment, Path outputPath) {
+        return new ConversionJob(inputPath, numReadingBasesPerFragment, outputPath);
+    }
+
+    /**
+     * Reads the jobs listed in the manifest file at the given path, in order. Each line of the manifest describes one
+     * job as three tab-separated fields: the input path, the number of bases per fragment, and the output path.
+     * Relative paths are resolved against the directory containing the manifest. Blank lines and lines starting with
+     * '#' are ignored.
+     *
+     * @throws IllegalArgumentException if any line doesn't describe a valid job. The message includes the line number.
+     * @throws UncheckedIOException if reading the manifest throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public static List<ConversionJob> readManifest(Path manifestPath) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(manifestPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Path directory = manifestPath.toAbsolutePath().getParent();
+        List<ConversionJob> jobs = new ArrayList<>();
+        for (int i = 0; i < lines.size(); ++i) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            try {
+                if (fields.length != 3) {
+                    throw new IllegalArgumentException("Expected 3 tab-separated fields, but found " + fields.length);
+                }
+                jobs.add(of(directory.resolve(fields[0]), Integer.parseInt(fields[1].strip()),
+                        directory.resolve(fields[2])));
+            } catch (IllegalArgumentException e) {
+                String message = String.format("Invalid job on line %s of manifest %s: %s", i + 1, manifestPath,
+                        e.getMessage());
+                throw new IllegalArgumentException(message, e);
+            }
+        }
+        return jobs;
+    }
+
+    public Path getInputPath() {
+        return inputPath;
+    }
+
+    public int getNumReadingBasesPerFragment() {
+        return numReadingBasesPerFragment;
+    }
+
+    public Path getOutputPath() {
+        return outputPath;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(inputPath, numReadingBasesPerFragment, outputPath);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (object instanceof ConversionJob) {
+            ConversionJob other = (ConversionJob) object;
+            return Objects.equals(this.inputPath, other.inputPath)
+                    && this.numReadingBasesPerFragment == other.numReadingBasesPerFragment
+                    && Objects.equals(this.outputPath, other.outputPath);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("<%s, %s, %s>", inputPath, numReadingBasesPerFragment, outputPath);
+    }
+}
@@ -0,0 +1,249 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts what a conversion has done so far and how long each of its stages took, so that a running conversion can be
+ * watched and a slow one can be told apart as I/O bound (reading or writing dominates) or CPU bound (decoding
+ * dominates). The converters record into a metrics object once per batch or write call rather than once per fragment,
+ * and only with uncontended counters, so recording costs nothing noticeable next to the conversion itself. Reads and
+ * writes are also recorded as the JFR events {@link FragmentReadEvent} and {@link FastqWriteEvent}, which cost nothing
+ * unless a flight recording enables them.
+ *
+ * A metrics object may be shared by any number of concurrent conversions, in which case it reports their totals. Its
+ * current values can be read at any time, including through JMX after {@link #registerMBean(String)}.
+ */
+public class ConversionMetrics implements ConversionMetricsMXBean {
+    private static final String MBEAN_DOMAIN = "org.brotmanbaty.homework.dna";
+
+    private final long startNanos;
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder fragmentsConverted = new LongAdder();
+    private final LongAdder basesConverted = new LongAdder();
+    private final LatencyHistogram readLatencies = new LatencyHistogram();
+    private final LatencyHistogram decodeLatencies = new LatencyHistogram();
+    private final LatencyHistogram writeLatencies = new LatencyHistogram();
+
+    private ConversionMetrics(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    /** Creates metrics with all counts at 0, whose rates are measured from now. */
+    public static ConversionMetrics of() {
+        return new ConversionMetrics(System.nanoTime());
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server, under the name
+     * "org.brotmanbaty.homework.dna:type=ConversionMetrics,name=&lt;name&gt;", which is returned.
+     *
+     * @throws IllegalStateException if registering fails, e.g. because the name is already registered
+     */
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName(
+                    MBEAN_DOMAIN + ":type=ConversionMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register conversion metrics as " + name, e);
+        }
+    }
+
+    /** Reads the next batch of raw fragments from the reader, as {@link FragmentReader#readRawFragments(byte[])}. */
+    int readRawFragments(FragmentReader reader, byte[] rawFragments) {
+        FragmentReadEvent event = new FragmentReadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int numFragments = reader.readRawFragments(rawFragments);
+        readLatencies.record(System.nanoTime() - start);
+        event.end();
+
+        long bytes = (long) numFragments * reader.getNumReadingBasesPerFragment();
+        bytesRead.add(bytes);
+        if (event.shouldCommit()) {
+            event.bytes = bytes;
+            event.fragments = numFragments;
+            event.commit();
+        }
+        return numFragments;
+    }
+
+    /** Decodes a batch of raw fragments, as {@link FastqWriterUtils#encodeRawFragments(ByteBuffer, int, int, long)}. */
+    ByteBuffer encodeRawFragments(ByteBuffer rawFragments, int numFragments, int length, long firstFragmentNumber) {
+        long start = System.nanoTime();
+        ByteBuffer fastq = FastqWriterUtils.encodeRawFragments(rawFragments, numFragments, length, firstFragmentNumber);
+        recordDecode(System.nanoTime() - start, numFragments, length);
+        return fastq;
+    }
+
+    /** Records that a batch of numFragments fragments of the given length took the given time to decode. */
+    void recordDecode(long nanos, int numFragments, int length) {
+        decodeLatencies.record(nanos);
+        fragmentsConverted.add(numFragments);
+        basesConverted.add((long) numFragments * length);
+    }
+
+    /**
+     * Returns a channel that writes to the given one, recording every write call. Closing the returned channel closes
+     * the given one.
+     */
+    MeteredChannel meter(WritableByteChannel channel) {
+        return new MeteredChannel(channel);
+    }
+
+    /** A channel that records the writes to it in its metrics, and also keeps its own total time spent writing. */
+    class MeteredChannel implements WritableByteChannel {
+        private final WritableByteChannel channel;
+        private long nanosWriting;
+
+        private MeteredChannel(WritableByteChannel channel) {
+            this.channel = Objects.requireNonNull(channel);
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            FastqWriteEvent event = new FastqWriteEvent();
+            event.begin();
+            long start = System.nanoTime();
+            int written = channel.write(source);
+            long nanos = System.nanoTime() - start;
+            event.end();
+
+            nanosWriting += nanos;
+            writeLatencies.record(nanos);
+            bytesWritten.add(written);
+            if (event.shouldCommit()) {
+                event.bytes = written;
+                event.commit();
+            }
+            return written;
+        }
+
+        /** Returns the total time spent in write calls to this channel, which must only be written by one thread. */
+        long getNanosWriting() {
+            return nanosWriting;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    public LatencyHistogram getReadLatencies() {
+        return readLatencies;
+    }
+
+    public LatencyHistogram getDecodeLatencies() {
+        return decodeLatencies;
+    }
+
+    public LatencyHistogram getWriteLatencies() {
+        return writeLatencies;
+    }
+
+    @Override
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getFragmentsConverted() {
+        return fragmentsConverted.sum();
+    }
+
+    @Override
+    public long getBasesConverted() {
+        return basesConverted.sum();
+    }
+
+    @Override
+    public double getBytesReadPerSecond() {
+        return getBytesRead() / getElapsedSeconds();
+    }
+
+    @Override
+    public double getBytesWrittenPerSecond() {
+        return getBytesWritten() / getElapsedSeconds();
+    }
+
+    @Override
+    public double getFragmentsPerSecond() {
+        return getFragmentsConverted() / getElapsedSeconds();
+    }
+
+    @Override
+    public long getReadLatencyMeanNanos() {
+        return readLatencies.getMeanNanos();
+    }
+
+    @Override
+    public long getReadLatencyP99Nanos() {
+        return readLatencies.getPercentileNanos(99);
+    }
+
+    @Override
+    public long getDecodeLatencyMeanNanos() {
+        return decodeLatencies.getMeanNanos();
+    }
+
+    @Override
+    public long getDecodeLatencyP99Nanos() {
+        return decodeLatencies.getPercentileNanos(99);
+    }
+
+    @Override
+    public long getWriteLatencyMeanNanos() {
+        return writeLatencies.getMeanNanos();
+    }
+
+    @Override
+    public long getWriteLatencyP99Nanos() {
+        return writeLatencies.getPercentileNanos(99);
+    }
+
+    /**
+     * Describes the current values on one line, e.g. for a periodic progress log. The total time of each stage shows
+     * where a conversion spends its time; with concurrent stages, the totals can add up to more than the elapsed time.
+     */
+    @Override
+    public String toString() {
+        double elapsedSeconds = getElapsedSeconds();
+        return String.format("%.1fs: %s fragments (%.0f/s), %s bases, read %.1f MB/s, wrote %.1f MB/s; %s, %s, %s",
+                elapsedSeconds, getFragmentsConverted(), getFragmentsConverted() / elapsedSeconds, getBasesConverted(),
+                getBytesRead() / elapsedSeconds / 1e6, getBytesWritten() / elapsedSeconds / 1e6,
+                describe("read", readLatencies), describe("decode", decodeLatencies),
+                describe("write", writeLatencies));
+    }
+
+    private static String describe(String stage, LatencyHistogram latencies) {
+        return String.format("%s %.2fs total (p50 %.3fms, p99 %.3fms)", stage, latencies.getTotalNanos() / 1e9,
+                latencies.getPercentileNanos(50) / 1e6, latencies.getPercentileNanos(99) / 1e6);
+    }
+}
@@ -0,0 +1,35 @@
+package org.brotmanbaty.homework.dna;
+
+/**
+ * The JMX view of {@link ConversionMetrics}, e.g. for watching a running conversion with JConsole. Latencies are per
+ * batch for reading and decoding, and per write call for writing, in nanoseconds.
+ */
+public interface ConversionMetricsMXBean {
+    double getElapsedSeconds();
+
+    long getBytesRead();
+
+    long getBytesWritten();
+
+    long getFragmentsConverted();
+
+    long getBasesConverted();
+
+    double getBytesReadPerSecond();
+
+    double getBytesWrittenPerSecond();
+
+    double getFragmentsPerSecond();
+
+    long getReadLatencyMeanNanos();
+
+    long getReadLatencyP99Nanos();
+
+    long getDecodeLatencyMeanNanos();
+
+    long getDecodeLatencyP99Nanos();
+
+    long getWriteLatencyMeanNanos();
+
+    long getWriteLatencyP99Nanos();
+}
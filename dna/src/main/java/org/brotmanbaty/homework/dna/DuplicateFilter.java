@@ -0,0 +1,181 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Removes exact duplicate fragments (e.g. PCR or optical duplicates) while converting, so that they don't inflate every
+ * downstream stage. Each fragment's raw bytes are hashed into a 128-bit fingerprint with MurmurHash3, and a fragment is
+ * a duplicate if an earlier fragment in the input had the same fingerprint. Fingerprints can cover the bases and
+ * quality scores of a fragment, or only its bases, in which case the quality bits are masked out before hashing.
+ *
+ * The fingerprints are kept in a {@link FingerprintSet}, outside of the heap, which is sized from the number of
+ * fragments in the input (its size divided by the number of bases per fragment), so it never needs to grow. It takes
+ * up 22 to 43 bytes of direct memory per fragment.
+ *
+ * Duplicates are dropped by default, but can be flagged instead, by writing their records with "duplicate" appended to
+ * the sequence header line, e.g. "@READ_7 duplicate".
+ *
+ * Filters are immutable: {@link #of()} creates one that drops fragments whose bases and quality scores are duplicates,
+ * and each with method returns a modified copy.
+ */
+public class DuplicateFilter {
+    private static final byte[] DUPLICATE_COMMENT = "duplicate".getBytes(StandardCharsets.US_ASCII);
+    private static final long SEQUENCE_MASK = 0xc0c0_c0c0_c0c0_c0c0L;
+    private static final int BATCH_SIZE = 1024 * 1024;
+    private static final VarHandle LITTLE_ENDIAN_LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long C1 = 0x87c3_7b91_1142_53d5L;
+    private static final long C2 = 0x4cf5_ad43_2745_937fL;
+
+    private final boolean sequenceOnly;
+    private final boolean flagging;
+
+    private DuplicateFilter(boolean sequenceOnly, boolean flagging) {
+        this.sequenceOnly = sequenceOnly;
+        this.flagging = flagging;
+    }
+
+    /** Creates a filter that drops fragments whose bases and quality scores are both duplicates. */
+    public static DuplicateFilter of() {
+        return new DuplicateFilter(false, false);
+    }
+
+    /** Returns a copy of this filter that considers only the bases of fragments, ignoring their quality scores. */
+    public DuplicateFilter withSequenceOnly() {
+        return new DuplicateFilter(true, flagging);
+    }
+
+    /** Returns a copy of this filter that keeps duplicates, but flags them in their sequence header lines. */
+    public DuplicateFilter withFlagging() {
+        return new DuplicateFilter(sequenceOnly, true);
+    }
+
+    /**
+     * Converts the binary fragment file at inputPath into FASTQ, which is written to the given channel (which is left
+     * open), dropping or flagging each fragment that duplicates an earlier one. If keepFragmentNumbers is true, the
+     * records keep the numbers of their fragments in the input, so that they can be traced back to it; otherwise,
+     * they're numbered consecutively from 1. Returns the number of duplicates found.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     * @throws IllegalStateException if the last fragment is truncated
+     * @throws UncheckedIOException if reading the input or writing the output throws an IOException, where the cause of
+     *         the UncheckedIOException is the IOException.
+     */
+    public long convert(Path inputPath, int numReadingBasesPerFragment, WritableByteChannel output,
+            boolean keepFragmentNumbers) {
+        try (FragmentReader reader = FragmentReader.of(inputPath, numReadingBasesPerFragment)) {
+            FingerprintSet fingerprints = FingerprintSet.of(Files.size(inputPath) / numReadingBasesPerFragment);
+            // Don't close the writer, as that would close the output
+            FastqByteWriter writer = FastqByteWriter.of(output);
+            int fragmentsPerBatch = Math.max(1, BATCH_SIZE / numReadingBasesPerFragment);
+            byte[] rawFragments = new byte[fragmentsPerBatch * numReadingBasesPerFragment];
+            long mask = sequenceOnly ? SEQUENCE_MASK : -1L;
+            long[] fingerprint = new long[2];
+            long numDuplicates = 0;
+            for (int numFragments; (numFragments = reader.readRawFragments(rawFragments)) > 0;) {
+                long firstFragmentNumber = reader.getNumFragmentsRead() - numFragments + 1;
+                for (int i = 0; i < numFragments; ++i) {
+                    int offset = i * numReadingBasesPerFragment;
+                    fingerprint(rawFragments, offset, numReadingBasesPerFragment, mask, fingerprint);
+                    boolean duplicate = !fingerprints.add(fingerprint[0], fingerprint[1]);
+                    if (duplicate) {
+                        ++numDuplicates;
+                        if (!flagging) {
+                            continue;
+                        }
+                    }
+                    if (keepFragmentNumbers && writer.getNextFragmentNumber() != firstFragmentNumber + i) {
+                        writer.setNextFragmentNumber(firstFragmentNumber + i);
+                    }
+                    writer.writeRawFragment(rawFragments, offset, numReadingBasesPerFragment,
+                            duplicate ? DUPLICATE_COMMENT : null);
+                }
+            }
+            writer.flush();
+            return numDuplicates;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Computes the 128-bit MurmurHash3 (x64 variant, seed 0) of length bytes of rawFragments starting at offset, where
+     * each byte is and-ed with mask first (which repeats the same byte 8 times), and stores its two 64-bit halves in
+     * fingerprint.
+     */
+    static void fingerprint(byte[] rawFragments, int offset, int length, long mask, long[] fingerprint) {
+        long h1 = 0;
+        long h2 = 0;
+        int end = offset + length;
+        int i = offset;
+        for (; i <= end - 2 * Long.BYTES; i += 2 * Long.BYTES) {
+            long k1 = (long) LITTLE_ENDIAN_LONGS.get(rawFragments, i) & mask;
+            long k2 = (long) LITTLE_ENDIAN_LONGS.get(rawFragments, i + Long.BYTES) & mask;
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dc_e729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x3849_5ab5;
+        }
+
+        // The tail of up to 15 bytes, read little-endian into k1 and then k2
+        if (i < end) {
+            long k1 = 0;
+            long k2 = 0;
+            for (int j = end - 1; j >= i; --j) {
+                long value = rawFragments[j] & mask & 0xff;
+                if (j - i >= Long.BYTES) {
+                    k2 = (k2 << 8) | value;
+                } else {
+                    k1 = (k1 << 8) | value;
+                }
+            }
+            if (end - i > Long.BYTES) {
+                h2 ^= mixK2(k2);
+            }
+            h1 ^= mixK1(k1);
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = finalizeHash(h1);
+        h2 = finalizeHash(h2);
+        h1 += h2;
+        h2 += h1;
+        fingerprint[0] = h1;
+        fingerprint[1] = h2;
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long finalizeHash(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51_afd7_ed55_8ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ce_b9fe_1a85_ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("<sequenceOnly %s, flagging %s>", sequenceOnly, flagging);
+    }
+}
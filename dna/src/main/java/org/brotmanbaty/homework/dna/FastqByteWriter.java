@@ -0,0 +1,297 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Writes consecutively-numbered FASTQ records for raw binary fragments straight into a reusable byte buffer, which is
+ * written to a channel whenever it fills up. FASTQ is pure ASCII, so there's no need for Strings or a charset-encoding
+ * Writer: the header prefixes are precomputed bytes, the fragment number is kept as ASCII digits that are incremented
+ * in place, and the bases are decoded with {@link FastqTranscoder}. As a result, nothing is allocated per fragment.
+ *
+ * Fragments of any length can be written, even ones larger than the buffer, in which case the record is written to the
+ * channel in pieces. This class is not thread safe.
+ */
+public class FastqByteWriter implements Closeable, Flushable {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] SEQUENCE_HEADER_PREFIX = "@READ_".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] QUALITY_HEADER_PREFIX = "+READ_".getBytes(StandardCharsets.US_ASCII);
+    // Enough for any positive long (19 digits), plus one more so that incrementing past Long.MAX_VALUE is still safe
+    private static final int MAX_DIGITS = 20;
+    private static final int MIN_BUFFER_SIZE = SEQUENCE_HEADER_PREFIX.length + MAX_DIGITS + 1;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final QualityBinning binning;
+    // The ASCII digits of nextFragmentNumber followed by a newline, right-aligned, so the digits start at firstDigit
+    private final byte[] fragmentNumberLine = new byte[MAX_DIGITS + 1];
+    private int firstDigit;
+    private long nextFragmentNumber;
+
+    private FastqByteWriter(WritableByteChannel channel, long firstFragmentNumber, int bufferSize,
+            QualityBinning binning) {
+        this.channel = Objects.requireNonNull(channel);
+        if (firstFragmentNumber <= 0) {
+            throw new IllegalArgumentException(
+                    "firstFragmentNumber must be greater than 0, but found " + firstFragmentNumber);
+        }
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            String message = String.format("bufferSize must be at least %s, but found %s", MIN_BUFFER_SIZE,
+                    bufferSize);
+            throw new IllegalArgumentException(message);
+        }
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.binning = Objects.requireNonNull(binning);
+        this.nextFragmentNumber = firstFragmentNumber;
+        byte[] digits = String.valueOf(firstFragmentNumber).getBytes(StandardCharsets.US_ASCII);
+        this.firstDigit = MAX_DIGITS - digits.length;
+        System.arraycopy(digits, 0, fragmentNumberLine, firstDigit, digits.length);
+        fragmentNumberLine[MAX_DIGITS] = '\n';
+    }
+
+    /** Creates a writer whose first fragment is numbered 1. */
+    public static FastqByteWriter of(WritableByteChannel channel) {
+        return new FastqByteWriter(channel, 1, DEFAULT_BUFFER_SIZE, QualityBinning.none());
+    }
+
+    /**
+     * Creates a writer whose first fragment is numbered firstFragmentNumber.
+     *
+     * @throws IllegalArgumentException if firstFragmentNumber <= 0
+     */
+    public static FastqByteWriter of(WritableByteChannel channel, long firstFragmentNumber) {
+        return new FastqByteWriter(channel, firstFragmentNumber, DEFAULT_BUFFER_SIZE, QualityBinning.none());
+    }
+
+    /**
+     * Creates a writer whose first fragment is numbered firstFragmentNumber and that buffers up to bufferSize bytes
+     * before writing to the channel.
+     *
+     * @throws IllegalArgumentException if firstFragmentNumber <= 0 or if bufferSize is too small to hold a header line.
+     */
+    public static FastqByteWriter of(WritableByteChannel channel, long firstFragmentNumber, int bufferSize) {
+        return new FastqByteWriter(channel, firstFragmentNumber, bufferSize, QualityBinning.none());
+    }
+
+    /**
+     * Same as {@link #of(WritableByteChannel, long, int)}, except that quality scores are binned with the given
+     * binning as they're decoded.
+     *
+     * @throws IllegalArgumentException if firstFragmentNumber <= 0 or if bufferSize is too small to hold a header line.
+     */
+    public static FastqByteWriter of(WritableByteChannel channel, long firstFragmentNumber, int bufferSize,
+            QualityBinning binning) {
+        return new FastqByteWriter(channel, firstFragmentNumber, bufferSize, binning);
+    }
+
+    /** Returns the number that the next written fragment will have. */
+    public long getNextFragmentNumber() {
+        return nextFragmentNumber;
+    }
+
+    /**
+     * Sets the number that the next written fragment will have, e.g. to skip the numbers of fragments that weren't
+     * written, after which the following fragments are numbered consecutively again.
+     *
+     * @throws IllegalArgumentException if fragmentNumber <= 0
+     */
+    public void setNextFragmentNumber(long fragmentNumber) {
+        if (fragmentNumber <= 0) {
+            throw new IllegalArgumentException("fragmentNumber must be greater than 0, but found " + fragmentNumber);
+        }
+        nextFragmentNumber = fragmentNumber;
+        firstDigit = MAX_DIGITS;
+        for (long remaining = fragmentNumber; remaining != 0; remaining /= 10) {
+            fragmentNumberLine[--firstDigit] = (byte) ('0' + remaining % 10);
+        }
+    }
+
+    /**
+     * Writes the record for the next fragment, where the fragment's bases are given in their raw binary format as
+     * length bytes of rawFragment starting at offset.
+     *
+     * @throws IndexOutOfBoundsException if the range described by offset and length falls outside of rawFragment.
+     * @throws IllegalStateException if the fragment numbers have been exhausted (i.e. exceed Long.MAX_VALUE).
+     * @throws UncheckedIOException if writing the channel throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public void writeRawFragment(byte[] rawFragment, int offset, int length) {
+        writeRawFragment(rawFragment, offset, length, null);
+    }
+
+    /**
+     * Same as {@link #writeRawFragment(byte[], int, int)}, except that the sequence header line ends with a space and
+     * the given comment (unless it's null), e.g. to flag the record. The comment must be ASCII, without newlines.
+     *
+     * @throws IndexOutOfBoundsException if the range described by offset and length falls outside of rawFragment.
+     * @throws IllegalStateException if the fragment numbers have been exhausted (i.e. exceed Long.MAX_VALUE).
+     * @throws UncheckedIOException if writing the channel throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public void writeRawFragment(byte[] rawFragment, int offset, int length, byte[] comment) {
+        if (offset < 0 || length < 0 || offset > rawFragment.length - length) {
+            String message = String.format("Range [%s, %s + %s) is outside of array of length %s", offset, offset,
+                    length, rawFragment.length);
+            throw new IndexOutOfBoundsException(message);
+        }
+        requireFragmentNumbersRemain();
+
+        if (comment == null) {
+            putHeaderLine(SEQUENCE_HEADER_PREFIX);
+        } else {
+            putCommentedHeaderLine(SEQUENCE_HEADER_PREFIX, comment);
+        }
+        for (int done = 0; done < length;) {
+            int numToDecode = Math.min(length - done, ensureRemaining(1));
+            FastqTranscoder.decodeSequence(rawFragment, offset + done, buffer.array(), buffer.position(), numToDecode);
+            buffer.position(buffer.position() + numToDecode);
+            done += numToDecode;
+        }
+        putNewline();
+        putHeaderLine(QUALITY_HEADER_PREFIX);
+        for (int done = 0; done < length;) {
+            int numToDecode = Math.min(length - done, ensureRemaining(1));
+            FastqTranscoder.decodeQuality(binning, rawFragment, offset + done, buffer.array(), buffer.position(),
+                    numToDecode);
+            buffer.position(buffer.position() + numToDecode);
+            done += numToDecode;
+        }
+        putNewline();
+        incrementFragmentNumber();
+    }
+
+    /**
+     * Writes the record for the next fragment, where the fragment's bases are given in their raw binary format as the
+     * next length bytes of rawFragment. The position of rawFragment is advanced by length.
+     *
+     * @throws BufferUnderflowException if rawFragment has fewer than length bytes remaining.
+     * @throws IllegalStateException if the fragment numbers have been exhausted (i.e. exceed Long.MAX_VALUE).
+     * @throws UncheckedIOException if writing the channel throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public void writeRawFragment(ByteBuffer rawFragment, int length) {
+        if (length < 0 || rawFragment.remaining() < length) {
+            throw new BufferUnderflowException();
+        }
+        requireFragmentNumbersRemain();
+
+        int start = rawFragment.position();
+        putHeaderLine(SEQUENCE_HEADER_PREFIX);
+        for (int done = 0; done < length;) {
+            int numToDecode = Math.min(length - done, ensureRemaining(1));
+            FastqTranscoder.decodeSequence(rawFragment, buffer, numToDecode);
+            done += numToDecode;
+        }
+        putNewline();
+        rawFragment.position(start);
+        putHeaderLine(QUALITY_HEADER_PREFIX);
+        for (int done = 0; done < length;) {
+            int numToDecode = Math.min(length - done, ensureRemaining(1));
+            FastqTranscoder.decodeQuality(binning, rawFragment, buffer, numToDecode);
+            done += numToDecode;
+        }
+        putNewline();
+        incrementFragmentNumber();
+    }
+
+    private void requireFragmentNumbersRemain() {
+        if (nextFragmentNumber <= 0) {
+            throw new IllegalStateException("Fragment numbers have been exhausted");
+        }
+    }
+
+    private void putHeaderLine(byte[] prefix) {
+        int numDigitsAndNewline = fragmentNumberLine.length - firstDigit;
+        ensureRemaining(prefix.length + numDigitsAndNewline);
+        buffer.put(prefix);
+        buffer.put(fragmentNumberLine, firstDigit, numDigitsAndNewline);
+    }
+
+    private void putCommentedHeaderLine(byte[] prefix, byte[] comment) {
+        // Leave out the newline after the digits, and then put the comment in pieces, as it may not fit the buffer
+        int numDigits = fragmentNumberLine.length - 1 - firstDigit;
+        ensureRemaining(prefix.length + numDigits + 1);
+        buffer.put(prefix);
+        buffer.put(fragmentNumberLine, firstDigit, numDigits);
+        buffer.put((byte) ' ');
+        for (int done = 0; done < comment.length;) {
+            int numToPut = Math.min(comment.length - done, ensureRemaining(1));
+            buffer.put(comment, done, numToPut);
+            done += numToPut;
+        }
+        putNewline();
+    }
+
+    private void putNewline() {
+        ensureRemaining(1);
+        buffer.put((byte) '\n');
+    }
+
+    /** Makes sure the buffer has at least minRemaining bytes free, flushing it if not, and returns the free bytes. */
+    private int ensureRemaining(int minRemaining) {
+        if (buffer.remaining() < minRemaining) {
+            flushBuffer();
+        }
+        return buffer.remaining();
+    }
+
+    private void incrementFragmentNumber() {
+        ++nextFragmentNumber;
+        // Increment the ASCII digits directly, carrying into more significant digits like by hand
+        for (int i = MAX_DIGITS - 1; i >= firstDigit; --i) {
+            if (fragmentNumberLine[i] != '9') {
+                ++fragmentNumberLine[i];
+                return;
+            }
+            fragmentNumberLine[i] = '0';
+        }
+        --firstDigit;
+        fragmentNumberLine[firstDigit] = '1';
+    }
+
+    private void flushBuffer() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Writes any buffered records to the channel.
+     *
+     * @throws UncheckedIOException if writing the channel throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    @Override
+    public void flush() {
+        flushBuffer();
+    }
+
+    /**
+     * Writes any buffered records to the channel and then closes it.
+     *
+     * @throws UncheckedIOException if writing or closing the channel throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    @Override
+    public void close() {
+        try (channel) {
+            flushBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
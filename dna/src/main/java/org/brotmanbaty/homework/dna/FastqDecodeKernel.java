@@ -0,0 +1,13 @@
+package org.brotmanbaty.homework.dna;
+
+/**
+ * Decodes runs of raw binary base readings into FASTQ characters many bytes at a time, for {@link FastqTranscoder}.
+ * Ranges are checked by the caller.
+ */
+interface FastqDecodeKernel {
+    /** Decodes length binary base readings into their sequence characters, A, C, G or T. */
+    void decodeSequence(byte[] source, int sourceOffset, byte[] destination, int destinationOffset, int length);
+
+    /** Decodes length binary base readings into their (unbinned) quality characters. */
+    void decodeQuality(byte[] source, int sourceOffset, byte[] destination, int destinationOffset, int length);
+}
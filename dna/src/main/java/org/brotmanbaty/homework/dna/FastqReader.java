@@ -0,0 +1,159 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Reads FASTQ records of numReadingBasesPerFragment bases from a stream and encodes them back into raw binary
+ * fragments, which is the reverse of what {@link FastqByteWriter} does. The stream is read in large chunks into a
+ * reusable buffer, and records are parsed straight out of that buffer, so nothing is allocated per record.
+ *
+ * Every record is validated: its header lines must start with '@' and '+', its sequence and quality lines must have
+ * exactly numReadingBasesPerFragment characters, and every character must be a valid base or quality score. If not,
+ * an IllegalStateException is thrown, whose message contains the byte offset of the problem. This class is not thread
+ * safe.
+ */
+public class FastqReader implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private final InputStream stream;
+    private final int numReadingBasesPerFragment;
+    private byte[] buffer;
+    // The buffer holds bytes [bufferPosition, bufferLimit) that have been read from the stream but not yet parsed
+    private int bufferPosition;
+    private int bufferLimit;
+    // The offset in the stream of the start of the buffer, for error messages
+    private long bufferOffset;
+    private boolean endOfStream;
+    private long numFragmentsRead;
+
+    private FastqReader(InputStream stream, int numReadingBasesPerFragment) {
+        this.stream = Objects.requireNonNull(stream);
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+        this.numReadingBasesPerFragment = numReadingBasesPerFragment;
+        this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Creates a reader for the given stream, which the reader takes ownership of (i.e. closing the reader closes the
+     * stream). The stream does not need to be buffered.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     */
+    public static FastqReader of(InputStream stream, int numReadingBasesPerFragment) {
+        return new FastqReader(stream, numReadingBasesPerFragment);
+    }
+
+    public int getNumReadingBasesPerFragment() {
+        return numReadingBasesPerFragment;
+    }
+
+    /** Returns how many fragments this reader has read so far. */
+    public long getNumFragmentsRead() {
+        return numFragmentsRead;
+    }
+
+    /**
+     * Reads the next record into rawFragment as one raw binary fragment, returning false if the stream is already at
+     * the end.
+     *
+     * @throws IllegalArgumentException if rawFragment can't hold a single fragment.
+     * @throws IllegalStateException if the record is malformed or the stream ends partway through it.
+     * @throws UncheckedIOException if reading the stream throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public boolean readRawFragment(byte[] rawFragment) {
+        if (rawFragment.length < numReadingBasesPerFragment) {
+            String message = String.format("rawFragment must hold at least %s bytes, but has only %s",
+                    numReadingBasesPerFragment, rawFragment.length);
+            throw new IllegalArgumentException(message);
+        }
+        return readRawFragment(rawFragment, 0);
+    }
+
+    /**
+     * Reads as many records as fit into rawFragments (i.e. rawFragments.length / numReadingBasesPerFragment of them) as
+     * raw binary fragments, stopping early only if the stream ends. Returns the number of fragments read, which is 0
+     * only if the stream is already at the end (or rawFragments can't hold a single fragment).
+     *
+     * @throws IllegalStateException if a record is malformed or the stream ends partway through one.
+     * @throws UncheckedIOException if reading the stream throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public int readRawFragments(byte[] rawFragments) {
+        int maxFragments = rawFragments.length / numReadingBasesPerFragment;
+        int numFragments = 0;
+        while (numFragments < maxFragments
+                && readRawFragment(rawFragments, numFragments * numReadingBasesPerFragment)) {
+            ++numFragments;
+        }
+        return numFragments;
+    }
+
+    private boolean readRawFragment(byte[] destination, int destinationOffset) {
+        while (true) {
+            if (bufferPosition == bufferLimit && !fillBuffer()) {
+                return false;
+            }
+            ByteBuffer input = ByteBuffer.wrap(buffer, 0, bufferLimit);
+            int end = FastqRecordParser.parseRecord(input, bufferPosition, endOfStream, bufferOffset,
+                    numReadingBasesPerFragment, destination, destinationOffset);
+            if (end != FastqRecordParser.INCOMPLETE) {
+                bufferPosition = end;
+                ++numFragmentsRead;
+                return true;
+            }
+            fillBuffer();
+        }
+    }
+
+    /**
+     * Moves any unparsed bytes to the start of the buffer (growing it if they fill it entirely) and reads more from the
+     * stream after them. Returns false if the buffer is empty and the stream has ended.
+     */
+    private boolean fillBuffer() {
+        int numUnparsed = bufferLimit - bufferPosition;
+        if (bufferPosition == 0 && bufferLimit == buffer.length) {
+            // Only possible for records longer than the buffer, which is limited by the maximum record length
+            buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+        } else {
+            System.arraycopy(buffer, bufferPosition, buffer, 0, numUnparsed);
+        }
+        bufferOffset += bufferPosition;
+        bufferPosition = 0;
+        bufferLimit = numUnparsed;
+        if (!endOfStream) {
+            try {
+                int numRead = stream.readNBytes(buffer, bufferLimit, buffer.length - bufferLimit);
+                bufferLimit += numRead;
+                endOfStream = bufferLimit < buffer.length;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return bufferLimit > 0;
+    }
+
+    /**
+     * Closes the underlying stream.
+     *
+     * @throws UncheckedIOException if closing the stream throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    @Override
+    public void close() {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
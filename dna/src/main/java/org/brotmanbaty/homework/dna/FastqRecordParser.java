@@ -0,0 +1,239 @@
+package org.brotmanbaty.homework.dna;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parses FASTQ records of a known number of bases directly out of bytes, encoding each back into its raw binary format
+ * with {@link FastqTranscoder}. Records consist of a header line starting with '@', a sequence line, a line starting
+ * with '+', and a quality line, where each line ends with "\n" or "\r\n" (or, for the last line, the end of the input).
+ * Header contents aren't interpreted, so the fragment numbers written by {@link FastqWriterUtils} are not required.
+ *
+ * Buffers are always accessed with absolute indexes, so their positions are left unchanged.
+ */
+class FastqRecordParser {
+    /** Returned when the input ends partway through a record that may still be completed by more input. */
+    static final int INCOMPLETE = -1;
+    /** The longest header line (excluding its line ending) that will be accepted. */
+    static final int MAX_HEADER_LENGTH = 64 * 1024;
+    private static final int NOT_A_RECORD = -2;
+
+    private FastqRecordParser() {}
+
+    /**
+     * Returns the maximum number of bytes that a record with numReadingBases bases can take up, including line endings.
+     */
+    static long getMaxRecordLength(int numReadingBases) {
+        return 2 * (MAX_HEADER_LENGTH + 2L) + 2 * (numReadingBases + 2L);
+    }
+
+    /**
+     * Parses the record starting at index start of input, whose data ends at its limit, writing the numReadingBases
+     * bases to destination at destinationOffset. Returns the index right after the record, or {@link #INCOMPLETE} if
+     * the record doesn't end before the limit and endOfInput is false (i.e. more input could complete it).
+     *
+     * @param inputOffset the offset of input's index 0 within the whole input, used only for error messages.
+     * @throws IllegalStateException if the record is malformed, or if it's truncated and endOfInput is true.
+     */
+    static int parseRecord(ByteBuffer input, int start, boolean endOfInput, long inputOffset, int numReadingBases,
+            byte[] destination, int destinationOffset) {
+        int sequenceStart = findNextLineStart(input, start, endOfInput, inputOffset, '@');
+        if (sequenceStart == INCOMPLETE) {
+            return INCOMPLETE;
+        }
+        int plusStart = findEndOfFixedLine(input, sequenceStart, endOfInput, inputOffset, numReadingBases);
+        if (plusStart == INCOMPLETE) {
+            return INCOMPLETE;
+        }
+        int qualityStart = findNextLineStart(input, plusStart, endOfInput, inputOffset, '+');
+        if (qualityStart == INCOMPLETE) {
+            return INCOMPLETE;
+        }
+        int end = findEndOfFixedLine(input, qualityStart, endOfInput, inputOffset, numReadingBases);
+        if (end == INCOMPLETE) {
+            return INCOMPLETE;
+        }
+
+        try {
+            FastqTranscoder.encode(input, sequenceStart, qualityStart, destination, destinationOffset,
+                    numReadingBases);
+        } catch (IllegalArgumentException e) {
+            throw malformed(inputOffset + start, e.getMessage(), e);
+        }
+        return end;
+    }
+
+    /**
+     * Returns the index of the first record that starts at or after index from, where from must itself be the start of
+     * a line. Returns {@link #INCOMPLETE} if no record starts before the limit and endOfInput is false, and returns the
+     * limit if no record starts before the limit but endOfInput is true.
+     *
+     * A line is only accepted as the start of a record if it starts with '@', the next line has exactly
+     * numReadingBases sequence characters, and the line after that starts with '+'. Quality lines can also start with
+     * '@', but are followed by a header line, which can never pass as a sequence line. So, for valid input, the result
+     * is always a real record boundary.
+     *
+     * @throws IllegalStateException if no record is found within a few maximum record lengths of from, which can only
+     *         happen for malformed input.
+     */
+    static int findRecordStart(ByteBuffer input, int from, boolean endOfInput, long inputOffset,
+            int numReadingBases) {
+        int limit = input.limit();
+        long searchLimit = from + 2 * getMaxRecordLength(numReadingBases);
+        for (int lineStart = from; lineStart < limit;) {
+            if (lineStart > searchLimit) {
+                throw malformed(inputOffset + from, "Failed to find the start of any record", null);
+            }
+            if (input.get(lineStart) == '@') {
+                int result = checkRecordStart(input, lineStart, endOfInput, numReadingBases);
+                if (result != NOT_A_RECORD) {
+                    return result;
+                }
+            }
+            int newline = indexOfNewline(input, lineStart, limit);
+            if (newline < 0) {
+                break;
+            }
+            lineStart = newline + 1;
+        }
+        return endOfInput ? limit : INCOMPLETE;
+    }
+
+    /**
+     * Returns lineStart if the line starting there begins a record, {@link #NOT_A_RECORD} if it doesn't, or
+     * {@link #INCOMPLETE} if there's not enough input to tell yet.
+     */
+    private static int checkRecordStart(ByteBuffer input, int lineStart, boolean endOfInput, int numReadingBases) {
+        int limit = input.limit();
+        int notEnoughInput = endOfInput ? NOT_A_RECORD : INCOMPLETE;
+        int headerEnd = indexOfNewline(input, lineStart, limit);
+        if (headerEnd < 0) {
+            return notEnoughInput;
+        }
+        int sequenceStart = headerEnd + 1;
+        int sequenceEnd = sequenceStart + numReadingBases;
+        if (sequenceEnd >= limit) {
+            return notEnoughInput;
+        }
+        for (int i = sequenceStart; i < sequenceEnd; ++i) {
+            byte b = input.get(i);
+            if (b != 'A' && b != 'C' && b != 'G' && b != 'T') {
+                return NOT_A_RECORD;
+            }
+        }
+        int plusStart = skipLineEnding(input, sequenceEnd, limit);
+        if (plusStart == INCOMPLETE || plusStart == limit) {
+            return notEnoughInput;
+        }
+        if (plusStart == NOT_A_RECORD) {
+            return NOT_A_RECORD;
+        }
+        return input.get(plusStart) == '+' ? lineStart : NOT_A_RECORD;
+    }
+
+    /**
+     * Checks that the line at lineStart begins with the given character and returns the start of the next line, or
+     * {@link #INCOMPLETE} if the line doesn't end before the limit and endOfInput is false.
+     */
+    private static int findNextLineStart(ByteBuffer input, int lineStart, boolean endOfInput, long inputOffset,
+            char firstCharacter) {
+        int limit = input.limit();
+        if (lineStart >= limit) {
+            if (endOfInput) {
+                throw truncated(inputOffset + lineStart);
+            }
+            return INCOMPLETE;
+        }
+        if (input.get(lineStart) != firstCharacter) {
+            String message = String.format("Expected line to start with '%s', but found character %s",
+                    firstCharacter, input.get(lineStart) & 0xFF);
+            throw malformed(inputOffset + lineStart, message, null);
+        }
+        int newline = indexOfNewline(input, lineStart, limit);
+        if (newline < 0) {
+            if (limit - lineStart > MAX_HEADER_LENGTH) {
+                String message = String.format("Header line is longer than %s characters", MAX_HEADER_LENGTH);
+                throw malformed(inputOffset + lineStart, message, null);
+            }
+            if (endOfInput) {
+                throw truncated(inputOffset + limit);
+            }
+            return INCOMPLETE;
+        }
+        if (newline - lineStart > MAX_HEADER_LENGTH) {
+            String message = String.format("Header line is longer than %s characters", MAX_HEADER_LENGTH);
+            throw malformed(inputOffset + lineStart, message, null);
+        }
+        return newline + 1;
+    }
+
+    /**
+     * Checks that the line at lineStart has exactly length characters and returns the start of the next line (or the
+     * limit, if the line is the last one in the input), or {@link #INCOMPLETE} if the line doesn't end before the limit
+     * and endOfInput is false.
+     */
+    private static int findEndOfFixedLine(ByteBuffer input, int lineStart, boolean endOfInput, long inputOffset,
+            int length) {
+        int limit = input.limit();
+        int lineEnd = lineStart + length;
+        if (lineEnd >= limit) {
+            if (!endOfInput) {
+                return INCOMPLETE;
+            }
+            if (lineEnd == limit) {
+                return limit;
+            }
+            throw truncated(inputOffset + limit);
+        }
+        int nextLineStart = skipLineEnding(input, lineEnd, limit);
+        if (nextLineStart == INCOMPLETE) {
+            if (!endOfInput) {
+                return INCOMPLETE;
+            }
+            throw truncated(inputOffset + limit);
+        }
+        if (nextLineStart == NOT_A_RECORD) {
+            int lineLength = indexOfNewline(input, lineStart, limit) - lineStart;
+            String message = lineLength < 0
+                    ? String.format("Expected line of %s characters, but found a longer one", length)
+                    : String.format("Expected line of %s characters, but found %s", length, lineLength);
+            throw malformed(inputOffset + lineStart, message, null);
+        }
+        return nextLineStart;
+    }
+
+    /**
+     * Returns the index after the line ending at index, {@link #INCOMPLETE} if the input ends partway through a "\r\n"
+     * line ending, or {@link #NOT_A_RECORD} if there's no line ending at index.
+     */
+    private static int skipLineEnding(ByteBuffer input, int index, int limit) {
+        byte b = input.get(index);
+        if (b == '\n') {
+            return index + 1;
+        }
+        if (b == '\r') {
+            if (index + 1 == limit) {
+                return INCOMPLETE;
+            }
+            return input.get(index + 1) == '\n' ? index + 2 : NOT_A_RECORD;
+        }
+        return NOT_A_RECORD;
+    }
+
+    private static int indexOfNewline(ByteBuffer input, int from, int limit) {
+        for (int i = from; i < limit; ++i) {
+            if (input.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static IllegalStateException truncated(long offset) {
+        return malformed(offset, "Input ended partway through a record", null);
+    }
+
+    private static IllegalStateException malformed(long offset, String reason, Throwable cause) {
+        String message = String.format("Malformed FASTQ record at byte %s: %s", offset, reason);
+        return new IllegalStateException(message, cause);
+    }
+}
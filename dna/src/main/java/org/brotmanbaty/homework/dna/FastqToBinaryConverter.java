@@ -0,0 +1,262 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Converts a FASTQ file back into a binary fragment file, which takes up about half the space. The conversion can
+ * either be done sequentially, with a {@link FastqReader}, or in parallel.
+ *
+ * Unlike binary fragments, FASTQ records don't have a fixed size, so a parallel conversion can't split the input into
+ * record-aligned chunks up front. Instead, the input is split at arbitrary offsets, and each chunk finds the first
+ * record that starts within it (see {@link FastqRecordParser#findRecordStart}) and converts the records that start
+ * within it, reading past its end to finish the last one. The chunks are converted concurrently on a ForkJoinPool and
+ * then written to the output in their original order, checking along the way that each chunk picked up exactly where
+ * the previous one left off.
+ */
+public class FastqToBinaryConverter {
+    private static final int DEFAULT_TARGET_CHUNK_BYTES = 8 * 1024 * 1024;
+    private static final int BATCH_SIZE = 1024 * 1024;
+    // Individual mappings are limited to Integer.MAX_VALUE bytes, so larger inputs are mapped one region at a time
+    private static final long MAX_MAPPED_REGION_BYTES = 1024 * 1024 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int targetChunkBytes;
+
+    private FastqToBinaryConverter(ForkJoinPool pool, int targetChunkBytes) {
+        this.pool = Objects.requireNonNull(pool);
+        if (targetChunkBytes <= 0) {
+            throw new IllegalArgumentException(
+                    "targetChunkBytes must be greater than 0, but found " + targetChunkBytes);
+        }
+        this.targetChunkBytes = targetChunkBytes;
+    }
+
+    /** Creates a converter that runs on the given pool using a default chunk size of a few MB. */
+    public static FastqToBinaryConverter of(ForkJoinPool pool) {
+        return new FastqToBinaryConverter(pool, DEFAULT_TARGET_CHUNK_BYTES);
+    }
+
+    /**
+     * Creates a converter that runs on the given pool, where each chunk of work covers targetChunkBytes of the input.
+     *
+     * @throws IllegalArgumentException if targetChunkBytes <= 0
+     */
+    public static FastqToBinaryConverter of(ForkJoinPool pool, int targetChunkBytes) {
+        return new FastqToBinaryConverter(pool, targetChunkBytes);
+    }
+
+    /**
+     * Converts the FASTQ file at inputPath into a binary fragment file at outputPath, which must not already exist, on
+     * the calling thread.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     * @throws IllegalStateException if the input is not a valid FASTQ file of numReadingBasesPerFragment bases per
+     *         record. In that case, the output file may contain some of the fragments.
+     * @throws UncheckedIOException if reading the input or writing the output throws an IOException, where the cause of
+     *         the UncheckedIOException is the IOException.
+     */
+    public static void convertSequentially(Path inputPath, int numReadingBasesPerFragment, Path outputPath) {
+        requirePositive(numReadingBasesPerFragment);
+        try (FastqReader reader = FastqReader.of(Files.newInputStream(inputPath), numReadingBasesPerFragment);
+                FileChannel output = FileChannel.open(outputPath, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE)) {
+            int fragmentsPerBatch = Math.max(1, BATCH_SIZE / numReadingBasesPerFragment);
+            byte[] rawFragments = new byte[fragmentsPerBatch * numReadingBasesPerFragment];
+            for (int numFragments; (numFragments = reader.readRawFragments(rawFragments)) > 0;) {
+                writeFully(output, ByteBuffer.wrap(rawFragments, 0, numFragments * numReadingBasesPerFragment));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Converts the FASTQ file at inputPath into a binary fragment file at outputPath, which must not already exist. The
+     * output is identical to {@link #convertSequentially(Path, int, Path)}.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0, or if it's so large that a chunk and its
+     *         longest possible record can't be mapped into memory together.
+     * @throws IllegalStateException if the input is not a valid FASTQ file of numReadingBasesPerFragment bases per
+     *         record. In that case, the output file may contain some of the fragments.
+     * @throws UncheckedIOException if reading the input or writing the output throws an IOException, where the cause of
+     *         the UncheckedIOException is the IOException.
+     */
+    public void convert(Path inputPath, int numReadingBasesPerFragment, Path outputPath) {
+        requirePositive(numReadingBasesPerFragment);
+        // A chunk needs to see far enough past its end to both find its first record and finish its last one
+        long overlap = 2 * FastqRecordParser.getMaxRecordLength(numReadingBasesPerFragment);
+        if (targetChunkBytes + overlap > MAX_MAPPED_REGION_BYTES) {
+            String message = String.format("Chunks of %s bytes with records of %s bases are too large to map",
+                    targetChunkBytes, numReadingBasesPerFragment);
+            throw new IllegalArgumentException(message);
+        }
+
+        try (FileChannel input = FileChannel.open(inputPath, StandardOpenOption.READ);
+                FileChannel output = FileChannel.open(outputPath, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE)) {
+            convert(input, numReadingBasesPerFragment, overlap, output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void requirePositive(int numReadingBasesPerFragment) {
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+    }
+
+    private void convert(FileChannel input, int numReadingBasesPerFragment, long overlap, WritableByteChannel output)
+            throws IOException {
+        long inputSize = input.size();
+        // Bound the number of converted-but-unwritten chunks, so that memory use doesn't depend on the input size
+        int maxChunksInFlight = 2 * pool.getParallelism();
+
+        Deque<ForkJoinTask<ConvertedChunk>> chunksInFlight = new ArrayDeque<>(maxChunksInFlight);
+        long expectedNextRecordStart = 0;
+        try {
+            long regionBytes = Math.max(1, MAX_MAPPED_REGION_BYTES / targetChunkBytes) * targetChunkBytes;
+            for (long regionStart = 0; regionStart < inputSize; regionStart += regionBytes) {
+                // Regions overlap, so that every chunk's window fits within its region's mapping. The window starts
+                // one byte before the chunk, so that the chunk's first line start can be recognized.
+                long mappingStart = Math.max(0, regionStart - 1);
+                long mappingEnd = Math.min(inputSize, regionStart + regionBytes + overlap);
+                ByteBuffer mapping = input.map(MapMode.READ_ONLY, mappingStart, mappingEnd - mappingStart);
+
+                long regionEnd = Math.min(inputSize, regionStart + regionBytes);
+                for (long chunkStart = regionStart; chunkStart < regionEnd; chunkStart += targetChunkBytes) {
+                    long chunkEnd = Math.min(inputSize, chunkStart + targetChunkBytes);
+                    long windowStart = Math.max(0, chunkStart - 1);
+                    long windowEnd = Math.min(inputSize, chunkEnd + overlap);
+                    ByteBuffer window = mapping.duplicate()
+                            .position((int) (windowStart - mappingStart))
+                            .limit((int) (windowEnd - mappingStart))
+                            .slice();
+                    boolean endOfInput = windowEnd == inputSize;
+                    long start = chunkStart;
+                    if (chunksInFlight.size() == maxChunksInFlight) {
+                        expectedNextRecordStart = writeChunk(input, numReadingBasesPerFragment, output,
+                                chunksInFlight.removeFirst().join(), expectedNextRecordStart);
+                    }
+                    chunksInFlight.addLast(pool.submit(() -> convertChunk(window, windowStart, endOfInput, start,
+                            chunkEnd, numReadingBasesPerFragment)));
+                }
+            }
+
+            while (!chunksInFlight.isEmpty()) {
+                expectedNextRecordStart = writeChunk(input, numReadingBasesPerFragment, output,
+                        chunksInFlight.removeFirst().join(), expectedNextRecordStart);
+            }
+        } finally {
+            chunksInFlight.forEach(chunk -> chunk.cancel(true));
+        }
+        requireContiguous(input, numReadingBasesPerFragment, expectedNextRecordStart, inputSize);
+    }
+
+    /**
+     * Converts the records starting within [chunkStart, chunkEnd) of the input, given a window of the input that
+     * starts at windowStart (right before chunkStart) and extends far enough past chunkEnd to finish the last record.
+     */
+    private static ConvertedChunk convertChunk(ByteBuffer window, long windowStart, boolean endOfInput,
+            long chunkStart, long chunkEnd, int numReadingBasesPerFragment) {
+        int firstRecordStart = 0;
+        if (chunkStart > 0) {
+            // The window starts at the byte before the chunk, so the first whole line in the chunk follows a newline
+            int lineStart = 0;
+            while (lineStart < window.limit() && window.get(lineStart) != '\n') {
+                ++lineStart;
+            }
+            firstRecordStart = FastqRecordParser.findRecordStart(window, Math.min(lineStart + 1, window.limit()),
+                    endOfInput, windowStart, numReadingBasesPerFragment);
+            if (firstRecordStart == FastqRecordParser.INCOMPLETE) {
+                throw new IllegalStateException(String.format(
+                        "Malformed FASTQ record at byte %s: Failed to find the start of any record", chunkStart));
+            }
+        }
+
+        int relativeChunkEnd = (int) (chunkEnd - windowStart);
+        // Records are more than twice as long as their fragments, which bounds the output size
+        int maxOutputSize = Math.max(0, relativeChunkEnd - firstRecordStart) / 2 + numReadingBasesPerFragment;
+        byte[] rawFragments = new byte[maxOutputSize];
+        int outputSize = 0;
+        int recordStart = firstRecordStart;
+        while (recordStart < relativeChunkEnd) {
+            int nextRecordStart = FastqRecordParser.parseRecord(window, recordStart, endOfInput, windowStart,
+                    numReadingBasesPerFragment, rawFragments, outputSize);
+            if (nextRecordStart == FastqRecordParser.INCOMPLETE) {
+                // The window extends past the chunk by more than the longest possible record, so this can't happen
+                throw new IllegalStateException("Record starting at byte " + (windowStart + recordStart)
+                        + " extends past the mapped input");
+            }
+            outputSize += numReadingBasesPerFragment;
+            recordStart = nextRecordStart;
+        }
+        return new ConvertedChunk(windowStart + firstRecordStart, windowStart + recordStart, rawFragments,
+                outputSize);
+    }
+
+    /** Writes the given chunk to output, returning the offset in the input where the next chunk should start. */
+    private static long writeChunk(FileChannel input, int numReadingBasesPerFragment, WritableByteChannel output,
+            ConvertedChunk chunk, long expectedNextRecordStart) throws IOException {
+        if (chunk.outputSize == 0) {
+            // The chunk had no records start within it (e.g. because it's in the middle of a huge record)
+            return expectedNextRecordStart;
+        }
+        requireContiguous(input, numReadingBasesPerFragment, expectedNextRecordStart, chunk.firstRecordStart);
+        writeFully(output, ByteBuffer.wrap(chunk.rawFragments, 0, chunk.outputSize));
+        return chunk.end;
+    }
+
+    /**
+     * Makes sure that records were found from expectedRecordStart onward. If not, there are bytes that no chunk could
+     * parse between the two offsets, so parsing a record from there reports what's wrong with them.
+     */
+    private static void requireContiguous(FileChannel input, int numReadingBasesPerFragment, long expectedRecordStart,
+            long actualRecordStart) throws IOException {
+        if (expectedRecordStart == actualRecordStart) {
+            return;
+        }
+        long mappingEnd = Math.min(input.size(),
+                expectedRecordStart + FastqRecordParser.getMaxRecordLength(numReadingBasesPerFragment));
+        ByteBuffer mapping = input.map(MapMode.READ_ONLY, expectedRecordStart, mappingEnd - expectedRecordStart);
+        FastqRecordParser.parseRecord(mapping, 0, mappingEnd == input.size(), expectedRecordStart,
+                numReadingBasesPerFragment, new byte[numReadingBasesPerFragment], 0);
+        throw new IllegalStateException(String.format(
+                "Malformed FASTQ record at byte %s: Unexpected data before next record", expectedRecordStart));
+    }
+
+    private static void writeFully(WritableByteChannel output, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+    }
+
+    /** The fragments converted from a chunk, along with the input offsets of its first record and its end. */
+    private static class ConvertedChunk {
+        private final long firstRecordStart;
+        private final long end;
+        private final byte[] rawFragments;
+        private final int outputSize;
+
+        private ConvertedChunk(long firstRecordStart, long end, byte[] rawFragments, int outputSize) {
+            this.firstRecordStart = firstRecordStart;
+            this.end = end;
+            this.rawFragments = rawFragments;
+            this.outputSize = outputSize;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package org.brotmanbaty.homework.dna;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Converts raw binary base readings directly into the characters of FASTQ sequence and quality lines, and back. Unlike
+ * going through {@link ReadingBase}, no objects are created per base: each byte is translated through a precomputed
+ * 256-entry lookup table, one for the sequence character and one for the quality character.
+ *
+ * On Java 17 and later, when the JVM is started with --add-modules jdk.incubator.vector, runs of bytes are decoded with
+ * a Vector API kernel instead, many bytes per instruction (see {@link #isVectorized()}). It can be turned off with the
+ * system property {@value #VECTORIZE_PROPERTY}=false, e.g. to compare the two.
+ */
+public class FastqTranscoder {
+    /** The system property that turns the Vector API kernel off when set to false. */
+    public static final String VECTORIZE_PROPERTY = "org.brotmanbaty.homework.dna.vectorize";
+    private static final String VECTOR_KERNEL_CLASS = "org.brotmanbaty.homework.dna.VectorFastqDecodeKernel";
+
+    private static final byte[] SEQUENCE_TABLE = createSequenceTable();
+    private static final byte[] QUALITY_TABLE = createQualityTable();
+    // The inverse tables, from characters back to their bits, where invalid characters map to a negative number
+    private static final int[] SEQUENCE_BITS_TABLE = createInverseTable(SEQUENCE_TABLE, 0b11000000);
+    private static final int[] QUALITY_BITS_TABLE = createInverseTable(QUALITY_TABLE, 0b00111111);
+    // The Vector API kernel, or null if it's not available and the tables are used instead
+    private static final FastqDecodeKernel VECTOR_KERNEL = loadVectorKernel();
+
+    private FastqTranscoder() {}
+
+    private static byte[] createSequenceTable() {
+        byte[] table = new byte[256];
+        Base[] bases = Base.values();
+        for (int binary = 0; binary < table.length; ++binary) {
+            table[binary] = (byte) bases[binary >>> 6].name().charAt(0);
+        }
+        return table;
+    }
+
+    private static byte[] createQualityTable() {
+        byte[] table = new byte[256];
+        for (int binary = 0; binary < table.length; ++binary) {
+            table[binary] = (byte) QualityScore.ofBinary((byte) (binary & 0b00111111)).toFastq();
+        }
+        return table;
+    }
+
+    private static int[] createInverseTable(byte[] table, int mask) {
+        int[] inverse = new int[256];
+        Arrays.fill(inverse, -1);
+        for (int binary = 0; binary < table.length; ++binary) {
+            inverse[table[binary] & 0xFF] = binary & mask;
+        }
+        return inverse;
+    }
+
+    private static FastqDecodeKernel loadVectorKernel() {
+        if (!Boolean.parseBoolean(System.getProperty(VECTORIZE_PROPERTY, "true"))) {
+            return null;
+        }
+        try {
+            // The kernel only exists in the Java 17 part of the multi-release JAR, and needs the incubator module
+            return (FastqDecodeKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /** Returns whether runs of bytes are decoded with the Vector API kernel, rather than through lookup tables. */
+    public static boolean isVectorized() {
+        return VECTOR_KERNEL != null;
+    }
+
+    /** Returns the ASCII FASTQ sequence character (one of A, C, G, or T) for the given binary base reading. */
+    public static byte toSequenceCharacter(byte binary) {
+        return SEQUENCE_TABLE[binary & 0xFF];
+    }
+
+    /** Returns the ASCII FASTQ quality character for the given binary base reading. */
+    public static byte toQualityCharacter(byte binary) {
+        return QUALITY_TABLE[binary & 0xFF];
+    }
+
+    /**
+     * Decodes length binary base readings from source, starting at sourceOffset, into their sequence characters in
+     * destination, starting at destinationOffset.
+     * 
+     * @throws IndexOutOfBoundsException if either range falls outside of its array.
+     */
+    public static void decodeSequence(byte[] source, int sourceOffset, byte[] destination, int destinationOffset,
+            int length) {
+        decode(SEQUENCE_TABLE, source, sourceOffset, destination, destinationOffset, length);
+    }
+
+    /**
+     * Decodes length binary base readings from source, starting at sourceOffset, into their quality characters in
+     * destination, starting at destinationOffset.
+     * 
+     * @throws IndexOutOfBoundsException if either range falls outside of its array.
+     */
+    public static void decodeQuality(byte[] source, int sourceOffset, byte[] destination, int destinationOffset,
+            int length) {
+        decode(QUALITY_TABLE, source, sourceOffset, destination, destinationOffset, length);
+    }
+
+    /** Same as {@link #decodeQuality(byte[], int, byte[], int, int)}, but with a binned quality table. */
+    static void decodeQuality(QualityBinning binning, byte[] source, int sourceOffset, byte[] destination,
+            int destinationOffset, int length) {
+        if (binning == QualityBinning.none()) {
+            decodeQuality(source, sourceOffset, destination, destinationOffset, length);
+            return;
+        }
+        decode(binning.getFastqQualityTable(), source, sourceOffset, destination, destinationOffset, length);
+    }
+
+    private static void decode(byte[] table, byte[] source, int sourceOffset, byte[] destination,
+            int destinationOffset, int length) {
+        checkRange(source.length, sourceOffset, length);
+        checkRange(destination.length, destinationOffset, length);
+        if (VECTOR_KERNEL != null && table == SEQUENCE_TABLE) {
+            VECTOR_KERNEL.decodeSequence(source, sourceOffset, destination, destinationOffset, length);
+            return;
+        }
+        if (VECTOR_KERNEL != null && table == QUALITY_TABLE) {
+            VECTOR_KERNEL.decodeQuality(source, sourceOffset, destination, destinationOffset, length);
+            return;
+        }
+        for (int i = 0; i < length; ++i) {
+            destination[destinationOffset + i] = table[source[sourceOffset + i] & 0xFF];
+        }
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            String message = String.format("Range [%s, %s + %s) is outside of array of length %s", offset, offset,
+                    length, arrayLength);
+            throw new IndexOutOfBoundsException(message);
+        }
+    }
+
+    /**
+     * Decodes length binary base readings from source into their sequence characters in destination. Both buffers are
+     * read/written starting at their current positions, which are advanced by length.
+     * 
+     * @throws BufferUnderflowException if source has fewer than length bytes remaining.
+     * @throws BufferOverflowException if destination has fewer than length bytes remaining.
+     */
+    public static void decodeSequence(ByteBuffer source, ByteBuffer destination, int length) {
+        decode(SEQUENCE_TABLE, source, destination, length);
+    }
+
+    /**
+     * Decodes length binary base readings from source into their quality characters in destination. Both buffers are
+     * read/written starting at their current positions, which are advanced by length.
+     * 
+     * @throws BufferUnderflowException if source has fewer than length bytes remaining.
+     * @throws BufferOverflowException if destination has fewer than length bytes remaining.
+     */
+    public static void decodeQuality(ByteBuffer source, ByteBuffer destination, int length) {
+        decode(QUALITY_TABLE, source, destination, length);
+    }
+
+    /** Same as {@link #decodeQuality(ByteBuffer, ByteBuffer, int)}, but with a binned quality table. */
+    static void decodeQuality(QualityBinning binning, ByteBuffer source, ByteBuffer destination, int length) {
+        if (binning == QualityBinning.none()) {
+            decodeQuality(source, destination, length);
+            return;
+        }
+        decode(binning.getFastqQualityTable(), source, destination, length);
+    }
+
+    private static void decode(byte[] table, ByteBuffer source, ByteBuffer destination, int length) {
+        if (source.remaining() < length) {
+            throw new BufferUnderflowException();
+        }
+        if (destination.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+
+        // Use absolute indexes and backing arrays where possible, as relative puts/gets check bounds and update the
+        // positions on every byte
+        int sourcePosition = source.position();
+        int destinationPosition = destination.position();
+        if (source.hasArray() && destination.hasArray()) {
+            decode(table, source.array(), source.arrayOffset() + sourcePosition, destination.array(),
+                    destination.arrayOffset() + destinationPosition, length);
+        } else if (destination.hasArray()) {
+            byte[] destinationArray = destination.array();
+            int destinationOffset = destination.arrayOffset() + destinationPosition;
+            for (int i = 0; i < length; ++i) {
+                destinationArray[destinationOffset + i] = table[source.get(sourcePosition + i) & 0xFF];
+            }
+        } else {
+            for (int i = 0; i < length; ++i) {
+                destination.put(destinationPosition + i, table[source.get(sourcePosition + i) & 0xFF]);
+            }
+        }
+        source.position(sourcePosition + length);
+        destination.position(destinationPosition + length);
+    }
+
+    /**
+     * Encodes the FASTQ sequence and quality characters of length bases back into their raw binary format: the i-th
+     * base is made from the sequence character at sequenceIndex + i and the quality character at qualityIndex + i of
+     * source (absolute indexes, so its position is unchanged), and is written to destination at destinationOffset + i.
+     * 
+     * @throws IllegalArgumentException if any sequence character is not one of A, C, G, or T, or if any quality
+     *         character is outside of the range '!' to '`'.
+     * @throws IndexOutOfBoundsException if any of the ranges falls outside of its buffer/array.
+     */
+    public static void encode(ByteBuffer source, int sequenceIndex, int qualityIndex, byte[] destination,
+            int destinationOffset, int length) {
+        checkRange(source.limit(), sequenceIndex, length);
+        checkRange(source.limit(), qualityIndex, length);
+        checkRange(destination.length, destinationOffset, length);
+
+        // Invalid characters map to negative numbers, so OR-ing everything together checks all of them at once
+        int combined = 0;
+        for (int i = 0; i < length; ++i) {
+            int sequenceBits = SEQUENCE_BITS_TABLE[source.get(sequenceIndex + i) & 0xFF];
+            int qualityBits = QUALITY_BITS_TABLE[source.get(qualityIndex + i) & 0xFF];
+            combined |= sequenceBits | qualityBits;
+            destination[destinationOffset + i] = (byte) (sequenceBits | qualityBits);
+        }
+        if (combined < 0) {
+            throw new IllegalArgumentException(describeFirstInvalidCharacter(source, sequenceIndex, qualityIndex,
+                    length));
+        }
+    }
+
+    private static String describeFirstInvalidCharacter(ByteBuffer source, int sequenceIndex, int qualityIndex,
+            int length) {
+        for (int i = 0; i < length; ++i) {
+            int sequenceCharacter = source.get(sequenceIndex + i) & 0xFF;
+            if (SEQUENCE_BITS_TABLE[sequenceCharacter] < 0) {
+                return String.format("Invalid sequence character %s at base %s", sequenceCharacter, i);
+            }
+            int qualityCharacter = source.get(qualityIndex + i) & 0xFF;
+            if (QUALITY_BITS_TABLE[qualityCharacter] < 0) {
+                return String.format("Invalid quality character %s at base %s", qualityCharacter, i);
+            }
+        }
+        throw new IllegalStateException("Expected to find an invalid character, but found none");
+    }
+}
@@ -0,0 +1,19 @@
+package org.brotmanbaty.homework.dna;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A JFR event for writing FASTQ bytes to the output, recorded by {@link ConversionMetrics}. */
+@Name("org.brotmanbaty.homework.dna.FastqWrite")
+@Label("FASTQ Write")
+@Category({"DNA", "Conversion"})
+@Description("Writing FASTQ bytes to the output channel")
+class FastqWriteEvent extends Event {
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+}
@@ -1,10 +1,17 @@
 package org.brotmanbaty.homework.dna;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 public class FastqWriterUtils {
+    private static final byte[] READ_PREFIX = "READ_".getBytes(StandardCharsets.US_ASCII);
+
     private FastqWriterUtils() {}
 
 
@@ -20,25 +27,126 @@ public class FastqWriterUtils {
             throw new IllegalArgumentException("fragmentNumber must be greater than 0, but found " + fragmentNumber);
         }
 
-        StringBuilder output = new StringBuilder();
-        output.append("@READ_" + fragmentNumber + "\n");
-        appendLine2(output, fragment);
-        output.append("+READ_" + fragmentNumber + "\n");
-        appendLine4(output, fragment);
-        uncheckedWriterWriteLine(writer, output.toString());
+        // The fragment is packed in binary already, so decode it directly rather than going through its ReadingBases
+        byte[] binary = fragment.toBinary();
+        ByteBuffer output = ByteBuffer.allocate(getRawFragmentRecordLength(binary.length, fragmentNumber));
+        writeRawFragment(output, ByteBuffer.wrap(binary), binary.length, fragmentNumber);
+        uncheckedWriterWriteLine(writer, new String(output.array(), StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Writes the fragmentNumber-th fragment to the given stream, where the fragment's bases are given in their raw
+     * binary format as length bytes of rawFragment starting at offset. The bases are decoded with
+     * {@link FastqTranscoder}, so no per-base objects are created.
+     * 
+     * @throws IllegalArgumentException if fragmentNumber <= 0
+     * @throws IndexOutOfBoundsException if the range described by offset and length falls outside of rawFragment.
+     * @throws UncheckedIOException if writing the stream throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public static void writeRawFragment(OutputStream stream, byte[] rawFragment, int offset, int length,
+            long fragmentNumber) {
+        byte[] output = new byte[getRawFragmentRecordLength(length, fragmentNumber)];
+        writeRawFragment(ByteBuffer.wrap(output), ByteBuffer.wrap(rawFragment, offset, length), length, fragmentNumber);
+        uncheckedStreamWrite(stream, output);
+    }
+
+    /**
+     * Returns the number of bytes that {@link #writeRawFragment(ByteBuffer, ByteBuffer, int, long)} puts into its
+     * output for the fragmentNumber-th fragment containing length bases.
+     */
+    public static int getRawFragmentRecordLength(int length, long fragmentNumber) {
+        // Four lines: two headers (each a one-character prefix, "READ_", and the number) and two lines of length bases
+        int numDigits = countDigits(fragmentNumber);
+        return 2 * (1 + READ_PREFIX.length + numDigits + 1) + 2 * (length + 1);
+    }
+
+    private static int countDigits(long number) {
+        int numDigits = 1;
+        for (long remaining = number / 10; remaining != 0; remaining /= 10) {
+            ++numDigits;
+        }
+        return numDigits;
+    }
+
+    /**
+     * Puts the FASTQ record for the fragmentNumber-th fragment into output, where the fragment's bases are given in
+     * their raw binary format as the next length bytes of rawFragment. The positions of both buffers are advanced past
+     * the bytes read/written. The bases are decoded with {@link FastqTranscoder}, so no per-base objects are created.
+     * 
+     * @throws IllegalArgumentException if fragmentNumber <= 0
+     * @throws BufferUnderflowException if rawFragment has fewer than length bytes remaining.
+     * @throws BufferOverflowException if output has fewer than {@link #getRawFragmentRecordLength(int, long)} bytes
+     *         remaining.
+     */
+    public static void writeRawFragment(ByteBuffer output, ByteBuffer rawFragment, int length, long fragmentNumber) {
+        if (fragmentNumber <= 0) {
+            throw new IllegalArgumentException("fragmentNumber must be greater than 0, but found " + fragmentNumber);
+        }
+        if (output.remaining() < getRawFragmentRecordLength(length, fragmentNumber)) {
+            throw new BufferOverflowException();
+        }
+
+        int numDigits = countDigits(fragmentNumber);
+        putHeaderLine(output, (byte) '@', fragmentNumber, numDigits);
+        int rawFragmentStart = rawFragment.position();
+        FastqTranscoder.decodeSequence(rawFragment, output, length);
+        output.put((byte) '\n');
+        putHeaderLine(output, (byte) '+', fragmentNumber, numDigits);
+        rawFragment.position(rawFragmentStart);
+        FastqTranscoder.decodeQuality(rawFragment, output, length);
+        output.put((byte) '\n');
     }
 
-    private static void appendLine2(StringBuilder output, ReadingFragment fragment) {
-        fragment.getReadingBases().stream().map(rb -> rb.getBase().toString()).forEach(output::append);
-        output.append("\n");
+    /**
+     * Returns a new buffer, ready for reading, containing the FASTQ records for numFragments consecutive fragments
+     * numbered from firstFragmentNumber, where each fragment's bases are given in their raw binary format as the next
+     * length bytes of rawFragments. The position of rawFragments is advanced past the fragments.
+     * 
+     * @throws IllegalArgumentException if firstFragmentNumber <= 0
+     * @throws BufferUnderflowException if rawFragments has fewer than numFragments * length bytes remaining.
+     */
+    public static ByteBuffer encodeRawFragments(ByteBuffer rawFragments, int numFragments, int length,
+            long firstFragmentNumber) {
+        if (firstFragmentNumber <= 0) {
+            throw new IllegalArgumentException(
+                    "firstFragmentNumber must be greater than 0, but found " + firstFragmentNumber);
+        }
+        if (rawFragments.remaining() < (long) numFragments * length) {
+            throw new BufferUnderflowException();
+        }
+
+        int outputSize = 0;
+        for (int i = 0; i < numFragments; ++i) {
+            outputSize += getRawFragmentRecordLength(length, firstFragmentNumber + i);
+        }
+        ByteBuffer output = ByteBuffer.allocate(outputSize);
+        for (int i = 0; i < numFragments; ++i) {
+            writeRawFragment(output, rawFragments, length, firstFragmentNumber + i);
+        }
+        return output.flip();
+    }
+
+    private static void putHeaderLine(ByteBuffer output, byte firstCharacter, long fragmentNumber, int numDigits) {
+        output.put(firstCharacter);
+        output.put(READ_PREFIX);
+        // Write the digits in place, from least to most significant, rather than creating a String for the number
+        int digitsStart = output.position();
+        long remaining = fragmentNumber;
+        for (int i = numDigits - 1; i >= 0; --i) {
+            output.put(digitsStart + i, (byte) ('0' + remaining % 10));
+            remaining /= 10;
+        }
+        output.position(digitsStart + numDigits);
+        output.put((byte) '\n');
     }
 
-    private static void appendLine4(StringBuilder output, ReadingFragment fragment) {
-        fragment.getReadingBases()
-                .stream()
-                .map(rb -> String.valueOf(rb.getQualityScore().toFastq()))
-                .forEach(output::append);
-        output.append("\n");
+    private static void uncheckedStreamWrite(OutputStream stream, byte[] output) {
+        try {
+            stream.write(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public static void uncheckedWriterWriteLine(Writer writer, String line) {
@@ -0,0 +1,102 @@
+package org.brotmanbaty.homework.dna;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A set of 128-bit fingerprints, for remembering billions of fragments without putting any of them on the heap. The
+ * fingerprints are kept in open-addressing tables with linear probing in direct byte buffers, 16 bytes per slot, so
+ * the garbage collector never has to trace them. The maximum number of fingerprints is fixed up front, and the tables
+ * are sized so that at most 3/4 of the slots are ever full. As the fingerprints are hashes already, their own bits
+ * choose the slots. All zeroes marks a free slot, so that fingerprint is tracked separately.
+ *
+ * Direct buffers count against the JVM's limit on direct memory (-XX:MaxDirectMemorySize, which defaults to the
+ * maximum heap size), and are released once the set is garbage collected. This class is not thread safe.
+ */
+class FingerprintSet {
+    private static final int SLOT_SIZE = 2 * Long.BYTES;
+    // Each direct buffer holds 2^26 slots (1 GiB), well below the 2 GiB limit of a buffer's int indexes
+    private static final int SEGMENT_SLOT_BITS = 26;
+    private static final long SEGMENT_SLOT_MASK = (1L << SEGMENT_SLOT_BITS) - 1;
+    private static final int MIN_CAPACITY = 16;
+    // Keeps the number of segments within an int
+    private static final long MAX_MAX_SIZE = 1L << 54;
+
+    private final ByteBuffer[] segments;
+    private final long mask;
+    private final long maxSize;
+    private long size;
+    private boolean hasZero;
+
+    private FingerprintSet(long maxSize) {
+        this.maxSize = maxSize;
+        // The smallest power of two that's more than 4/3 of maxSize
+        long capacity = Math.max(MIN_CAPACITY, Long.highestOneBit(maxSize + maxSize / 3) << 1);
+        this.mask = capacity - 1;
+        int slotsPerSegment = (int) Math.min(capacity, 1L << SEGMENT_SLOT_BITS);
+        this.segments = new ByteBuffer[(int) (capacity / slotsPerSegment)];
+        for (int i = 0; i < segments.length; ++i) {
+            segments[i] = ByteBuffer.allocateDirect(slotsPerSegment * SLOT_SIZE);
+        }
+    }
+
+    /**
+     * Creates an empty set that can hold up to maxSize fingerprints.
+     *
+     * @throws IllegalArgumentException if maxSize < 0 or maxSize > 2^54
+     */
+    static FingerprintSet of(long maxSize) {
+        if (maxSize < 0 || maxSize > MAX_MAX_SIZE) {
+            throw new IllegalArgumentException("maxSize must be from 0 to " + MAX_MAX_SIZE + ", but found " + maxSize);
+        }
+        return new FingerprintSet(maxSize);
+    }
+
+    /**
+     * Adds the fingerprint with the given high and low 64 bits, and returns whether it was new.
+     *
+     * @throws IllegalStateException if the fingerprint is new but the set already holds maxSize fingerprints
+     */
+    boolean add(long high, long low) {
+        if (high == 0 && low == 0) {
+            if (hasZero) {
+                return false;
+            }
+            requireRoom();
+            hasZero = true;
+            ++size;
+            return true;
+        }
+        for (long slot = low & mask;; slot = (slot + 1) & mask) {
+            ByteBuffer segment = segments[(int) (slot >>> SEGMENT_SLOT_BITS)];
+            int index = (int) (slot & SEGMENT_SLOT_MASK) * SLOT_SIZE;
+            long slotHigh = segment.getLong(index);
+            long slotLow = segment.getLong(index + Long.BYTES);
+            if (slotHigh == high && slotLow == low) {
+                return false;
+            }
+            if (slotHigh == 0 && slotLow == 0) {
+                requireRoom();
+                segment.putLong(index, high);
+                segment.putLong(index + Long.BYTES, low);
+                ++size;
+                return true;
+            }
+        }
+    }
+
+    private void requireRoom() {
+        if (size == maxSize) {
+            throw new IllegalStateException("Expected at most " + maxSize + " fingerprints");
+        }
+    }
+
+    /** Returns the number of fingerprints. */
+    long size() {
+        return size;
+    }
+
+    /** Returns how many bytes of direct memory the tables take up. */
+    long getMemoryBytes() {
+        return (mask + 1) * SLOT_SIZE;
+    }
+}
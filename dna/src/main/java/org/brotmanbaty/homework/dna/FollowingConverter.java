@@ -0,0 +1,167 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Converts a binary fragment file while it's still being written, e.g. by a sequencer that streams its output over
+ * many hours, like tail -f. Whenever the input has grown, every fragment whose bases have all arrived is converted and
+ * the FASTQ is flushed to the output straight away, so that each read is available within about one poll interval of
+ * landing. A partial fragment at the end of the input is kept until the rest of it arrives, rather than treated as
+ * truncated.
+ *
+ * Following ends once an end marker file exists (and everything written to the input before it has been converted),
+ * or once the input hasn't grown for the idle timeout. The input doesn't need to exist yet when following starts.
+ * Growth is detected by polling the input's size, which, unlike file system notifications, works the same on every
+ * platform and file system.
+ */
+public class FollowingConverter {
+    private static final int BATCH_SIZE = 1024 * 1024;
+    private static final int WRITER_BUFFER_SIZE = 64 * 1024;
+
+    private final long pollIntervalMillis;
+    private final long idleTimeoutNanos;
+
+    private FollowingConverter(Duration pollInterval, Duration idleTimeout) {
+        if (pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("pollInterval must be positive, but found " + pollInterval);
+        }
+        if (idleTimeout.isNegative()) {
+            throw new IllegalArgumentException("idleTimeout must not be negative, but found " + idleTimeout);
+        }
+        this.pollIntervalMillis = Math.max(1, pollInterval.toMillis());
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    /**
+     * Creates a converter that checks the input for new data every pollInterval, and stops following it once it hasn't
+     * grown for idleTimeout.
+     *
+     * @throws IllegalArgumentException if pollInterval isn't positive or idleTimeout is negative
+     */
+    public static FollowingConverter of(Duration pollInterval, Duration idleTimeout) {
+        return new FollowingConverter(pollInterval, idleTimeout);
+    }
+
+    /**
+     * Follows the input until it hasn't grown for the idle timeout, converting it into FASTQ that is written to the
+     * given channel (which is left open). Returns the number of fragments converted.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     * @throws IllegalStateException if following ends partway through a fragment
+     * @throws UncheckedIOException if reading the input or writing the output throws an IOException, or if the calling
+     *         thread is interrupted, where the cause of the UncheckedIOException is the IOException (an
+     *         InterruptedIOException if interrupted).
+     */
+    public long follow(Path inputPath, int numReadingBasesPerFragment, WritableByteChannel output) {
+        return followUntil(inputPath, numReadingBasesPerFragment, output, null);
+    }
+
+    /**
+     * Same as {@link #follow(Path, int, WritableByteChannel)}, except that following also ends, once the input has been
+     * converted up to its end, if the given end marker file exists, which the writer of the input should create after
+     * it has written the last fragment.
+     */
+    public long follow(Path inputPath, int numReadingBasesPerFragment, WritableByteChannel output,
+            Path endMarkerPath) {
+        return followUntil(inputPath, numReadingBasesPerFragment, output, Objects.requireNonNull(endMarkerPath));
+    }
+
+    /** Follows the input until it's idle or, unless endMarkerPath is null, until the end marker exists. */
+    private long followUntil(Path inputPath, int numReadingBasesPerFragment, WritableByteChannel output,
+            Path endMarkerPath) {
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+        // Don't close the writer, as that would close the output
+        FastqByteWriter writer = FastqByteWriter.of(output, 1, WRITER_BUFFER_SIZE);
+        int fragmentsPerBatch = Math.max(1, BATCH_SIZE / numReadingBasesPerFragment);
+        ByteBuffer rawFragments = ByteBuffer.allocate(fragmentsPerBatch * numReadingBasesPerFragment);
+        FileChannel input = null;
+        try {
+            long inputPosition = 0;
+            long lastGrowthNanos = System.nanoTime();
+            while (true) {
+                // Check for the marker before reading, so that everything written before it is read first
+                boolean ended = endMarkerPath != null && Files.exists(endMarkerPath);
+                if (input == null) {
+                    input = openIfExists(inputPath);
+                }
+                int read = input == null ? 0 : Math.max(0, input.read(rawFragments, inputPosition));
+                if (read > 0) {
+                    inputPosition += read;
+                    lastGrowthNanos = System.nanoTime();
+                    writeWholeFragments(rawFragments, numReadingBasesPerFragment, writer);
+                    continue;
+                }
+                if (ended || System.nanoTime() - lastGrowthNanos >= idleTimeoutNanos) {
+                    break;
+                }
+                Thread.sleep(pollIntervalMillis);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while following " + inputPath));
+        } finally {
+            closeQuietly(input);
+        }
+
+        if (rawFragments.position() > 0) {
+            String message = String.format("Expected to find %s base readings per fragment in input, but only found %s "
+                    + "in the last fragment before following ended.", numReadingBasesPerFragment,
+                    rawFragments.position());
+            throw new IllegalStateException(message);
+        }
+        return writer.getNextFragmentNumber() - 1;
+    }
+
+    private static FileChannel openIfExists(Path path) throws IOException {
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes and flushes all whole fragments in the buffer, which is filled up to its position, and moves the bytes of
+     * a partial fragment after them to the start of the buffer.
+     */
+    private static void writeWholeFragments(ByteBuffer rawFragments, int numReadingBasesPerFragment,
+            FastqByteWriter writer) {
+        int numFragments = rawFragments.position() / numReadingBasesPerFragment;
+        if (numFragments == 0) {
+            return;
+        }
+        for (int i = 0; i < numFragments; ++i) {
+            writer.writeRawFragment(rawFragments.array(), i * numReadingBasesPerFragment, numReadingBasesPerFragment);
+        }
+        writer.flush();
+        rawFragments.flip();
+        rawFragments.position(numFragments * numReadingBasesPerFragment);
+        rawFragments.compact();
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing was written to the input, so there's nothing to lose
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides random access to the fragments of a binary fragment file. Since every fragment is exactly
+ * numReadingBasesPerFragment bytes long, fragment n starts at byte (n - 1) * numReadingBasesPerFragment, so any
+ * fragment can be read without reading the ones before it. Fragments are numbered from 1, the same as in FASTQ output.
+ *
+ * The file is read in fixed-size pages with positional reads, and the most recently used pages are kept in a small LRU
+ * cache, so that repeated lookups of nearby fragments don't go back to the file. As a result, the file must not change
+ * while it's open. This class is thread safe.
+ */
+public class FragmentFile implements Closeable {
+    private static final int PAGE_SIZE = 64 * 1024;
+    private static final int DEFAULT_NUM_CACHED_PAGES = 64;
+
+    private final FileChannel channel;
+    private final int numReadingBasesPerFragment;
+    private final long numFragments;
+    private final Map<Long, byte[]> pageCache;
+
+    private FragmentFile(FileChannel channel, int numReadingBasesPerFragment, long numFragments,
+            int numCachedPages) {
+        this.channel = channel;
+        this.numReadingBasesPerFragment = numReadingBasesPerFragment;
+        this.numFragments = numFragments;
+        // An access-ordered LinkedHashMap that drops its eldest entry is exactly an LRU cache
+        this.pageCache = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                return size() > numCachedPages;
+            }
+        };
+    }
+
+    /**
+     * Opens the binary fragment file at the given path with a cache of a few MB.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     * @throws IllegalStateException if the size of the file is not a multiple of numReadingBasesPerFragment (i.e. the
+     *         last fragment is truncated).
+     * @throws UncheckedIOException if opening the file throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public static FragmentFile of(Path path, int numReadingBasesPerFragment) {
+        return of(path, numReadingBasesPerFragment, DEFAULT_NUM_CACHED_PAGES);
+    }
+
+    /**
+     * Same as {@link #of(Path, int)}, except that the cache holds up to numCachedPages pages of 64 KB each.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0 or numCachedPages <= 0
+     */
+    public static FragmentFile of(Path path, int numReadingBasesPerFragment, int numCachedPages) {
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+        if (numCachedPages <= 0) {
+            throw new IllegalArgumentException("numCachedPages must be greater than 0, but found " + numCachedPages);
+        }
+
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            long size = channel.size();
+            if (size % numReadingBasesPerFragment != 0) {
+                channel.close();
+                String message = String.format("Expected to find %s base readings per fragment in file, but only "
+                        + "found %s in the last fragment before end of file.", numReadingBasesPerFragment,
+                        size % numReadingBasesPerFragment);
+                throw new IllegalStateException(message);
+            }
+            return new FragmentFile(channel, numReadingBasesPerFragment, size / numReadingBasesPerFragment,
+                    numCachedPages);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int getNumReadingBasesPerFragment() {
+        return numReadingBasesPerFragment;
+    }
+
+    public long getNumFragments() {
+        return numFragments;
+    }
+
+    /**
+     * Returns the fragment with the given number.
+     *
+     * @throws IndexOutOfBoundsException if fragmentNumber is not between 1 and {@link #getNumFragments()}, inclusive.
+     * @throws UncheckedIOException if reading the file throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public ReadingFragment get(long fragmentNumber) {
+        checkRange(fragmentNumber, fragmentNumber + 1);
+        byte[] binary = new byte[numReadingBasesPerFragment];
+        read(getOffset(fragmentNumber), binary);
+        return ReadingFragment.wrapBinary(binary);
+    }
+
+    /**
+     * Returns the fragments numbered from fromFragmentNumber, inclusive, to toFragmentNumber, exclusive, in order.
+     *
+     * @throws IndexOutOfBoundsException if fromFragmentNumber < 1, toFragmentNumber > {@link #getNumFragments()} + 1,
+     *         or fromFragmentNumber > toFragmentNumber.
+     * @throws IllegalArgumentException if the range contains too many bytes to read into a single array.
+     * @throws UncheckedIOException if reading the file throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public List<ReadingFragment> range(long fromFragmentNumber, long toFragmentNumber) {
+        checkRange(fromFragmentNumber, toFragmentNumber);
+        long numBytes = (toFragmentNumber - fromFragmentNumber) * numReadingBasesPerFragment;
+        if (numBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Range is too large to read at once: " + numBytes + " bytes");
+        }
+
+        byte[] binary = new byte[(int) numBytes];
+        read(getOffset(fromFragmentNumber), binary);
+        int rangeSize = (int) (toFragmentNumber - fromFragmentNumber);
+        List<ReadingFragment> fragments = new ArrayList<>(rangeSize);
+        for (int i = 0; i < rangeSize; ++i) {
+            int start = i * numReadingBasesPerFragment;
+            fragments.add(ReadingFragment
+                    .wrapBinary(Arrays.copyOfRange(binary, start, start + numReadingBasesPerFragment)));
+        }
+        return fragments;
+    }
+
+    private void checkRange(long fromFragmentNumber, long toFragmentNumber) {
+        if (fromFragmentNumber < 1 || toFragmentNumber > numFragments + 1 || fromFragmentNumber > toFragmentNumber) {
+            String message = String.format("Range [%s, %s) is outside of fragments [1, %s]", fromFragmentNumber,
+                    toFragmentNumber, numFragments);
+            throw new IndexOutOfBoundsException(message);
+        }
+    }
+
+    private long getOffset(long fragmentNumber) {
+        return (fragmentNumber - 1) * numReadingBasesPerFragment;
+    }
+
+    /** Fills destination with the bytes of the file starting at offset, going through the page cache. */
+    private void read(long offset, byte[] destination) {
+        int done = 0;
+        while (done < destination.length) {
+            long position = offset + done;
+            long pageNumber = position / PAGE_SIZE;
+            byte[] page = getPage(pageNumber);
+            int pageOffset = (int) (position - pageNumber * PAGE_SIZE);
+            int numToCopy = Math.min(destination.length - done, page.length - pageOffset);
+            System.arraycopy(page, pageOffset, destination, done, numToCopy);
+            done += numToCopy;
+        }
+    }
+
+    private byte[] getPage(long pageNumber) {
+        synchronized (pageCache) {
+            byte[] page = pageCache.get(pageNumber);
+            if (page != null) {
+                return page;
+            }
+        }
+
+        // Read outside of the lock, so that cache hits don't wait on I/O. Positional reads are safe to do concurrently.
+        byte[] page = readPage(pageNumber);
+        synchronized (pageCache) {
+            pageCache.put(pageNumber, page);
+        }
+        return page;
+    }
+
+    private byte[] readPage(long pageNumber) {
+        long pageStart = pageNumber * PAGE_SIZE;
+        int pageSize = (int) Math.min(PAGE_SIZE, numFragments * numReadingBasesPerFragment - pageStart);
+        ByteBuffer page = ByteBuffer.allocate(pageSize);
+        try {
+            while (page.hasRemaining()) {
+                if (channel.read(page, pageStart + page.position()) < 0) {
+                    throw new EOFException("File ended before byte " + (pageStart + pageSize));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return page.array();
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws UncheckedIOException if closing the file throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
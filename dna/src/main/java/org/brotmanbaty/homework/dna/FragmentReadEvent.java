@@ -0,0 +1,22 @@
+package org.brotmanbaty.homework.dna;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A JFR event for reading one batch of raw fragments, recorded by {@link ConversionMetrics}. */
+@Name("org.brotmanbaty.homework.dna.FragmentRead")
+@Label("Fragment Read")
+@Category({"DNA", "Conversion"})
+@Description("Reading a batch of raw fragments from the binary input")
+class FragmentReadEvent extends Event {
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Fragments")
+    long fragments;
+}
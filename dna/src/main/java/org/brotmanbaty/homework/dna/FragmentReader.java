@@ -0,0 +1,250 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads consecutive fragments of numReadingBasesPerFragment bases from a binary stream. Unlike
+ * {@link BinaryStreamUtils#readReadingFragment(InputStream, int)}, which reads one byte at a time, this class fills a
+ * large buffer with bulk reads and hands out fragments from it. The fragments are available one at a time, in bulk in
+ * their raw binary form, or as an Iterator, Spliterator, or Stream.
+ *
+ * In all cases, if the stream ends partway through a fragment, an IllegalStateException is thrown, the same as with
+ * BinaryStreamUtils#readReadingFragment. This class is not thread safe, although the Spliterator it creates can be
+ * split for parallel processing.
+ */
+public class FragmentReader implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private final InputStream stream;
+    private final int numReadingBasesPerFragment;
+    private final long estimatedNumFragments;
+    private final byte[] buffer;
+    // The buffer holds bytes [bufferPosition, bufferLimit) that have been read from the stream but not handed out
+    private int bufferPosition;
+    private int bufferLimit;
+    private boolean endOfStream;
+    private long numFragmentsRead;
+
+    private FragmentReader(InputStream stream, int numReadingBasesPerFragment, long estimatedNumFragments) {
+        this.stream = Objects.requireNonNull(stream);
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+        this.numReadingBasesPerFragment = numReadingBasesPerFragment;
+        this.estimatedNumFragments = estimatedNumFragments;
+        int fragmentsPerBuffer = Math.max(1, DEFAULT_BUFFER_SIZE / numReadingBasesPerFragment);
+        this.buffer = new byte[fragmentsPerBuffer * numReadingBasesPerFragment];
+    }
+
+    /**
+     * Creates a reader for the given stream, which the reader takes ownership of (i.e. closing the reader closes the
+     * stream). The stream does not need to be buffered.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     */
+    public static FragmentReader of(InputStream stream, int numReadingBasesPerFragment) {
+        return new FragmentReader(stream, numReadingBasesPerFragment, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a reader for the file at the given path. Since the size of the file is known, the Spliterator will report
+     * an accurate estimate of the number of fragments.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     * @throws UncheckedIOException if opening the file throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public static FragmentReader of(Path path, int numReadingBasesPerFragment) {
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+        try {
+            long estimatedNumFragments = Files.size(path) / numReadingBasesPerFragment;
+            return new FragmentReader(Files.newInputStream(path), numReadingBasesPerFragment, estimatedNumFragments);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int getNumReadingBasesPerFragment() {
+        return numReadingBasesPerFragment;
+    }
+
+    /** Returns how many fragments this reader has handed out so far, which is also the number of the last one. */
+    public long getNumFragmentsRead() {
+        return numFragmentsRead;
+    }
+
+    /**
+     * Reads the next fragment, returning null if the stream is already at the end.
+     *
+     * @throws IllegalStateException if the stream reaches its end partway through the fragment.
+     * @throws UncheckedIOException if reading the stream throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public ReadingFragment read() {
+        if (!fillBufferWithAtLeastOneFragment()) {
+            return null;
+        }
+        int start = bufferPosition;
+        bufferPosition += numReadingBasesPerFragment;
+        ++numFragmentsRead;
+        return ReadingFragment.wrapBinary(Arrays.copyOfRange(buffer, start, bufferPosition));
+    }
+
+    /**
+     * Reads as many whole fragments as fit into rawFragments (i.e. rawFragments.length / numReadingBasesPerFragment of
+     * them), in their raw binary form, stopping early only if the stream ends. Returns the number of fragments read,
+     * which is 0 only if the stream is already at the end (or rawFragments can't hold a single fragment).
+     *
+     * @throws IllegalStateException if the stream reaches its end partway through a fragment.
+     * @throws UncheckedIOException if reading the stream throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public int readRawFragments(byte[] rawFragments) {
+        int maxBytes = rawFragments.length - rawFragments.length % numReadingBasesPerFragment;
+
+        // Hand out anything left over in the buffer first, and then read the rest directly into the destination
+        int numBuffered = Math.min(maxBytes, bufferLimit - bufferPosition);
+        System.arraycopy(buffer, bufferPosition, rawFragments, 0, numBuffered);
+        bufferPosition += numBuffered;
+        int numBytes = numBuffered;
+        if (numBytes < maxBytes && !endOfStream) {
+            int numRead = readFully(rawFragments, numBytes, maxBytes - numBytes);
+            numBytes += numRead;
+            endOfStream = numBytes < maxBytes;
+        }
+
+        // Fragments only count as read once they're handed out, which they aren't if the last one is truncated
+        requireWholeFragment(numBytes % numReadingBasesPerFragment);
+        int numFragments = numBytes / numReadingBasesPerFragment;
+        numFragmentsRead += numFragments;
+        return numFragments;
+    }
+
+    /** Makes sure the buffer contains at least one whole fragment, returning false if the stream has ended instead. */
+    private boolean fillBufferWithAtLeastOneFragment() {
+        int numBuffered = bufferLimit - bufferPosition;
+        if (numBuffered >= numReadingBasesPerFragment) {
+            return true;
+        }
+
+        // Buffer sizes are a multiple of the fragment size and the stream is read in full buffers, so any leftovers
+        // only appear at the end of the stream
+        if (!endOfStream) {
+            System.arraycopy(buffer, bufferPosition, buffer, 0, numBuffered);
+            bufferPosition = 0;
+            bufferLimit = numBuffered + readFully(buffer, numBuffered, buffer.length - numBuffered);
+            endOfStream = bufferLimit < buffer.length;
+            numBuffered = bufferLimit;
+        }
+
+        if (numBuffered >= numReadingBasesPerFragment) {
+            return true;
+        }
+        requireWholeFragment(numBuffered);
+        return false;
+    }
+
+    private int readFully(byte[] destination, int offset, int length) {
+        try {
+            return stream.readNBytes(destination, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void requireWholeFragment(int numTrailingBytes) {
+        if (numTrailingBytes != 0) {
+            String message = String.format(
+                    "Expected to find %s base readings in stream, but only found %s before end of stream.",
+                    numReadingBasesPerFragment, numTrailingBytes);
+            throw new IllegalStateException(message);
+        }
+    }
+
+    /** Returns an Iterator over the remaining fragments. Its methods throw the same exceptions as {@link #read()}. */
+    public Iterator<ReadingFragment> iterator() {
+        return new Iterator<>() {
+            private ReadingFragment next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    next = read();
+                }
+                return next != null;
+            }
+
+            @Override
+            public ReadingFragment next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ReadingFragment result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Returns an ordered Spliterator over the remaining fragments. Splitting it hands off a batch of already-read
+     * fragments, so that they can be processed in parallel while this reader continues reading. Its methods throw the
+     * same exceptions as {@link #read()}.
+     */
+    public Spliterator<ReadingFragment> spliterator() {
+        int characteristics = Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+        long estimatedSize = Math.max(0, estimatedNumFragments - numFragmentsRead);
+        return new Spliterators.AbstractSpliterator<>(estimatedSize, characteristics) {
+            @Override
+            public boolean tryAdvance(Consumer<? super ReadingFragment> action) {
+                ReadingFragment fragment = read();
+                if (fragment == null) {
+                    return false;
+                }
+                action.accept(fragment);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a Stream over the remaining fragments, which closes this reader when it's closed. The stream can be made
+     * parallel. Its operations throw the same exceptions as {@link #read()}.
+     */
+    public Stream<ReadingFragment> stream() {
+        return StreamSupport.stream(spliterator(), false).onClose(this::close);
+    }
+
+    /**
+     * Closes the underlying stream.
+     *
+     * @throws UncheckedIOException if closing the stream throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    @Override
+    public void close() {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Collects quality control statistics about raw fragments while they're being converted, so that they don't need to be
+ * read again afterwards: the mean quality score and the base composition at each position, and a histogram of all
+ * quality scores. The statistics are computed straight from the raw bytes, where the top 2 bits of each byte are the
+ * {@link Base} and the low 6 bits are the {@link QualityScore}.
+ *
+ * Batches can be recorded by many threads at once. Each thread counts into its own shard of primitive counters, so
+ * threads never contend with each other, and the shards are only added up by {@link #summarize()}.
+ */
+public class FragmentStatistics {
+    private static final int NUM_BASES = Base.values().length;
+    private static final int NUM_QUALITY_SCORES = 64;
+    private static final int QUALITY_MASK = 0b0011_1111;
+    private static final int BASE_SHIFT = 6;
+
+    private final int numReadingBasesPerFragment;
+    private final List<Shard> shards = new ArrayList<>();
+    private final ThreadLocal<Shard> threadShard = ThreadLocal.withInitial(this::newShard);
+
+    private FragmentStatistics(int numReadingBasesPerFragment) {
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+        this.numReadingBasesPerFragment = numReadingBasesPerFragment;
+    }
+
+    /**
+     * Creates empty statistics for fragments with numReadingBasesPerFragment bases each.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     */
+    public static FragmentStatistics of(int numReadingBasesPerFragment) {
+        return new FragmentStatistics(numReadingBasesPerFragment);
+    }
+
+    /** The counters of a single thread. Only that thread writes them, so they don't need to be atomic. */
+    private static class Shard {
+        private final long[] qualitySums;
+        // The count of each base at each position, indexed by position * NUM_BASES + base
+        private final long[] baseCounts;
+        private final long[] qualityCounts = new long[NUM_QUALITY_SCORES];
+        private long numFragments;
+
+        private Shard(int numReadingBasesPerFragment) {
+            qualitySums = new long[numReadingBasesPerFragment];
+            baseCounts = new long[numReadingBasesPerFragment * NUM_BASES];
+        }
+    }
+
+    private Shard newShard() {
+        Shard shard = new Shard(numReadingBasesPerFragment);
+        synchronized (shards) {
+            shards.add(shard);
+        }
+        return shard;
+    }
+
+    public int getNumReadingBasesPerFragment() {
+        return numReadingBasesPerFragment;
+    }
+
+    /** Checks that these statistics are for fragments of the given length, before converting an input of them. */
+    void requireNumReadingBasesPerFragment(int numReadingBasesPerFragment) {
+        if (numReadingBasesPerFragment != this.numReadingBasesPerFragment) {
+            String message = String.format("Expected statistics for %s bases per fragment, but found statistics for %s",
+                    numReadingBasesPerFragment, this.numReadingBasesPerFragment);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Records the next numFragments raw fragments in the given buffer, starting at its position, which is left
+     * unchanged.
+     *
+     * @throws IllegalArgumentException if numFragments < 0
+     * @throws BufferUnderflowException if fewer than numFragments fragments remain in rawFragments
+     */
+    public void accept(ByteBuffer rawFragments, int numFragments) {
+        if (numFragments < 0) {
+            throw new IllegalArgumentException("numFragments must not be negative, but found " + numFragments);
+        }
+        if (rawFragments.remaining() < (long) numFragments * numReadingBasesPerFragment) {
+            throw new BufferUnderflowException();
+        }
+
+        Shard shard = threadShard.get();
+        long[] qualitySums = shard.qualitySums;
+        long[] baseCounts = shard.baseCounts;
+        long[] qualityCounts = shard.qualityCounts;
+        int index = rawFragments.position();
+        for (int i = 0; i < numFragments; ++i) {
+            for (int position = 0; position < numReadingBasesPerFragment; ++position) {
+                int binary = rawFragments.get(index++) & 0xFF;
+                int quality = binary & QUALITY_MASK;
+                qualitySums[position] += quality;
+                baseCounts[position * NUM_BASES + (binary >>> BASE_SHIFT)]++;
+                qualityCounts[quality]++;
+            }
+        }
+        shard.numFragments += numFragments;
+    }
+
+    /**
+     * Adds up the statistics recorded so far by all threads. Only batches whose {@link #accept(ByteBuffer, int)} call
+     * happened-before this call are guaranteed to be included, e.g. those recorded by tasks that have been joined.
+     */
+    public Summary summarize() {
+        Summary summary = new Summary(numReadingBasesPerFragment);
+        synchronized (shards) {
+            for (Shard shard : shards) {
+                summary.numFragments += shard.numFragments;
+                addTo(summary.qualitySums, shard.qualitySums);
+                addTo(summary.baseCounts, shard.baseCounts);
+                addTo(summary.qualityCounts, shard.qualityCounts);
+            }
+        }
+        return summary;
+    }
+
+    private static void addTo(long[] totals, long[] counts) {
+        for (int i = 0; i < totals.length; ++i) {
+            totals[i] += counts[i];
+        }
+    }
+
+    /** The statistics of all fragments recorded up to some point. Positions are numbered from 1, as in FASTQ. */
+    public static class Summary {
+        private final int numReadingBasesPerFragment;
+        private final long[] qualitySums;
+        private final long[] baseCounts;
+        private final long[] qualityCounts = new long[NUM_QUALITY_SCORES];
+        private long numFragments;
+
+        private Summary(int numReadingBasesPerFragment) {
+            this.numReadingBasesPerFragment = numReadingBasesPerFragment;
+            qualitySums = new long[numReadingBasesPerFragment];
+            baseCounts = new long[numReadingBasesPerFragment * NUM_BASES];
+        }
+
+        public int getNumReadingBasesPerFragment() {
+            return numReadingBasesPerFragment;
+        }
+
+        public long getNumFragments() {
+            return numFragments;
+        }
+
+        /**
+         * Returns the mean quality score at the given position, or NaN if no fragments were recorded.
+         *
+         * @throws IndexOutOfBoundsException if position < 1 or position > numReadingBasesPerFragment
+         */
+        public double getMeanQuality(int position) {
+            return qualitySums[Objects.checkIndex(position - 1, numReadingBasesPerFragment)] / (double) numFragments;
+        }
+
+        /**
+         * Returns how often the given base was read at the given position.
+         *
+         * @throws IndexOutOfBoundsException if position < 1 or position > numReadingBasesPerFragment
+         */
+        public long getBaseCount(int position, Base base) {
+            int index = Objects.checkIndex(position - 1, numReadingBasesPerFragment) * NUM_BASES + base.ordinal();
+            return baseCounts[index];
+        }
+
+        /** Returns how often the given quality score was read, at any position. */
+        public long getQualityCount(QualityScore score) {
+            return qualityCounts[score.toBinary()];
+        }
+
+        /**
+         * Writes these statistics as a tab-separated text file at the given path, which must not already exist. The
+         * file starts with the number of fragments, followed by a table of the mean quality and base counts at each
+         * position, and then a table of the count of each quality score.
+         *
+         * @throws UncheckedIOException if writing throws an IOException, where the cause of the UncheckedIOException is
+         *         the IOException.
+         */
+        public void write(Path path) {
+            try (BufferedWriter writer = Files.newBufferedWriter(path, StandardOpenOption.CREATE_NEW)) {
+                writer.write(String.format("#fragments\t%s%n", numFragments));
+                writer.write(String.format("#position\tmean_quality\tA\tC\tG\tT%n"));
+                for (int position = 1; position <= numReadingBasesPerFragment; ++position) {
+                    writer.write(String.format(Locale.ROOT, "%s\t%.2f\t%s\t%s\t%s\t%s%n", position,
+                            getMeanQuality(position), getBaseCount(position, Base.A), getBaseCount(position, Base.C),
+                            getBaseCount(position, Base.G), getBaseCount(position, Base.T)));
+                }
+                writer.write(String.format("#quality\tcount%n"));
+                for (int quality = 0; quality < NUM_QUALITY_SCORES; ++quality) {
+                    writer.write(String.format("%s\t%s%n", quality, qualityCounts[quality]));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
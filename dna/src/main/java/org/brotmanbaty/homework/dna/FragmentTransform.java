@@ -0,0 +1,56 @@
+package org.brotmanbaty.homework.dna;
+
+import java.util.Objects;
+
+/**
+ * Transforms batches of raw binary fragments in place, between reading and writing them (see
+ * {@link Main#convertSequentially(java.nio.file.Path, int, java.nio.channels.WritableByteChannel, FragmentTransform)}).
+ * Working on the raw bytes of a reused batch buffer, rather than on {@link ReadingFragment}s and their bases, lets a
+ * transform run without creating any objects. Built-in transforms are in {@link FragmentTransforms}.
+ *
+ * A transform may shorten fragments, but never lengthen them, so that the transformed fragments always fit into the
+ * buffer they were read into. Implementations should be thread safe.
+ */
+public interface FragmentTransform {
+    /**
+     * Returns the number of bases per fragment after transforming fragments of numReadingBasesPerFragment bases.
+     *
+     * @throws IllegalArgumentException if this transform can't be applied to fragments of that many bases
+     */
+    int getNumReadingBasesPerFragment(int numReadingBasesPerFragment);
+
+    /**
+     * Transforms the first numFragments fragments of numReadingBasesPerFragment bases each in rawFragments, in place.
+     * Afterwards, the transformed fragments are packed at the start of rawFragments, with
+     * {@link #getNumReadingBasesPerFragment(int)} bases each. The rest of the array is unspecified.
+     *
+     * @throws IllegalArgumentException if this transform can't be applied to fragments of numReadingBasesPerFragment
+     *         bases
+     * @throws IndexOutOfBoundsException if rawFragments has fewer than numFragments fragments
+     */
+    void apply(byte[] rawFragments, int numFragments, int numReadingBasesPerFragment);
+
+    /** Returns a transform that applies this transform, and then the next one to its result. */
+    default FragmentTransform andThen(FragmentTransform next) {
+        Objects.requireNonNull(next);
+        FragmentTransform first = this;
+        return new FragmentTransform() {
+            @Override
+            public int getNumReadingBasesPerFragment(int numReadingBasesPerFragment) {
+                int numFirstBasesPerFragment = first.getNumReadingBasesPerFragment(numReadingBasesPerFragment);
+                return next.getNumReadingBasesPerFragment(numFirstBasesPerFragment);
+            }
+
+            @Override
+            public void apply(byte[] rawFragments, int numFragments, int numReadingBasesPerFragment) {
+                first.apply(rawFragments, numFragments, numReadingBasesPerFragment);
+                next.apply(rawFragments, numFragments, first.getNumReadingBasesPerFragment(numReadingBasesPerFragment));
+            }
+
+            @Override
+            public String toString() {
+                return first + ", then " + next;
+            }
+        };
+    }
+}
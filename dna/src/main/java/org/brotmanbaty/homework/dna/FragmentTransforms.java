@@ -0,0 +1,153 @@
+package org.brotmanbaty.homework.dna;
+
+import java.util.Objects;
+
+/**
+ * The built-in {@link FragmentTransform}s. Each one makes a single pass over the raw bytes of a batch, without creating
+ * any objects.
+ */
+public class FragmentTransforms {
+    // Complementing a base flips both of its bits (A 00 <-> T 11, C 01 <-> G 10), and leaves its quality as it is
+    private static final int COMPLEMENT_MASK = 0b1100_0000;
+    private static final FragmentTransform NONE = new FragmentTransform() {
+        @Override
+        public int getNumReadingBasesPerFragment(int numReadingBasesPerFragment) {
+            return numReadingBasesPerFragment;
+        }
+
+        @Override
+        public void apply(byte[] rawFragments, int numFragments, int numReadingBasesPerFragment) {
+            Objects.checkFromIndexSize(0, numFragments * numReadingBasesPerFragment, rawFragments.length);
+        }
+
+        @Override
+        public String toString() {
+            return "none";
+        }
+    };
+    private static final FragmentTransform REVERSE_COMPLEMENT = new FragmentTransform() {
+        @Override
+        public int getNumReadingBasesPerFragment(int numReadingBasesPerFragment) {
+            return numReadingBasesPerFragment;
+        }
+
+        @Override
+        public void apply(byte[] rawFragments, int numFragments, int numReadingBasesPerFragment) {
+            int length = numFragments * numReadingBasesPerFragment;
+            Objects.checkFromIndexSize(0, length, rawFragments.length);
+            for (int start = 0; start < length; start += numReadingBasesPerFragment) {
+                // Swap the bases from both ends inwards, complementing both, which also complements an odd middle base
+                for (int i = start, j = start + numReadingBasesPerFragment - 1; i <= j; ++i, --j) {
+                    byte base = rawFragments[i];
+                    rawFragments[i] = (byte) (rawFragments[j] ^ COMPLEMENT_MASK);
+                    rawFragments[j] = (byte) (base ^ COMPLEMENT_MASK);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "reverse complement";
+        }
+    };
+
+    private FragmentTransforms() {}
+
+    /** Returns the transform that leaves fragments as they are. */
+    public static FragmentTransform none() {
+        return NONE;
+    }
+
+    /**
+     * Returns the transform that replaces each fragment with its reverse complement, i.e. the same stretch of DNA as
+     * read from the other strand. The quality scores are reversed along with their bases.
+     */
+    public static FragmentTransform reverseComplement() {
+        return REVERSE_COMPLEMENT;
+    }
+
+    /**
+     * Returns the transform that keeps only the bases from start (inclusive) to end (exclusive) of each fragment,
+     * counting from 0. It can only be applied to fragments of at least end bases.
+     *
+     * @throws IllegalArgumentException if start < 0 or end <= start
+     */
+    public static FragmentTransform slice(int start, int end) {
+        if (start < 0 || end <= start) {
+            String message = String.format("Expected 0 <= start < end, but found start %s and end %s", start, end);
+            throw new IllegalArgumentException(message);
+        }
+        return new FragmentTransform() {
+            @Override
+            public int getNumReadingBasesPerFragment(int numReadingBasesPerFragment) {
+                if (end > numReadingBasesPerFragment) {
+                    String message = String.format("Can't slice bases [%s, %s) from fragments of %s bases", start, end,
+                            numReadingBasesPerFragment);
+                    throw new IllegalArgumentException(message);
+                }
+                return end - start;
+            }
+
+            @Override
+            public void apply(byte[] rawFragments, int numFragments, int numReadingBasesPerFragment) {
+                int length = getNumReadingBasesPerFragment(numReadingBasesPerFragment);
+                Objects.checkFromIndexSize(0, numFragments * numReadingBasesPerFragment, rawFragments.length);
+                // Each slice moves towards the start of the array, never past the part of its fragment that's kept,
+                // so the slices can be packed from first to last
+                for (int i = 0; i < numFragments; ++i) {
+                    System.arraycopy(rawFragments, i * numReadingBasesPerFragment + start, rawFragments, i * length,
+                            length);
+                }
+            }
+
+            @Override
+            public String toString() {
+                return String.format("slice [%s, %s)", start, end);
+            }
+        };
+    }
+
+    /**
+     * Returns the transform that lowers every quality score above maxScore to maxScore, e.g. for tools that can't
+     * handle the full range of scores. The bases are left as they are.
+     *
+     * @throws IllegalArgumentException if maxScore is not a quality score (0 to 63)
+     */
+    public static FragmentTransform capQualities(int maxScore) {
+        if (maxScore < 0 || maxScore > 63) {
+            throw new IllegalArgumentException("Expected a quality score from 0 to 63, but found " + maxScore);
+        }
+        byte[] table = new byte[64];
+        for (int score = 0; score < table.length; ++score) {
+            table[score] = (byte) Math.min(score, maxScore);
+        }
+        return bin(QualityBinning.of(table), "cap qualities at " + maxScore);
+    }
+
+    /**
+     * Returns the transform that bins every quality score with the given binning (see
+     * {@link QualityBinning#binRawFragments(byte[], int, int)}). The bases are left as they are.
+     */
+    public static FragmentTransform bin(QualityBinning binning) {
+        return bin(Objects.requireNonNull(binning), "bin qualities");
+    }
+
+    private static FragmentTransform bin(QualityBinning binning, String description) {
+        return new FragmentTransform() {
+            @Override
+            public int getNumReadingBasesPerFragment(int numReadingBasesPerFragment) {
+                return numReadingBasesPerFragment;
+            }
+
+            @Override
+            public void apply(byte[] rawFragments, int numFragments, int numReadingBasesPerFragment) {
+                binning.binRawFragments(rawFragments, 0, numFragments * numReadingBasesPerFragment);
+            }
+
+            @Override
+            public String toString() {
+                return description;
+            }
+        };
+    }
+}
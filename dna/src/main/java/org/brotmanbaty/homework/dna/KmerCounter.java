@@ -0,0 +1,386 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the k-mers (the substrings of k bases) of every fragment in a binary fragment file, straight from the raw
+ * bytes. The top 2 bits of each byte are already the base's 2-bit code (A=00, C=01, G=10, T=11), so a k-mer of up to
+ * 32 bases is rolled into a long by shifting in one byte's base at a time, without decoding anything. K-mers never
+ * span two fragments.
+ *
+ * The input is split into fragment-aligned chunks that are counted concurrently on the executor. The counts live in a
+ * number of {@link LongIntHashMap}s, each holding the k-mers whose hash falls into its partition, so that threads only
+ * contend when they update the same partition. Each thread collects the k-mers of each partition in a small buffer and
+ * adds the whole buffer to the partition's map at once, under the partition's lock. The buffers are reused from chunk
+ * to chunk, and take up at most 1 MB per thread, so the more partitions there are, the smaller each one's buffer is.
+ *
+ * With a memory budget, partitions are spilled to disk whenever the maps take up more than the budget: the partition
+ * being updated is written out as (k-mer, count) pairs to a file in the spill directory and its map is emptied, as long
+ * as it's one of the larger ones (at least its share of the budget). The threads' buffers count against the budget
+ * too. Once the whole input is counted, each spilled partition is merged on its own, so the budget should leave room
+ * for the distinct k-mers of one partition.
+ *
+ * Counters are immutable: {@link #of(int)} creates one with the default settings, and each with method returns a
+ * modified copy.
+ */
+public class KmerCounter {
+    /** The largest k whose k-mers fit into a long. */
+    public static final int MAX_K = 32;
+    public static final int MAX_PARTITIONS = 1 << 16;
+    private static final int DEFAULT_PARTITIONS = 256;
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    // The most k-mers a thread collects for a partition before it takes the partition's lock, and for all partitions
+    private static final int MAX_PARTITION_BUFFER_SIZE = 512;
+    private static final int MAX_THREAD_BUFFER_SIZE = 128 * 1024;
+    private static final int SPILL_BUFFER_SIZE = 64 * 1024;
+    private static final int BASE_SHIFT = 6;
+
+    private final int k;
+    private final int numPartitions;
+    private final boolean canonical;
+    private final long memoryBudget;
+    private final Path spillDirectory;
+
+    private KmerCounter(int k, int numPartitions, boolean canonical, long memoryBudget, Path spillDirectory) {
+        this.k = k;
+        this.numPartitions = numPartitions;
+        this.canonical = canonical;
+        this.memoryBudget = memoryBudget;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Creates a counter of the k-mers of the given length, with 256 partitions, which counts each k-mer as it's read
+     * (not canonically) and keeps all counts in memory.
+     *
+     * @throws IllegalArgumentException if k < 1 or k > 32
+     */
+    public static KmerCounter of(int k) {
+        if (k < 1 || k > MAX_K) {
+            throw new IllegalArgumentException("k must be from 1 to " + MAX_K + ", but found " + k);
+        }
+        return new KmerCounter(k, DEFAULT_PARTITIONS, false, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Returns a copy of this counter that splits the counts into the given number of partitions.
+     *
+     * @throws IllegalArgumentException if numPartitions < 1 or numPartitions > 65536
+     */
+    public KmerCounter withPartitions(int numPartitions) {
+        if (numPartitions < 1 || numPartitions > MAX_PARTITIONS) {
+            throw new IllegalArgumentException(
+                    "numPartitions must be from 1 to " + MAX_PARTITIONS + ", but found " + numPartitions);
+        }
+        return new KmerCounter(k, numPartitions, canonical, memoryBudget, spillDirectory);
+    }
+
+    /**
+     * Returns a copy of this counter that counts each k-mer together with its reverse complement, under whichever of
+     * the two has the smaller code, as is usual when it's unknown which strand was read.
+     */
+    public KmerCounter withCanonical() {
+        return new KmerCounter(k, numPartitions, true, memoryBudget, spillDirectory);
+    }
+
+    /**
+     * Returns a copy of this counter that spills partitions to files in spillDirectory, which must exist, whenever the
+     * maps take up more than memoryBudget bytes, as described above.
+     *
+     * @throws IllegalArgumentException if memoryBudget <= 0
+     */
+    public KmerCounter withMemoryBudget(long memoryBudget, Path spillDirectory) {
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("memoryBudget must be greater than 0, but found " + memoryBudget);
+        }
+        return new KmerCounter(k, numPartitions, canonical, memoryBudget, Objects.requireNonNull(spillDirectory));
+    }
+
+    /** Returns the partition, from 0 to numPartitions - 1, of the given k-mer, from the high bits of its hash. */
+    static int getPartition(long kmer, int numPartitions) {
+        return (int) (((LongIntHashMap.hash(kmer) >>> 32) * numPartitions) >>> 32);
+    }
+
+    /** The counts of one partition, which are guarded by the partition itself. */
+    private static class Partition {
+        private final LongIntHashMap counts = new LongIntHashMap();
+        private Path spillPath;
+    }
+
+    /**
+     * The k-mers a thread has collected for each partition, in one flat array with a slice of partitionBufferSize
+     * k-mers per partition. Used by one thread at a time.
+     */
+    private static class PartitionBuffers {
+        private final int partitionBufferSize;
+        private final long[] kmers;
+        private final int[] sizes;
+
+        private PartitionBuffers(int numPartitions) {
+            this.partitionBufferSize = Math.max(1, Math.min(MAX_PARTITION_BUFFER_SIZE,
+                    MAX_THREAD_BUFFER_SIZE / numPartitions));
+            this.kmers = new long[numPartitions * partitionBufferSize];
+            this.sizes = new int[numPartitions];
+        }
+
+        private long getMemoryBytes() {
+            return (long) kmers.length * Long.BYTES + (long) sizes.length * Integer.BYTES;
+        }
+    }
+
+    /**
+     * Counts the k-mers of every fragment in the binary fragment file at inputPath, on the given executor. The returned
+     * counts must be closed once they're no longer needed, to delete any spill files.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     * @throws IllegalStateException if the size of the input file is not a multiple of numReadingBasesPerFragment
+     *         (i.e. the last fragment is truncated)
+     * @throws UncheckedIOException if reading the input or spilling throws an IOException, or if the calling thread is
+     *         interrupted, where the cause of the UncheckedIOException is the IOException (an InterruptedIOException if
+     *         interrupted). In that case, any spill files are deleted.
+     */
+    public KmerCounts count(Path inputPath, int numReadingBasesPerFragment, ExecutorService executor) {
+        Objects.requireNonNull(executor);
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+        Partition[] partitions = new Partition[numPartitions];
+        for (int i = 0; i < numPartitions; ++i) {
+            partitions[i] = new Partition();
+        }
+        AtomicLong memoryBytes = new AtomicLong();
+        // Buffers are only created when no idle one is left, so there are at most as many as there are threads
+        Queue<PartitionBuffers> idleBuffers = new ConcurrentLinkedQueue<>();
+        boolean succeeded = false;
+        try (FileChannel input = FileChannel.open(inputPath, StandardOpenOption.READ)) {
+            long inputSize = input.size();
+            if (inputSize % numReadingBasesPerFragment != 0) {
+                String message = String.format("Expected to find %s base readings per fragment in input, but only "
+                        + "found %s in the last fragment before end of input.", numReadingBasesPerFragment,
+                        inputSize % numReadingBasesPerFragment);
+                throw new IllegalStateException(message);
+            }
+            long numFragments = inputSize / numReadingBasesPerFragment;
+            int fragmentsPerChunk = Math.max(1, CHUNK_SIZE / numReadingBasesPerFragment);
+
+            // Positional reads don't share a position, so all chunks can read through the same channel
+            List<Future<?>> chunks = new ArrayList<>();
+            try {
+                for (long first = 0; first < numFragments; first += fragmentsPerChunk) {
+                    long firstFragment = first;
+                    int chunkFragments = (int) Math.min(fragmentsPerChunk, numFragments - first);
+                    chunks.add(executor.submit(() -> countChunk(input, numReadingBasesPerFragment, firstFragment,
+                            chunkFragments, partitions, memoryBytes, idleBuffers)));
+                }
+                for (Future<?> chunk : chunks) {
+                    chunk.get();
+                }
+            } finally {
+                // Stop any remaining chunks if one failed, since the input must no longer be read once it's closed
+                for (Future<?> chunk : chunks) {
+                    chunk.cancel(true);
+                }
+            }
+
+            LongIntHashMap[] counts = new LongIntHashMap[numPartitions];
+            Path[] spillPaths = new Path[numPartitions];
+            long numDistinct = 0;
+            for (int i = 0; i < numPartitions; ++i) {
+                if (partitions[i].spillPath == null) {
+                    counts[i] = partitions[i].counts;
+                    numDistinct += counts[i].size();
+                } else {
+                    spillPaths[i] = partitions[i].spillPath;
+                    numDistinct += mergeSpilled(partitions[i]);
+                }
+            }
+            long kmersPerFragment = Math.max(0, numReadingBasesPerFragment - k + 1);
+            KmerCounts result = new KmerCounts(k, canonical, counts, spillPaths, numDistinct,
+                    numFragments * kmersPerFragment);
+            succeeded = true;
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while counting k-mers"));
+        } catch (ExecutionException e) {
+            // Rethrow the chunk's exception as the calling thread would have thrown it
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            if (!succeeded) {
+                for (Partition partition : partitions) {
+                    KmerCounts.deleteQuietly(partition.spillPath);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the k-mers of numFragments fragments starting at fragment index first, with buffers taken from
+     * idleBuffers (or new ones), which are returned there afterwards.
+     */
+    private Void countChunk(FileChannel input, int numReadingBasesPerFragment, long first, int numFragments,
+            Partition[] partitions, AtomicLong memoryBytes, Queue<PartitionBuffers> idleBuffers) throws IOException {
+        ByteBuffer rawFragments = ByteBuffer.allocate(numFragments * numReadingBasesPerFragment);
+        long position = first * numReadingBasesPerFragment;
+        while (rawFragments.hasRemaining()) {
+            if (input.read(rawFragments, position + rawFragments.position()) < 0) {
+                throw new IllegalStateException("Input ended while counting k-mers");
+            }
+        }
+
+        PartitionBuffers buffers = idleBuffers.poll();
+        if (buffers == null) {
+            buffers = new PartitionBuffers(numPartitions);
+            memoryBytes.addAndGet(buffers.getMemoryBytes());
+        }
+        // Any k-mers left in the buffers of a failed chunk don't matter, as the whole count fails
+        countChunk(rawFragments.array(), numReadingBasesPerFragment, partitions, memoryBytes, buffers);
+        idleBuffers.add(buffers);
+        return null;
+    }
+
+    private void countChunk(byte[] raw, int numReadingBasesPerFragment, Partition[] partitions, AtomicLong memoryBytes,
+            PartitionBuffers buffers) throws IOException {
+        int partitionBufferSize = buffers.partitionBufferSize;
+        long[] kmers = buffers.kmers;
+        int[] bufferSizes = buffers.sizes;
+        long mask = k == MAX_K ? -1L : (1L << (2 * k)) - 1;
+        int reverseShift = 2 * (k - 1);
+        for (int start = 0; start < raw.length; start += numReadingBasesPerFragment) {
+            long forward = 0;
+            long reverse = 0;
+            for (int i = 0; i < numReadingBasesPerFragment; ++i) {
+                long base = (raw[start + i] & 0xff) >>> BASE_SHIFT;
+                forward = ((forward << 2) | base) & mask;
+                // The complement of a base is 3 minus its code, and it enters the reverse k-mer at the front
+                reverse = (reverse >>> 2) | ((3 - base) << reverseShift);
+                if (i < k - 1) {
+                    continue;
+                }
+                long kmer = canonical && Long.compareUnsigned(reverse, forward) < 0 ? reverse : forward;
+                int partition = getPartition(kmer, numPartitions);
+                int bufferStart = partition * partitionBufferSize;
+                kmers[bufferStart + bufferSizes[partition]++] = kmer;
+                if (bufferSizes[partition] == partitionBufferSize) {
+                    addAll(partitions[partition], kmers, bufferStart, partitionBufferSize, memoryBytes);
+                    bufferSizes[partition] = 0;
+                }
+            }
+        }
+        for (int partition = 0; partition < numPartitions; ++partition) {
+            if (bufferSizes[partition] > 0) {
+                addAll(partitions[partition], kmers, partition * partitionBufferSize, bufferSizes[partition],
+                        memoryBytes);
+                bufferSizes[partition] = 0;
+            }
+        }
+    }
+
+    private void addAll(Partition partition, long[] kmers, int offset, int numKmers, AtomicLong memoryBytes)
+            throws IOException {
+        synchronized (partition) {
+            long memoryBefore = partition.counts.getMemoryBytes();
+            for (int i = offset; i < offset + numKmers; ++i) {
+                partition.counts.add(kmers[i], 1);
+            }
+            long memoryAfter = partition.counts.getMemoryBytes();
+            long totalMemory = memoryBytes.addAndGet(memoryAfter - memoryBefore);
+            if (totalMemory > memoryBudget && memoryAfter >= memoryBudget / numPartitions) {
+                spill(partition);
+                memoryBytes.addAndGet(partition.counts.getMemoryBytes() - memoryAfter);
+            }
+        }
+    }
+
+    /** Appends the partition's counts to its spill file and empties its map. The caller holds the partition's lock. */
+    private void spill(Partition partition) throws IOException {
+        if (partition.spillPath == null) {
+            partition.spillPath = Files.createTempFile(spillDirectory, "kmers-", ".spill");
+        }
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                partition.spillPath, StandardOpenOption.APPEND), SPILL_BUFFER_SIZE))) {
+            writeCounts(partition.counts, output);
+        }
+        partition.counts.clear();
+    }
+
+    /**
+     * Merges the spilled counts of the partition with the counts still in its map, and replaces its spill file with one
+     * that holds each k-mer once. Returns the number of distinct k-mers.
+     */
+    private static long mergeSpilled(Partition partition) throws IOException {
+        LongIntHashMap merged = partition.counts;
+        readCounts(partition.spillPath, merged::add);
+        Path mergedPath = partition.spillPath.resolveSibling(partition.spillPath.getFileName() + ".merged");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                mergedPath, StandardOpenOption.CREATE_NEW), SPILL_BUFFER_SIZE))) {
+            writeCounts(merged, output);
+        }
+        Files.move(mergedPath, partition.spillPath, StandardCopyOption.REPLACE_EXISTING);
+        long numDistinct = merged.size();
+        merged.clear();
+        return numDistinct;
+    }
+
+    private static void writeCounts(LongIntHashMap counts, DataOutputStream output) throws IOException {
+        try {
+            counts.forEach((kmer, count) -> {
+                try {
+                    output.writeLong(kmer);
+                    output.writeInt(count);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Visits every (k-mer, count) pair in the given spill file, in the order they were written. */
+    static void readCounts(Path spillPath, LongIntHashMap.EntryConsumer consumer) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(spillPath),
+                SPILL_BUFFER_SIZE))) {
+            while (true) {
+                long kmer;
+                try {
+                    kmer = input.readLong();
+                } catch (EOFException e) {
+                    return;
+                }
+                consumer.accept(kmer, input.readInt());
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The k-mer counts of a binary fragment file, as counted by {@link KmerCounter}. K-mers are represented by their 2-bit
+ * codes, with the first base in the highest bits, as in {@link #encode(String)}. The counts of partitions that were
+ * spilled stay on disk, and are read back partition by partition whenever they're needed, until the counts are
+ * closed.
+ */
+public class KmerCounts implements Closeable {
+    private static final String BASES = "ACGT";
+
+    private final int k;
+    private final boolean canonical;
+    private final LongIntHashMap[] counts;
+    private final Path[] spillPaths;
+    private final long numDistinct;
+    private final long total;
+
+    /**
+     * Creates the counts of k-mers that are split into partitions by {@link KmerCounter#getPartition(long, int)}, where
+     * each partition's counts are either in the map at its index in counts, or in the spill file at its index in
+     * spillPaths.
+     */
+    KmerCounts(int k, boolean canonical, LongIntHashMap[] counts, Path[] spillPaths, long numDistinct, long total) {
+        this.k = k;
+        this.canonical = canonical;
+        this.counts = counts;
+        this.spillPaths = spillPaths;
+        this.numDistinct = numDistinct;
+        this.total = total;
+    }
+
+    /** Visits a k-mer and its count, without boxing. */
+    public interface KmerConsumer {
+        void accept(long kmer, int count);
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /** Returns whether each k-mer was counted together with its reverse complement. */
+    public boolean isCanonical() {
+        return canonical;
+    }
+
+    /** Returns the number of distinct k-mers. */
+    public long getNumDistinct() {
+        return numDistinct;
+    }
+
+    /** Returns the number of k-mers that were counted, including repeats. */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the count of the k-mer with the given code, which is 0 if it never occurred. For canonical counts, the
+     * code must be the canonical one. Looking up a k-mer in a spilled partition reads the partition's spill file.
+     *
+     * @throws UncheckedIOException if reading a spill file throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public int get(long kmer) {
+        int partition = KmerCounter.getPartition(kmer, counts.length);
+        if (spillPaths[partition] == null) {
+            return counts[partition].get(kmer);
+        }
+        int[] count = new int[1];
+        try {
+            KmerCounter.readCounts(spillPaths[partition], (spilledKmer, spilledCount) -> {
+                if (spilledKmer == kmer) {
+                    count[0] = spilledCount;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count[0];
+    }
+
+    /**
+     * Returns the count of the given k-mer of bases (A, C, G and T), or of its canonical form for canonical counts.
+     *
+     * @throws IllegalArgumentException if the k-mer is not k bases long
+     * @throws UncheckedIOException if reading a spill file throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public int get(String kmer) {
+        if (kmer.length() != k) {
+            throw new IllegalArgumentException("Expected a k-mer of " + k + " bases, but found " + kmer);
+        }
+        long code = encode(kmer);
+        if (canonical) {
+            long reverseComplement = reverseComplement(code, k);
+            code = Long.compareUnsigned(reverseComplement, code) < 0 ? reverseComplement : code;
+        }
+        return get(code);
+    }
+
+    /**
+     * Visits every k-mer that occurred, with its count, one partition at a time and in no particular order.
+     *
+     * @throws UncheckedIOException if reading a spill file throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public void forEach(KmerConsumer consumer) {
+        for (int partition = 0; partition < counts.length; ++partition) {
+            if (spillPaths[partition] == null) {
+                counts[partition].forEach(consumer::accept);
+            } else {
+                try {
+                    KmerCounter.readCounts(spillPaths[partition], consumer::accept);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes these counts as a tab-separated text file at the given path, which must not already exist. The file
+     * starts with k, followed by a table of every k-mer that occurred, as bases, with its count, in no particular
+     * order.
+     *
+     * @throws UncheckedIOException if writing throws an IOException, where the cause of the UncheckedIOException is the
+     *         IOException.
+     */
+    public void write(Path path) {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardOpenOption.CREATE_NEW)) {
+            writer.write(String.format("#k\t%s%n", k));
+            writer.write(String.format("#kmer\tcount%n"));
+            forEach((kmer, count) -> {
+                try {
+                    writer.write(decode(kmer, k));
+                    writer.write('\t');
+                    writer.write(Integer.toString(count));
+                    writer.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Deletes the spill files, after which the counts of spilled partitions can no longer be read. */
+    @Override
+    public void close() {
+        for (Path spillPath : spillPaths) {
+            deleteQuietly(spillPath);
+        }
+    }
+
+    static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Leave the file behind in the spill directory, where it can't be mistaken for anything else
+        }
+    }
+
+    /**
+     * Returns the 2-bit code of the given k-mer of bases (A, C, G and T), with the first base in the highest bits.
+     *
+     * @throws IllegalArgumentException if the k-mer is empty, longer than 32 bases, or has another character
+     */
+    public static long encode(String kmer) {
+        if (kmer.isEmpty() || kmer.length() > KmerCounter.MAX_K) {
+            throw new IllegalArgumentException(
+                    "Expected a k-mer of 1 to " + KmerCounter.MAX_K + " bases, but found " + kmer);
+        }
+        long code = 0;
+        for (int i = 0; i < kmer.length(); ++i) {
+            int base = BASES.indexOf(kmer.charAt(i));
+            if (base < 0) {
+                throw new IllegalArgumentException("Expected only A, C, G and T in a k-mer, but found " + kmer);
+            }
+            code = (code << 2) | base;
+        }
+        return code;
+    }
+
+    /** Returns the bases of the k-mer with the given 2-bit code, the inverse of {@link #encode(String)}. */
+    public static String decode(long kmer, int k) {
+        char[] bases = new char[k];
+        for (int i = k - 1; i >= 0; --i) {
+            bases[i] = BASES.charAt((int) kmer & 0b11);
+            kmer >>>= 2;
+        }
+        return new String(bases);
+    }
+
+    /** Returns the 2-bit code of the reverse complement of the k-mer with the given code. */
+    public static long reverseComplement(long kmer, int k) {
+        long reverseComplement = 0;
+        for (int i = 0; i < k; ++i) {
+            reverseComplement = (reverseComplement << 2) | (3 - (kmer & 0b11));
+            kmer >>>= 2;
+        }
+        return reverseComplement;
+    }
+}
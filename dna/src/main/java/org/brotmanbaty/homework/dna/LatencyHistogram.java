@@ -0,0 +1,75 @@
+package org.brotmanbaty.homework.dna;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds, where bucket i counts the latencies in [2^(i-1), 2^i). Buckets
+ * this coarse can't give exact percentiles, but recording is only a few increments of LongAdders, which stay
+ * uncontended even when many threads record at once, so it can be done for every batch without measurably slowing down
+ * a conversion. Percentiles are reported as the upper bound of their bucket, so they're at most twice the true value.
+ */
+public class LatencyHistogram {
+    private static final int NUM_BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[NUM_BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < NUM_BUCKETS; ++i) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /** Records one latency. Negative latencies (e.g. from clock adjustments) are recorded as 0. */
+    public void record(long nanos) {
+        long clamped = Math.max(0, nanos);
+        buckets[Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(clamped))].increment();
+        count.increment();
+        totalNanos.add(clamped);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /** Returns the mean latency, or 0 if nothing has been recorded. */
+    public long getMeanNanos() {
+        long currentCount = count.sum();
+        return currentCount == 0 ? 0 : totalNanos.sum() / currentCount;
+    }
+
+    /**
+     * Returns an upper bound on the given percentile of the recorded latencies, or 0 if nothing has been recorded.
+     *
+     * @throws IllegalArgumentException if percentile is not between 0 and 100, inclusive.
+     */
+    public long getPercentileNanos(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100, but found " + percentile);
+        }
+        long[] snapshot = new long[NUM_BUCKETS];
+        long snapshotCount = 0;
+        for (int i = 0; i < NUM_BUCKETS; ++i) {
+            snapshot[i] = buckets[i].sum();
+            snapshotCount += snapshot[i];
+        }
+        if (snapshotCount == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * snapshotCount));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; ++i) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return i == NUM_BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+        }
+        throw new IllegalStateException("Expected to reach rank " + rank + " within " + snapshotCount + " latencies");
+    }
+}
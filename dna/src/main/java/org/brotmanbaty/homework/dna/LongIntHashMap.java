@@ -0,0 +1,142 @@
+package org.brotmanbaty.homework.dna;
+
+/**
+ * A map from long keys to int counts, for counting many millions of k-mers without boxing them. It uses open
+ * addressing with linear probing over parallel primitive arrays, so each entry costs 12 bytes plus free slots, rather
+ * than the ~80 bytes of a HashMap entry with a boxed Long and Integer. Key 0 marks a free slot, so the count of key 0
+ * is kept separately. Counts saturate at Integer.MAX_VALUE rather than overflowing. This class is not thread safe.
+ */
+class LongIntHashMap {
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    // Grow when more than 1/2 of the slots are full, which keeps linear probes short
+    private static final int MAX_LOAD_SHIFT = 1;
+
+    private long[] keys;
+    private int[] counts;
+    private int mask;
+    private int size;
+    private boolean hasZeroKey;
+    private int zeroKeyCount;
+
+    LongIntHashMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /** Functional interface for visiting every entry, without boxing. */
+    interface EntryConsumer {
+        void accept(long key, int count);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Mixes all bits of the key into all bits of the hash (with the finalizer of MurmurHash3), so that keys that differ
+     * only in a few bits still spread evenly. The map uses the low bits, leaving the high bits for partitioning.
+     */
+    static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /** Adds count to the count of key, which starts at 0. */
+    void add(long key, int count) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                ++size;
+            }
+            zeroKeyCount = saturatedAdd(zeroKeyCount, count);
+            return;
+        }
+        int slot = (int) hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                counts[slot] = saturatedAdd(counts[slot], count);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = count;
+        if (++size > keys.length >>> MAX_LOAD_SHIFT) {
+            if (keys.length == MAX_CAPACITY) {
+                throw new IllegalStateException("Expected at most " + (MAX_CAPACITY >>> MAX_LOAD_SHIFT) + " keys");
+            }
+            rehash(keys.length * 2);
+        }
+    }
+
+    private static int saturatedAdd(int count, int increment) {
+        long sum = (long) count + increment;
+        return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; ++i) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int slot = (int) hash(key) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    /** Returns the count of key, or 0 if it has none. */
+    int get(long key) {
+        if (key == 0) {
+            return zeroKeyCount;
+        }
+        for (int slot = (int) hash(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return counts[slot];
+            }
+        }
+        return 0;
+    }
+
+    /** Returns the number of keys. */
+    int size() {
+        return size;
+    }
+
+    /** Returns roughly how many bytes of heap the tables take up. */
+    long getMemoryBytes() {
+        return (long) keys.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    /** Removes all entries, releasing the tables. */
+    void clear() {
+        allocate(MIN_CAPACITY);
+        size = 0;
+        hasZeroKey = false;
+        zeroKeyCount = 0;
+    }
+
+    /** Visits every entry, in no particular order. */
+    void forEach(EntryConsumer consumer) {
+        if (hasZeroKey) {
+            consumer.accept(0, zeroKeyCount);
+        }
+        for (int i = 0; i < keys.length; ++i) {
+            if (keys[i] != 0) {
+                consumer.accept(keys[i], counts[i]);
+            }
+        }
+    }
+}
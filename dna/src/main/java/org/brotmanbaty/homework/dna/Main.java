@@ -1,13 +1,27 @@
 package org.brotmanbaty.homework.dna;
 
-import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.Writer;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Problem 1: DNA sequence conversion
@@ -47,42 +61,688 @@ import java.nio.file.StandardOpenOption;
  * location is also hard-coded. This could also have been an input to the application, as well. The application will
  * read the input file and write the results to the file "target/dna-output/output.txt" relative to the working
  * directory.
+ * 
+ * Passing the "--parallel" argument converts the input with {@link ParallelFastqConverter} instead, which memory maps
+ * the input and converts fragment-aligned chunks of it on all available cores. Passing the "--pipelined" argument
+ * converts the input with {@link PipelinedFastqConverter} instead, which reads, decodes, and writes on separate threads
+ * so that they overlap. Passing the "--bgzf" argument writes block-gzipped output to "target/dna-output/output.txt.gz"
+ * instead, compressing the blocks on all available cores.
+ * 
+ * Passing "--manifest" followed by the path of a manifest file converts all of the jobs listed in the manifest (see
+ * {@link ConversionJob#readManifest(Path)}) concurrently instead, using {@link BatchConverter}, and reports each job's
+ * progress and outcome on the console. A failing job doesn't stop the others, but makes the program exit with status 1.
+ * 
+ * Passing the "--metrics" argument prints the {@link ConversionMetrics} of the conversion every second and once more at
+ * the end, showing its throughput and how long reading, decoding, and writing took. The metrics can also be watched
+ * through JMX while the program runs, and reads and writes show up as events in JFR recordings either way.
+ * 
+ * Passing the "--stats" argument also collects {@link FragmentStatistics} during the conversion, and writes them next
+ * to the output, to "target/dna-output/output.txt.stats.tsv" (or "output.txt.gz.stats.tsv" with "--bgzf").
+ * 
+ * The input can also be filtered with a {@link QualityFilter} while it's converted (sequentially), by passing any of
+ * "--min-mean-quality" followed by a quality score, "--min-quality" followed by a quality score, "--trim" followed by
+ * "&lt;window size&gt;:&lt;quality&gt;", or "--min-length" followed by a number of bases. The written records are
+ * numbered consecutively, unless "--keep-fragment-numbers" is passed to keep the fragment numbers of the input.
+ * 
+ * Passing the "--dedup" argument drops exact duplicate fragments while the input is converted (sequentially), with
+ * a {@link DuplicateFilter}. Passing "--sequence-only" too compares only the bases of fragments, and passing
+ * "--flag-duplicates" keeps the duplicates, but flags them in their header lines. Like with quality filtering, the
+ * written records are numbered consecutively, unless "--keep-fragment-numbers" is passed.
+ * 
+ * Passing "--bin-qualities" followed by "illumina" or a binning specification (see
+ * {@link QualityBinning#parse(String)}) bins the quality scores as they're decoded (sequentially), which makes the
+ * output much more compressible.
+ * 
+ * Passing the "--checkpoint" argument converts the input (sequentially) with {@link CheckpointedConverter} instead,
+ * which records its progress in "target/dna-output/output.txt.checkpoint". If that conversion dies, passing "--resume"
+ * checks the output written so far against the checkpoints and continues after the last intact chunk.
+ * 
+ * Passing the "--follow" argument converts the input while it's still being written instead, with
+ * {@link FollowingConverter}: each fragment is converted and flushed as soon as all of its bases have arrived, until
+ * the file "&lt;input&gt;.done" is created or the input hasn't grown for 60 seconds (or for the number of seconds given
+ * after "--idle-timeout").
+ * 
+ * Passing "--paired" followed by the path of a second input, the other read direction of a paired-end run, converts
+ * both inputs in lockstep with {@link PairedFastqConverter} instead, into "target/dna-output/output_R1.txt" and
+ * "output_R2.txt", or interleaved into "output.txt" if "--interleaved" is passed too. The second input has the same
+ * number of bases per fragment as the first, unless another number is passed after "--paired-length".
+ * 
+ * Passing "--shard-fragments" followed by a number of fragments, or "--shard-size" followed by a number of bytes,
+ * writes the output as shards of that size instead, "target/dna-output/output.00000.fastq" and so on, which are
+ * converted concurrently with {@link ShardedFastqConverter}.
+ * 
+ * Passing "--count-kmers" followed by k counts the k-mers of the input with {@link KmerCounter} instead of converting
+ * it, and writes their counts to "target/dna-output/kmers.tsv". Passing "--canonical" too counts each k-mer together
+ * with its reverse complement, and passing "--kmer-memory" followed by a number of bytes spills the counts to
+ * "target/dna-output" whenever they take up more memory than that.
+ * 
+ * Passing "--search" followed by comma-separated DNA patterns searches the input for them with {@link MotifSearcher}
+ * instead of converting it, and writes every match to "target/dna-output/matches.tsv". Passing "--mismatches" followed
+ * by a number also finds occurrences with up to that many mismatched bases.
+ * 
+ * Passing the "--archive" argument stores the input in a compressed, randomly accessible {@link ColumnarArchive}
+ * instead of converting it, at "target/dna-output/output.dnac", and passing "--extract" extracts that archive back
+ * into the original binary format, at "target/dna-output/output.binary". Passing both does one after the other.
+ * 
+ * Fragments can also be transformed while they're converted (sequentially), with {@link FragmentTransforms}, by
+ * passing any of "--reverse-complement", "--slice" followed by "&lt;start&gt;:&lt;end&gt;" (counting bases from 0,
+ * with the end excluded), or "--cap-quality" followed by the highest quality score to keep. The transforms are
+ * applied in the order they're given.
  */
 public class Main {
     private static final Path EXAMPLE_INPUT_PATH = Path.of("src/main/resources/example.binary");
     private static final Path OUTPUT_DIRECTORY = Path.of("target/dna-output");
     private static final Path OUTPUT_PATH = OUTPUT_DIRECTORY.resolve("output.txt");
+    private static final Path BGZF_OUTPUT_PATH = OUTPUT_DIRECTORY.resolve("output.txt.gz");
+    private static final Path OUTPUT_PATH_1 = OUTPUT_DIRECTORY.resolve("output_R1.txt");
+    private static final Path OUTPUT_PATH_2 = OUTPUT_DIRECTORY.resolve("output_R2.txt");
+    private static final String PARALLEL_OPTION = "--parallel";
+    private static final String PIPELINED_OPTION = "--pipelined";
+    private static final String BGZF_OPTION = "--bgzf";
+    private static final String MANIFEST_OPTION = "--manifest";
+    private static final String METRICS_OPTION = "--metrics";
+    private static final String STATS_OPTION = "--stats";
+    private static final String STATS_SUFFIX = ".stats.tsv";
+    private static final String MIN_MEAN_QUALITY_OPTION = "--min-mean-quality";
+    private static final String MIN_QUALITY_OPTION = "--min-quality";
+    private static final String TRIM_OPTION = "--trim";
+    private static final String MIN_LENGTH_OPTION = "--min-length";
+    private static final String KEEP_FRAGMENT_NUMBERS_OPTION = "--keep-fragment-numbers";
+    private static final String DEDUP_OPTION = "--dedup";
+    private static final String SEQUENCE_ONLY_OPTION = "--sequence-only";
+    private static final String FLAG_DUPLICATES_OPTION = "--flag-duplicates";
+    private static final String BIN_QUALITIES_OPTION = "--bin-qualities";
+    private static final String ILLUMINA_BINNING = "illumina";
+    private static final String CHECKPOINT_OPTION = "--checkpoint";
+    private static final String RESUME_OPTION = "--resume";
+    private static final String FOLLOW_OPTION = "--follow";
+    private static final String IDLE_TIMEOUT_OPTION = "--idle-timeout";
+    private static final String END_MARKER_SUFFIX = ".done";
+    private static final String PAIRED_OPTION = "--paired";
+    private static final String PAIRED_LENGTH_OPTION = "--paired-length";
+    private static final String INTERLEAVED_OPTION = "--interleaved";
+    private static final String SHARD_FRAGMENTS_OPTION = "--shard-fragments";
+    private static final String SHARD_SIZE_OPTION = "--shard-size";
+    private static final String SHARD_NAME = "output";
+    private static final String COUNT_KMERS_OPTION = "--count-kmers";
+    private static final String CANONICAL_OPTION = "--canonical";
+    private static final String KMER_MEMORY_OPTION = "--kmer-memory";
+    private static final Path KMERS_PATH = OUTPUT_DIRECTORY.resolve("kmers.tsv");
+    private static final String SEARCH_OPTION = "--search";
+    private static final String MISMATCHES_OPTION = "--mismatches";
+    private static final Path MATCHES_PATH = OUTPUT_DIRECTORY.resolve("matches.tsv");
+    private static final String ARCHIVE_OPTION = "--archive";
+    private static final String EXTRACT_OPTION = "--extract";
+    private static final Path ARCHIVE_PATH = OUTPUT_DIRECTORY.resolve("output.dnac");
+    private static final Path EXTRACTED_PATH = OUTPUT_DIRECTORY.resolve("output.binary");
+    private static final String REVERSE_COMPLEMENT_OPTION = "--reverse-complement";
+    private static final String SLICE_OPTION = "--slice";
+    private static final String CAP_QUALITY_OPTION = "--cap-quality";
+    private static final long METRICS_REPORT_PERIOD_SECONDS = 1;
+    private static final int BATCH_SIZE = 1024 * 1024;
+    private static final int WRITER_BUFFER_SIZE = 64 * 1024;
+    private static final long CHECKPOINT_INTERVAL = 64L * 1024 * 1024;
+    private static final Duration FOLLOW_POLL_INTERVAL = Duration.ofMillis(100);
+    private static final long DEFAULT_IDLE_TIMEOUT_SECONDS = 60;
 
     public static void main(String args[]) throws IOException {
+        ConversionMetrics metrics = ConversionMetrics.of();
+        ScheduledExecutorService metricsReporter =
+                Arrays.asList(args).contains(METRICS_OPTION) ? startReportingMetrics(metrics) : null;
+        boolean succeeded;
+        try {
+            succeeded = convert(args, metrics);
+        } finally {
+            if (metricsReporter != null) {
+                metricsReporter.shutdownNow();
+                System.out.println(metrics);
+            }
+        }
+        if (!succeeded) {
+            System.exit(1);
+        }
+    }
+
+    /** Runs the conversion selected by the arguments, returning whether it succeeded. */
+    private static boolean convert(String args[], ConversionMetrics metrics) throws IOException {
+        List<String> options = Arrays.asList(args);
+        String manifestPath = getOptionValue(options, MANIFEST_OPTION);
+        if (manifestPath != null) {
+            return convertManifest(Path.of(manifestPath), metrics);
+        }
+
+        Mode mode = getMode(options);
+
         // Define what would normally be input to the function
         int numReadingBasesPerFragment = 2;
         Path inputPath = EXAMPLE_INPUT_PATH;
 
-        // Create the output file directory, if it doesn't already exist. Files#newBufferedWriter will not do this, even
+        // Create the output file directory, if it doesn't already exist. Files#newOutputStream will not do this, even
         // with StandardOpenOption.CREATE_NEW. That only seems to work at the file level.
         Files.createDirectories(OUTPUT_DIRECTORY);
 
+        boolean bgzf = options.contains(BGZF_OPTION);
+        Path outputPath = bgzf ? BGZF_OUTPUT_PATH : OUTPUT_PATH;
+        FragmentTransform transform = getFragmentTransform(options);
+        // Statistics are collected on the transformed fragments, which may be shorter
+        FragmentStatistics statistics = options.contains(STATS_OPTION) ? FragmentStatistics.of(transform == null
+                ? numReadingBasesPerFragment : transform.getNumReadingBasesPerFragment(numReadingBasesPerFragment))
+                : null;
+        switch (mode) {
+        case ARCHIVE:
+            if (options.contains(ARCHIVE_OPTION)) {
+                ColumnarArchive.create(inputPath, numReadingBasesPerFragment, ARCHIVE_PATH, ForkJoinPool.commonPool());
+            }
+            try (ColumnarArchive archive = ColumnarArchive.of(ARCHIVE_PATH)) {
+                System.out.printf("Archived %s fragments in %s bytes (input: %s bytes)%n", archive.getNumFragments(),
+                        archive.getSize(), archive.getNumFragments() * archive.getNumReadingBasesPerFragment());
+                if (options.contains(EXTRACT_OPTION)) {
+                    archive.extract(EXTRACTED_PATH, ForkJoinPool.commonPool());
+                    System.out.printf("Extracted the archive to %s%n", EXTRACTED_PATH);
+                }
+            }
+            return true;
+        case SEARCH:
+            String maxMismatches = getOptionValue(options, MISMATCHES_OPTION);
+            List<String> patterns = Arrays.asList(getOptionValue(options, SEARCH_OPTION).split(","));
+            MotifSearcher searcher = MotifSearcher.of(ForkJoinPool.commonPool(), patterns)
+                    .withMaxMismatches(maxMismatches == null ? 0 : Integer.parseInt(maxMismatches));
+            search(inputPath, numReadingBasesPerFragment, searcher);
+            return true;
+        case COUNT_KMERS:
+            countKmers(inputPath, numReadingBasesPerFragment,
+                    Integer.parseInt(getOptionValue(options, COUNT_KMERS_OPTION)), options);
+            return true;
+        case SHARD_BY_FRAGMENTS:
+        case SHARD_BY_SIZE:
+            ShardedFastqConverter shardedConverter = ShardedFastqConverter.of(ForkJoinPool.commonPool(), metrics);
+            List<Path> shards = mode == Mode.SHARD_BY_FRAGMENTS
+                    ? shardedConverter.convertByFragmentCount(inputPath, numReadingBasesPerFragment, OUTPUT_DIRECTORY,
+                            SHARD_NAME, Long.parseLong(getOptionValue(options, SHARD_FRAGMENTS_OPTION)))
+                    : shardedConverter.convertBySize(inputPath, numReadingBasesPerFragment, OUTPUT_DIRECTORY,
+                            SHARD_NAME, Long.parseLong(getOptionValue(options, SHARD_SIZE_OPTION)));
+            System.out.printf("Wrote %s shards%n", shards.size());
+            return true;
+        case PAIRED:
+            String pairedLength = getOptionValue(options, PAIRED_LENGTH_OPTION);
+            convertPaired(inputPath, numReadingBasesPerFragment, Path.of(getOptionValue(options, PAIRED_OPTION)),
+                    pairedLength == null ? numReadingBasesPerFragment : Integer.parseInt(pairedLength),
+                    options.contains(INTERLEAVED_OPTION), metrics);
+            return true;
+        case FOLLOW:
+            String idleTimeout = getOptionValue(options, IDLE_TIMEOUT_OPTION);
+            FollowingConverter followingConverter = FollowingConverter.of(FOLLOW_POLL_INTERVAL, Duration.ofSeconds(
+                    idleTimeout == null ? DEFAULT_IDLE_TIMEOUT_SECONDS : Long.parseLong(idleTimeout)));
+            Path endMarkerPath = inputPath.resolveSibling(inputPath.getFileName() + END_MARKER_SUFFIX);
+            try (WritableByteChannel output = metrics.meter(openOutput(outputPath, false))) {
+                long numFragments = followingConverter.follow(inputPath, numReadingBasesPerFragment, output,
+                        endMarkerPath);
+                System.out.printf("Converted %s fragments while following %s%n", numFragments, inputPath);
+            }
+            return true;
+        case CHECKPOINT:
+            // The checkpointed converter opens the output itself, as resuming appends to it
+            CheckpointedConverter checkpointedConverter = CheckpointedConverter.of(CHECKPOINT_INTERVAL, metrics);
+            long numFragments = options.contains(RESUME_OPTION)
+                    ? checkpointedConverter.resume(inputPath, numReadingBasesPerFragment, outputPath)
+                    : checkpointedConverter.convert(inputPath, numReadingBasesPerFragment, outputPath);
+            System.out.printf("Converted %s fragments, checkpointed in %s%n", numFragments,
+                    CheckpointedConverter.getCheckpointPath(outputPath));
+            return true;
+        default:
+            // The remaining modes all convert into a single output
+            break;
+        }
+        try (WritableByteChannel output = openOutput(outputPath, bgzf)) {
+            if (mode == Mode.DEDUP) {
+                DuplicateFilter duplicateFilter = getDuplicateFilter(options);
+                long numDuplicates = duplicateFilter.convert(inputPath, numReadingBasesPerFragment,
+                        metrics.meter(output), options.contains(KEEP_FRAGMENT_NUMBERS_OPTION));
+                System.out.printf("Found %s duplicate fragments with %s%n", numDuplicates, duplicateFilter);
+            } else if (mode == Mode.FILTER) {
+                QualityFilter filter = getQualityFilter(options);
+                long numFragmentsWritten = filter.convert(inputPath, numReadingBasesPerFragment, metrics.meter(output),
+                        options.contains(KEEP_FRAGMENT_NUMBERS_OPTION));
+                System.out.printf("Kept %s fragments with %s%n", numFragmentsWritten, filter);
+            } else if (mode == Mode.PARALLEL) {
+                // The parallel converter reads through a memory mapping, so only its writes can be metered
+                ParallelFastqConverter converter = ParallelFastqConverter.of(ForkJoinPool.commonPool());
+                if (statistics == null) {
+                    converter.convert(inputPath, numReadingBasesPerFragment, metrics.meter(output));
+                } else {
+                    converter.convert(inputPath, numReadingBasesPerFragment, metrics.meter(output), statistics);
+                }
+            } else if (mode == Mode.PIPELINED) {
+                PipelinedFastqConverter converter = PipelinedFastqConverter.of(ForkJoinPool.commonPool(), BATCH_SIZE,
+                        2 * Runtime.getRuntime().availableProcessors(), metrics);
+                if (statistics == null) {
+                    converter.convert(inputPath, numReadingBasesPerFragment, output);
+                } else {
+                    converter.convert(inputPath, numReadingBasesPerFragment, output, statistics);
+                }
+            } else {
+                QualityBinning binning = getQualityBinning(options);
+                convertInBatches(inputPath, numReadingBasesPerFragment, output, metrics, statistics,
+                        binning == null ? QualityBinning.none() : binning,
+                        transform == null ? FragmentTransforms.none() : transform);
+            }
+        }
+        if (statistics != null) {
+            statistics.summarize().write(outputPath.resolveSibling(outputPath.getFileName() + STATS_SUFFIX));
+        }
+        return true;
+    }
+
+    /**
+     * Returns the mode selected by the options, which is {@link Mode#SEQUENTIAL} if none was.
+     *
+     * @throws IllegalArgumentException if options of more than one mode are given, or if any option that only some
+     *         modes allow is given with a mode that doesn't allow it
+     */
+    private static Mode getMode(List<String> options) {
+        Mode mode = Mode.SEQUENTIAL;
+        for (Mode candidate : Mode.values()) {
+            if (candidate.selectingOptions.stream().anyMatch(options::contains)) {
+                if (mode != Mode.SEQUENTIAL) {
+                    throw new IllegalArgumentException(mode + " can't be combined with " + candidate);
+                }
+                mode = candidate;
+            }
+        }
+        for (Mode other : Mode.values()) {
+            for (String option : other.allowedOptions) {
+                if (options.contains(option) && !mode.allowedOptions.contains(option)) {
+                    List<String> allowedOptions = new ArrayList<>(mode.allowedOptions);
+                    allowedOptions.add(METRICS_OPTION);
+                    String message = String.format("%s can't be combined with %s, which only allows %s", option, mode,
+                            String.join(", ", allowedOptions));
+                    throw new IllegalArgumentException(message);
+                }
+            }
+        }
+        return mode;
+    }
+
+    /**
+     * Returns the argument following the given option, or null if the option wasn't given.
+     *
+     * @throws IllegalArgumentException if the option is the last argument
+     */
+    private static String getOptionValue(List<String> options, String option) {
+        int index = options.indexOf(option);
+        if (index < 0) {
+            return null;
+        }
+        if (index + 1 == options.size()) {
+            throw new IllegalArgumentException("Expected a value after " + option);
+        }
+        return options.get(index + 1);
+    }
+
+    /** Returns the quality filter described by the options, or null if no filtering options were given. */
+    private static QualityFilter getQualityFilter(List<String> options) {
+        String minMeanQuality = getOptionValue(options, MIN_MEAN_QUALITY_OPTION);
+        String minQuality = getOptionValue(options, MIN_QUALITY_OPTION);
+        String trim = getOptionValue(options, TRIM_OPTION);
+        String minLength = getOptionValue(options, MIN_LENGTH_OPTION);
+        if (minMeanQuality == null && minQuality == null && trim == null && minLength == null) {
+            return null;
+        }
+
+        QualityFilter filter = QualityFilter.of();
+        if (minMeanQuality != null) {
+            filter = filter.withMinMeanQuality(Integer.parseInt(minMeanQuality));
+        }
+        if (minQuality != null) {
+            filter = filter.withMinQuality(Integer.parseInt(minQuality));
+        }
+        if (trim != null) {
+            String[] windowSizeAndQuality = trim.split(":");
+            if (windowSizeAndQuality.length != 2) {
+                throw new IllegalArgumentException("Expected " + TRIM_OPTION + " <window size>:<quality>, but found "
+                        + trim);
+            }
+            filter = filter.withTrailingTrim(Integer.parseInt(windowSizeAndQuality[0]),
+                    Integer.parseInt(windowSizeAndQuality[1]));
+        }
+        if (minLength != null) {
+            filter = filter.withMinLength(Integer.parseInt(minLength));
+        }
+        return filter;
+    }
+
+    /** Returns the duplicate filter described by the options, or null if duplicates aren't to be removed. */
+    private static DuplicateFilter getDuplicateFilter(List<String> options) {
+        if (!options.contains(DEDUP_OPTION)) {
+            return null;
+        }
+        DuplicateFilter filter = DuplicateFilter.of();
+        if (options.contains(SEQUENCE_ONLY_OPTION)) {
+            filter = filter.withSequenceOnly();
+        }
+        if (options.contains(FLAG_DUPLICATES_OPTION)) {
+            filter = filter.withFlagging();
+        }
+        return filter;
+    }
+
+    /**
+     * Returns the fragment transforms given by the options, composed in the order they were given, or null if there
+     * weren't any.
+     */
+    private static FragmentTransform getFragmentTransform(List<String> options) {
+        FragmentTransform transform = null;
+        for (int i = 0; i < options.size(); ++i) {
+            FragmentTransform next;
+            switch (options.get(i)) {
+            case REVERSE_COMPLEMENT_OPTION:
+                next = FragmentTransforms.reverseComplement();
+                break;
+            case SLICE_OPTION:
+                String slice = getOptionValue(options.subList(i, options.size()), SLICE_OPTION);
+                String[] startAndEnd = slice.split(":");
+                if (startAndEnd.length != 2) {
+                    throw new IllegalArgumentException(
+                            "Expected <start>:<end> after " + SLICE_OPTION + ", but found " + slice);
+                }
+                next = FragmentTransforms.slice(Integer.parseInt(startAndEnd[0]), Integer.parseInt(startAndEnd[1]));
+                break;
+            case CAP_QUALITY_OPTION:
+                String maxScore = getOptionValue(options.subList(i, options.size()), CAP_QUALITY_OPTION);
+                next = FragmentTransforms.capQualities(Integer.parseInt(maxScore));
+                break;
+            default:
+                continue;
+            }
+            transform = transform == null ? next : transform.andThen(next);
+        }
+        return transform;
+    }
+
+    /** Returns the quality binning named or specified by the options, or null if it wasn't given. */
+    private static QualityBinning getQualityBinning(List<String> options) {
+        String binning = getOptionValue(options, BIN_QUALITIES_OPTION);
+        if (binning == null) {
+            return null;
+        }
+        return binning.equals(ILLUMINA_BINNING) ? QualityBinning.illumina8Level() : QualityBinning.parse(binning);
+    }
+
+    /** Registers the metrics as an MBean and starts printing them every second, returning the printing executor. */
+    private static ScheduledExecutorService startReportingMetrics(ConversionMetrics metrics) {
+        metrics.registerMBean("main");
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> System.out.println(metrics), METRICS_REPORT_PERIOD_SECONDS,
+                METRICS_REPORT_PERIOD_SECONDS, TimeUnit.SECONDS);
+        return reporter;
+    }
+
+    /** Counts the k-mers of the input with the counter described by the options, and writes them to the k-mers file. */
+    private static void countKmers(Path inputPath, int numReadingBasesPerFragment, int k, List<String> options) {
+        KmerCounter counter = KmerCounter.of(k);
+        if (options.contains(CANONICAL_OPTION)) {
+            counter = counter.withCanonical();
+        }
+        String memoryBudget = getOptionValue(options, KMER_MEMORY_OPTION);
+        if (memoryBudget != null) {
+            counter = counter.withMemoryBudget(Long.parseLong(memoryBudget), OUTPUT_DIRECTORY);
+        }
+        try (KmerCounts counts = counter.count(inputPath, numReadingBasesPerFragment, ForkJoinPool.commonPool())) {
+            counts.write(KMERS_PATH);
+            System.out.printf("Counted %s %s-mers, %s distinct%n", counts.getTotal(), k, counts.getNumDistinct());
+        }
+    }
+
+    /** Writes every match of the searcher in the input to the matches file, one per line. */
+    private static void search(Path inputPath, int numReadingBasesPerFragment, MotifSearcher searcher)
+            throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(MATCHES_PATH, StandardOpenOption.CREATE_NEW)) {
+            writer.write(String.format("#fragment\tpattern\toffset\tmismatches%n"));
+            long numMatches = searcher.search(inputPath, numReadingBasesPerFragment, match -> {
+                try {
+                    writer.write(String.format("%s\t%s\t%s\t%s%n", match.getFragmentNumber(),
+                            searcher.getPatterns().get(match.getPatternIndex()), match.getOffset(),
+                            match.getNumMismatches()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            System.out.printf("Found %s matches%n", numMatches);
+        }
+    }
+
+    /** Converts both inputs of a paired-end run, interleaved into one output or into one output each. */
+    private static void convertPaired(Path inputPath1, int numReadingBasesPerFragment1, Path inputPath2,
+            int numReadingBasesPerFragment2, boolean interleaved, ConversionMetrics metrics) throws IOException {
+        PairedFastqConverter converter = PairedFastqConverter.of(ForkJoinPool.commonPool());
+        long numPairs;
+        if (interleaved) {
+            try (WritableByteChannel output = metrics.meter(openOutput(OUTPUT_PATH, false))) {
+                numPairs = converter.convertInterleaved(inputPath1, numReadingBasesPerFragment1, inputPath2,
+                        numReadingBasesPerFragment2, output);
+            }
+        } else {
+            try (WritableByteChannel output1 = metrics.meter(openOutput(OUTPUT_PATH_1, false));
+                    WritableByteChannel output2 = metrics.meter(openOutput(OUTPUT_PATH_2, false))) {
+                numPairs = converter.convertSeparately(inputPath1, numReadingBasesPerFragment1, inputPath2,
+                        numReadingBasesPerFragment2, output1, output2);
+            }
+        }
+        System.out.printf("Converted %s pairs%n", numPairs);
+    }
+
+    /** Converts all jobs in the manifest, returning whether they all succeeded. */
+    private static boolean convertManifest(Path manifestPath, ConversionMetrics metrics) {
+        List<ConversionJob> jobs = ConversionJob.readManifest(manifestPath);
+        BatchConverter converter = BatchConverter.of(Runtime.getRuntime().availableProcessors(), metrics);
+        Map<ConversionJob, RuntimeException> failures = converter.convertAll(jobs, new ProgressPrinter());
+        System.out.printf("%s of %s jobs succeeded%n", jobs.size() - failures.size(), jobs.size());
+        return failures.isEmpty();
+    }
+
+    /**
+     * The mutually exclusive modes of the program, each selected by any of its selecting options (which can be
+     * combined with each other), and the other options it allows besides "--metrics", which every mode allows.
+     */
+    private enum Mode {
+        SEQUENTIAL(List.of(), List.of(BGZF_OPTION, STATS_OPTION, BIN_QUALITIES_OPTION, REVERSE_COMPLEMENT_OPTION,
+                SLICE_OPTION, CAP_QUALITY_OPTION)),
+        PARALLEL(List.of(PARALLEL_OPTION), List.of(BGZF_OPTION, STATS_OPTION)),
+        PIPELINED(List.of(PIPELINED_OPTION), List.of(BGZF_OPTION, STATS_OPTION)),
+        FILTER(List.of(MIN_MEAN_QUALITY_OPTION, MIN_QUALITY_OPTION, TRIM_OPTION, MIN_LENGTH_OPTION),
+                List.of(KEEP_FRAGMENT_NUMBERS_OPTION, BGZF_OPTION)),
+        DEDUP(List.of(DEDUP_OPTION),
+                List.of(SEQUENCE_ONLY_OPTION, FLAG_DUPLICATES_OPTION, KEEP_FRAGMENT_NUMBERS_OPTION, BGZF_OPTION)),
+        CHECKPOINT(List.of(CHECKPOINT_OPTION, RESUME_OPTION), List.of()),
+        FOLLOW(List.of(FOLLOW_OPTION), List.of(IDLE_TIMEOUT_OPTION)),
+        PAIRED(List.of(PAIRED_OPTION), List.of(PAIRED_LENGTH_OPTION, INTERLEAVED_OPTION)),
+        SHARD_BY_FRAGMENTS(List.of(SHARD_FRAGMENTS_OPTION), List.of()),
+        SHARD_BY_SIZE(List.of(SHARD_SIZE_OPTION), List.of()),
+        COUNT_KMERS(List.of(COUNT_KMERS_OPTION), List.of(CANONICAL_OPTION, KMER_MEMORY_OPTION)),
+        SEARCH(List.of(SEARCH_OPTION), List.of(MISMATCHES_OPTION)),
+        ARCHIVE(List.of(ARCHIVE_OPTION, EXTRACT_OPTION), List.of());
+
+        private final List<String> selectingOptions;
+        private final List<String> allowedOptions;
+
+        private Mode(List<String> selectingOptions, List<String> allowedOptions) {
+            this.selectingOptions = selectingOptions;
+            this.allowedOptions = allowedOptions;
+        }
+
+        @Override
+        public String toString() {
+            return selectingOptions.isEmpty() ? "sequential conversion" : String.join(" or ", selectingOptions);
+        }
+    }
+
+    /** Prints when each job starts, passes every 10% of its fragments, and finishes. */
+    private static class ProgressPrinter implements BatchConverter.Listener {
+        private final Map<ConversionJob, Long> numFragmentsByJob = new ConcurrentHashMap<>();
+        private final Map<ConversionJob, Long> lastPrintedTenthByJob = new ConcurrentHashMap<>();
+
+        @Override
+        public void onStarted(ConversionJob job, long numFragments) {
+            numFragmentsByJob.put(job, numFragments);
+            System.out.printf("Started %s%n", job);
+        }
+
+        @Override
+        public void onProgress(ConversionJob job, long numFragmentsConverted) {
+            long tenth = 10 * numFragmentsConverted / numFragmentsByJob.get(job);
+            if (!Objects.equals(lastPrintedTenthByJob.put(job, tenth), tenth) && tenth < 10) {
+                System.out.printf("%s%% of %s%n", 10 * tenth, job);
+            }
+        }
+
+        @Override
+        public void onSucceeded(ConversionJob job) {
+            System.out.printf("Finished %s%n", job);
+        }
+
+        @Override
+        public void onFailed(ConversionJob job, RuntimeException failure) {
+            System.err.printf("Failed %s: %s%n", job, failure);
+        }
+    }
+
+    private static WritableByteChannel openOutput(Path outputPath, boolean bgzf) throws IOException {
+        if (!bgzf) {
+            return FileChannel.open(outputPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        // The converters write FASTQ to channels, so compressing the output only requires wrapping it
+        OutputStream file = Files.newOutputStream(outputPath, StandardOpenOption.CREATE_NEW);
+        return Channels.newChannel(BgzfOutputStream.of(file, ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Converts the binary fragment file at inputPath into a FASTQ file at outputPath, which must not already exist, on
+     * the calling thread.
+     */
+    public static void convertSequentially(Path inputPath, int numReadingBasesPerFragment, Path outputPath)
+            throws IOException {
+        try (FileChannel output = FileChannel.open(outputPath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)) {
+            convertSequentially(inputPath, numReadingBasesPerFragment, output);
+        }
+    }
+
+    /**
+     * Same as {@link #convertSequentially(Path, int, Path)}, except that the FASTQ output is written to the given
+     * channel (e.g. a compressing one), which is left open.
+     */
+    public static void convertSequentially(Path inputPath, int numReadingBasesPerFragment,
+            WritableByteChannel output) {
+        convertSequentially(inputPath, numReadingBasesPerFragment, output, ConversionMetrics.of());
+    }
+
+    /**
+     * Same as {@link #convertSequentially(Path, int, WritableByteChannel)}, except that the conversion is recorded in
+     * the given metrics.
+     */
+    public static void convertSequentially(Path inputPath, int numReadingBasesPerFragment,
+            WritableByteChannel output, ConversionMetrics metrics) {
+        convertInBatches(inputPath, numReadingBasesPerFragment, output, metrics, null, QualityBinning.none(),
+                FragmentTransforms.none());
+    }
+
+    /**
+     * Same as {@link #convertSequentially(Path, int, WritableByteChannel, ConversionMetrics)}, except that all
+     * fragments are also recorded in the given statistics.
+     *
+     * @throws IllegalArgumentException if the statistics are for a different numReadingBasesPerFragment
+     */
+    public static void convertSequentially(Path inputPath, int numReadingBasesPerFragment,
+            WritableByteChannel output, ConversionMetrics metrics, FragmentStatistics statistics) {
+        convertInBatches(inputPath, numReadingBasesPerFragment, output, metrics, Objects.requireNonNull(statistics),
+                QualityBinning.none(), FragmentTransforms.none());
+    }
+
+    /**
+     * Same as {@link #convertSequentially(Path, int, WritableByteChannel)}, except that the quality scores are binned
+     * with the given binning as they're decoded.
+     */
+    public static void convertSequentially(Path inputPath, int numReadingBasesPerFragment,
+            WritableByteChannel output, QualityBinning binning) {
+        convertInBatches(inputPath, numReadingBasesPerFragment, output, ConversionMetrics.of(), null,
+                Objects.requireNonNull(binning), FragmentTransforms.none());
+    }
+
+    /**
+     * Same as {@link #convertSequentially(Path, int, WritableByteChannel)}, except that each batch of fragments is
+     * transformed with the given transform, in place, before it's written. The written fragments have
+     * {@link FragmentTransform#getNumReadingBasesPerFragment(int)} bases each.
+     *
+     * @throws IllegalArgumentException if the transform can't be applied to fragments of numReadingBasesPerFragment
+     *         bases
+     */
+    public static void convertSequentially(Path inputPath, int numReadingBasesPerFragment,
+            WritableByteChannel output, FragmentTransform transform) {
+        convertInBatches(inputPath, numReadingBasesPerFragment, output, ConversionMetrics.of(), null,
+                QualityBinning.none(), Objects.requireNonNull(transform));
+    }
+
+    /**
+     * Converts the input on the calling thread, transforming each batch of fragments with the given transform, then
+     * recording all transformed fragments in the statistics unless they're null, and binning their quality scores
+     * with the given binning.
+     */
+    private static void convertInBatches(Path inputPath, int numReadingBasesPerFragment, WritableByteChannel output,
+            ConversionMetrics metrics, FragmentStatistics statistics, QualityBinning binning,
+            FragmentTransform transform) {
+        int numTransformedBasesPerFragment = transform.getNumReadingBasesPerFragment(numReadingBasesPerFragment);
+        if (statistics != null) {
+            statistics.requireNumReadingBasesPerFragment(numTransformedBasesPerFragment);
+        }
         // As the input file may be huge (given the size of DNA), instead of reading the entire thing and then writing
         // the entire thing,
-        // 1. Create buffered input streams and writers for efficiency (due to the one-by-one logic below)
-        // 2. Read fragments one-by-one and write them one-by-one
-        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(inputPath));
-                Writer writer = Files.newBufferedWriter(OUTPUT_PATH, StandardOpenOption.CREATE_NEW)) {
-            for (int fragmentNumber = 1; transferFragmentNumberWithNumReadingBasesPerFragment(inputStream, writer,
-                    fragmentNumber, numReadingBasesPerFragment); ++fragmentNumber) {
+        // 1. Read fragments in batches of raw bytes, reusing the same buffer for each batch
+        // 2. Write fragments one-by-one, decoding them straight to FASTQ bytes through lookup tables. Creating
+        // ReadingBase objects for every base, as BinaryStreamUtils#readReadingFragment does, is the main cost of the
+        // conversion for large files. For the same reason, FastqByteWriter writes bytes and numbers fragments itself,
+        // rather than creating Strings per fragment.
+        try (FragmentReader reader = FragmentReader.of(inputPath, numReadingBasesPerFragment)) {
+            // Don't close the writer, as that would close the output
+            ConversionMetrics.MeteredChannel meteredOutput = metrics.meter(output);
+            FastqByteWriter writer = FastqByteWriter.of(meteredOutput, 1, WRITER_BUFFER_SIZE, binning);
+            int fragmentsPerBatch = Math.max(1, BATCH_SIZE / numReadingBasesPerFragment);
+            byte[] rawFragments = new byte[fragmentsPerBatch * numReadingBasesPerFragment];
+            while (transferBatchWithNumReadingBasesPerFragment(reader, writer, rawFragments,
+                    numReadingBasesPerFragment, metrics, meteredOutput, statistics, transform)) {
                 // Do nothing. All work done in transfer function, which returns false when there's nothing left
             }
+            writer.flush();
         }
     }
 
-    private static boolean transferFragmentNumberWithNumReadingBasesPerFragment(InputStream inputStream, Writer writer,
-            int fragmentNumber, int numReadingBasesPerFragment) {
-        ReadingFragment fragment = BinaryStreamUtils.readReadingFragment(inputStream, numReadingBasesPerFragment);
-        if (fragment == null) {
-            return false;
+    private static boolean transferBatchWithNumReadingBasesPerFragment(FragmentReader reader, FastqByteWriter writer,
+            byte[] rawFragments, int numReadingBasesPerFragment, ConversionMetrics metrics,
+            ConversionMetrics.MeteredChannel meteredOutput, FragmentStatistics statistics,
+            FragmentTransform transform) {
+        int numFragments = metrics.readRawFragments(reader, rawFragments);
+        // Transforming counts as decoding, as both turn the raw bytes that were read into what's written
+        long transformStart = System.nanoTime();
+        transform.apply(rawFragments, numFragments, numReadingBasesPerFragment);
+        long nanosTransforming = System.nanoTime() - transformStart;
+        int numTransformedBasesPerFragment = transform.getNumReadingBasesPerFragment(numReadingBasesPerFragment);
+        if (statistics != null) {
+            statistics.accept(ByteBuffer.wrap(rawFragments), numFragments);
         }
-        FastqWriterUtils.writeReadingFragment(writer, fragment, fragmentNumber);
-        return true;
+        long start = System.nanoTime();
+        long nanosWritingBefore = meteredOutput.getNanosWriting();
+        for (int i = 0; i < numFragments; ++i) {
+            writer.writeRawFragment(rawFragments, i * numTransformedBasesPerFragment, numTransformedBasesPerFragment);
+        }
+        // The writer writes to the output whenever its buffer fills up, which counts as writing rather than decoding
+        long nanosWriting = meteredOutput.getNanosWriting() - nanosWritingBefore;
+        metrics.recordDecode(System.nanoTime() - start - nanosWriting + nanosTransforming, numFragments,
+                numTransformedBasesPerFragment);
+        return numFragments > 0;
     }
 
     /** Convenient function to be able to generate an example file for reading. */
@@ -0,0 +1,63 @@
+package org.brotmanbaty.homework.dna;
+
+import java.util.Objects;
+
+/**
+ * An occurrence of one of the patterns of a {@link MotifSearcher} in a fragment: the fragment's number (from 1, as in
+ * FASTQ), the index of the pattern, the offset in the fragment (from 0) of the pattern's first base, and how many of
+ * the pattern's bases differ from the fragment's.
+ */
+public class MotifMatch {
+    private final long fragmentNumber;
+    private final int patternIndex;
+    private final int offset;
+    private final int numMismatches;
+
+    private MotifMatch(long fragmentNumber, int patternIndex, int offset, int numMismatches) {
+        this.fragmentNumber = fragmentNumber;
+        this.patternIndex = patternIndex;
+        this.offset = offset;
+        this.numMismatches = numMismatches;
+    }
+
+    public static MotifMatch of(long fragmentNumber, int patternIndex, int offset, int numMismatches) {
+        return new MotifMatch(fragmentNumber, patternIndex, offset, numMismatches);
+    }
+
+    public long getFragmentNumber() {
+        return fragmentNumber;
+    }
+
+    public int getPatternIndex() {
+        return patternIndex;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getNumMismatches() {
+        return numMismatches;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fragmentNumber, patternIndex, offset, numMismatches);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (object instanceof MotifMatch) {
+            MotifMatch other = (MotifMatch) object;
+            return this.fragmentNumber == other.fragmentNumber && this.patternIndex == other.patternIndex
+                    && this.offset == other.offset && this.numMismatches == other.numMismatches;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("<fragment %s, pattern %s, offset %s, mismatches %s>", fragmentNumber, patternIndex,
+                offset, numMismatches);
+    }
+}
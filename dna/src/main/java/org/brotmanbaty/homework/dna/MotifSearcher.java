@@ -0,0 +1,243 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Finds every occurrence of one or more DNA patterns (e.g. adapters or primers) in a binary fragment file, without
+ * decoding it to text. Each pattern is matched with the bit-parallel Shift-Or algorithm straight on the 2-bit base
+ * codes in the top bits of the raw bytes: a pattern of up to 64 bases is one long of state, and each base costs one
+ * table lookup, plus a few shifts, ors and ands per allowed mismatch. Matches never span two fragments.
+ *
+ * Patterns can be matched with up to a given number of mismatches (substituted bases, but no insertions or deletions),
+ * by keeping one state per number of mismatches, as described by Wu and Manber. Each occurrence is reported once, with
+ * the fewest mismatches it has.
+ *
+ * Like {@link ParallelFastqConverter}, the input is memory mapped and split into fragment-aligned chunks, which are
+ * searched concurrently on a ForkJoinPool, and their matches are passed on in the order of the input.
+ */
+public class MotifSearcher {
+    /** The longest pattern whose state fits into a long. */
+    public static final int MAX_PATTERN_LENGTH = Long.SIZE;
+    private static final String BASES = "ACGT";
+    private static final int BASE_SHIFT = 6;
+    private static final int TARGET_CHUNK_BYTES = 4 * 1024 * 1024;
+    // Individual mappings are limited to Integer.MAX_VALUE bytes, so larger inputs are mapped one region at a time
+    private static final long MAX_MAPPED_REGION_BYTES = 1024 * 1024 * 1024;
+
+    private final ForkJoinPool pool;
+    private final List<String> patterns;
+    private final int maxMismatches;
+    // For each pattern and base, a 0 bit at every position of the pattern that has the base, and 1 bits elsewhere
+    private final long[][] baseMasks;
+
+    private MotifSearcher(ForkJoinPool pool, List<String> patterns, int maxMismatches) {
+        this.pool = pool;
+        this.patterns = patterns;
+        this.maxMismatches = maxMismatches;
+        this.baseMasks = new long[patterns.size()][BASES.length()];
+        for (int i = 0; i < patterns.size(); ++i) {
+            String pattern = patterns.get(i);
+            for (int base = 0; base < BASES.length(); ++base) {
+                long mask = -1L;
+                for (int position = 0; position < pattern.length(); ++position) {
+                    if (pattern.charAt(position) == BASES.charAt(base)) {
+                        mask &= ~(1L << position);
+                    }
+                }
+                baseMasks[i][base] = mask;
+            }
+        }
+    }
+
+    /**
+     * Creates a searcher for exact occurrences of the given patterns, each of 1 to 64 bases (A, C, G and T), which runs
+     * on the given pool.
+     *
+     * @throws IllegalArgumentException if there are no patterns, or if any pattern is empty, longer than 64 bases, or
+     *         has another character
+     */
+    public static MotifSearcher of(ForkJoinPool pool, List<String> patterns) {
+        Objects.requireNonNull(pool);
+        if (patterns.isEmpty()) {
+            throw new IllegalArgumentException("Expected at least one pattern");
+        }
+        for (String pattern : patterns) {
+            if (pattern.isEmpty() || pattern.length() > MAX_PATTERN_LENGTH) {
+                throw new IllegalArgumentException(
+                        "Expected patterns of 1 to " + MAX_PATTERN_LENGTH + " bases, but found " + pattern);
+            }
+            for (int i = 0; i < pattern.length(); ++i) {
+                if (BASES.indexOf(pattern.charAt(i)) < 0) {
+                    throw new IllegalArgumentException("Expected only A, C, G and T in patterns, but found " + pattern);
+                }
+            }
+        }
+        return new MotifSearcher(pool, List.copyOf(patterns), 0);
+    }
+
+    /**
+     * Returns a copy of this searcher that also finds occurrences with up to maxMismatches mismatched bases.
+     *
+     * @throws IllegalArgumentException if maxMismatches < 0, or if it's not less than the length of every pattern
+     *         (which would match everywhere)
+     */
+    public MotifSearcher withMaxMismatches(int maxMismatches) {
+        for (String pattern : patterns) {
+            if (maxMismatches < 0 || maxMismatches >= pattern.length()) {
+                String message = String.format("maxMismatches must be from 0 to less than the length of every "
+                        + "pattern, but found %s for pattern %s", maxMismatches, pattern);
+                throw new IllegalArgumentException(message);
+            }
+        }
+        return new MotifSearcher(pool, patterns, maxMismatches);
+    }
+
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    public int getMaxMismatches() {
+        return maxMismatches;
+    }
+
+    /**
+     * Searches the binary fragment file at inputPath, and returns all matches, ordered by fragment number, then pattern
+     * index, then offset.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     * @throws IllegalStateException if the size of the input file is not a multiple of numReadingBasesPerFragment
+     *         (i.e. the last fragment is truncated). In that case, nothing is searched.
+     * @throws UncheckedIOException if reading the input throws an IOException, where the cause of the
+     *         UncheckedIOException is the IOException.
+     */
+    public List<MotifMatch> search(Path inputPath, int numReadingBasesPerFragment) {
+        List<MotifMatch> matches = new ArrayList<>();
+        search(inputPath, numReadingBasesPerFragment, matches::add);
+        return matches;
+    }
+
+    /**
+     * Same as {@link #search(Path, int)}, except that the matches are passed to the given consumer, on the calling
+     * thread and in the same order, as soon as their chunk has been searched, rather than being collected. Returns the
+     * number of matches.
+     */
+    public long search(Path inputPath, int numReadingBasesPerFragment, Consumer<MotifMatch> consumer) {
+        Objects.requireNonNull(consumer);
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+        try (FileChannel input = FileChannel.open(inputPath, StandardOpenOption.READ)) {
+            long inputSize = input.size();
+            if (inputSize % numReadingBasesPerFragment != 0) {
+                String message = String.format("Expected to find %s base readings per fragment in input, but only "
+                        + "found %s in the last fragment before end of input.", numReadingBasesPerFragment,
+                        inputSize % numReadingBasesPerFragment);
+                throw new IllegalStateException(message);
+            }
+            return search(input, inputSize, numReadingBasesPerFragment, consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long search(FileChannel input, long inputSize, int numReadingBasesPerFragment,
+            Consumer<MotifMatch> consumer) throws IOException {
+        long fragmentsPerRegion = Math.max(1, MAX_MAPPED_REGION_BYTES / numReadingBasesPerFragment);
+        long regionBytes = fragmentsPerRegion * numReadingBasesPerFragment;
+        int fragmentsPerChunk = Math.max(1, TARGET_CHUNK_BYTES / numReadingBasesPerFragment);
+        // Bound the number of searched-but-unconsumed chunks, so that memory use doesn't depend on the input size
+        int maxChunksInFlight = 2 * pool.getParallelism();
+
+        long numMatches = 0;
+        Deque<ForkJoinTask<List<MotifMatch>>> chunksInFlight = new ArrayDeque<>(maxChunksInFlight);
+        try {
+            for (long regionStart = 0; regionStart < inputSize; regionStart += regionBytes) {
+                long regionSize = Math.min(regionBytes, inputSize - regionStart);
+                ByteBuffer region = input.map(MapMode.READ_ONLY, regionStart, regionSize);
+                long regionFirstFragmentNumber = regionStart / numReadingBasesPerFragment + 1;
+                int numRegionFragments = (int) (regionSize / numReadingBasesPerFragment);
+
+                for (int chunkFirstFragment = 0; chunkFirstFragment < numRegionFragments;
+                        chunkFirstFragment += fragmentsPerChunk) {
+                    int numChunkFragments = Math.min(fragmentsPerChunk, numRegionFragments - chunkFirstFragment);
+                    ByteBuffer chunk = region.duplicate()
+                            .position(chunkFirstFragment * numReadingBasesPerFragment)
+                            .limit((chunkFirstFragment + numChunkFragments) * numReadingBasesPerFragment)
+                            .slice();
+                    long firstFragmentNumber = regionFirstFragmentNumber + chunkFirstFragment;
+                    if (chunksInFlight.size() == maxChunksInFlight) {
+                        numMatches += consume(chunksInFlight.removeFirst().join(), consumer);
+                    }
+                    chunksInFlight.addLast(pool.submit(() -> searchChunk(chunk, numChunkFragments,
+                            numReadingBasesPerFragment, firstFragmentNumber)));
+                }
+            }
+
+            while (!chunksInFlight.isEmpty()) {
+                numMatches += consume(chunksInFlight.removeFirst().join(), consumer);
+            }
+            return numMatches;
+        } finally {
+            chunksInFlight.forEach(chunk -> chunk.cancel(true));
+        }
+    }
+
+    private static int consume(List<MotifMatch> matches, Consumer<MotifMatch> consumer) {
+        matches.forEach(consumer);
+        return matches.size();
+    }
+
+    private List<MotifMatch> searchChunk(ByteBuffer chunk, int numFragments, int numReadingBasesPerFragment,
+            long firstFragmentNumber) {
+        List<MotifMatch> matches = new ArrayList<>();
+        // The state with j mismatches has a 0 bit at position i if the last i + 1 bases match the pattern's first
+        // i + 1 bases with at most j mismatches
+        long[] states = new long[maxMismatches + 1];
+        for (int fragment = 0; fragment < numFragments; ++fragment) {
+            int start = fragment * numReadingBasesPerFragment;
+            for (int pattern = 0; pattern < baseMasks.length; ++pattern) {
+                long[] masks = baseMasks[pattern];
+                int patternLength = patterns.get(pattern).length();
+                long matchBit = 1L << (patternLength - 1);
+                for (int j = 0; j <= maxMismatches; ++j) {
+                    states[j] = -1L;
+                }
+                for (int i = 0; i < numReadingBasesPerFragment; ++i) {
+                    long mask = masks[(chunk.get(start + i) & 0xff) >>> BASE_SHIFT];
+                    // A mismatch at this base extends a match with one fewer mismatch, whatever the base
+                    long fewerMismatches = states[0];
+                    states[0] = (states[0] << 1) | mask;
+                    for (int j = 1; j <= maxMismatches; ++j) {
+                        long state = states[j];
+                        states[j] = ((state << 1) | mask) & (fewerMismatches << 1);
+                        fewerMismatches = state;
+                    }
+                    if ((states[maxMismatches] & matchBit) == 0) {
+                        int numMismatches = 0;
+                        while ((states[numMismatches] & matchBit) != 0) {
+                            ++numMismatches;
+                        }
+                        matches.add(MotifMatch.of(firstFragmentNumber + fragment, pattern,
+                                i - patternLength + 1, numMismatches));
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,206 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Converts the two binary fragment files of a paired-end run, one per read direction, in a single pass. Both inputs
+ * are read in lockstep, batch by batch, and the two batches are decoded in parallel: the second input's on the
+ * executor and the first input's on the calling thread. The n-th fragment of each input is written as @READ_n, either
+ * interleaved into one output (the first input's record followed by the second input's, for each n) or into two
+ * synchronized outputs. The two inputs may have different numbers of bases per fragment, but must have the same number
+ * of fragments, which is checked from their sizes before anything is written.
+ */
+public class PairedFastqConverter {
+    private static final int BATCH_SIZE = 1024 * 1024;
+
+    private final ExecutorService executor;
+
+    private PairedFastqConverter(ExecutorService executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /** Creates a converter that decodes the second input's batches on the given executor. */
+    public static PairedFastqConverter of(ExecutorService executor) {
+        return new PairedFastqConverter(executor);
+    }
+
+    /** Decodes a pair of batches of numFragments fragments, numbered from firstFragmentNumber. */
+    private interface PairEncoder {
+        void encode(byte[] rawFragments1, byte[] rawFragments2, int numFragments, long firstFragmentNumber)
+                throws IOException, InterruptedException;
+    }
+
+    /**
+     * Converts both inputs into FASTQ that is written to the given channel (which is left open), with each fragment of
+     * the first input followed by the same-numbered fragment of the second input. Returns the number of pairs.
+     *
+     * @throws IllegalArgumentException if either numReadingBasesPerFragment <= 0
+     * @throws IllegalStateException if either input's last fragment is truncated, or if the inputs have different
+     *         numbers of fragments
+     * @throws UncheckedIOException if reading the inputs or writing the output throws an IOException, or if the
+     *         calling thread is interrupted, where the cause of the UncheckedIOException is the IOException (an
+     *         InterruptedIOException if interrupted).
+     */
+    public long convertInterleaved(Path inputPath1, int numReadingBasesPerFragment1, Path inputPath2,
+            int numReadingBasesPerFragment2, WritableByteChannel output) {
+        Objects.requireNonNull(output);
+        return convertInLockstep(inputPath1, numReadingBasesPerFragment1, inputPath2, numReadingBasesPerFragment2,
+                (rawFragments1, rawFragments2, numFragments, firstFragmentNumber) -> {
+                    // Each pair's records are placed at offsets that both tasks can compute, so that they can decode
+                    // straight into the same buffer
+                    int size = 0;
+                    for (int i = 0; i < numFragments; ++i) {
+                        size += getPairRecordLength(numReadingBasesPerFragment1, numReadingBasesPerFragment2,
+                                firstFragmentNumber + i);
+                    }
+                    ByteBuffer fastq = ByteBuffer.allocate(size);
+                    Future<?> second = executor.submit(() -> putInterleaved(fastq.duplicate(), rawFragments2,
+                            numFragments, numReadingBasesPerFragment1, numReadingBasesPerFragment2,
+                            firstFragmentNumber, true));
+                    putInterleaved(fastq.duplicate(), rawFragments1, numFragments, numReadingBasesPerFragment1,
+                            numReadingBasesPerFragment2, firstFragmentNumber, false);
+                    await(second);
+                    write(output, fastq);
+                });
+    }
+
+    /**
+     * Converts the first input into FASTQ that is written to output1 and the second input into FASTQ that is written
+     * to output2 (both of which are left open), where the same-numbered records of both outputs belong to the same
+     * pair. Returns the number of pairs.
+     *
+     * @throws IllegalArgumentException if either numReadingBasesPerFragment <= 0
+     * @throws IllegalStateException if either input's last fragment is truncated, or if the inputs have different
+     *         numbers of fragments
+     * @throws UncheckedIOException if reading the inputs or writing the outputs throws an IOException, or if the
+     *         calling thread is interrupted, where the cause of the UncheckedIOException is the IOException (an
+     *         InterruptedIOException if interrupted).
+     */
+    public long convertSeparately(Path inputPath1, int numReadingBasesPerFragment1, Path inputPath2,
+            int numReadingBasesPerFragment2, WritableByteChannel output1, WritableByteChannel output2) {
+        Objects.requireNonNull(output1);
+        Objects.requireNonNull(output2);
+        return convertInLockstep(inputPath1, numReadingBasesPerFragment1, inputPath2, numReadingBasesPerFragment2,
+                (rawFragments1, rawFragments2, numFragments, firstFragmentNumber) -> {
+                    Future<ByteBuffer> second = executor.submit(() -> FastqWriterUtils.encodeRawFragments(
+                            ByteBuffer.wrap(rawFragments2), numFragments, numReadingBasesPerFragment2,
+                            firstFragmentNumber));
+                    ByteBuffer fastq1 = FastqWriterUtils.encodeRawFragments(ByteBuffer.wrap(rawFragments1),
+                            numFragments, numReadingBasesPerFragment1, firstFragmentNumber);
+                    ByteBuffer fastq2 = await(second);
+                    write(output1, fastq1);
+                    write(output2, fastq2);
+                });
+    }
+
+    private long convertInLockstep(Path inputPath1, int numReadingBasesPerFragment1, Path inputPath2,
+            int numReadingBasesPerFragment2, PairEncoder encoder) {
+        long numFragments = countFragments(inputPath1, numReadingBasesPerFragment1);
+        long numFragments2 = countFragments(inputPath2, numReadingBasesPerFragment2);
+        if (numFragments != numFragments2) {
+            String message = String.format("Expected the same number of fragments in both inputs, but found %s in %s "
+                    + "and %s in %s", numFragments, inputPath1, numFragments2, inputPath2);
+            throw new IllegalStateException(message);
+        }
+
+        try (FragmentReader reader1 = FragmentReader.of(inputPath1, numReadingBasesPerFragment1);
+                FragmentReader reader2 = FragmentReader.of(inputPath2, numReadingBasesPerFragment2)) {
+            // Batches hold the same number of fragments from each input, so that they stay in lockstep
+            int fragmentsPerBatch = Math.max(1, BATCH_SIZE / Math.max(numReadingBasesPerFragment1,
+                    numReadingBasesPerFragment2));
+            byte[] rawFragments1 = new byte[fragmentsPerBatch * numReadingBasesPerFragment1];
+            byte[] rawFragments2 = new byte[fragmentsPerBatch * numReadingBasesPerFragment2];
+            while (true) {
+                long firstFragmentNumber = reader1.getNumFragmentsRead() + 1;
+                int numRead1 = reader1.readRawFragments(rawFragments1);
+                int numRead2 = reader2.readRawFragments(rawFragments2);
+                if (numRead1 != numRead2) {
+                    // The inputs have changed since they were counted
+                    String message = String.format("Expected the same number of fragments in both inputs, but %s "
+                            + "ended after fragment %s", numRead1 < numRead2 ? inputPath1 : inputPath2,
+                            firstFragmentNumber - 1 + Math.min(numRead1, numRead2));
+                    throw new IllegalStateException(message);
+                }
+                if (numRead1 == 0) {
+                    return reader1.getNumFragmentsRead();
+                }
+                encoder.encode(rawFragments1, rawFragments2, numRead1, firstFragmentNumber);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while converting pairs"));
+        }
+    }
+
+    private static long countFragments(Path inputPath, int numReadingBasesPerFragment) {
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+        try {
+            long inputSize = Files.size(inputPath);
+            if (inputSize % numReadingBasesPerFragment != 0) {
+                String message = String.format("Expected to find %s base readings per fragment in %s, but only found "
+                        + "%s in the last fragment before end of input.", numReadingBasesPerFragment, inputPath,
+                        inputSize % numReadingBasesPerFragment);
+                throw new IllegalStateException(message);
+            }
+            return inputSize / numReadingBasesPerFragment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int getPairRecordLength(int numReadingBasesPerFragment1, int numReadingBasesPerFragment2,
+            long fragmentNumber) {
+        return FastqWriterUtils.getRawFragmentRecordLength(numReadingBasesPerFragment1, fragmentNumber)
+                + FastqWriterUtils.getRawFragmentRecordLength(numReadingBasesPerFragment2, fragmentNumber);
+    }
+
+    /** Puts one side's records of a batch of pairs into their places in the interleaved output. */
+    private static void putInterleaved(ByteBuffer output, byte[] rawFragments, int numFragments,
+            int numReadingBasesPerFragment1, int numReadingBasesPerFragment2, long firstFragmentNumber,
+            boolean second) {
+        ByteBuffer raw = ByteBuffer.wrap(rawFragments);
+        int length = second ? numReadingBasesPerFragment2 : numReadingBasesPerFragment1;
+        int pairStart = 0;
+        for (int i = 0; i < numFragments; ++i) {
+            long fragmentNumber = firstFragmentNumber + i;
+            int recordLength1 = FastqWriterUtils.getRawFragmentRecordLength(numReadingBasesPerFragment1,
+                    fragmentNumber);
+            output.position(second ? pairStart + recordLength1 : pairStart);
+            FastqWriterUtils.writeRawFragment(output, raw, length, fragmentNumber);
+            pairStart += getPairRecordLength(numReadingBasesPerFragment1, numReadingBasesPerFragment2, fragmentNumber);
+        }
+    }
+
+    private static <T> T await(Future<T> task) throws InterruptedException {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            // Rethrow the decoder's exception as is, since they're all unchecked
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void write(WritableByteChannel output, ByteBuffer fastq) throws IOException {
+        while (fastq.hasRemaining()) {
+            output.write(fastq);
+        }
+    }
+}
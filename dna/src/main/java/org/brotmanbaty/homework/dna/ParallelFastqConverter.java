@@ -0,0 +1,173 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Converts a binary fragment file into a FASTQ file using multiple threads. Since every fragment in the input is
+ * exactly numReadingBasesPerFragment bytes long, the input can be memory mapped and split into fragment-aligned chunks
+ * up front, each of which knows the number of its first fragment. The chunks are converted concurrently on a
+ * ForkJoinPool and then written to the output in their original order.
+ */
+public class ParallelFastqConverter {
+    private static final int DEFAULT_TARGET_CHUNK_BYTES = 4 * 1024 * 1024;
+    // Individual mappings are limited to Integer.MAX_VALUE bytes, so larger inputs are mapped one region at a time
+    private static final long MAX_MAPPED_REGION_BYTES = 1024 * 1024 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int targetChunkBytes;
+
+    private ParallelFastqConverter(ForkJoinPool pool, int targetChunkBytes) {
+        this.pool = Objects.requireNonNull(pool);
+        if (targetChunkBytes <= 0) {
+            throw new IllegalArgumentException(
+                    "targetChunkBytes must be greater than 0, but found " + targetChunkBytes);
+        }
+        this.targetChunkBytes = targetChunkBytes;
+    }
+
+    /** Creates a converter that runs on the given pool using a default chunk size of a few MB. */
+    public static ParallelFastqConverter of(ForkJoinPool pool) {
+        return new ParallelFastqConverter(pool, DEFAULT_TARGET_CHUNK_BYTES);
+    }
+
+    /**
+     * Creates a converter that runs on the given pool, where each chunk of work contains as many whole fragments as fit
+     * into targetChunkBytes (but always at least one fragment).
+     *
+     * @throws IllegalArgumentException if targetChunkBytes <= 0
+     */
+    public static ParallelFastqConverter of(ForkJoinPool pool, int targetChunkBytes) {
+        return new ParallelFastqConverter(pool, targetChunkBytes);
+    }
+
+    /**
+     * Converts the binary fragment file at inputPath into a FASTQ file at outputPath, which must not already exist. The
+     * output is identical to converting the fragments one-by-one in order.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     * @throws IllegalStateException if the size of the input file is not a multiple of numReadingBasesPerFragment
+     *         (i.e. the last fragment is truncated). In that case, no output file is created.
+     * @throws UncheckedIOException if reading the input or writing the output throws an IOException, where the cause of
+     *         the UncheckedIOException is the IOException.
+     */
+    public void convert(Path inputPath, int numReadingBasesPerFragment, Path outputPath) {
+        try (FileChannel input = openInput(inputPath, numReadingBasesPerFragment);
+                FileChannel output = FileChannel.open(outputPath, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE)) {
+            convert(input, numReadingBasesPerFragment, output, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Same as {@link #convert(Path, int, Path)}, except that the FASTQ output is written to the given channel (e.g. a
+     * compressing one), which is left open. Nothing is written if the input is invalid.
+     */
+    public void convert(Path inputPath, int numReadingBasesPerFragment, WritableByteChannel output) {
+        try (FileChannel input = openInput(inputPath, numReadingBasesPerFragment)) {
+            convert(input, numReadingBasesPerFragment, output, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Same as {@link #convert(Path, int, WritableByteChannel)}, except that all fragments are also recorded in the
+     * given statistics, by the threads converting the chunks.
+     *
+     * @throws IllegalArgumentException if the statistics are for a different numReadingBasesPerFragment
+     */
+    public void convert(Path inputPath, int numReadingBasesPerFragment, WritableByteChannel output,
+            FragmentStatistics statistics) {
+        statistics.requireNumReadingBasesPerFragment(numReadingBasesPerFragment);
+        try (FileChannel input = openInput(inputPath, numReadingBasesPerFragment)) {
+            convert(input, numReadingBasesPerFragment, output, statistics);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static FileChannel openInput(Path inputPath, int numReadingBasesPerFragment) throws IOException {
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+
+        FileChannel input = FileChannel.open(inputPath, StandardOpenOption.READ);
+        long inputSize = input.size();
+        if (inputSize % numReadingBasesPerFragment != 0) {
+            input.close();
+            String message = String.format("Expected to find %s base readings per fragment in input, but only "
+                    + "found %s in the last fragment before end of input.", numReadingBasesPerFragment,
+                    inputSize % numReadingBasesPerFragment);
+            throw new IllegalStateException(message);
+        }
+        return input;
+    }
+
+    /** Converts the input, recording all fragments in the statistics unless they're null. */
+    private void convert(FileChannel input, int numReadingBasesPerFragment, WritableByteChannel output,
+            FragmentStatistics statistics) throws IOException {
+        long inputSize = input.size();
+        long fragmentsPerRegion = Math.max(1, MAX_MAPPED_REGION_BYTES / numReadingBasesPerFragment);
+        long regionBytes = fragmentsPerRegion * numReadingBasesPerFragment;
+        int fragmentsPerChunk = Math.max(1, targetChunkBytes / numReadingBasesPerFragment);
+        // Bound the number of converted-but-unwritten chunks, so that memory use doesn't depend on the input size
+        int maxChunksInFlight = 2 * pool.getParallelism();
+
+        Deque<ForkJoinTask<ByteBuffer>> chunksInFlight = new ArrayDeque<>(maxChunksInFlight);
+        try {
+            for (long regionStart = 0; regionStart < inputSize; regionStart += regionBytes) {
+                long regionSize = Math.min(regionBytes, inputSize - regionStart);
+                ByteBuffer region = input.map(MapMode.READ_ONLY, regionStart, regionSize);
+                long regionFirstFragmentNumber = regionStart / numReadingBasesPerFragment + 1;
+                int numRegionFragments = (int) (regionSize / numReadingBasesPerFragment);
+
+                for (int chunkFirstFragment = 0; chunkFirstFragment < numRegionFragments;
+                        chunkFirstFragment += fragmentsPerChunk) {
+                    int numChunkFragments = Math.min(fragmentsPerChunk, numRegionFragments - chunkFirstFragment);
+                    ByteBuffer chunk = region.duplicate()
+                            .position(chunkFirstFragment * numReadingBasesPerFragment)
+                            .limit((chunkFirstFragment + numChunkFragments) * numReadingBasesPerFragment)
+                            .slice();
+                    long firstFragmentNumber = regionFirstFragmentNumber + chunkFirstFragment;
+                    if (chunksInFlight.size() == maxChunksInFlight) {
+                        writeFully(output, chunksInFlight.removeFirst().join());
+                    }
+                    chunksInFlight.addLast(pool.submit(() -> {
+                        if (statistics != null) {
+                            statistics.accept(chunk, numChunkFragments);
+                        }
+                        return FastqWriterUtils.encodeRawFragments(chunk, numChunkFragments,
+                                numReadingBasesPerFragment, firstFragmentNumber);
+                    }));
+                }
+            }
+
+            while (!chunksInFlight.isEmpty()) {
+                writeFully(output, chunksInFlight.removeFirst().join());
+            }
+        } finally {
+            chunksInFlight.forEach(chunk -> chunk.cancel(true));
+        }
+    }
+
+    private static void writeFully(WritableByteChannel output, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Converts a binary fragment file into a FASTQ file as a pipeline of three stages, so that reading the input, decoding
+ * it, and writing the output all overlap, rather than taking turns on a single thread:
+ *
+ * 1. A reader thread fills large batches of raw fragments with {@link FragmentReader} and numbers them in order.<br>
+ * 2. Decode workers on an ExecutorService turn each batch into FASTQ bytes.<br>
+ * 3. The calling thread writes the decoded batches to the output in the order they were read, waiting for the next
+ * batch in sequence whenever a later one finishes decoding first.<br>
+ *
+ * The stages are connected by bounded queues, so a slow stage holds back the ones before it, and memory use is bounded
+ * by maxBatchesInFlight regardless of the input size. The raw batch buffers are recycled between batches.
+ */
+public class PipelinedFastqConverter {
+    private static final int DEFAULT_BATCH_BYTES = 1024 * 1024;
+
+    private final ExecutorService decodeExecutor;
+    private final int batchBytes;
+    private final int maxBatchesInFlight;
+    private final ConversionMetrics metrics;
+
+    private PipelinedFastqConverter(ExecutorService decodeExecutor, int batchBytes, int maxBatchesInFlight,
+            ConversionMetrics metrics) {
+        this.decodeExecutor = Objects.requireNonNull(decodeExecutor);
+        if (batchBytes <= 0) {
+            throw new IllegalArgumentException("batchBytes must be greater than 0, but found " + batchBytes);
+        }
+        this.batchBytes = batchBytes;
+        if (maxBatchesInFlight <= 0) {
+            throw new IllegalArgumentException(
+                    "maxBatchesInFlight must be greater than 0, but found " + maxBatchesInFlight);
+        }
+        this.maxBatchesInFlight = maxBatchesInFlight;
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * Creates a converter that decodes on the given executor, using batches of about 1 MB, with a couple of batches per
+     * available processor in flight at once.
+     */
+    public static PipelinedFastqConverter of(ExecutorService decodeExecutor) {
+        return new PipelinedFastqConverter(decodeExecutor, DEFAULT_BATCH_BYTES,
+                2 * Runtime.getRuntime().availableProcessors(), ConversionMetrics.of());
+    }
+
+    /**
+     * Creates a converter that decodes on the given executor, where each batch contains as many whole fragments as fit
+     * into batchBytes (but always at least one fragment), and at most maxBatchesInFlight batches are waiting to be
+     * decoded or written at once.
+     *
+     * @throws IllegalArgumentException if batchBytes <= 0 or maxBatchesInFlight <= 0
+     */
+    public static PipelinedFastqConverter of(ExecutorService decodeExecutor, int batchBytes, int maxBatchesInFlight) {
+        return new PipelinedFastqConverter(decodeExecutor, batchBytes, maxBatchesInFlight, ConversionMetrics.of());
+    }
+
+    /**
+     * Same as {@link #of(ExecutorService, int, int)}, except that every conversion is recorded in the given metrics.
+     *
+     * @throws IllegalArgumentException if batchBytes <= 0 or maxBatchesInFlight <= 0
+     */
+    public static PipelinedFastqConverter of(ExecutorService decodeExecutor, int batchBytes, int maxBatchesInFlight,
+            ConversionMetrics metrics) {
+        return new PipelinedFastqConverter(decodeExecutor, batchBytes, maxBatchesInFlight, metrics);
+    }
+
+    /**
+     * Converts the binary fragment file at inputPath into a FASTQ file at outputPath, which must not already exist. The
+     * output is identical to converting the fragments one-by-one in order.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     * @throws IllegalStateException if the size of the input file is not a multiple of numReadingBasesPerFragment
+     *         (i.e. the last fragment is truncated). In that case, no output file is created.
+     * @throws UncheckedIOException if reading the input or writing the output throws an IOException, where the cause of
+     *         the UncheckedIOException is the IOException.
+     */
+    public void convert(Path inputPath, int numReadingBasesPerFragment, Path outputPath) {
+        requireWholeFragments(inputPath, numReadingBasesPerFragment);
+        try (FileChannel output = FileChannel.open(outputPath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)) {
+            convert(inputPath, numReadingBasesPerFragment, output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Same as {@link #convert(Path, int, Path)}, except that the FASTQ output is written to the given channel (e.g. a
+     * compressing one), which is left open. Nothing is written if the input is invalid.
+     */
+    public void convert(Path inputPath, int numReadingBasesPerFragment, WritableByteChannel output) {
+        convertInBatches(inputPath, numReadingBasesPerFragment, output, null);
+    }
+
+    /**
+     * Same as {@link #convert(Path, int, WritableByteChannel)}, except that all fragments are also recorded in the
+     * given statistics, by the decode workers.
+     *
+     * @throws IllegalArgumentException if the statistics are for a different numReadingBasesPerFragment
+     */
+    public void convert(Path inputPath, int numReadingBasesPerFragment, WritableByteChannel output,
+            FragmentStatistics statistics) {
+        statistics.requireNumReadingBasesPerFragment(numReadingBasesPerFragment);
+        convertInBatches(inputPath, numReadingBasesPerFragment, output, statistics);
+    }
+
+    /** Runs the pipeline, recording all fragments in the statistics unless they're null. */
+    private void convertInBatches(Path inputPath, int numReadingBasesPerFragment, WritableByteChannel output,
+            FragmentStatistics statistics) {
+        requireWholeFragments(inputPath, numReadingBasesPerFragment);
+        int fragmentsPerBatch = Math.max(1, batchBytes / numReadingBasesPerFragment);
+        BlockingQueue<byte[]> idleBatches = new ArrayBlockingQueue<>(maxBatchesInFlight + 1);
+        for (int i = 0; i < maxBatchesInFlight + 1; ++i) {
+            idleBatches.add(new byte[fragmentsPerBatch * numReadingBasesPerFragment]);
+        }
+        BlockingQueue<Future<ByteBuffer>> decodedBatches = new ArrayBlockingQueue<>(maxBatchesInFlight);
+
+        FutureTask<Void> reading = new FutureTask<>(() -> {
+            readBatches(inputPath, numReadingBasesPerFragment, statistics, idleBatches, decodedBatches);
+            return null;
+        });
+        Thread readerThread = new Thread(reading, "fragment-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+        boolean written = false;
+        try {
+            writeBatches(decodedBatches, metrics.meter(output));
+            written = true;
+        } finally {
+            // If writing failed, stop the reader. Otherwise, it has already queued the end marker and is only closing
+            // the input, which mustn't be interrupted.
+            if (!written) {
+                reading.cancel(true);
+            }
+            // Only once the reader has stopped can no more batches be queued, so that all decoding in progress can be
+            // cancelled
+            joinUninterruptibly(readerThread);
+            List<Future<ByteBuffer>> abandoned = new ArrayList<>();
+            decodedBatches.drainTo(abandoned);
+            abandoned.forEach(batch -> batch.cancel(true));
+        }
+    }
+
+    /** Waits for the given thread to end, even if interrupted, in which case the interrupt is restored afterwards. */
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void requireWholeFragments(Path inputPath, int numReadingBasesPerFragment) {
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+        try {
+            long inputSize = Files.size(inputPath);
+            if (inputSize % numReadingBasesPerFragment != 0) {
+                String message = String.format("Expected to find %s base readings per fragment in input, but only "
+                        + "found %s in the last fragment before end of input.", numReadingBasesPerFragment,
+                        inputSize % numReadingBasesPerFragment);
+                throw new IllegalStateException(message);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The reader stage: reads batches into idle buffers and queues them up for writing in order, as futures of their
+     * decoded bytes. The end of the input (or a failure) is marked by a final future of null (or of the failure).
+     */
+    private void readBatches(Path inputPath, int numReadingBasesPerFragment, FragmentStatistics statistics,
+            BlockingQueue<byte[]> idleBatches, BlockingQueue<Future<ByteBuffer>> decodedBatches)
+            throws InterruptedException {
+        try (FragmentReader reader = FragmentReader.of(inputPath, numReadingBasesPerFragment)) {
+            while (true) {
+                byte[] rawFragments = idleBatches.take();
+                long firstFragmentNumber = reader.getNumFragmentsRead() + 1;
+                int numFragments = metrics.readRawFragments(reader, rawFragments);
+                if (numFragments == 0) {
+                    break;
+                }
+                Future<ByteBuffer> decoded = decodeExecutor.submit(() -> {
+                    try {
+                        if (statistics != null) {
+                            statistics.accept(ByteBuffer.wrap(rawFragments), numFragments);
+                        }
+                        return metrics.encodeRawFragments(ByteBuffer.wrap(rawFragments), numFragments,
+                                numReadingBasesPerFragment, firstFragmentNumber);
+                    } finally {
+                        idleBatches.add(rawFragments);
+                    }
+                });
+                try {
+                    decodedBatches.put(decoded);
+                } catch (InterruptedException e) {
+                    // The writer has given up, and won't see this batch to cancel it
+                    decoded.cancel(true);
+                    throw e;
+                }
+            }
+            decodedBatches.put(CompletableFuture.completedFuture(null));
+        } catch (RuntimeException | Error e) {
+            // Errors (e.g. running out of memory) must reach the writer too, or it would wait for the end forever
+            decodedBatches.put(CompletableFuture.failedFuture(e));
+        }
+    }
+
+    /** The writer stage: writes decoded batches in sequence until reaching the end marker. */
+    private static void writeBatches(BlockingQueue<Future<ByteBuffer>> decodedBatches, WritableByteChannel output) {
+        try {
+            for (ByteBuffer batch; (batch = decodedBatches.take().get()) != null;) {
+                while (batch.hasRemaining()) {
+                    output.write(batch);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for the next batch"));
+        } catch (ExecutionException e) {
+            // Rethrow the reader's or decoder's exception as is, since they're all unchecked
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
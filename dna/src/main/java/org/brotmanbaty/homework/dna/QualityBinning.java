@@ -0,0 +1,134 @@
+package org.brotmanbaty.homework.dna;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Maps each of the 64 quality scores onto a smaller set of representative scores, which makes quality lines far more
+ * repetitive and so far more compressible, at the cost of precision that most downstream tools don't use. For speed,
+ * the mapping is expanded into 256-entry lookup tables indexed by raw binary base readings, so that binning can be done
+ * while decoding (see {@link FastqByteWriter#of(java.nio.channels.WritableByteChannel, long, int, QualityBinning)})
+ * or on raw bytes in place, without creating any objects.
+ */
+public class QualityBinning {
+    private static final int NUM_QUALITY_SCORES = 64;
+    private static final int QUALITY_MASK = 0b0011_1111;
+    // The 8-level binning used by Illumina sequencers, as lowest score:binned score pairs
+    private static final String ILLUMINA_8_LEVEL = "0:0,2:6,10:15,20:22,25:27,30:33,35:37,40:40";
+    private static final QualityBinning NONE = new QualityBinning(createIdentityTable());
+
+    // The binned score of each score, and the binned raw byte and FASTQ quality character of each raw byte
+    private final byte[] table;
+    private final byte[] rawTable = new byte[256];
+    private final byte[] fastqQualityTable = new byte[256];
+
+    private QualityBinning(byte[] table) {
+        this.table = table;
+        for (int binary = 0; binary < rawTable.length; ++binary) {
+            byte binnedScore = table[binary & QUALITY_MASK];
+            rawTable[binary] = (byte) (binary & ~QUALITY_MASK | binnedScore);
+            fastqQualityTable[binary] = (byte) QualityScore.ofBinary(binnedScore).toFastq();
+        }
+    }
+
+    private static byte[] createIdentityTable() {
+        byte[] table = new byte[NUM_QUALITY_SCORES];
+        for (int score = 0; score < table.length; ++score) {
+            table[score] = (byte) score;
+        }
+        return table;
+    }
+
+    /** Returns the binning that leaves every score as it is. */
+    public static QualityBinning none() {
+        return NONE;
+    }
+
+    /** Returns Illumina's 8-level binning: 0-1, 2-9, 10-19, 20-24, 25-29, 30-34, 35-39 and 40 or more. */
+    public static QualityBinning illumina8Level() {
+        return parse(ILLUMINA_8_LEVEL);
+    }
+
+    /**
+     * Creates a binning from a table of 64 binned scores, where entry i is the binned score for score i. The table is
+     * copied.
+     *
+     * @throws IllegalArgumentException if the table doesn't have 64 entries, or if any entry is not a quality score
+     */
+    public static QualityBinning of(byte[] table) {
+        if (table.length != NUM_QUALITY_SCORES) {
+            String message = String.format("Expected a table of %s binned scores, but found %s", NUM_QUALITY_SCORES,
+                    table.length);
+            throw new IllegalArgumentException(message);
+        }
+        for (byte binnedScore : table) {
+            requireScore(binnedScore);
+        }
+        return new QualityBinning(table.clone());
+    }
+
+    /**
+     * Creates a binning from a comma-separated list of bins, each given as the lowest score in the bin and the score
+     * that the bin maps to, separated by a colon. The bins must start at 0, in increasing order, and each one extends
+     * up to the next one (or to 63). For example, "0:5,10:15,20:25" maps 0-9 to 5, 10-19 to 15, and 20-63 to 25.
+     *
+     * @throws IllegalArgumentException if the specification is not valid
+     */
+    public static QualityBinning parse(String specification) {
+        byte[] table = new byte[NUM_QUALITY_SCORES];
+        int previousLowestScore = -1;
+        try {
+            for (String bin : specification.split(",")) {
+                String[] lowestAndBinnedScore = bin.strip().split(":");
+                if (lowestAndBinnedScore.length != 2) {
+                    throw new IllegalArgumentException("Expected <lowest score>:<binned score>, but found " + bin);
+                }
+                int lowestScore = requireScore(Integer.parseInt(lowestAndBinnedScore[0].strip()));
+                int binnedScore = requireScore(Integer.parseInt(lowestAndBinnedScore[1].strip()));
+                if (previousLowestScore < 0 ? lowestScore != 0 : lowestScore <= previousLowestScore) {
+                    throw new IllegalArgumentException("Expected bins to start at 0 and increase, but found " + bin);
+                }
+                // Each bin extends to the end, until the next bin overwrites the rest
+                Arrays.fill(table, lowestScore, NUM_QUALITY_SCORES, (byte) binnedScore);
+                previousLowestScore = lowestScore;
+            }
+        } catch (IllegalArgumentException e) {
+            String message = String.format("Invalid quality binning \"%s\": %s", specification, e.getMessage());
+            throw new IllegalArgumentException(message, e);
+        }
+        return new QualityBinning(table);
+    }
+
+    private static int requireScore(int score) {
+        if (score < 0 || score >= NUM_QUALITY_SCORES) {
+            throw new IllegalArgumentException("Expected a quality score from 0 to 63, but found " + score);
+        }
+        return score;
+    }
+
+    public QualityScore bin(QualityScore score) {
+        return QualityScore.ofBinary(table[score.toBinary()]);
+    }
+
+    public ReadingBase bin(ReadingBase readingBase) {
+        return ReadingBase.ofBinary(rawTable[readingBase.toBinary() & 0xFF]);
+    }
+
+    /**
+     * Bins the quality scores of length raw binary base readings in rawFragments, starting at offset, in place. The
+     * bases are left as they are.
+     *
+     * @throws IndexOutOfBoundsException if the range described by offset and length falls outside of rawFragments.
+     */
+    public void binRawFragments(byte[] rawFragments, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, rawFragments.length);
+        for (int i = offset; i < offset + length; ++i) {
+            rawFragments[i] = rawTable[rawFragments[i] & 0xFF];
+        }
+    }
+
+    /** Returns the binned FASTQ quality character of each raw binary base reading, for {@link FastqTranscoder}. */
+    byte[] getFastqQualityTable() {
+        return fastqQualityTable;
+    }
+}
@@ -0,0 +1,191 @@
+package org.brotmanbaty.homework.dna;
+
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Drops and trims low quality fragments before they're converted, so that reads that would be thrown away downstream
+ * are never decoded or written. All decisions are made on the 6-bit quality scores of the raw bytes, without creating
+ * any {@link ReadingBase} objects.
+ *
+ * Each fragment is first trimmed, if trailing trimming is enabled: a window of bases slides from the end of the
+ * fragment towards its start until the mean quality within the window reaches the cutoff, the fragment is cut at the
+ * end of that window, and then any remaining bases below the cutoff at the new end are cut too. The trimmed fragment
+ * is then dropped if it's shorter than the minimum length, if its mean quality is below the minimum mean quality, or
+ * if any of its bases is below the minimum quality.
+ *
+ * Filters are immutable: {@link #of()} creates one that keeps everything, and each with method returns a copy with
+ * one more rule enabled.
+ */
+public class QualityFilter {
+    private static final int QUALITY_MASK = 0b0011_1111;
+    private static final int MAX_QUALITY = 63;
+    private static final int BATCH_SIZE = 1024 * 1024;
+
+    private final int minMeanQuality;
+    private final int minQuality;
+    private final int trimWindowSize;
+    private final int trimQuality;
+    private final int minLength;
+
+    private QualityFilter(int minMeanQuality, int minQuality, int trimWindowSize, int trimQuality, int minLength) {
+        this.minMeanQuality = minMeanQuality;
+        this.minQuality = minQuality;
+        this.trimWindowSize = trimWindowSize;
+        this.trimQuality = trimQuality;
+        this.minLength = minLength;
+    }
+
+    /** Creates a filter that neither drops nor trims any (non-empty) fragment. */
+    public static QualityFilter of() {
+        return new QualityFilter(0, 0, 0, 0, 1);
+    }
+
+    /**
+     * Returns a copy of this filter that also drops fragments whose mean quality score is below minMeanQuality.
+     *
+     * @throws IllegalArgumentException if minMeanQuality is not a quality score (0 to 63)
+     */
+    public QualityFilter withMinMeanQuality(int minMeanQuality) {
+        return new QualityFilter(requireQuality("minMeanQuality", minMeanQuality), minQuality, trimWindowSize,
+                trimQuality, minLength);
+    }
+
+    /**
+     * Returns a copy of this filter that also drops fragments containing any quality score below minQuality.
+     *
+     * @throws IllegalArgumentException if minQuality is not a quality score (0 to 63)
+     */
+    public QualityFilter withMinQuality(int minQuality) {
+        return new QualityFilter(minMeanQuality, requireQuality("minQuality", minQuality), trimWindowSize,
+                trimQuality, minLength);
+    }
+
+    /**
+     * Returns a copy of this filter that also trims trailing bases with a sliding window of windowSize bases, cutting
+     * the fragment where the window's mean quality score first reaches trimQuality, as described above.
+     *
+     * @throws IllegalArgumentException if windowSize <= 0 or if trimQuality is not a quality score (0 to 63)
+     */
+    public QualityFilter withTrailingTrim(int windowSize, int trimQuality) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be greater than 0, but found " + windowSize);
+        }
+        return new QualityFilter(minMeanQuality, minQuality, windowSize, requireQuality("trimQuality", trimQuality),
+                minLength);
+    }
+
+    /**
+     * Returns a copy of this filter that drops fragments that are shorter than minLength bases after trimming.
+     *
+     * @throws IllegalArgumentException if minLength <= 0
+     */
+    public QualityFilter withMinLength(int minLength) {
+        if (minLength <= 0) {
+            throw new IllegalArgumentException("minLength must be greater than 0, but found " + minLength);
+        }
+        return new QualityFilter(minMeanQuality, minQuality, trimWindowSize, trimQuality, minLength);
+    }
+
+    private static int requireQuality(String name, int quality) {
+        if (quality < 0 || quality > MAX_QUALITY) {
+            String message = String.format("%s must be between 0 and %s, but found %s", name, MAX_QUALITY, quality);
+            throw new IllegalArgumentException(message);
+        }
+        return quality;
+    }
+
+    /**
+     * Returns how many leading bases of the fragment given in its raw binary format as length bytes of rawFragments
+     * starting at offset should be kept, or 0 if the fragment should be dropped.
+     *
+     * @throws IndexOutOfBoundsException if the range described by offset and length falls outside of rawFragments.
+     */
+    public int getKeptLength(byte[] rawFragments, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, rawFragments.length);
+        int keptLength = trimWindowSize == 0 ? length : trimTrailing(rawFragments, offset, length);
+        if (keptLength < minLength) {
+            return 0;
+        }
+
+        long qualitySum = 0;
+        int lowestQuality = MAX_QUALITY;
+        for (int i = offset; i < offset + keptLength; ++i) {
+            int quality = rawFragments[i] & QUALITY_MASK;
+            qualitySum += quality;
+            lowestQuality = Math.min(lowestQuality, quality);
+        }
+        if (lowestQuality < minQuality || qualitySum < (long) minMeanQuality * keptLength) {
+            return 0;
+        }
+        return keptLength;
+    }
+
+    private int trimTrailing(byte[] rawFragments, int offset, int length) {
+        // Compare sums rather than means, so that no division is needed
+        int windowSize = Math.min(trimWindowSize, length);
+        int minWindowSum = trimQuality * windowSize;
+        int end = offset + length;
+        int windowSum = 0;
+        for (int i = end - windowSize; i < end; ++i) {
+            windowSum += rawFragments[i] & QUALITY_MASK;
+        }
+        while (windowSum < minWindowSum && end - windowSize > offset) {
+            --end;
+            windowSum += (rawFragments[end - windowSize] & QUALITY_MASK) - (rawFragments[end] & QUALITY_MASK);
+        }
+        if (windowSum < minWindowSum) {
+            return 0;
+        }
+        while (end > offset && (rawFragments[end - 1] & QUALITY_MASK) < trimQuality) {
+            --end;
+        }
+        return end - offset;
+    }
+
+    /**
+     * Converts the binary fragment file at inputPath into FASTQ, which is written to the given channel (which is left
+     * open), keeping only the fragments that pass this filter, trimmed. If keepFragmentNumbers is true, the records
+     * keep the numbers of their fragments in the input, so that they can be traced back to it; otherwise, they're
+     * numbered consecutively from 1. Returns the number of fragments written.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0
+     * @throws IllegalStateException if the last fragment is truncated
+     * @throws UncheckedIOException if reading the input or writing the output throws an IOException, where the cause of
+     *         the UncheckedIOException is the IOException.
+     */
+    public long convert(Path inputPath, int numReadingBasesPerFragment, WritableByteChannel output,
+            boolean keepFragmentNumbers) {
+        try (FragmentReader reader = FragmentReader.of(inputPath, numReadingBasesPerFragment)) {
+            // Don't close the writer, as that would close the output
+            FastqByteWriter writer = FastqByteWriter.of(output);
+            int fragmentsPerBatch = Math.max(1, BATCH_SIZE / numReadingBasesPerFragment);
+            byte[] rawFragments = new byte[fragmentsPerBatch * numReadingBasesPerFragment];
+            long numFragmentsWritten = 0;
+            for (int numFragments; (numFragments = reader.readRawFragments(rawFragments)) > 0;) {
+                long firstFragmentNumber = reader.getNumFragmentsRead() - numFragments + 1;
+                for (int i = 0; i < numFragments; ++i) {
+                    int offset = i * numReadingBasesPerFragment;
+                    int keptLength = getKeptLength(rawFragments, offset, numReadingBasesPerFragment);
+                    if (keptLength == 0) {
+                        continue;
+                    }
+                    if (keepFragmentNumbers && writer.getNextFragmentNumber() != firstFragmentNumber + i) {
+                        writer.setNextFragmentNumber(firstFragmentNumber + i);
+                    }
+                    writer.writeRawFragment(rawFragments, offset, keptLength);
+                    ++numFragmentsWritten;
+                }
+            }
+            writer.flush();
+            return numFragmentsWritten;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("<minMeanQuality %s, minQuality %s, trimWindowSize %s, trimQuality %s, minLength %s>",
+                minMeanQuality, minQuality, trimWindowSize, trimQuality, minLength);
+    }
+}
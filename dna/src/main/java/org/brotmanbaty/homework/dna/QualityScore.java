@@ -4,6 +4,9 @@ import java.util.Objects;
 
 /** The confidence that the a DNA base scan is correct. As a number, it represents an integer in the range 0 to 63. */
 public class QualityScore {
+    // There are only 64 possible scores, so share one instance of each rather than creating one per base reading
+    private static final QualityScore[] INSTANCES = createInstances();
+
     private final byte binary;
 
     private QualityScore(byte binary) {
@@ -21,13 +24,21 @@ public class QualityScore {
         return binary;
     }
 
+    private static QualityScore[] createInstances() {
+        QualityScore[] instances = new QualityScore[64];
+        for (int binary = 0; binary < instances.length; ++binary) {
+            instances[binary] = new QualityScore((byte) binary);
+        }
+        return instances;
+    }
+
     /**
-     * Returns a quality score from its binary representation.
+     * Returns a quality score from its binary representation. The same instance is returned for the same binary value.
      * 
      * @throws IllegalArgumentException if binary < or binary > 64.
      */
     public static QualityScore ofBinary(byte binary) {
-        return new QualityScore(binary);
+        return INSTANCES[requireInRange(binary)];
     }
 
     public final byte toBinary() {
@@ -42,6 +53,11 @@ public class QualityScore {
         return (char) (binary + 33);
     }
 
+    /** Returns the FASTQ format for this score after binning it with the given binning. */
+    public final char toFastq(QualityBinning binning) {
+        return binning.bin(this).toFastq();
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(binary);
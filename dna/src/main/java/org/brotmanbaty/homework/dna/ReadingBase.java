@@ -2,8 +2,13 @@ package org.brotmanbaty.homework.dna;
 
 import java.util.Objects;
 
-/** A scanning/reading of one of a DNA molecule's bases. */
+/**
+ * A scanning/reading of one of a DNA molecule's bases. There are only 256 possible readings (4 bases times 64 quality
+ * scores), so one instance of each is shared rather than creating a new one per reading.
+ */
 public class ReadingBase {
+    private static final ReadingBase[] INSTANCES = createInstances();
+
     private final Base base;
     private final QualityScore score;
 
@@ -12,8 +17,39 @@ public class ReadingBase {
         this.score = Objects.requireNonNull(score);
     }
 
+    private static ReadingBase[] createInstances() {
+        ReadingBase[] instances = new ReadingBase[256];
+        Base[] bases = Base.values();
+        for (int binary = 0; binary < instances.length; ++binary) {
+            Base base = bases[binary >>> 6];
+            QualityScore score = QualityScore.ofBinary((byte) (binary & 0b00111111));
+            instances[binary] = new ReadingBase(base, score);
+        }
+        return instances;
+    }
+
     public static ReadingBase of(Base base, QualityScore score) {
-        return new ReadingBase(base, score);
+        Objects.requireNonNull(base);
+        Objects.requireNonNull(score);
+        return INSTANCES[toBinary(base, score) & 0xFF];
+    }
+
+    /**
+     * Returns the reading from its binary representation, where the first two (most significant) bits are the base's
+     * ordinal and the last six (least significant) bits are the quality score's binary representation. Every byte is a
+     * valid reading.
+     */
+    public static ReadingBase ofBinary(byte binary) {
+        return INSTANCES[binary & 0xFF];
+    }
+
+    /** The inverse of {@link #ofBinary(byte)}. */
+    public byte toBinary() {
+        return toBinary(base, score);
+    }
+
+    private static byte toBinary(Base base, QualityScore score) {
+        return (byte) (base.ordinal() << 6 | score.toBinary());
     }
 
     public Base getBase() {
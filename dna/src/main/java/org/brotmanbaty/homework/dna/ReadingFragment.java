@@ -1,40 +1,87 @@
 package org.brotmanbaty.homework.dna;
 
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
+import java.util.RandomAccess;
 
-/** An ordered grouping/sequence of ReadingBases. */
+/**
+ * An ordered grouping/sequence of ReadingBases. Internally, the bases are packed in their one-byte binary
+ * representation (see {@link ReadingBase#ofBinary(byte)}), so a fragment costs little more than one byte per base.
+ */
 public class ReadingFragment {
-    private final List<ReadingBase> readingBases;
+    private final byte[] binary;
 
-    private ReadingFragment(List<ReadingBase> readingBases) {
-        this.readingBases = List.copyOf(readingBases);
+    private ReadingFragment(byte[] binary) {
+        this.binary = binary;
     }
 
     public static ReadingFragment of(List<ReadingBase> readingBases) {
-        return new ReadingFragment(readingBases);
+        byte[] binary = new byte[readingBases.size()];
+        int i = 0;
+        for (ReadingBase readingBase : readingBases) {
+            binary[i++] = readingBase.toBinary();
+        }
+        return new ReadingFragment(binary);
+    }
+
+    /** Creates a fragment from the binary representation of its bases, one byte per base. The array is copied. */
+    public static ReadingFragment ofBinary(byte[] binary) {
+        return new ReadingFragment(binary.clone());
+    }
+
+    /** Same as {@link #ofBinary(byte[])}, except that the array is not copied, so callers must not modify it after. */
+    static ReadingFragment wrapBinary(byte[] binary) {
+        return new ReadingFragment(binary);
     }
 
+    /**
+     * Returns an unmodifiable view of the bases. Each element is created on demand from its packed binary
+     * representation, and is one of the shared ReadingBase instances, so no memory is used per base.
+     */
     public List<ReadingBase> getReadingBases() {
-        return readingBases;
+        return new ReadingBaseList(binary);
+    }
+
+    /** Returns a copy of the binary representation of the bases, one byte per base. */
+    public byte[] toBinary() {
+        return binary.clone();
+    }
+
+    private static class ReadingBaseList extends AbstractList<ReadingBase> implements RandomAccess {
+        private final byte[] binary;
+
+        private ReadingBaseList(byte[] binary) {
+            this.binary = binary;
+        }
+
+        @Override
+        public ReadingBase get(int index) {
+            return ReadingBase.ofBinary(binary[index]);
+        }
+
+        @Override
+        public int size() {
+            return binary.length;
+        }
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(readingBases);
+        return Arrays.hashCode(binary);
     }
 
     @Override
     public boolean equals(Object object) {
         if (object instanceof ReadingFragment) {
             ReadingFragment other = (ReadingFragment) object;
-            return Objects.equals(this.readingBases, other.readingBases);
+            return Arrays.equals(this.binary, other.binary);
         }
         return false;
     }
 
     @Override
     public String toString() {
-        return readingBases.toString();
+        return getReadingBases().toString();
     }
 }
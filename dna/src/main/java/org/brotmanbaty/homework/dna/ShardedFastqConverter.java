@@ -0,0 +1,199 @@
+package org.brotmanbaty.homework.dna;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Converts a binary fragment file into many moderate-size FASTQ files, or shards, rather than one big one, so that
+ * downstream tools can process the shards in parallel without splitting the output in another pass. Every fragment in
+ * the input is exactly numReadingBasesPerFragment bytes long, so each shard's range of fragments, and the number of its
+ * first fragment, are known up front: all shards are converted concurrently on the executor, each reading its own range
+ * of the input, and the records are numbered continuously across shards.
+ *
+ * The shards are named &lt;name&gt;.00000.fastq, &lt;name&gt;.00001.fastq, and so on. Each shard is written under its
+ * name plus ".partial" and only renamed to its final name once it's complete, so downstream jobs can start on a shard
+ * as soon as it appears, while later shards are still being written.
+ */
+public class ShardedFastqConverter {
+    private static final String SHARD_NAME_FORMAT = "%s.%05d.fastq";
+    private static final String PARTIAL_SUFFIX = ".partial";
+    private static final int BATCH_SIZE = 1024 * 1024;
+    private static final int WRITER_BUFFER_SIZE = 64 * 1024;
+
+    private final ExecutorService executor;
+    private final ConversionMetrics metrics;
+
+    private ShardedFastqConverter(ExecutorService executor, ConversionMetrics metrics) {
+        this.executor = Objects.requireNonNull(executor);
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /** Creates a converter that converts the shards on the given executor. */
+    public static ShardedFastqConverter of(ExecutorService executor) {
+        return new ShardedFastqConverter(executor, ConversionMetrics.of());
+    }
+
+    /**
+     * Same as {@link #of(ExecutorService)}, except that the writes of all shards are recorded in the given metrics.
+     */
+    public static ShardedFastqConverter of(ExecutorService executor, ConversionMetrics metrics) {
+        return new ShardedFastqConverter(executor, metrics);
+    }
+
+    /** Returns the path of the shard with the given index (from 0) in the given directory. */
+    public static Path getShardPath(Path outputDirectory, String name, int shardIndex) {
+        return outputDirectory.resolve(String.format(SHARD_NAME_FORMAT, name, shardIndex));
+    }
+
+    /**
+     * Converts the binary fragment file at inputPath into shards of fragmentsPerShard fragments each (except for the
+     * last one, which may have fewer), in the given directory, where none of them may already exist. Returns the paths
+     * of the shards, in order; an empty input has no shards.
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0 or fragmentsPerShard <= 0
+     * @throws IllegalStateException if the size of the input file is not a multiple of numReadingBasesPerFragment
+     *         (i.e. the last fragment is truncated). In that case, no shards are created.
+     * @throws UncheckedIOException if reading the input or writing a shard throws an IOException, or if the calling
+     *         thread is interrupted, where the cause of the UncheckedIOException is the IOException (an
+     *         InterruptedIOException if interrupted). In that case, the shards that were still being written are
+     *         left behind as partial files.
+     */
+    public List<Path> convertByFragmentCount(Path inputPath, int numReadingBasesPerFragment, Path outputDirectory,
+            String name, long fragmentsPerShard) {
+        if (fragmentsPerShard <= 0) {
+            throw new IllegalArgumentException("fragmentsPerShard must be greater than 0, but found "
+                    + fragmentsPerShard);
+        }
+        return convert(inputPath, numReadingBasesPerFragment, outputDirectory, name, numFragments -> fragmentsPerShard);
+    }
+
+    /**
+     * Same as {@link #convertByFragmentCount(Path, int, Path, String, long)}, except that each shard gets as many
+     * fragments as fit into targetShardBytes of FASTQ (but always at least one).
+     *
+     * @throws IllegalArgumentException if numReadingBasesPerFragment <= 0 or targetShardBytes <= 0
+     */
+    public List<Path> convertBySize(Path inputPath, int numReadingBasesPerFragment, Path outputDirectory, String name,
+            long targetShardBytes) {
+        if (targetShardBytes <= 0) {
+            throw new IllegalArgumentException("targetShardBytes must be greater than 0, but found "
+                    + targetShardBytes);
+        }
+        // Records grow with the number of digits in their fragment number, so size the shards by the largest record
+        return convert(inputPath, numReadingBasesPerFragment, outputDirectory, name, numFragments -> Math.max(1,
+                targetShardBytes / FastqWriterUtils.getRawFragmentRecordLength(numReadingBasesPerFragment,
+                        Math.max(1, numFragments))));
+    }
+
+    /** Computes the number of fragments per shard from the number of fragments in the input. */
+    private interface ShardSizer {
+        long getFragmentsPerShard(long numFragments);
+    }
+
+    private List<Path> convert(Path inputPath, int numReadingBasesPerFragment, Path outputDirectory, String name,
+            ShardSizer sizer) {
+        Objects.requireNonNull(outputDirectory);
+        Objects.requireNonNull(name);
+        if (numReadingBasesPerFragment <= 0) {
+            throw new IllegalArgumentException(
+                    "numReadingBasesPerFragment must be greater than 0, but found " + numReadingBasesPerFragment);
+        }
+        try (FileChannel input = FileChannel.open(inputPath, StandardOpenOption.READ)) {
+            long inputSize = input.size();
+            if (inputSize % numReadingBasesPerFragment != 0) {
+                String message = String.format("Expected to find %s base readings per fragment in input, but only "
+                        + "found %s in the last fragment before end of input.", numReadingBasesPerFragment,
+                        inputSize % numReadingBasesPerFragment);
+                throw new IllegalStateException(message);
+            }
+            long numFragments = inputSize / numReadingBasesPerFragment;
+            long fragmentsPerShard = sizer.getFragmentsPerShard(numFragments);
+
+            // Positional reads don't share a position, so all shards can read through the same channel
+            List<Path> shardPaths = new ArrayList<>();
+            List<Future<?>> shards = new ArrayList<>();
+            try {
+                for (long first = 0; first < numFragments; first += fragmentsPerShard) {
+                    Path shardPath = getShardPath(outputDirectory, name, shardPaths.size());
+                    long firstFragment = first;
+                    long shardFragments = Math.min(fragmentsPerShard, numFragments - first);
+                    shardPaths.add(shardPath);
+                    shards.add(executor.submit(() -> convertShard(input, numReadingBasesPerFragment, firstFragment,
+                            shardFragments, shardPath)));
+                }
+                for (Future<?> shard : shards) {
+                    shard.get();
+                }
+                return shardPaths;
+            } finally {
+                // Stop any remaining shards if one failed, since the input must no longer be read once it's closed
+                for (Future<?> shard : shards) {
+                    shard.cancel(true);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for shards"));
+        } catch (ExecutionException e) {
+            // Rethrow the shard's exception as the calling thread would have thrown it
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** Converts numFragments fragments starting at fragment index first into the shard at shardPath. */
+    private Void convertShard(FileChannel input, int numReadingBasesPerFragment, long first, long numFragments,
+            Path shardPath) throws IOException {
+        Path partialPath = shardPath.resolveSibling(shardPath.getFileName() + PARTIAL_SUFFIX);
+        if (Files.exists(shardPath)) {
+            throw new FileAlreadyExistsException(shardPath.toString());
+        }
+        try (WritableByteChannel output = metrics.meter(FileChannel.open(partialPath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE))) {
+            FastqByteWriter writer = FastqByteWriter.of(output, first + 1, WRITER_BUFFER_SIZE);
+            int fragmentsPerBatch = Math.max(1, BATCH_SIZE / numReadingBasesPerFragment);
+            ByteBuffer rawFragments = ByteBuffer.allocate(fragmentsPerBatch * numReadingBasesPerFragment);
+            long position = first * numReadingBasesPerFragment;
+            for (long remaining = numFragments; remaining > 0;) {
+                int batchFragments = (int) Math.min(fragmentsPerBatch, remaining);
+                rawFragments.clear().limit(batchFragments * numReadingBasesPerFragment);
+                while (rawFragments.hasRemaining()) {
+                    if (input.read(rawFragments, position + rawFragments.position()) < 0) {
+                        throw new IllegalStateException("Input ended while reading " + shardPath.getFileName());
+                    }
+                }
+                for (int i = 0; i < batchFragments; ++i) {
+                    writer.writeRawFragment(rawFragments.array(), i * numReadingBasesPerFragment,
+                            numReadingBasesPerFragment);
+                }
+                position += rawFragments.limit();
+                remaining -= batchFragments;
+            }
+            writer.flush();
+        }
+        Files.move(partialPath, shardPath, StandardCopyOption.ATOMIC_MOVE);
+        return null;
+    }
+}
@@ -0,0 +1,59 @@
+package org.brotmanbaty.homework.dna;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Decodes with the Vector API, a full vector of bytes (32 with AVX2, 64 with AVX-512) per instruction, instead of
+ * looking each byte up in a table. The base is the top 2 bits, so shifting them down gives its index in "ACGT", and
+ * the quality character is the low 6 bits plus 33. The bytes left over after the last full vector are decoded one at a
+ * time.
+ *
+ * This class is only compiled for Java 17 and later, into the versioned part of the multi-release JAR. Loading it
+ * fails unless the jdk.incubator.vector module is added, in which case {@link FastqTranscoder} keeps using its tables.
+ */
+class VectorFastqDecodeKernel implements FastqDecodeKernel {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final byte[] SEQUENCE_CHARACTERS = {'A', 'C', 'G', 'T'};
+    private static final int QUALITY_MASK = 0b0011_1111;
+    private static final int BASE_SHIFT = 6;
+    private static final int QUALITY_OFFSET = 33;
+
+    @Override
+    public void decodeSequence(byte[] source, int sourceOffset, byte[] destination, int destinationOffset,
+            int length) {
+        // 'A', 'C', 'G' and 'T' are 'A' + 0, 2, 6 and 19, which is built up from comparisons rather than a shuffle,
+        // as shuffles across lanes are slow on some hardware
+        ByteVector a = ByteVector.broadcast(SPECIES, 'A');
+        int vectorLength = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < vectorLength; i += SPECIES.length()) {
+            ByteVector bases = ByteVector.fromArray(SPECIES, source, sourceOffset + i)
+                    .lanewise(VectorOperators.LSHR, BASE_SHIFT);
+            a.add((byte) ('C' - 'A'), bases.compare(VectorOperators.GE, 1))
+                    .add((byte) ('G' - 'C'), bases.compare(VectorOperators.GE, 2))
+                    .add((byte) ('T' - 'G'), bases.compare(VectorOperators.EQ, 3))
+                    .intoArray(destination, destinationOffset + i);
+        }
+        for (; i < length; ++i) {
+            destination[destinationOffset + i] = SEQUENCE_CHARACTERS[(source[sourceOffset + i] & 0xFF) >>> BASE_SHIFT];
+        }
+    }
+
+    @Override
+    public void decodeQuality(byte[] source, int sourceOffset, byte[] destination, int destinationOffset,
+            int length) {
+        int vectorLength = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < vectorLength; i += SPECIES.length()) {
+            ByteVector.fromArray(SPECIES, source, sourceOffset + i)
+                    .and((byte) QUALITY_MASK)
+                    .add((byte) QUALITY_OFFSET)
+                    .intoArray(destination, destinationOffset + i);
+        }
+        for (; i < length; ++i) {
+            destination[destinationOffset + i] = (byte) ((source[sourceOffset + i] & QUALITY_MASK) + QUALITY_OFFSET);
+        }
+    }
+}
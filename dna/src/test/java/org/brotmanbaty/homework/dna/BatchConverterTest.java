@@ -0,0 +1,175 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BatchConverterTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void ofThrowsExceptionGivenNonPositiveMaxConcurrentDecodes() {
+        assertThrows(IllegalArgumentException.class, () -> BatchConverter.of(0));
+    }
+
+    @Test
+    public void convertAllConvertsEveryJobTheSameAsSequentialConversion() throws IOException {
+        List<ConversionJob> jobs = new ArrayList<>();
+        Random random = new Random(15);
+        for (int i = 0; i < 20; ++i) {
+            int numReadingBasesPerFragment = 1 + random.nextInt(300);
+            byte[] rawFragments = new byte[numReadingBasesPerFragment * random.nextInt(5000)];
+            random.nextBytes(rawFragments);
+            Path input = Files.write(directory.resolve("input" + i), rawFragments);
+            jobs.add(ConversionJob.of(input, numReadingBasesPerFragment, directory.resolve("out/output" + i)));
+        }
+
+        Map<ConversionJob, RuntimeException> failures = BatchConverter.of(2).convertAll(jobs,
+                new BatchConverter.Listener() {});
+
+        assertThat(failures, anEmptyMap());
+        for (ConversionJob job : jobs) {
+            assertThat(Files.readAllBytes(job.getOutputPath()),
+                    is(convertSequentially(job.getInputPath(), job.getNumReadingBasesPerFragment())));
+        }
+    }
+
+    @Test
+    public void convertAllReportsFailuresWithoutAbortingOtherJobs() throws IOException {
+        Path valid = Files.write(directory.resolve("valid"), new byte[2 * 100]);
+        Path truncated = Files.write(directory.resolve("truncated"), new byte[3]);
+        ConversionJob truncatedJob = ConversionJob.of(truncated, 2, directory.resolve("truncated.fastq"));
+        ConversionJob missingJob = ConversionJob.of(directory.resolve("missing"), 2,
+                directory.resolve("missing.fastq"));
+        ConversionJob validJob = ConversionJob.of(valid, 2, directory.resolve("valid.fastq"));
+        List<ConversionJob> failed = Collections.synchronizedList(new ArrayList<>());
+        List<ConversionJob> succeeded = Collections.synchronizedList(new ArrayList<>());
+
+        Map<ConversionJob, RuntimeException> failures = BatchConverter.of().convertAll(
+                List.of(truncatedJob, missingJob, validJob), new BatchConverter.Listener() {
+                    @Override
+                    public void onSucceeded(ConversionJob job) {
+                        succeeded.add(job);
+                    }
+
+                    @Override
+                    public void onFailed(ConversionJob job, RuntimeException failure) {
+                        failed.add(job);
+                    }
+                });
+
+        assertThat(failures.keySet(), contains(truncatedJob, missingJob));
+        assertThat(failures.get(truncatedJob), instanceOf(IllegalStateException.class));
+        assertThat(failed.size(), is(2));
+        assertThat(succeeded, contains(validJob));
+        assertThat(Files.exists(truncatedJob.getOutputPath()), is(false));
+        assertThat(Files.readAllBytes(validJob.getOutputPath()), is(convertSequentially(valid, 2)));
+    }
+
+    @Test
+    public void convertAllFailsOnlyTheJobsWhoseListenerCallsThrow() throws IOException {
+        Path valid = Files.write(directory.resolve("valid"), new byte[2 * 100]);
+        Path truncated = Files.write(directory.resolve("truncated"), new byte[3]);
+        ConversionJob truncatedJob = ConversionJob.of(truncated, 2, directory.resolve("truncated.fastq"));
+        ConversionJob throwingJob = ConversionJob.of(valid, 2, directory.resolve("throwing.fastq"));
+        ConversionJob validJob = ConversionJob.of(valid, 2, directory.resolve("valid.fastq"));
+        IllegalStateException listenerFailure = new IllegalStateException("listener failure");
+
+        Map<ConversionJob, RuntimeException> failures = BatchConverter.of().convertAll(
+                List.of(truncatedJob, throwingJob, validJob), new BatchConverter.Listener() {
+                    @Override
+                    public void onSucceeded(ConversionJob job) {
+                        if (job == throwingJob) {
+                            throw listenerFailure;
+                        }
+                    }
+
+                    @Override
+                    public void onFailed(ConversionJob job, RuntimeException failure) {
+                        throw new IllegalStateException("onFailed failure");
+                    }
+                });
+
+        assertThat(failures.keySet(), contains(truncatedJob, throwingJob));
+        assertThat(failures.get(throwingJob), is(listenerFailure));
+        assertThat(failures.get(truncatedJob).getSuppressed().length, is(1));
+        assertThat(Files.readAllBytes(validJob.getOutputPath()), is(convertSequentially(valid, 2)));
+    }
+
+    @Test
+    public void convertAllReportsProgressOfEveryBatchUpToTheTotal() throws IOException {
+        // 1 MB batches of 1,000,000 bases hold one fragment each
+        Path input = Files.write(directory.resolve("input"), new byte[1_000_000 * 3]);
+        ConversionJob job = ConversionJob.of(input, 1_000_000, directory.resolve("output"));
+        List<Long> events = Collections.synchronizedList(new ArrayList<>());
+
+        BatchConverter.of().convertAll(List.of(job), new BatchConverter.Listener() {
+            @Override
+            public void onStarted(ConversionJob job, long numFragments) {
+                events.add(-numFragments);
+            }
+
+            @Override
+            public void onProgress(ConversionJob job, long numFragmentsConverted) {
+                events.add(numFragmentsConverted);
+            }
+        });
+
+        assertThat(events, contains(-3L, 1L, 2L, 3L));
+    }
+
+    @Test
+    public void convertAllRunsAllJobsAtOnceEvenWithASingleDecodePermit() throws IOException {
+        int numJobs = 16;
+        List<ConversionJob> jobs = new ArrayList<>();
+        for (int i = 0; i < numJobs; ++i) {
+            Path input = Files.write(directory.resolve("input" + i), new byte[10]);
+            jobs.add(ConversionJob.of(input, 2, directory.resolve("output" + i)));
+        }
+        CountDownLatch allStarted = new CountDownLatch(numJobs);
+
+        // Every job waits for all of the others to start, which only works if each has its own thread
+        Map<ConversionJob, RuntimeException> failures = BatchConverter.of(1).convertAll(jobs,
+                new BatchConverter.Listener() {
+                    @Override
+                    public void onStarted(ConversionJob job, long numFragments) {
+                        allStarted.countDown();
+                        try {
+                            if (!allStarted.await(10, TimeUnit.SECONDS)) {
+                                throw new IllegalStateException("Not all jobs started");
+                            }
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+
+        assertThat(failures, anEmptyMap());
+    }
+
+    private static byte[] convertSequentially(Path input, int numReadingBasesPerFragment) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Main.convertSequentially(input, numReadingBasesPerFragment, Channels.newChannel(output));
+        return output.toByteArray();
+    }
+}
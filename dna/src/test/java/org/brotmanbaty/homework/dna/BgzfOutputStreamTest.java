@@ -0,0 +1,128 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class BgzfOutputStreamTest {
+    private static final byte[] EOF_BLOCK = {0x1f, (byte) 0x8b, 0x08, 0x04, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) 0xff,
+            0x06, 0x00, 0x42, 0x43, 0x02, 0x00, 0x1b, 0x00, 0x03, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00};
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+    private final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+    @AfterEach
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void ofThrowsExceptionGivenInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> BgzfOutputStream.of(compressed, executor, 10, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> BgzfOutputStream.of(compressed, executor, Deflater.DEFAULT_COMPRESSION, 0));
+    }
+
+    @Test
+    public void emptyStreamContainsOnlyEndOfFileBlock() throws IOException {
+        BgzfOutputStream.of(compressed, executor).close();
+
+        assertThat(compressed.toByteArray(), is(EOF_BLOCK));
+        assertThat(gunzip(compressed.toByteArray()), is(new byte[0]));
+    }
+
+    @Test
+    public void compressibleDataSpanningManyBlocksCanBeReadByGzipInOrder() throws IOException {
+        byte[] data = new byte[1_000_000];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (byte) "ACGT".charAt((i * 7 / 13) % 4);
+        }
+
+        // Small numbers of blocks in flight make sure blocks are reordered correctly while compression is ongoing
+        try (OutputStream stream = BgzfOutputStream.of(compressed, executor, Deflater.DEFAULT_COMPRESSION, 2)) {
+            stream.write(data, 0, 1000);
+            stream.write(data[1000]);
+            stream.write(data, 1001, data.length - 1001);
+        }
+
+        assertThat(gunzip(compressed.toByteArray()), is(data));
+        assertValidBlocks(compressed.toByteArray());
+    }
+
+    @Test
+    public void incompressibleDataStillFitsInBlocks() throws IOException {
+        byte[] data = new byte[300_000];
+        new Random(17).nextBytes(data);
+
+        try (OutputStream stream = BgzfOutputStream.of(compressed, executor, Deflater.BEST_COMPRESSION, 4)) {
+            stream.write(data);
+        }
+
+        assertThat(gunzip(compressed.toByteArray()), is(data));
+        assertValidBlocks(compressed.toByteArray());
+    }
+
+    @Test
+    public void flushWritesAllDataWrittenSoFar() throws IOException {
+        BgzfOutputStream stream = BgzfOutputStream.of(compressed, executor);
+        stream.write(new byte[] {1, 2, 3});
+
+        stream.flush();
+
+        assertThat(gunzip(compressed.toByteArray()), is(new byte[] {1, 2, 3}));
+    }
+
+    @Test
+    public void closeClosesUnderlyingStreamAndIsIdempotent() throws IOException {
+        OutputStream out = mock(OutputStream.class);
+        BgzfOutputStream stream = BgzfOutputStream.of(out, executor);
+
+        stream.close();
+        stream.close();
+
+        verify(out).close();
+        assertThrows(IOException.class, () -> stream.write(1));
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream stream = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return stream.readAllBytes();
+        }
+    }
+
+    /** Walks the blocks using their BSIZE fields, making sure they're all at most 64 KB and end with the EOF block. */
+    private static void assertValidBlocks(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int position = 0;
+        int lastBlockStart = -1;
+        while (position < bytes.length) {
+            assertThat(buffer.get(position + 12), is((byte) 'B'));
+            assertThat(buffer.get(position + 13), is((byte) 'C'));
+            int blockSize = (buffer.getShort(position + 16) & 0xFFFF) + 1;
+            assertThat(blockSize, lessThanOrEqualTo(0x10000));
+            lastBlockStart = position;
+            position += blockSize;
+        }
+        assertThat(position, is(bytes.length));
+        assertThat(Arrays.copyOfRange(bytes, lastBlockStart, bytes.length), is(EOF_BLOCK));
+    }
+}
@@ -75,6 +75,55 @@ public class BinaryStreamUtilsTest {
         assertThat(fragment, is(expectedFragment));
     }
 
+    @Test
+    public void readRawFragmentCanReadZeroBases() {
+        InputStream stream = mock(InputStream.class);
+
+        assertThat(BinaryStreamUtils.readRawFragment(stream, new byte[0]), is(true));
+
+        verifyNoInteractions(stream);
+    }
+
+    @Test
+    public void readRawFragmentReturnsFalseIfEndOfStreamIsReachedImmediately() {
+        InputStream stream = new ByteArrayInputStream(new byte[0]);
+
+        assertThat(BinaryStreamUtils.readRawFragment(stream, new byte[2]), is(false));
+    }
+
+    @Test
+    public void readRawFragmentThrowsExceptionWhenEndOfStreamIsReachedAfterReadingAtLeastOneBaseButNotAllRequested() {
+        InputStream stream = new ByteArrayInputStream(new byte[] {0b01000010});
+
+        assertThrows(IllegalStateException.class, () -> BinaryStreamUtils.readRawFragment(stream, new byte[2]));
+    }
+
+    @Test
+    public void readRawFragmentReadsConsecutiveFragmentsUnchanged() {
+        InputStream stream = new ByteArrayInputStream(new byte[] {0b01000010, (byte) 0b10000100, (byte) 0b11111111});
+        byte[] rawFragment = new byte[1];
+
+        assertThat(BinaryStreamUtils.readRawFragment(stream, rawFragment), is(true));
+        assertThat(rawFragment, is(new byte[] {0b01000010}));
+        assertThat(BinaryStreamUtils.readRawFragment(stream, rawFragment), is(true));
+        assertThat(rawFragment, is(new byte[] {(byte) 0b10000100}));
+        assertThat(BinaryStreamUtils.readRawFragment(stream, rawFragment), is(true));
+        assertThat(rawFragment, is(new byte[] {(byte) 0b11111111}));
+        assertThat(BinaryStreamUtils.readRawFragment(stream, rawFragment), is(false));
+    }
+
+    @Test
+    public void readRawFragmentWrapsIOExceptions() throws IOException {
+        InputStream stream = mock(InputStream.class);
+        IOException exception = new IOException();
+        when(stream.readNBytes(new byte[1], 0, 1)).thenThrow(exception);
+
+        RuntimeException thrown = assertThrows(RuntimeException.class,
+                () -> BinaryStreamUtils.readRawFragment(stream, new byte[1]));
+
+        assertThat(thrown.getCause(), is(exception));
+    }
+
     @Test
     public void readReadingBaseCorrectlyParsesTheBaseFromFirstTwoBits() throws IOException {
         InputStream stream = mock(InputStream.class);
@@ -175,6 +224,18 @@ public class BinaryStreamUtilsTest {
         assertThat(BinaryStreamUtils.readReadingBase(inputStream), is(readingBaseT));
     }
 
+    @Test
+    public void writeReadingBaseWithBinningWritesTheBinnedScore() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ReadingBase readingBase = ReadingBase.of(Base.G, QualityScore.ofBinary((byte) 38));
+
+        BinaryStreamUtils.writeReadingBase(outputStream, readingBase, QualityBinning.illumina8Level());
+
+        InputStream inputStream = new ByteArrayInputStream(outputStream.toByteArray());
+        assertThat(BinaryStreamUtils.readReadingBase(inputStream),
+                is(ReadingBase.of(Base.G, QualityScore.ofBinary((byte) 37))));
+    }
+
     @Test
     public void writeReadingBaseCorrectlyConvertsTheScoreToLastSixBits() {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
@@ -0,0 +1,173 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CheckpointedConverterTest {
+    private static final int NUM_READING_BASES_PER_FRAGMENT = 3;
+    private static final int NUM_FRAGMENTS = 1000;
+    // 100 fragments per chunk, so 10 chunks
+    private static final long CHECKPOINT_INTERVAL = 300;
+
+    @TempDir
+    Path directory;
+    private Path input;
+    private Path output;
+    private Path checkpoint;
+    private byte[] expected;
+
+    @BeforeEach
+    public void writeInputAndExpectedOutput() throws IOException {
+        byte[] rawFragments = new byte[NUM_FRAGMENTS * NUM_READING_BASES_PER_FRAGMENT];
+        new Random(17).nextBytes(rawFragments);
+        input = Files.write(directory.resolve("input"), rawFragments);
+        output = directory.resolve("output");
+        checkpoint = directory.resolve("output.checkpoint");
+        Path expectedOutput = directory.resolve("expected");
+        Main.convertSequentially(input, NUM_READING_BASES_PER_FRAGMENT, expectedOutput);
+        expected = Files.readAllBytes(expectedOutput);
+    }
+
+    private static CheckpointedConverter converter() {
+        return CheckpointedConverter.of(CHECKPOINT_INTERVAL, ConversionMetrics.of());
+    }
+
+    @Test
+    public void ofThrowsExceptionGivenNonPositiveCheckpointInterval() {
+        assertThrows(IllegalArgumentException.class, () -> CheckpointedConverter.of(0, ConversionMetrics.of()));
+    }
+
+    @Test
+    public void getCheckpointPathAppendsSuffix() {
+        assertThat(CheckpointedConverter.getCheckpointPath(output), is(checkpoint));
+    }
+
+    @Test
+    public void convertProducesTheSameOutputAsSequentialConversionAndCheckpointsEveryChunk() throws IOException {
+        long numFragments = converter().convert(input, NUM_READING_BASES_PER_FRAGMENT, output);
+
+        assertThat(numFragments, is((long) NUM_FRAGMENTS));
+        assertThat(Files.readAllBytes(output), is(expected));
+        List<String> lines = Files.readAllLines(checkpoint);
+        assertThat(lines, hasSize(2 + 10));
+        assertThat(lines.get(0), is("#bases_per_fragment\t3"));
+        String[] last = lines.get(lines.size() - 1).split("\t");
+        assertThat(Arrays.asList(last[0], last[1], last[2]), is(List.of("1000", "3000", "" + expected.length)));
+    }
+
+    @Test
+    public void convertCanConvertAnEmptyFile() throws IOException {
+        Path emptyInput = Files.write(directory.resolve("empty"), new byte[0]);
+
+        assertThat(converter().convert(emptyInput, NUM_READING_BASES_PER_FRAGMENT, output), is(0L));
+        assertThat(Files.readAllBytes(output), is(new byte[0]));
+        assertThat(Files.readAllLines(checkpoint), hasSize(2));
+    }
+
+    @Test
+    public void convertThrowsExceptionIfOutputAlreadyExists() throws IOException {
+        Files.write(output, new byte[0]);
+
+        UncheckedIOException thrown = assertThrows(UncheckedIOException.class,
+                () -> converter().convert(input, NUM_READING_BASES_PER_FRAGMENT, output));
+        assertThat(thrown.getCause(), instanceOf(FileAlreadyExistsException.class));
+    }
+
+    @Test
+    public void resumeConvertsFromTheStartIfThereIsNoCheckpoint() throws IOException {
+        assertThat(converter().resume(input, NUM_READING_BASES_PER_FRAGMENT, output), is((long) NUM_FRAGMENTS));
+        assertThat(Files.readAllBytes(output), is(expected));
+    }
+
+    @Test
+    public void resumeDoesNothingIfTheConversionFinished() throws IOException {
+        converter().convert(input, NUM_READING_BASES_PER_FRAGMENT, output);
+        List<String> checkpointLines = Files.readAllLines(checkpoint);
+
+        assertThat(converter().resume(input, NUM_READING_BASES_PER_FRAGMENT, output), is(0L));
+        assertThat(Files.readAllBytes(output), is(expected));
+        assertThat(Files.readAllLines(checkpoint), is(checkpointLines));
+    }
+
+    @Test
+    public void resumeContinuesAfterTheLastCheckpointGivenPartlyWrittenChunkAndTornCheckpoint() throws IOException {
+        converter().convert(input, NUM_READING_BASES_PER_FRAGMENT, output);
+        // Simulate dying partway through the 7th chunk, while appending its checkpoint
+        List<String> lines = Files.readAllLines(checkpoint);
+        String lastGoodLine = lines.get(2 + 5);
+        long lastGoodOutputOffset = Long.parseLong(lastGoodLine.split("\t")[2]);
+        String tornLine = lines.get(2 + 6).substring(0, 5);
+        Files.writeString(checkpoint, String.join("\n", lines.subList(0, 2 + 6)) + "\n" + tornLine);
+        truncate(output, lastGoodOutputOffset + 123);
+
+        long numFragments = converter().resume(input, NUM_READING_BASES_PER_FRAGMENT, output);
+
+        assertThat(numFragments, is(400L));
+        assertThat(Files.readAllBytes(output), is(expected));
+        assertThat(Files.readAllLines(checkpoint), is(lines));
+    }
+
+    @Test
+    public void resumeRewritesChunksAfterTheFirstDamagedOne() throws IOException {
+        converter().convert(input, NUM_READING_BASES_PER_FRAGMENT, output);
+        List<String> lines = Files.readAllLines(checkpoint);
+        long thirdChunkStart = Long.parseLong(lines.get(2 + 1).split("\t")[2]);
+        byte[] damaged = expected.clone();
+        damaged[(int) thirdChunkStart + 10] ^= 1;
+        Files.write(output, damaged);
+
+        long numFragments = converter().resume(input, NUM_READING_BASES_PER_FRAGMENT, output);
+
+        assertThat(numFragments, is(800L));
+        assertThat(Files.readAllBytes(output), is(expected));
+        assertThat(Files.readAllLines(checkpoint), is(lines));
+    }
+
+    @Test
+    public void resumeThrowsExceptionGivenCheckpointForDifferentFragmentLength() throws IOException {
+        converter().convert(input, NUM_READING_BASES_PER_FRAGMENT, output);
+
+        assertThrows(IllegalStateException.class, () -> converter().resume(input, 2, output));
+    }
+
+    @Test
+    public void resumeThrowsExceptionGivenFileThatIsNotACheckpoint() throws IOException {
+        Files.writeString(checkpoint, "something else\n");
+
+        assertThrows(IllegalStateException.class,
+                () -> converter().resume(input, NUM_READING_BASES_PER_FRAGMENT, output));
+    }
+
+    @Test
+    public void resumeThrowsExceptionGivenInputShorterThanCheckpointed() throws IOException {
+        converter().convert(input, NUM_READING_BASES_PER_FRAGMENT, output);
+        truncate(input, 30);
+
+        assertThrows(IllegalStateException.class,
+                () -> converter().resume(input, NUM_READING_BASES_PER_FRAGMENT, output));
+    }
+
+    private static void truncate(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ColumnarArchiveTest {
+    @TempDir
+    Path directory;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @AfterEach
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void createThrowsExceptionGivenInvalidArguments() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[4]);
+        Path archive = directory.resolve("archive");
+
+        assertThrows(IllegalArgumentException.class, () -> ColumnarArchive.create(input, 0, archive, executor));
+        assertThrows(IllegalArgumentException.class,
+                () -> ColumnarArchive.create(input, 2, archive, executor, 0, Deflater.DEFAULT_COMPRESSION));
+        assertThrows(IllegalArgumentException.class,
+                () -> ColumnarArchive.create(input, 2, archive, executor, Integer.MAX_VALUE, 1));
+        assertThrows(IllegalArgumentException.class, () -> ColumnarArchive.create(input, 2, archive, executor, 1, 10));
+    }
+
+    @Test
+    public void createThrowsExceptionGivenTruncatedLastFragment() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[5]);
+        Path archive = directory.resolve("archive");
+
+        assertThrows(IllegalStateException.class, () -> ColumnarArchive.create(input, 2, archive, executor));
+        assertThat(Files.exists(archive), is(false));
+    }
+
+    @Test
+    public void extractReturnsOriginalFileWithPartialLastBlock() throws IOException {
+        byte[] content = new byte[7 * 10_001];
+        new Random(40).nextBytes(content);
+        Path input = Files.write(directory.resolve("input"), content);
+        Path archive = directory.resolve("archive");
+        Path output = directory.resolve("output");
+
+        ColumnarArchive.create(input, 7, archive, executor, 100, Deflater.BEST_SPEED);
+        try (ColumnarArchive columnarArchive = ColumnarArchive.of(archive)) {
+            assertThat(columnarArchive.getNumReadingBasesPerFragment(), is(7));
+            assertThat(columnarArchive.getFragmentsPerBlock(), is(100));
+            assertThat(columnarArchive.getNumFragments(), is(10_001L));
+            assertThat(columnarArchive.getSize(), is(Files.size(archive)));
+            columnarArchive.extract(output, executor);
+        }
+
+        assertThat(Files.readAllBytes(output), is(content));
+    }
+
+    @Test
+    public void extractReturnsEmptyFileGivenEmptyInput() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[0]);
+        Path archive = directory.resolve("archive");
+        Path output = directory.resolve("output");
+
+        ColumnarArchive.create(input, 3, archive, executor);
+        try (ColumnarArchive columnarArchive = ColumnarArchive.of(archive)) {
+            assertThat(columnarArchive.getNumFragments(), is(0L));
+            columnarArchive.extract(output, executor);
+        }
+
+        assertThat(Files.readAllBytes(output), is(new byte[0]));
+    }
+
+    @Test
+    public void extractThrowsExceptionGivenExistingOutput() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[6]);
+        Path archive = directory.resolve("archive");
+        Path output = Files.write(directory.resolve("output"), new byte[1]);
+        ColumnarArchive.create(input, 3, archive, executor);
+
+        try (ColumnarArchive columnarArchive = ColumnarArchive.of(archive)) {
+            UncheckedIOException thrown = assertThrows(UncheckedIOException.class,
+                    () -> columnarArchive.extract(output, executor));
+
+            assertThat(thrown.getCause(), instanceOf(FileAlreadyExistsException.class));
+        }
+    }
+
+    @Test
+    public void getReturnsSameFragmentsAsFragmentFile() throws IOException {
+        byte[] content = new byte[11 * 5000];
+        new Random(41).nextBytes(content);
+        Path input = Files.write(directory.resolve("input"), content);
+        Path archive = directory.resolve("archive");
+        ColumnarArchive.create(input, 11, archive, executor, 64, Deflater.DEFAULT_COMPRESSION);
+
+        try (ColumnarArchive columnarArchive = ColumnarArchive.of(archive);
+                FragmentFile fragmentFile = FragmentFile.of(input, 11)) {
+            assertThat(columnarArchive.get(1), is(fragmentFile.get(1)));
+            assertThat(columnarArchive.get(5000), is(fragmentFile.get(5000)));
+            Random random = new Random(42);
+            for (int i = 0; i < 2000; ++i) {
+                long fragmentNumber = 1 + random.nextInt(5000);
+
+                assertThat(columnarArchive.get(fragmentNumber), is(fragmentFile.get(fragmentNumber)));
+            }
+        }
+    }
+
+    @Test
+    public void getThrowsExceptionGivenFragmentNumbersOutsideOfArchive() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[6]);
+        Path archive = directory.resolve("archive");
+        ColumnarArchive.create(input, 2, archive, executor);
+
+        try (ColumnarArchive columnarArchive = ColumnarArchive.of(archive)) {
+            assertThrows(IndexOutOfBoundsException.class, () -> columnarArchive.get(0));
+            assertThrows(IndexOutOfBoundsException.class, () -> columnarArchive.get(4));
+        }
+    }
+
+    @Test
+    public void createCompressesRepetitiveQualitiesWellBelowInputSize() throws IOException {
+        // Binned qualities, as after QualityBinning, take only a few distinct values that change rarely
+        byte[] content = new byte[100 * 20_000];
+        Random random = new Random(43);
+        int quality = 37;
+        for (int i = 0; i < content.length; ++i) {
+            if (random.nextInt(20) == 0) {
+                quality = new int[] {2, 12, 23, 37}[random.nextInt(4)];
+            }
+            content[i] = (byte) (random.nextInt(4) << 6 | quality);
+        }
+        Path input = Files.write(directory.resolve("input"), content);
+        Path archive = directory.resolve("archive");
+
+        ColumnarArchive.create(input, 100, archive, executor);
+
+        assertThat(Files.size(archive), lessThan(content.length / 3L));
+    }
+
+    @Test
+    public void ofThrowsExceptionGivenMalformedArchive() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[60]);
+        Path archive = directory.resolve("archive");
+        ColumnarArchive.create(input, 3, archive, executor, 4, Deflater.DEFAULT_COMPRESSION);
+        byte[] bytes = Files.readAllBytes(archive);
+
+        Path badMagic = directory.resolve("badMagic");
+        byte[] badMagicBytes = bytes.clone();
+        badMagicBytes[0] = 'X';
+        Files.write(badMagic, badMagicBytes);
+        Path truncated = Files.write(directory.resolve("truncated"), Arrays.copyOf(bytes, bytes.length - 1));
+        Path tooShort = Files.write(directory.resolve("tooShort"), Arrays.copyOf(bytes, 10));
+
+        assertThrows(IllegalStateException.class, () -> ColumnarArchive.of(badMagic));
+        assertThrows(IllegalStateException.class, () -> ColumnarArchive.of(truncated));
+        assertThrows(IllegalStateException.class, () -> ColumnarArchive.of(tooShort));
+    }
+}
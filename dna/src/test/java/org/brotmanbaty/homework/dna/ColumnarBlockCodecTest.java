@@ -0,0 +1,76 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.Test;
+
+public class ColumnarBlockCodecTest {
+    @Test
+    public void decodeReturnsEncodedRandomFragments() {
+        byte[] rawFragments = new byte[13 * 1000];
+        new Random(30).nextBytes(rawFragments);
+
+        byte[] block = ColumnarBlockCodec.encode(rawFragments, 1000, 13, Deflater.DEFAULT_COMPRESSION);
+
+        assertThat(decode(block, 1000, 13), is(rawFragments));
+    }
+
+    @Test
+    public void decodeReturnsEncodedFragmentsWithLongRunsOfEqualQualities() {
+        // Runs of equal qualities longer than a single token, including ones that carry over into the next fragment
+        byte[] rawFragments = new byte[500 * 4];
+        Random random = new Random(31);
+        for (int i = 0; i < rawFragments.length; ++i) {
+            int quality = i < 700 ? 40 : i < 1200 ? 0 : i % 97 == 0 ? random.nextInt(64) : 12;
+            rawFragments[i] = (byte) (random.nextInt(4) << 6 | quality);
+        }
+
+        byte[] block = ColumnarBlockCodec.encode(rawFragments, 4, 500, Deflater.BEST_COMPRESSION);
+
+        assertThat(decode(block, 4, 500), is(rawFragments));
+        assertThat(block.length, lessThan(rawFragments.length / 3));
+    }
+
+    @Test
+    public void decodeWritesAtGivenOffsets() {
+        byte[] rawFragments = {(byte) 0b11_000001, 0b00_000010, (byte) 0b10_111111};
+        byte[] block = ColumnarBlockCodec.encode(rawFragments, 1, 3, Deflater.DEFAULT_COMPRESSION);
+        byte[] paddedBlock = new byte[block.length + 5];
+        System.arraycopy(block, 0, paddedBlock, 2, block.length);
+        byte[] decoded = new byte[7];
+
+        ColumnarBlockCodec.decode(paddedBlock, 2, block.length, 1, 3, decoded, 4);
+
+        assertThat(Arrays.copyOfRange(decoded, 4, 7), is(rawFragments));
+        assertThat(block[0], is((byte) 0b11_00_10_00));
+    }
+
+    @Test
+    public void decodeThrowsExceptionGivenMalformedBlock() {
+        byte[] rawFragments = new byte[8 * 10];
+        new Random(32).nextBytes(rawFragments);
+        byte[] block = ColumnarBlockCodec.encode(rawFragments, 10, 8, Deflater.DEFAULT_COMPRESSION);
+
+        // Too short for the sequence column, a truncated quality column, garbage, and too few and too many bases
+        assertThrows(IllegalStateException.class, () -> decode(Arrays.copyOf(block, 10), 10, 8));
+        assertThrows(IllegalStateException.class, () -> decode(Arrays.copyOf(block, block.length - 2), 10, 8));
+        byte[] garbage = block.clone();
+        Arrays.fill(garbage, 20, garbage.length, (byte) 0xff);
+        assertThrows(IllegalStateException.class, () -> decode(garbage, 10, 8));
+        assertThrows(IllegalStateException.class, () -> decode(block, 10, 7));
+        assertThrows(IllegalStateException.class, () -> decode(block, 10, 9));
+    }
+
+    private static byte[] decode(byte[] block, int numFragments, int numReadingBasesPerFragment) {
+        byte[] rawFragments = new byte[numFragments * numReadingBasesPerFragment];
+        ColumnarBlockCodec.decode(block, 0, block.length, numFragments, numReadingBasesPerFragment, rawFragments, 0);
+        return rawFragments;
+    }
+}
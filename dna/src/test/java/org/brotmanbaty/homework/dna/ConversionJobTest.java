@@ -0,0 +1,72 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ConversionJobTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void ofThrowsExceptionGivenInvalidArguments() {
+        assertThrows(NullPointerException.class, () -> ConversionJob.of(null, 2, Path.of("output")));
+        assertThrows(IllegalArgumentException.class, () -> ConversionJob.of(Path.of("input"), 0, Path.of("output")));
+        assertThrows(NullPointerException.class, () -> ConversionJob.of(Path.of("input"), 2, null));
+    }
+
+    @Test
+    public void equalsAndHashCodeDependOnAllFields() {
+        ConversionJob job = ConversionJob.of(Path.of("input"), 2, Path.of("output"));
+
+        assertThat(job, is(ConversionJob.of(Path.of("input"), 2, Path.of("output"))));
+        assertThat(job.hashCode(), is(ConversionJob.of(Path.of("input"), 2, Path.of("output")).hashCode()));
+        assertThat(job, not(ConversionJob.of(Path.of("other"), 2, Path.of("output"))));
+        assertThat(job, not(ConversionJob.of(Path.of("input"), 3, Path.of("output"))));
+        assertThat(job, not(ConversionJob.of(Path.of("input"), 2, Path.of("other"))));
+    }
+
+    @Test
+    public void readManifestReadsJobsInOrderResolvingRelativePathsAgainstManifestDirectory() throws IOException {
+        Path manifest = Files.writeString(directory.resolve("manifest.tsv"),
+                "# input\tL\toutput\n" + "lane1.binary\t150\tout/lane1.fastq\n" + "\n"
+                        + "/data/lane2.binary\t 2 \t/results/lane2.fastq\n");
+
+        List<ConversionJob> jobs = ConversionJob.readManifest(manifest);
+
+        assertThat(jobs,
+                contains(ConversionJob.of(directory.resolve("lane1.binary"), 150, directory.resolve("out/lane1.fastq")),
+                        ConversionJob.of(Path.of("/data/lane2.binary"), 2, Path.of("/results/lane2.fastq"))));
+    }
+
+    @Test
+    public void readManifestThrowsExceptionNamingLineGivenInvalidJob() throws IOException {
+        Path missingField = Files.writeString(directory.resolve("missing-field"), "a\t2\tb\n" + "a\t2\n");
+        Path invalidNumber = Files.writeString(directory.resolve("invalid-number"), "a\tmany\tb\n");
+        Path invalidLength = Files.writeString(directory.resolve("invalid-length"), "#\n" + "a\t0\tb\n");
+
+        assertThat(assertThrows(IllegalArgumentException.class, () -> ConversionJob.readManifest(missingField))
+                .getMessage(), containsString("line 2"));
+        assertThat(assertThrows(IllegalArgumentException.class, () -> ConversionJob.readManifest(invalidNumber))
+                .getMessage(), containsString("line 1"));
+        assertThat(assertThrows(IllegalArgumentException.class, () -> ConversionJob.readManifest(invalidLength))
+                .getMessage(), containsString("line 2"));
+    }
+
+    @Test
+    public void readManifestThrowsUncheckedIOExceptionGivenMissingManifest() {
+        assertThrows(UncheckedIOException.class, () -> ConversionJob.readManifest(directory.resolve("missing")));
+    }
+}
@@ -0,0 +1,145 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class ConversionMetricsTest {
+    private static final int NUM_FRAGMENTS = 100_000;
+    private static final int LENGTH = 30;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void recordsSequentialConversion() throws IOException {
+        Path input = writeRandomInput();
+        Path output = directory.resolve("output");
+        ConversionMetrics metrics = ConversionMetrics.of();
+
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            Main.convertSequentially(input, LENGTH, channel, metrics);
+        }
+
+        assertRecordedConversion(metrics, output);
+    }
+
+    @Test
+    public void recordsPipelinedConversion() {
+        Path input = writeRandomInput();
+        Path output = directory.resolve("output");
+        ConversionMetrics metrics = ConversionMetrics.of();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            PipelinedFastqConverter.of(executor, 64 * 1024, 4, metrics).convert(input, LENGTH, output);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertRecordedConversion(metrics, output);
+        // 3 MB of input in 64 KB batches, plus the read that finds the end of the input
+        assertThat(metrics.getReadLatencies().getCount(), is(3_000_000L / (64 * 1024 / LENGTH * LENGTH) + 2));
+    }
+
+    @Test
+    public void recordsTotalsOfBatchConversion() {
+        Path input = writeRandomInput();
+        ConversionMetrics metrics = ConversionMetrics.of();
+        List<ConversionJob> jobs = List.of(ConversionJob.of(input, LENGTH, directory.resolve("output1")),
+                ConversionJob.of(input, LENGTH, directory.resolve("output2")));
+
+        BatchConverter.of(2, metrics).convertAll(jobs, new BatchConverter.Listener() {});
+
+        assertThat(metrics.getFragmentsConverted(), is(2L * NUM_FRAGMENTS));
+        assertThat(metrics.getBytesRead(), is(2L * NUM_FRAGMENTS * LENGTH));
+    }
+
+    @Test
+    public void recordsJfrEventsForReadsAndWrites() throws IOException {
+        Path input = writeRandomInput();
+        Path recordingPath = directory.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(FragmentReadEvent.class).withoutThreshold();
+            recording.enable(FastqWriteEvent.class).withoutThreshold();
+            recording.start();
+            Main.convertSequentially(input, LENGTH, directory.resolve("output"));
+            recording.stop();
+            recording.dump(recordingPath);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingPath);
+        List<String> names = events.stream().map(event -> event.getEventType().getName())
+                .collect(Collectors.toList());
+        assertThat(names, hasItem("org.brotmanbaty.homework.dna.FragmentRead"));
+        assertThat(names, hasItem("org.brotmanbaty.homework.dna.FastqWrite"));
+        long bytesRead = events.stream().filter(event -> event.getEventType().getName().endsWith("FragmentRead"))
+                .mapToLong(event -> event.getLong("bytes")).sum();
+        assertThat(bytesRead, is((long) NUM_FRAGMENTS * LENGTH));
+    }
+
+    @Test
+    public void registerMBeanExposesMetricsThroughJmx() throws JMException {
+        ConversionMetrics metrics = ConversionMetrics.of();
+        metrics.recordDecode(1000, 10, LENGTH);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        ObjectName name = metrics.registerMBean("test");
+        try {
+            assertThat(server.getAttribute(name, "FragmentsConverted"), is(10L));
+            assertThat(server.getAttribute(name, "BasesConverted"), is(10L * LENGTH));
+            assertThrows(IllegalStateException.class, () -> ConversionMetrics.of().registerMBean("test"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    private Path writeRandomInput() {
+        byte[] rawFragments = new byte[NUM_FRAGMENTS * LENGTH];
+        new Random(12).nextBytes(rawFragments);
+        try {
+            return Files.write(directory.resolve("input"), rawFragments);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void assertRecordedConversion(ConversionMetrics metrics, Path output) {
+        assertThat(metrics.getBytesRead(), is((long) NUM_FRAGMENTS * LENGTH));
+        assertThat(metrics.getFragmentsConverted(), is((long) NUM_FRAGMENTS));
+        assertThat(metrics.getBasesConverted(), is((long) NUM_FRAGMENTS * LENGTH));
+        try {
+            assertThat(metrics.getBytesWritten(), is(Files.size(output)));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        assertThat(metrics.getReadLatencies().getCount(), greaterThan(1L));
+        assertThat(metrics.getDecodeLatencies().getCount(), greaterThan(0L));
+        assertThat(metrics.getWriteLatencies().getCount(), greaterThan(0L));
+        assertThat(metrics.getFragmentsPerSecond(), greaterThan(0.0));
+    }
+}
@@ -0,0 +1,129 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DuplicateFilterTest {
+    // ACG with qualities 1, 2, 3, and then the same bases with different qualities, and then a different fragment
+    private static final byte[] RAW_FRAGMENTS = new byte[] {0b00000001, 0b01000010, (byte) 0b10000011,
+            0b00000001, 0b01000010, (byte) 0b10000011,
+            0b00000101, 0b01000101, (byte) 0b10000101,
+            (byte) 0b11000001, 0b01000010, (byte) 0b10000011};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void fingerprintIsMurmurHash3OfTheBytes() {
+        long[] fingerprint = new long[2];
+
+        DuplicateFilter.fingerprint("hello".getBytes(StandardCharsets.US_ASCII), 0, 5, -1L, fingerprint);
+
+        // As computed by other implementations of the 128-bit x64 MurmurHash3, with seed 0
+        assertThat(fingerprint[0], is(0xcbd8a7b341bd9b02L));
+        assertThat(fingerprint[1], is(0x5b1e906a48ae1d19L));
+    }
+
+    @Test
+    public void fingerprintWithSequenceMaskIgnoresQualityBits() {
+        byte[] rawFragments = new byte[40];
+        new Random(22).nextBytes(rawFragments);
+        byte[] requalified = rawFragments.clone();
+        for (int i = 0; i < requalified.length; ++i) {
+            requalified[i] ^= 0b00111111;
+        }
+        long[] fingerprint = new long[2];
+        long[] requalifiedFingerprint = new long[2];
+
+        for (int length = 0; length <= 33; ++length) {
+            DuplicateFilter.fingerprint(rawFragments, 3, length, 0xc0c0_c0c0_c0c0_c0c0L, fingerprint);
+            DuplicateFilter.fingerprint(requalified, 3, length, 0xc0c0_c0c0_c0c0_c0c0L, requalifiedFingerprint);
+            assertThat(requalifiedFingerprint, is(fingerprint));
+            if (length > 0) {
+                DuplicateFilter.fingerprint(requalified, 3, length, -1L, requalifiedFingerprint);
+                assertThat(requalifiedFingerprint, is(not(fingerprint)));
+            }
+        }
+    }
+
+    @Test
+    public void convertDropsExactDuplicatesAndNumbersTheRestConsecutively() throws IOException {
+        Path input = Files.write(directory.resolve("input"), RAW_FRAGMENTS);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long numDuplicates = DuplicateFilter.of().convert(input, 3, Channels.newChannel(output), false);
+
+        assertThat(numDuplicates, is(1L));
+        assertThat(ascii(output), is("@READ_1\nACG\n+READ_1\n\"#$\n"
+                + "@READ_2\nACG\n+READ_2\n&&&\n"
+                + "@READ_3\nTCG\n+READ_3\n\"#$\n"));
+    }
+
+    @Test
+    public void convertWithSequenceOnlyDropsFragmentsWithTheSameBasesAndCanKeepFragmentNumbers() throws IOException {
+        Path input = Files.write(directory.resolve("input"), RAW_FRAGMENTS);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long numDuplicates = DuplicateFilter.of().withSequenceOnly().convert(input, 3, Channels.newChannel(output),
+                true);
+
+        assertThat(numDuplicates, is(2L));
+        assertThat(ascii(output), is("@READ_1\nACG\n+READ_1\n\"#$\n"
+                + "@READ_4\nTCG\n+READ_4\n\"#$\n"));
+    }
+
+    @Test
+    public void convertWithFlaggingKeepsDuplicatesButFlagsThem() throws IOException {
+        Path input = Files.write(directory.resolve("input"), RAW_FRAGMENTS);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long numDuplicates = DuplicateFilter.of().withSequenceOnly().withFlagging().convert(input, 3,
+                Channels.newChannel(output), false);
+
+        assertThat(numDuplicates, is(2L));
+        assertThat(ascii(output), is("@READ_1\nACG\n+READ_1\n\"#$\n"
+                + "@READ_2 duplicate\nACG\n+READ_2\n\"#$\n"
+                + "@READ_3 duplicate\nACG\n+READ_3\n&&&\n"
+                + "@READ_4\nTCG\n+READ_4\n\"#$\n"));
+    }
+
+    @Test
+    public void convertFindsNoDuplicatesAmongManyDistinctFragments() throws IOException {
+        byte[] rawFragments = new byte[50 * 100_000];
+        new Random(22).nextBytes(rawFragments);
+        Path input = Files.write(directory.resolve("input"), rawFragments);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long numDuplicates = DuplicateFilter.of().convert(input, 50, Channels.newChannel(output), false);
+
+        assertThat(numDuplicates, is(0L));
+        Path expected = directory.resolve("expected");
+        Main.convertSequentially(input, 50, expected);
+        assertThat(output.toByteArray(), is(Files.readAllBytes(expected)));
+    }
+
+    @Test
+    public void convertThrowsExceptionGivenTruncatedLastFragment() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[7]);
+
+        assertThrows(IllegalStateException.class, () -> DuplicateFilter.of().convert(input, 3,
+                Channels.newChannel(new ByteArrayOutputStream()), false));
+    }
+
+    private static String ascii(ByteArrayOutputStream output) {
+        return new String(output.toByteArray(), StandardCharsets.US_ASCII);
+    }
+}
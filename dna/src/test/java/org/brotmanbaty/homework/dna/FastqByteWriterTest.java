@@ -0,0 +1,194 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class FastqByteWriterTest {
+    private final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    private final WritableByteChannel channel = Channels.newChannel(stream);
+
+    @Test
+    public void ofThrowsExceptionGivenInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> FastqByteWriter.of(channel, 0));
+        assertThrows(IllegalArgumentException.class, () -> FastqByteWriter.of(channel, -1));
+        assertThrows(IllegalArgumentException.class, () -> FastqByteWriter.of(channel, 1, 10));
+        assertThrows(NullPointerException.class, () -> FastqByteWriter.of(null));
+    }
+
+    @Test
+    public void writeRawFragmentNumbersFragmentsConsecutivelyStartingFromOne() {
+        try (FastqByteWriter writer = FastqByteWriter.of(channel)) {
+            writer.writeRawFragment(new byte[] {0b00000000}, 0, 1);
+            writer.writeRawFragment(new byte[] {(byte) 0b11111111}, 0, 1);
+            assertThat(writer.getNextFragmentNumber(), is(3L));
+        }
+
+        String expectedOutput = "@READ_1\n" + "A\n" + "+READ_1\n" + "!\n" + "@READ_2\n" + "T\n" + "+READ_2\n" + "`\n";
+        assertThat(output(), is(expectedOutput));
+    }
+
+    @Test
+    public void writeRawFragmentBinsQualityScoresWithTheGivenBinning() {
+        QualityBinning binning = QualityBinning.parse("0:0,10:20");
+        byte[] rawFragment = new byte[] {0b00_001001, 0b01_001010, (byte) 0b11_111111};
+
+        try (FastqByteWriter writer = FastqByteWriter.of(channel, 1, 1024, binning)) {
+            writer.writeRawFragment(rawFragment, 0, 3);
+            writer.writeRawFragment(ByteBuffer.wrap(rawFragment), 3);
+        }
+
+        assertThat(output(), is("@READ_1\nACT\n+READ_1\n!55\n" + "@READ_2\nACT\n+READ_2\n!55\n"));
+    }
+
+    @Test
+    public void writeRawFragmentAppendsCommentToSequenceHeaderLineOnly() {
+        byte[] comment = "duplicate of a much longer header comment".getBytes(StandardCharsets.US_ASCII);
+
+        try (FastqByteWriter writer = FastqByteWriter.of(channel, 1, 32)) {
+            writer.writeRawFragment(new byte[] {0b01000010}, 0, 1, comment);
+            writer.writeRawFragment(new byte[] {(byte) 0b10000011}, 0, 1, null);
+        }
+
+        assertThat(output(), is("@READ_1 duplicate of a much longer header comment\nC\n+READ_1\n#\n"
+                + "@READ_2\nG\n+READ_2\n$\n"));
+    }
+
+    @Test
+    public void setNextFragmentNumberRenumbersFollowingFragments() {
+        try (FastqByteWriter writer = FastqByteWriter.of(channel, 99)) {
+            writer.writeRawFragment(new byte[] {0b00000000}, 0, 1);
+            writer.setNextFragmentNumber(7);
+            writer.writeRawFragment(new byte[] {0b00000000}, 0, 1);
+            writer.writeRawFragment(new byte[] {0b00000000}, 0, 1);
+            writer.setNextFragmentNumber(1000);
+            writer.writeRawFragment(new byte[] {0b00000000}, 0, 1);
+            assertThat(writer.getNextFragmentNumber(), is(1001L));
+        }
+
+        String expectedOutput = "@READ_99\nA\n+READ_99\n!\n" + "@READ_7\nA\n+READ_7\n!\n" + "@READ_8\nA\n+READ_8\n!\n"
+                + "@READ_1000\nA\n+READ_1000\n!\n";
+        assertThat(output(), is(expectedOutput));
+    }
+
+    @Test
+    public void setNextFragmentNumberThrowsExceptionGivenNonPositiveNumber() {
+        FastqByteWriter writer = FastqByteWriter.of(channel);
+
+        assertThrows(IllegalArgumentException.class, () -> writer.setNextFragmentNumber(0));
+    }
+
+    @Test
+    public void writeRawFragmentCanWriteAFragmentWithNoBases() {
+        try (FastqByteWriter writer = FastqByteWriter.of(channel, 123)) {
+            writer.writeRawFragment(new byte[0], 0, 0);
+        }
+
+        assertThat(output(), is("@READ_123\n" + "\n" + "+READ_123\n" + "\n"));
+    }
+
+    @Test
+    public void writeRawFragmentCarriesDigitsWhenIncrementingFragmentNumbers() {
+        byte[] rawFragments = new byte[] {0b01000001, (byte) 0b10001000, (byte) 0b11111100};
+
+        try (FastqByteWriter writer = FastqByteWriter.of(channel, 98)) {
+            for (int i = 0; i < 15; ++i) {
+                writer.writeRawFragment(rawFragments, 0, rawFragments.length);
+            }
+        }
+
+        assertThat(output(), is(writeWithFastqWriterUtils(rawFragments, rawFragments.length, 98, 15)));
+    }
+
+    @Test
+    public void writeRawFragmentHandlesFragmentsMuchLargerThanTheBuffer() {
+        byte[] rawFragments = new byte[3 * 1000];
+        new Random(11).nextBytes(rawFragments);
+
+        try (FastqByteWriter writer = FastqByteWriter.of(channel, 9, 64)) {
+            for (int offset = 0; offset < rawFragments.length; offset += 1000) {
+                writer.writeRawFragment(rawFragments, offset, 1000);
+            }
+        }
+
+        assertThat(output(), is(writeWithFastqWriterUtils(rawFragments, 1000, 9, 3)));
+    }
+
+    @Test
+    public void writeRawFragmentFromBufferMatchesArrayVersionAndAdvancesPosition() {
+        byte[] rawFragments = new byte[5 * 100];
+        new Random(13).nextBytes(rawFragments);
+        ByteBuffer directFragments = ByteBuffer.allocateDirect(rawFragments.length).put(rawFragments).flip();
+
+        try (FastqByteWriter writer = FastqByteWriter.of(channel, 1, 64)) {
+            for (int i = 0; i < 5; ++i) {
+                writer.writeRawFragment(directFragments, 100);
+            }
+        }
+
+        assertThat(directFragments.position(), is(rawFragments.length));
+        assertThat(output(), is(writeWithFastqWriterUtils(rawFragments, 100, 1, 5)));
+    }
+
+    private static String writeWithFastqWriterUtils(byte[] rawFragments, int length, long firstFragmentNumber,
+            int numFragments) {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < numFragments; ++i) {
+            int offset = (i * length) % rawFragments.length;
+            FastqWriterUtils.writeRawFragment(expected, rawFragments, offset, length, firstFragmentNumber + i);
+        }
+        return expected.toString(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void writeRawFragmentThrowsExceptionGivenInvalidRanges() {
+        FastqByteWriter writer = FastqByteWriter.of(channel);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> writer.writeRawFragment(new byte[2], 1, 2));
+        assertThrows(BufferUnderflowException.class, () -> writer.writeRawFragment(ByteBuffer.allocate(1), 2));
+        assertThat(writer.getNextFragmentNumber(), is(1L));
+    }
+
+    @Test
+    public void writeRawFragmentThrowsExceptionOnceFragmentNumbersAreExhausted() {
+        FastqByteWriter writer = FastqByteWriter.of(channel, Long.MAX_VALUE);
+        writer.writeRawFragment(new byte[1], 0, 1);
+
+        assertThrows(IllegalStateException.class, () -> writer.writeRawFragment(new byte[1], 0, 1));
+    }
+
+    @Test
+    public void writesAreBufferedUntilFlush() {
+        FastqByteWriter writer = FastqByteWriter.of(channel);
+        writer.writeRawFragment(new byte[1], 0, 1);
+
+        assertThat(output(), is(""));
+        writer.flush();
+        assertThat(output(), is("@READ_1\n" + "A\n" + "+READ_1\n" + "!\n"));
+    }
+
+    @Test
+    public void closeClosesTheChannel() throws Exception {
+        WritableByteChannel mockChannel = mock(WritableByteChannel.class);
+
+        FastqByteWriter.of(mockChannel).close();
+
+        verify(mockChannel).close();
+    }
+
+    private String output() {
+        return stream.toString(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,160 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class FastqReaderTest {
+    @Test
+    public void ofThrowsExceptionGivenNonPositiveNumReadingBasesPerFragment() {
+        assertThrows(IllegalArgumentException.class, () -> FastqReader.of(stream(""), 0));
+    }
+
+    @Test
+    public void readRawFragmentReadsRecordsInOrderAndThenReturnsFalse() {
+        FastqReader reader = FastqReader.of(stream("@READ_1\nCG\n+READ_1\n\"#\n@READ_2\nTA\n+READ_2\n`!\n"), 2);
+        byte[] rawFragment = new byte[2];
+
+        assertThat(reader.readRawFragment(rawFragment), is(true));
+        assertThat(rawFragment, is(new byte[] {0b01000001, (byte) 0b10000010}));
+        assertThat(reader.readRawFragment(rawFragment), is(true));
+        assertThat(rawFragment, is(new byte[] {(byte) 0b11111111, 0b00000000}));
+        assertThat(reader.readRawFragment(rawFragment), is(false));
+        assertThat(reader.getNumFragmentsRead(), is(2L));
+    }
+
+    @Test
+    public void readRawFragmentThrowsExceptionGivenTooSmallArray() {
+        FastqReader reader = FastqReader.of(stream("@1\nCG\n+\n!!\n"), 2);
+
+        assertThrows(IllegalArgumentException.class, () -> reader.readRawFragment(new byte[1]));
+    }
+
+    @Test
+    public void readRawFragmentAcceptsAnyHeadersWindowsLineEndingsAndNoFinalNewline() {
+        FastqReader reader = FastqReader.of(stream("@some read\r\nAC\r\n+\r\n!\"\r\n@\nGT\n+other\n#$"), 2);
+        byte[] rawFragments = new byte[4];
+
+        assertThat(reader.readRawFragments(rawFragments), is(2));
+        assertThat(rawFragments, is(new byte[] {0b00000000, 0b01000001, (byte) 0b10000010, (byte) 0b11000011}));
+    }
+
+    @Test
+    public void readRawFragmentsReadsOnlyWholeFragmentsThatFit() {
+        FastqReader reader = FastqReader.of(stream("@1\nA\n+1\n!\n@2\nC\n+2\n!\n@3\nG\n+3\n!\n"), 1);
+        byte[] rawFragments = new byte[2];
+
+        assertThat(reader.readRawFragments(rawFragments), is(2));
+        assertThat(reader.readRawFragments(rawFragments), is(1));
+        assertThat(rawFragments[0], is((byte) 0b10000000));
+        assertThat(reader.readRawFragments(rawFragments), is(0));
+    }
+
+    @Test
+    public void readRawFragmentsInvertsFastqByteWriterAcrossManyBufferRefills() {
+        assertRoundTrip(7, 300_000);
+    }
+
+    @Test
+    public void readRawFragmentsHandlesRecordsLargerThanTheBuffer() {
+        assertRoundTrip(3 * 1024 * 1024, 2);
+    }
+
+    private static void assertRoundTrip(int numReadingBasesPerFragment, int numFragments) {
+        byte[] binary = new byte[numReadingBasesPerFragment * numFragments];
+        new Random(8).nextBytes(binary);
+        ByteArrayOutputStream fastq = new ByteArrayOutputStream();
+        try (FastqByteWriter writer = FastqByteWriter.of(Channels.newChannel(fastq))) {
+            for (int i = 0; i < numFragments; ++i) {
+                writer.writeRawFragment(binary, i * numReadingBasesPerFragment, numReadingBasesPerFragment);
+            }
+        }
+        FastqReader reader = FastqReader.of(new ByteArrayInputStream(fastq.toByteArray()), numReadingBasesPerFragment);
+        byte[] rawFragments = new byte[binary.length + numReadingBasesPerFragment];
+
+        assertThat(reader.readRawFragments(rawFragments), is(numFragments));
+        assertThat(Arrays.copyOf(rawFragments, binary.length), is(binary));
+    }
+
+    @Test
+    public void readRawFragmentThrowsExceptionGivenMalformedRecords() {
+        assertMalformed("READ_1\nAC\n+\n!!\n", "byte 0");
+        assertMalformed("@READ_1\nAC\n-\n!!\n", "byte 11");
+        assertMalformed("@READ_1\nACG\n+\n!!!\n", "byte 8");
+        assertMalformed("@READ_1\nA\n+\n!\n", "byte 8");
+        assertMalformed("@READ_1\nAC\n+\n!!!\n", "byte 13");
+        assertMalformed("@READ_1\nAN\n+\n!!\n", "byte 0");
+        assertMalformed("@READ_1\nAC\n+\n! \n", "byte 0");
+    }
+
+    @Test
+    public void readRawFragmentThrowsExceptionGivenTruncatedRecord() {
+        assertMalformed("@READ_1\nAC\n+\n!", "byte 14");
+        assertMalformed("@READ_1\nAC\n+", "byte 12");
+        assertMalformed("@READ_1\nAC\n+\n!!\n\n", "byte 16");
+    }
+
+    @Test
+    public void readRawFragmentThrowsExceptionGivenOverlyLongHeader() {
+        char[] header = new char[FastqRecordParser.MAX_HEADER_LENGTH + 1];
+        Arrays.fill(header, 'R');
+        header[0] = '@';
+
+        assertMalformed(new String(header) + "\nAC\n+\n!!\n", "Header line is longer");
+    }
+
+    private static void assertMalformed(String fastq, String expectedMessagePart) {
+        FastqReader reader = FastqReader.of(stream(fastq), 2);
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> {
+            while (reader.readRawFragment(new byte[2])) {
+                // Keep reading until the malformed record
+            }
+        });
+        assertThat(thrown.getMessage(), containsString(expectedMessagePart));
+    }
+
+    @Test
+    public void readRawFragmentWrapsIOExceptions() throws IOException {
+        InputStream stream = mock(InputStream.class);
+        IOException exception = new IOException();
+        when(stream.readNBytes(any(), anyInt(), anyInt())).thenThrow(exception);
+        FastqReader reader = FastqReader.of(stream, 2);
+
+        UncheckedIOException thrown = assertThrows(UncheckedIOException.class,
+                () -> reader.readRawFragment(new byte[2]));
+
+        assertThat(thrown.getCause(), is(exception));
+    }
+
+    @Test
+    public void closeClosesStream() throws IOException {
+        InputStream stream = mock(InputStream.class);
+
+        FastqReader.of(stream, 2).close();
+
+        verify(stream).close();
+    }
+
+    private static InputStream stream(String fastq) {
+        return new ByteArrayInputStream(fastq.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,123 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FastqToBinaryConverterTest {
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void shutdownPool() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void ofThrowsExceptionGivenNonPositiveChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> FastqToBinaryConverter.of(pool, 0));
+    }
+
+    @Test
+    public void convertThrowsExceptionGivenNonPositiveNumReadingBasesPerFragment() throws IOException {
+        Path input = write("@1\nA\n+1\n!\n");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> FastqToBinaryConverter.of(pool).convert(input, 0, directory.resolve("output")));
+        assertThrows(IllegalArgumentException.class,
+                () -> FastqToBinaryConverter.convertSequentially(input, -1, directory.resolve("output")));
+    }
+
+    @Test
+    public void convertThrowsExceptionIfOutputAlreadyExists() throws IOException {
+        Path input = write("@1\nA\n+1\n!\n");
+        Path output = Files.write(directory.resolve("output"), new byte[0]);
+
+        UncheckedIOException thrown = assertThrows(UncheckedIOException.class,
+                () -> FastqToBinaryConverter.of(pool).convert(input, 1, output));
+        assertThat(thrown.getCause(), instanceOf(FileAlreadyExistsException.class));
+    }
+
+    @Test
+    public void convertWritesEmptyOutputGivenEmptyInput() throws IOException {
+        Path input = write("");
+        Path sequentialOutput = directory.resolve("sequential");
+        Path parallelOutput = directory.resolve("parallel");
+
+        FastqToBinaryConverter.convertSequentially(input, 3, sequentialOutput);
+        FastqToBinaryConverter.of(pool).convert(input, 3, parallelOutput);
+
+        assertThat(Files.size(sequentialOutput), is(0L));
+        assertThat(Files.size(parallelOutput), is(0L));
+    }
+
+    @Test
+    public void convertInvertsParallelFastqConverterForAllChunkSizes() throws IOException {
+        byte[] binary = new byte[5 * 2_000];
+        new Random(9).nextBytes(binary);
+        Path binaryInput = Files.write(directory.resolve("input.binary"), binary);
+        Path fastq = directory.resolve("input.fastq");
+        ParallelFastqConverter.of(pool).convert(binaryInput, 5, fastq);
+
+        Path sequentialOutput = directory.resolve("sequential");
+        FastqToBinaryConverter.convertSequentially(fastq, 5, sequentialOutput);
+        assertThat(Files.readAllBytes(sequentialOutput), is(binary));
+        // Small chunks make many chunks start partway through records, including in quality lines starting with '@'
+        for (int targetChunkBytes : new int[] {1, 2, 7, 13, 64, 1000, 1 << 20}) {
+            Path parallelOutput = directory.resolve("parallel-" + targetChunkBytes);
+
+            FastqToBinaryConverter.of(pool, targetChunkBytes).convert(fastq, 5, parallelOutput);
+
+            assertThat(Files.readAllBytes(parallelOutput), is(binary));
+        }
+    }
+
+    @Test
+    public void convertThrowsExceptionGivenTruncatedLastRecord() throws IOException {
+        Path input = write("@1\nAC\n+1\n!!\n@2\nAC\n+2\n!");
+
+        for (int targetChunkBytes : new int[] {3, 1000}) {
+            Path output = directory.resolve("output-" + targetChunkBytes);
+
+            IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                    () -> FastqToBinaryConverter.of(pool, targetChunkBytes).convert(input, 2, output));
+            assertThat(thrown.getMessage(), containsString("byte 22"));
+        }
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> FastqToBinaryConverter.convertSequentially(input, 2, directory.resolve("sequential")));
+        assertThat(thrown.getMessage(), containsString("byte 22"));
+    }
+
+    @Test
+    public void convertThrowsExceptionGivenDataThatNoChunkCouldParse() throws IOException {
+        Path input = write("@1\nAC\n+1\n!!\nnot a record\n@2\nAC\n+2\n!!\n");
+
+        for (int targetChunkBytes : new int[] {5, 1000}) {
+            Path output = directory.resolve("output-" + targetChunkBytes);
+
+            IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                    () -> FastqToBinaryConverter.of(pool, targetChunkBytes).convert(input, 2, output));
+            assertThat(thrown.getMessage(), containsString("byte 12"));
+        }
+    }
+
+    private Path write(String fastq) throws IOException {
+        return Files.write(directory.resolve("input"), fastq.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,174 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class FastqTranscoderTest {
+    @Test
+    public void toSequenceCharacterAgreesWithBinaryStreamUtilsForAllBytes() {
+        for (int binary = 0; binary < 256; ++binary) {
+            Base expected = readReadingBase(binary).getBase();
+
+            assertThat(FastqTranscoder.toSequenceCharacter((byte) binary), is((byte) expected.name().charAt(0)));
+        }
+    }
+
+    @Test
+    public void toQualityCharacterAgreesWithBinaryStreamUtilsForAllBytes() {
+        for (int binary = 0; binary < 256; ++binary) {
+            QualityScore expected = readReadingBase(binary).getQualityScore();
+
+            assertThat(FastqTranscoder.toQualityCharacter((byte) binary), is((byte) expected.toFastq()));
+        }
+    }
+
+    private static ReadingBase readReadingBase(int binary) {
+        return BinaryStreamUtils.readReadingBase(new ByteArrayInputStream(new byte[] {(byte) binary}));
+    }
+
+    @Test
+    public void decodeArraysTranslatesOnlyTheRequestedRange() {
+        byte[] source = {(byte) 0b11111111, 0b00000000, 0b01000001, (byte) 0b10111100, (byte) 0b11111111};
+        byte[] sequence = new byte[5];
+        byte[] quality = new byte[5];
+
+        FastqTranscoder.decodeSequence(source, 1, sequence, 2, 3);
+        FastqTranscoder.decodeQuality(source, 1, quality, 2, 3);
+
+        assertThat(new String(sequence, StandardCharsets.US_ASCII), is("\0\0ACG"));
+        assertThat(new String(quality, StandardCharsets.US_ASCII), is("\0\0!\"]"));
+    }
+
+    @Test
+    public void decodeArraysAgreesWithCharacterMethodsForAllLengthsAndOffsets() {
+        // Covers whole vectors of every width, the bytes left over after them, and unaligned offsets, in case the
+        // Vector API kernel is in use
+        byte[] source = new byte[300];
+        for (int i = 0; i < source.length; ++i) {
+            source[i] = (byte) (i * 37 + 11);
+        }
+        for (int offset = 0; offset < 4; ++offset) {
+            for (int length = 0; length <= 200; ++length) {
+                byte[] sequence = new byte[length + 1];
+                byte[] quality = new byte[length + 1];
+
+                FastqTranscoder.decodeSequence(source, offset, sequence, 1, length);
+                FastqTranscoder.decodeQuality(source, offset, quality, 1, length);
+
+                for (int i = 0; i < length; ++i) {
+                    assertThat(sequence[i + 1], is(FastqTranscoder.toSequenceCharacter(source[offset + i])));
+                    assertThat(quality[i + 1], is(FastqTranscoder.toQualityCharacter(source[offset + i])));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void decodeArraysThrowsExceptionGivenRangeOutsideOfArray() {
+        byte[] source = new byte[2];
+        byte[] destination = new byte[2];
+
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> FastqTranscoder.decodeSequence(source, 1, destination, 0, 2));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> FastqTranscoder.decodeQuality(source, 0, destination, 1, 2));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> FastqTranscoder.decodeQuality(source, -1, destination, 0, 1));
+    }
+
+    @Test
+    public void decodeBuffersWorksForHeapAndDirectBuffersAndAdvancesPositions() {
+        byte[] source = {0b00000000, 0b01000001, (byte) 0b10111100, (byte) 0b11111111};
+        for (ByteBuffer input : new ByteBuffer[] {ByteBuffer.wrap(source), direct(source)}) {
+            ByteBuffer sequence = ByteBuffer.allocateDirect(4);
+            ByteBuffer quality = ByteBuffer.allocate(4);
+
+            FastqTranscoder.decodeSequence(input.duplicate(), sequence, 4);
+            FastqTranscoder.decodeQuality(input, quality, 4);
+
+            assertThat(input.position(), is(4));
+            assertThat(sequence.position(), is(4));
+            assertThat(quality.position(), is(4));
+            assertThat(ascii(sequence), is("ACGT"));
+            assertThat(ascii(quality), is("!\"]`"));
+        }
+    }
+
+    private static ByteBuffer direct(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+
+    private static String ascii(ByteBuffer buffer) {
+        buffer.flip();
+        return StandardCharsets.US_ASCII.decode(buffer).toString();
+    }
+
+    @Test
+    public void decodeBuffersThrowsExceptionGivenInsufficientSpace() {
+        assertThrows(BufferUnderflowException.class,
+                () -> FastqTranscoder.decodeSequence(ByteBuffer.allocate(1), ByteBuffer.allocate(2), 2));
+        assertThrows(BufferOverflowException.class,
+                () -> FastqTranscoder.decodeQuality(ByteBuffer.allocate(2), ByteBuffer.allocate(1), 2));
+    }
+
+    @Test
+    public void encodeInvertsDecodeForAllBytes() {
+        byte[] binary = new byte[256];
+        for (int i = 0; i < binary.length; ++i) {
+            binary[i] = (byte) i;
+        }
+        byte[] characters = new byte[2 * binary.length];
+        FastqTranscoder.decodeSequence(binary, 0, characters, 0, binary.length);
+        FastqTranscoder.decodeQuality(binary, 0, characters, binary.length, binary.length);
+        byte[] encoded = new byte[binary.length + 1];
+
+        FastqTranscoder.encode(ByteBuffer.wrap(characters), 0, binary.length, encoded, 1, binary.length);
+
+        assertThat(Arrays.copyOfRange(encoded, 1, encoded.length), is(binary));
+    }
+
+    @Test
+    public void encodeLeavesSourcePositionUnchanged() {
+        ByteBuffer source = ByteBuffer.wrap("xACGT!\"]`".getBytes(StandardCharsets.US_ASCII)).position(3);
+        byte[] encoded = new byte[4];
+
+        FastqTranscoder.encode(source, 1, 5, encoded, 0, 4);
+
+        assertThat(source.position(), is(3));
+        assertThat(encoded, is(new byte[] {0b00000000, 0b01000001, (byte) 0b10111100, (byte) 0b11111111}));
+    }
+
+    @Test
+    public void encodeThrowsExceptionGivenInvalidCharacters() {
+        byte[] encoded = new byte[2];
+
+        assertThrows(IllegalArgumentException.class, () -> FastqTranscoder.encode(ascii("ANII"), 0, 2, encoded, 0, 2));
+        assertThrows(IllegalArgumentException.class, () -> FastqTranscoder.encode(ascii("aCII"), 0, 2, encoded, 0, 2));
+        assertThrows(IllegalArgumentException.class, () -> FastqTranscoder.encode(ascii("AC a"), 0, 2, encoded, 0, 2));
+        assertThrows(IllegalArgumentException.class, () -> FastqTranscoder.encode(ascii("ACIa"), 0, 2, encoded, 0, 2));
+    }
+
+    private static ByteBuffer ascii(String string) {
+        return ByteBuffer.wrap(string.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void encodeThrowsExceptionGivenRangeOutsideOfBuffers() {
+        ByteBuffer source = ascii("ACII");
+
+        assertThrows(IndexOutOfBoundsException.class, () -> FastqTranscoder.encode(source, 0, 3, new byte[2], 0, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> FastqTranscoder.encode(source, 0, 2, new byte[2], 1, 2));
+    }
+}
@@ -4,7 +4,12 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.ByteArrayOutputStream;
 import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -92,4 +97,91 @@ public class FastqWriterUtilsTest {
         String expectedOutput = "@READ_123\n" + "T\n" + "+READ_123\n" + "`\n";
         assertThat(writer.toString(), is(expectedOutput));
     }
+
+    @Test
+    public void writeRawFragmentThrowsExceptionIfFragmenNumberIsNotPositive() {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        byte[] rawFragment = {0b00000000};
+
+        assertThrows(IllegalArgumentException.class,
+                () -> FastqWriterUtils.writeRawFragment(stream, rawFragment, 0, 1, -1));
+        assertThrows(IllegalArgumentException.class,
+                () -> FastqWriterUtils.writeRawFragment(stream, rawFragment, 0, 1, 0));
+    }
+
+    @Test
+    public void writeRawFragmentCanWriteAFragmentWithNoBases() {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        FastqWriterUtils.writeRawFragment(stream, new byte[0], 0, 0, 123);
+
+        String expectedOutput = "@READ_123\n" + "\n" + "+READ_123\n" + "\n";
+        assertThat(stream.toString(StandardCharsets.US_ASCII), is(expectedOutput));
+    }
+
+    @Test
+    public void writeRawFragmentWritesTheSameOutputAsWriteReadingFragment() {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        byte[] rawFragment = {(byte) 0b11111111, 0b00000000, 0b01000001, (byte) 0b10001000, (byte) 0b11111100};
+        ReadingBase readingBase1 = ReadingBase.of(Base.A, QualityScore.ofBinary((byte) 0b00000000));
+        ReadingBase readingBase2 = ReadingBase.of(Base.C, QualityScore.ofBinary((byte) 0b00000001));
+        ReadingBase readingBase3 = ReadingBase.of(Base.G, QualityScore.ofBinary((byte) 0b00001000));
+        ReadingBase readingBase4 = ReadingBase.of(Base.T, QualityScore.ofBinary((byte) 0b00111100));
+        ReadingFragment fragment = ReadingFragment.of(List.of(readingBase1, readingBase2, readingBase3, readingBase4));
+
+        FastqWriterUtils.writeRawFragment(stream, rawFragment, 1, 4, 123);
+        FastqWriterUtils.writeReadingFragment(writer, fragment, 123);
+
+        assertThat(stream.toString(StandardCharsets.US_ASCII), is(writer.toString()));
+    }
+
+    @Test
+    public void getRawFragmentRecordLengthAccountsForHeadersAndBases() {
+        assertThat(FastqWriterUtils.getRawFragmentRecordLength(0, 1), is("@READ_1\n\n+READ_1\n\n".length()));
+        assertThat(FastqWriterUtils.getRawFragmentRecordLength(3, 123),
+                is("@READ_123\nAAA\n+READ_123\n!!!\n".length()));
+        assertThat(FastqWriterUtils.getRawFragmentRecordLength(1, Long.MAX_VALUE),
+                is(2 * ("@READ_".length() + String.valueOf(Long.MAX_VALUE).length() + 1) + 4));
+    }
+
+    @Test
+    public void writeRawFragmentToBufferPutsRecordAndAdvancesBothBuffers() {
+        ByteBuffer rawFragment = ByteBuffer.wrap(new byte[] {(byte) 0b11111111, 0b01000001, (byte) 0b10001000});
+        ByteBuffer output = ByteBuffer.allocate(100);
+
+        FastqWriterUtils.writeRawFragment(output, rawFragment, 2, 45);
+
+        assertThat(rawFragment.position(), is(2));
+        assertThat(new String(output.array(), 0, output.position(), StandardCharsets.US_ASCII),
+                is("@READ_45\n" + "TC\n" + "+READ_45\n" + "`\"\n"));
+    }
+
+    @Test
+    public void writeRawFragmentToBufferThrowsExceptionWithoutWritingGivenTooLittleSpace() {
+        ByteBuffer rawFragment = ByteBuffer.wrap(new byte[] {0b00000000});
+        ByteBuffer output = ByteBuffer.allocate(FastqWriterUtils.getRawFragmentRecordLength(1, 10) - 1);
+
+        assertThrows(BufferOverflowException.class,
+                () -> FastqWriterUtils.writeRawFragment(output, rawFragment, 1, 10));
+        assertThat(output.position(), is(0));
+    }
+
+    @Test
+    public void encodeRawFragmentsReturnsConsecutivelyNumberedRecords() {
+        ByteBuffer rawFragments = ByteBuffer.wrap(new byte[] {(byte) 0b11111111, 0b01000001, (byte) 0b10001000});
+
+        ByteBuffer output = FastqWriterUtils.encodeRawFragments(rawFragments, 3, 1, 9);
+
+        assertThat(rawFragments.position(), is(3));
+        assertThat(StandardCharsets.US_ASCII.decode(output).toString(), is("@READ_9\nT\n+READ_9\n`\n"
+                + "@READ_10\nC\n+READ_10\n\"\n" + "@READ_11\nG\n+READ_11\n)\n"));
+    }
+
+    @Test
+    public void encodeRawFragmentsThrowsExceptionGivenInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> FastqWriterUtils.encodeRawFragments(ByteBuffer.allocate(2), 1, 2, 0));
+        assertThrows(BufferUnderflowException.class,
+                () -> FastqWriterUtils.encodeRawFragments(ByteBuffer.allocate(3), 2, 2, 1));
+    }
 }
@@ -0,0 +1,62 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class FingerprintSetTest {
+    @Test
+    public void ofThrowsExceptionGivenNegativeMaxSize() {
+        assertThrows(IllegalArgumentException.class, () -> FingerprintSet.of(-1));
+    }
+
+    @Test
+    public void addReturnsWhetherTheFingerprintWasNewIncludingForZero() {
+        FingerprintSet set = FingerprintSet.of(3);
+
+        assertThat(set.add(0, 0), is(true));
+        assertThat(set.add(0, 0), is(false));
+        assertThat(set.add(1, 0), is(true));
+        assertThat(set.add(0, 1), is(true));
+        assertThat(set.add(1, 0), is(false));
+        assertThat(set.size(), is(3L));
+    }
+
+    @Test
+    public void addThrowsExceptionOnceFullButStillFindsExistingFingerprints() {
+        FingerprintSet set = FingerprintSet.of(2);
+        set.add(5, 6);
+        set.add(7, 8);
+
+        assertThat(set.add(5, 6), is(false));
+        assertThrows(IllegalStateException.class, () -> set.add(9, 10));
+    }
+
+    @Test
+    public void setMatchesHashSetWithCollidingLowBits() {
+        FingerprintSet set = FingerprintSet.of(100_000);
+        Set<List<Long>> expected = new HashSet<>();
+        Random random = new Random(22);
+        for (int i = 0; i < 100_000; ++i) {
+            // Few distinct low bits, so that many fingerprints probe the same slots
+            long high = random.nextInt(60_000);
+            long low = (high % 7) << 40;
+            assertThat(set.add(high, low), is(expected.add(List.of(high, low))));
+        }
+        assertThat(set.size(), is((long) expected.size()));
+    }
+
+    @Test
+    public void getMemoryBytesIsSixteenBytesPerSlotForMoreThanFourThirdsOfMaxSize() {
+        assertThat(FingerprintSet.of(0).getMemoryBytes(), is(16L * 16));
+        assertThat(FingerprintSet.of(1000).getMemoryBytes(), is(2048L * 16));
+        assertThat(FingerprintSet.of(1600).getMemoryBytes(), is(4096L * 16));
+    }
+}
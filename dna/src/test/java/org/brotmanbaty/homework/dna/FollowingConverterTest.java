@@ -0,0 +1,153 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FollowingConverterTest {
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(5);
+    private static final Duration LONG_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void ofThrowsExceptionGivenNonPositivePollIntervalOrNegativeIdleTimeout() {
+        assertThrows(IllegalArgumentException.class, () -> FollowingConverter.of(Duration.ZERO, LONG_TIMEOUT));
+        assertThrows(IllegalArgumentException.class,
+                () -> FollowingConverter.of(POLL_INTERVAL, Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    public void followThrowsExceptionGivenNonPositiveNumReadingBasesPerFragment() {
+        FollowingConverter converter = FollowingConverter.of(POLL_INTERVAL, Duration.ZERO);
+
+        assertThrows(IllegalArgumentException.class, () -> converter.follow(directory.resolve("input"), 0,
+                Channels.newChannel(new ByteArrayOutputStream())));
+    }
+
+    @Test
+    public void followConvertsACompleteFileAndStopsWhenIdle() throws IOException {
+        byte[] rawFragments = randomBytes(3 * 1000);
+        Path input = Files.write(directory.resolve("input"), rawFragments);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long numFragments = FollowingConverter.of(POLL_INTERVAL, Duration.ofMillis(50)).follow(input, 3,
+                Channels.newChannel(output));
+
+        assertThat(numFragments, is(1000L));
+        assertThat(output.toByteArray(), is(convertSequentially(rawFragments, 3)));
+    }
+
+    @Test
+    public void followWaitsForPartialFragmentsAndStopsAtEndMarker() throws Exception {
+        byte[] rawFragments = randomBytes(3 * 100);
+        Path input = directory.resolve("input");
+        Path endMarker = directory.resolve("input.done");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(output);
+
+        // The input doesn't exist yet, and then arrives in pieces that split fragments
+        Future<Long> numFragments = executor.submit(() -> FollowingConverter.of(POLL_INTERVAL, LONG_TIMEOUT)
+                .follow(input, 3, channel, endMarker));
+        Files.write(input, new byte[0]);
+        for (int offset = 0; offset < rawFragments.length; offset += 7) {
+            byte[] piece = Arrays.copyOfRange(rawFragments, offset, Math.min(offset + 7, rawFragments.length));
+            Files.write(input, piece, StandardOpenOption.APPEND);
+            Thread.sleep(1);
+        }
+        Files.write(endMarker, new byte[0]);
+
+        assertThat(numFragments.get(10, TimeUnit.SECONDS), is(100L));
+        assertThat(output.toByteArray(), is(convertSequentially(rawFragments, 3)));
+    }
+
+    @Test
+    public void followFlushesEachFragmentAsSoonAsItHasArrived() throws Exception {
+        Path input = Files.write(directory.resolve("input"), new byte[] {0b00000000, (byte) 0b11000001});
+        Path endMarker = directory.resolve("input.done");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(output);
+
+        Future<Long> numFragments = executor.submit(() -> FollowingConverter.of(POLL_INTERVAL, LONG_TIMEOUT)
+                .follow(input, 2, channel, endMarker));
+        String expected = "@READ_1\nAT\n+READ_1\n!\"\n";
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!ascii(output).equals(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(ascii(output), is(expected));
+        assertThrows(TimeoutException.class, () -> numFragments.get(50, TimeUnit.MILLISECONDS));
+
+        Files.write(endMarker, new byte[0]);
+        assertThat(numFragments.get(10, TimeUnit.SECONDS), is(1L));
+    }
+
+    @Test
+    public void followThrowsExceptionIfItEndsPartwayThroughAFragment() throws Exception {
+        Path input = Files.write(directory.resolve("input"), new byte[5]);
+        Path endMarker = Files.write(directory.resolve("input.done"), new byte[0]);
+        FollowingConverter converter = FollowingConverter.of(POLL_INTERVAL, LONG_TIMEOUT);
+
+        assertThrows(IllegalStateException.class, () -> converter.follow(input, 2,
+                Channels.newChannel(new ByteArrayOutputStream()), endMarker));
+    }
+
+    @Test
+    public void followCanBeInterrupted() throws Exception {
+        Path input = directory.resolve("input");
+        Future<Long> numFragments = executor.submit(() -> FollowingConverter.of(POLL_INTERVAL, LONG_TIMEOUT)
+                .follow(input, 2, Channels.newChannel(new ByteArrayOutputStream())));
+        Thread.sleep(20);
+
+        executor.shutdownNow();
+
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThrows(ExecutionException.class, numFragments::get);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(18).nextBytes(bytes);
+        return bytes;
+    }
+
+    private byte[] convertSequentially(byte[] rawFragments, int numReadingBasesPerFragment) throws IOException {
+        Path input = Files.write(directory.resolve("expected-input"), rawFragments);
+        Path output = directory.resolve("expected-output");
+        Main.convertSequentially(input, numReadingBasesPerFragment, output);
+        return Files.readAllBytes(output);
+    }
+
+    private static String ascii(ByteArrayOutputStream output) {
+        return new String(output.toByteArray(), StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,125 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FragmentFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void ofThrowsExceptionGivenInvalidArguments() throws IOException {
+        Path file = Files.write(directory.resolve("input"), new byte[4]);
+
+        assertThrows(IllegalArgumentException.class, () -> FragmentFile.of(file, 0));
+        assertThrows(IllegalArgumentException.class, () -> FragmentFile.of(file, 2, 0));
+    }
+
+    @Test
+    public void ofThrowsExceptionGivenTruncatedLastFragment() throws IOException {
+        Path file = Files.write(directory.resolve("input"), new byte[5]);
+
+        assertThrows(IllegalStateException.class, () -> FragmentFile.of(file, 2));
+    }
+
+    @Test
+    public void ofThrowsUncheckedIOExceptionGivenMissingFile() {
+        UncheckedIOException thrown = assertThrows(UncheckedIOException.class,
+                () -> FragmentFile.of(directory.resolve("missing"), 2));
+
+        assertThat(thrown.getCause(), instanceOf(NoSuchFileException.class));
+    }
+
+    @Test
+    public void getReturnsSameFragmentsAsSequentialReadingIncludingAcrossPages() throws IOException {
+        // Fragments of 7 bytes don't divide evenly into pages, so some of them span two pages
+        byte[] content = new byte[7 * 50_000];
+        new Random(10).nextBytes(content);
+        Path file = Files.write(directory.resolve("input"), content);
+        List<ReadingFragment> expected = readSequentially(content, 7);
+
+        try (FragmentFile fragmentFile = FragmentFile.of(file, 7, 2)) {
+            assertThat(fragmentFile.getNumFragments(), is(50_000L));
+            Random random = new Random(11);
+            for (int i = 0; i < 10_000; ++i) {
+                int fragmentNumber = 1 + random.nextInt(expected.size());
+
+                assertThat(fragmentFile.get(fragmentNumber), is(expected.get(fragmentNumber - 1)));
+            }
+        }
+    }
+
+    @Test
+    public void rangeReturnsFragmentsFromInclusiveToExclusive() throws IOException {
+        byte[] content = new byte[3 * 100_000];
+        new Random(12).nextBytes(content);
+        Path file = Files.write(directory.resolve("input"), content);
+        List<ReadingFragment> expected = readSequentially(content, 3);
+
+        try (FragmentFile fragmentFile = FragmentFile.of(file, 3)) {
+            assertThat(fragmentFile.range(5, 5), empty());
+            assertThat(fragmentFile.range(1, 100_001), is(expected));
+            assertThat(fragmentFile.range(21_000, 23_000), is(expected.subList(20_999, 22_999)));
+        }
+    }
+
+    @Test
+    public void getAndRangeThrowExceptionGivenFragmentNumbersOutsideOfFile() throws IOException {
+        Path file = Files.write(directory.resolve("input"), new byte[6]);
+
+        try (FragmentFile fragmentFile = FragmentFile.of(file, 2)) {
+            assertThrows(IndexOutOfBoundsException.class, () -> fragmentFile.get(0));
+            assertThrows(IndexOutOfBoundsException.class, () -> fragmentFile.get(4));
+            assertThrows(IndexOutOfBoundsException.class, () -> fragmentFile.range(0, 2));
+            assertThrows(IndexOutOfBoundsException.class, () -> fragmentFile.range(2, 5));
+            assertThrows(IndexOutOfBoundsException.class, () -> fragmentFile.range(3, 2));
+        }
+    }
+
+    @Test
+    public void getServesRecentlyUsedPagesFromCache() throws IOException {
+        Path file = Files.write(directory.resolve("input"), new byte[4 * 64 * 1024]);
+
+        try (FragmentFile fragmentFile = FragmentFile.of(file, 2, 1)) {
+            fragmentFile.get(1);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[] {-1, -1}), 0);
+            }
+
+            // The first page is still cached, so the change isn't visible until the page is evicted
+            assertThat(fragmentFile.get(1), is(ReadingFragment.ofBinary(new byte[2])));
+            fragmentFile.get(64 * 1024);
+            assertThat(fragmentFile.get(1), is(ReadingFragment.ofBinary(new byte[] {-1, -1})));
+        }
+    }
+
+    private static List<ReadingFragment> readSequentially(byte[] content, int numReadingBasesPerFragment) {
+        InputStream stream = new ByteArrayInputStream(content);
+        List<ReadingFragment> fragments = new ArrayList<>();
+        for (ReadingFragment fragment; (fragment = BinaryStreamUtils.readReadingFragment(stream,
+                numReadingBasesPerFragment)) != null;) {
+            fragments.add(fragment);
+        }
+        return fragments;
+    }
+}
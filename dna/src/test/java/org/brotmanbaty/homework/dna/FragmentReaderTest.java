@@ -0,0 +1,196 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FragmentReaderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void ofThrowsExceptionGivenNonPositiveNumReadingBasesPerFragment() {
+        assertThrows(IllegalArgumentException.class, () -> FragmentReader.of(new ByteArrayInputStream(new byte[0]), 0));
+        assertThrows(IllegalArgumentException.class, () -> FragmentReader.of(directory.resolve("missing"), -1));
+    }
+
+    @Test
+    public void readReturnsFragmentsInOrderAndThenNull() {
+        FragmentReader reader = FragmentReader.of(stream(0b01000010, 0b10000100, 0b11111111, 0b00000000), 2);
+
+        assertThat(reader.read(), is(ReadingFragment.ofBinary(bytes(0b01000010, 0b10000100))));
+        assertThat(reader.read(), is(ReadingFragment.ofBinary(bytes(0b11111111, 0b00000000))));
+        assertThat(reader.read(), nullValue());
+        assertThat(reader.getNumFragmentsRead(), is(2L));
+    }
+
+    @Test
+    public void readThrowsExceptionGivenTruncatedLastFragment() {
+        FragmentReader reader = FragmentReader.of(stream(0b01000010, 0b10000100, 0b11111111), 2);
+
+        reader.read();
+        assertThrows(IllegalStateException.class, () -> reader.read());
+        assertThat(reader.getNumFragmentsRead(), is(1L));
+    }
+
+    @Test
+    public void readMatchesBinaryStreamUtilsAcrossManyBufferRefills() {
+        byte[] content = new byte[7 * 400_000];
+        new Random(5).nextBytes(content);
+        FragmentReader reader = FragmentReader.of(new ByteArrayInputStream(content), 7);
+        InputStream expectedStream = new ByteArrayInputStream(content);
+
+        for (ReadingFragment expected; (expected = BinaryStreamUtils.readReadingFragment(expectedStream, 7)) != null;) {
+            assertThat(reader.read(), is(expected));
+        }
+        assertThat(reader.read(), nullValue());
+    }
+
+    @Test
+    public void readRawFragmentsReadsOnlyWholeFragmentsThatFit() {
+        FragmentReader reader = FragmentReader.of(stream(1, 2, 3, 4, 5, 6, 7, 8), 2);
+        byte[] rawFragments = new byte[5];
+
+        assertThat(reader.readRawFragments(rawFragments), is(2));
+        assertThat(rawFragments, is(bytes(1, 2, 3, 4, 0)));
+        assertThat(reader.readRawFragments(rawFragments), is(2));
+        assertThat(rawFragments, is(bytes(5, 6, 7, 8, 0)));
+        assertThat(reader.readRawFragments(rawFragments), is(0));
+        assertThat(reader.getNumFragmentsRead(), is(4L));
+    }
+
+    @Test
+    public void readRawFragmentsCanBeMixedWithRead() {
+        FragmentReader reader = FragmentReader.of(stream(1, 2, 3, 4, 5, 6), 2);
+        byte[] rawFragments = new byte[4];
+
+        assertThat(reader.read(), is(ReadingFragment.ofBinary(bytes(1, 2))));
+        assertThat(reader.readRawFragments(rawFragments), is(2));
+        assertThat(rawFragments, is(bytes(3, 4, 5, 6)));
+        assertThat(reader.read(), nullValue());
+    }
+
+    @Test
+    public void readRawFragmentsThrowsExceptionGivenTruncatedLastFragment() {
+        FragmentReader reader = FragmentReader.of(stream(1, 2, 3), 2);
+
+        assertThrows(IllegalStateException.class, () -> reader.readRawFragments(new byte[4]));
+        assertThat(reader.getNumFragmentsRead(), is(0L));
+    }
+
+    @Test
+    public void readWrapsIOExceptions() throws IOException {
+        InputStream stream = mock(InputStream.class);
+        IOException exception = new IOException();
+        when(stream.readNBytes(any(), anyInt(), anyInt())).thenThrow(exception);
+        FragmentReader reader = FragmentReader.of(stream, 2);
+
+        UncheckedIOException thrown = assertThrows(UncheckedIOException.class, () -> reader.read());
+
+        assertThat(thrown.getCause(), is(exception));
+    }
+
+    @Test
+    public void iteratorIteratesRemainingFragments() {
+        Iterator<ReadingFragment> iterator = FragmentReader.of(stream(1, 2, 3, 4), 2).iterator();
+
+        assertThat(iterator.hasNext(), is(true));
+        assertThat(iterator.next(), is(ReadingFragment.ofBinary(bytes(1, 2))));
+        assertThat(iterator.next(), is(ReadingFragment.ofBinary(bytes(3, 4))));
+        assertThat(iterator.hasNext(), is(false));
+        assertThrows(NoSuchElementException.class, () -> iterator.next());
+    }
+
+    @Test
+    public void spliteratorEstimatesSizeForFilesAndIsOrdered() throws IOException {
+        Path file = Files.write(directory.resolve("input"), new byte[10]);
+
+        try (FragmentReader reader = FragmentReader.of(file, 2)) {
+            reader.read();
+            Spliterator<ReadingFragment> spliterator = reader.spliterator();
+
+            assertThat(spliterator.estimateSize(), is(4L));
+            assertThat(spliterator.hasCharacteristics(Spliterator.ORDERED), is(true));
+        }
+    }
+
+    @Test
+    public void parallelStreamProducesTheSameFragmentsInOrder() {
+        byte[] content = new byte[3 * 10_000];
+        new Random(3).nextBytes(content);
+        List<ReadingFragment> expected = new ArrayList<>();
+        InputStream expectedStream = new ByteArrayInputStream(content);
+        for (ReadingFragment fragment; (fragment = BinaryStreamUtils.readReadingFragment(expectedStream, 3)) != null;) {
+            expected.add(fragment);
+        }
+
+        try (Stream<ReadingFragment> stream = FragmentReader.of(new ByteArrayInputStream(content), 3).stream()) {
+            List<ReadingFragment> actual = stream.parallel().collect(Collectors.toList());
+
+            assertThat(actual, is(expected));
+        }
+    }
+
+    @Test
+    public void streamThrowsExceptionGivenTruncatedLastFragment() {
+        Stream<ReadingFragment> stream = FragmentReader.of(stream(1, 2, 3), 2).stream();
+
+        assertThrows(IllegalStateException.class, () -> stream.collect(Collectors.toList()));
+    }
+
+    @Test
+    public void closingStreamClosesUnderlyingStream() throws IOException {
+        InputStream stream = mock(InputStream.class);
+
+        FragmentReader.of(stream, 2).stream().close();
+
+        verify(stream).close();
+    }
+
+    @Test
+    public void readerCanBeUsedWithFiles() throws IOException {
+        Path file = Files.write(directory.resolve("input"), bytes(1, 2, 3, 4));
+
+        try (Stream<ReadingFragment> stream = FragmentReader.of(file, 2).stream()) {
+            assertThat(stream.collect(Collectors.toList()),
+                    contains(ReadingFragment.ofBinary(bytes(1, 2)), ReadingFragment.ofBinary(bytes(3, 4))));
+        }
+    }
+
+    private static InputStream stream(int... bytes) {
+        return new ByteArrayInputStream(bytes(bytes));
+    }
+
+    private static byte[] bytes(int... bytes) {
+        byte[] result = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; ++i) {
+            result[i] = (byte) bytes[i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,190 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notANumber;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FragmentStatisticsTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void ofThrowsExceptionGivenNonPositiveNumReadingBasesPerFragment() {
+        assertThrows(IllegalArgumentException.class, () -> FragmentStatistics.of(0));
+    }
+
+    @Test
+    public void summarizesRecordedFragments() {
+        FragmentStatistics statistics = FragmentStatistics.of(2);
+        // A with quality 10, T with quality 20; then G with quality 30, T with quality 0
+        byte[] rawFragments = {(byte) 0b00_001010, (byte) 0b11_010100, (byte) 0b10_011110, (byte) 0b11_000000};
+
+        statistics.accept(ByteBuffer.wrap(rawFragments), 2);
+        FragmentStatistics.Summary summary = statistics.summarize();
+
+        assertThat(summary.getNumFragments(), is(2L));
+        assertThat(summary.getMeanQuality(1), is(20.0));
+        assertThat(summary.getMeanQuality(2), is(10.0));
+        assertThat(summary.getBaseCount(1, Base.A), is(1L));
+        assertThat(summary.getBaseCount(1, Base.G), is(1L));
+        assertThat(summary.getBaseCount(1, Base.T), is(0L));
+        assertThat(summary.getBaseCount(2, Base.T), is(2L));
+        assertThat(summary.getQualityCount(QualityScore.ofBinary((byte) 0)), is(1L));
+        assertThat(summary.getQualityCount(QualityScore.ofBinary((byte) 30)), is(1L));
+        assertThat(summary.getQualityCount(QualityScore.ofBinary((byte) 63)), is(0L));
+    }
+
+    @Test
+    public void summarizeReportsNaNMeanQualityWithoutFragments() {
+        assertThat(FragmentStatistics.of(1).summarize().getMeanQuality(1), is(notANumber()));
+    }
+
+    @Test
+    public void summaryThrowsExceptionGivenPositionOutOfRange() {
+        FragmentStatistics.Summary summary = FragmentStatistics.of(2).summarize();
+
+        assertThrows(IndexOutOfBoundsException.class, () -> summary.getMeanQuality(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> summary.getBaseCount(3, Base.A));
+    }
+
+    @Test
+    public void acceptStartsAtPositionAndLeavesItUnchanged() {
+        FragmentStatistics statistics = FragmentStatistics.of(1);
+        ByteBuffer rawFragments = ByteBuffer.wrap(new byte[] {(byte) 0b11_000001, (byte) 0b01_000010});
+        rawFragments.position(1);
+
+        statistics.accept(rawFragments, 1);
+
+        assertThat(rawFragments.position(), is(1));
+        assertThat(statistics.summarize().getBaseCount(1, Base.C), is(1L));
+        assertThat(statistics.summarize().getMeanQuality(1), is(2.0));
+    }
+
+    @Test
+    public void acceptThrowsExceptionGivenTooFewFragments() {
+        FragmentStatistics statistics = FragmentStatistics.of(2);
+
+        assertThrows(BufferUnderflowException.class, () -> statistics.accept(ByteBuffer.allocate(3), 2));
+        assertThrows(IllegalArgumentException.class, () -> statistics.accept(ByteBuffer.allocate(3), -1));
+    }
+
+    @Test
+    public void summarizeAddsUpAllThreads() throws Exception {
+        FragmentStatistics statistics = FragmentStatistics.of(3);
+        byte[] rawFragments = new byte[3 * 1000];
+        new Random(5).nextBytes(rawFragments);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < 8; ++i) {
+                tasks.add(executor.submit(() -> statistics.accept(ByteBuffer.wrap(rawFragments), 1000)));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        FragmentStatistics expected = FragmentStatistics.of(3);
+        expected.accept(ByteBuffer.wrap(rawFragments), 1000);
+        FragmentStatistics.Summary summary = statistics.summarize();
+        assertThat(summary.getNumFragments(), is(8000L));
+        for (int position = 1; position <= 3; ++position) {
+            assertThat(summary.getMeanQuality(position), is(expected.summarize().getMeanQuality(position)));
+            for (Base base : Base.values()) {
+                assertThat(summary.getBaseCount(position, base),
+                        is(8 * expected.summarize().getBaseCount(position, base)));
+            }
+        }
+    }
+
+    @Test
+    public void writeWritesTabSeparatedReport() throws IOException {
+        FragmentStatistics statistics = FragmentStatistics.of(2);
+        statistics.accept(ByteBuffer.wrap(new byte[] {(byte) 0b00_000001, (byte) 0b01_000010}), 1);
+        Path report = directory.resolve("report.tsv");
+
+        statistics.summarize().write(report);
+
+        List<String> lines = Files.readAllLines(report);
+        assertThat(lines.subList(0, 5), contains("#fragments\t1", "#position\tmean_quality\tA\tC\tG\tT",
+                "1\t1.00\t1\t0\t0\t0", "2\t2.00\t0\t1\t0\t0", "#quality\tcount"));
+        assertThat(lines.size(), is(5 + 64));
+        assertThat(lines.get(5 + 2), is("2\t1"));
+    }
+
+    @Test
+    public void convertersRecordSameStatistics() throws IOException {
+        int length = 7;
+        byte[] rawFragments = new byte[length * 50_000];
+        new Random(8).nextBytes(rawFragments);
+        Path input = Files.write(directory.resolve("input"), rawFragments);
+        WritableByteChannel output = Channels.newChannel(OutputStream.nullOutputStream());
+        FragmentStatistics expected = FragmentStatistics.of(length);
+        expected.accept(ByteBuffer.wrap(rawFragments), 50_000);
+
+        FragmentStatistics sequential = FragmentStatistics.of(length);
+        Main.convertSequentially(input, length, output, ConversionMetrics.of(), sequential);
+        FragmentStatistics parallel = FragmentStatistics.of(length);
+        ParallelFastqConverter.of(ForkJoinPool.commonPool(), 1000).convert(input, length, output, parallel);
+        FragmentStatistics pipelined = FragmentStatistics.of(length);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            PipelinedFastqConverter.of(executor, 1000, 4).convert(input, length, output, pipelined);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (FragmentStatistics statistics : List.of(sequential, parallel, pipelined)) {
+            assertSameSummary(statistics.summarize(), expected.summarize());
+        }
+    }
+
+    @Test
+    public void convertersThrowExceptionGivenStatisticsForOtherLength() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[4]);
+        WritableByteChannel output = Channels.newChannel(OutputStream.nullOutputStream());
+        FragmentStatistics statistics = FragmentStatistics.of(1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> Main.convertSequentially(input, 2, output, ConversionMetrics.of(), statistics));
+        assertThrows(IllegalArgumentException.class,
+                () -> ParallelFastqConverter.of(ForkJoinPool.commonPool()).convert(input, 2, output, statistics));
+    }
+
+    private static void assertSameSummary(FragmentStatistics.Summary actual, FragmentStatistics.Summary expected) {
+        assertThat(actual.getNumFragments(), is(expected.getNumFragments()));
+        for (int position = 1; position <= expected.getNumReadingBasesPerFragment(); ++position) {
+            assertThat(actual.getMeanQuality(position), is(expected.getMeanQuality(position)));
+            for (Base base : Base.values()) {
+                assertThat(actual.getBaseCount(position, base), is(expected.getBaseCount(position, base)));
+            }
+        }
+        for (byte quality = 0; quality < 64; ++quality) {
+            QualityScore score = QualityScore.ofBinary(quality);
+            assertThat(actual.getQualityCount(score), is(expected.getQualityCount(score)));
+        }
+    }
+}
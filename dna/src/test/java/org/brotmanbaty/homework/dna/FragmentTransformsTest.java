@@ -0,0 +1,116 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FragmentTransformsTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void reverseComplementReversesAndComplementsEachFragment() {
+        // ACG with qualities 1, 2, 3 and TTA with qualities 4, 5, 6
+        byte[] rawFragments = {0b00_000001, 0b01_000010, (byte) 0b10_000011, (byte) 0b11_000100,
+                (byte) 0b11_000101, 0b00_000110, 0x7f};
+
+        FragmentTransforms.reverseComplement().apply(rawFragments, 2, 3);
+
+        // CGT with qualities 3, 2, 1 and TAA with qualities 6, 5, 4, leaving the byte after the fragments alone
+        byte[] expected = {0b01_000011, (byte) 0b10_000010, (byte) 0b11_000001, (byte) 0b11_000110, 0b00_000101,
+                0b00_000100, 0x7f};
+        assertThat(rawFragments, is(expected));
+    }
+
+    @Test
+    public void reverseComplementTwiceReturnsOriginalFragments() {
+        byte[] rawFragments = new byte[7 * 100];
+        new Random(50).nextBytes(rawFragments);
+        byte[] original = rawFragments.clone();
+        FragmentTransform transform = FragmentTransforms.reverseComplement();
+
+        transform.apply(rawFragments, 100, 7);
+        transform.apply(rawFragments, 100, 7);
+
+        assertThat(rawFragments, is(original));
+        assertThat(transform.getNumReadingBasesPerFragment(7), is(7));
+    }
+
+    @Test
+    public void slicePacksSlicesAtStart() {
+        byte[] rawFragments = {0, 1, 2, 3, 4, 10, 11, 12, 13, 14, 20, 21, 22, 23, 24};
+        FragmentTransform slice = FragmentTransforms.slice(1, 4);
+
+        slice.apply(rawFragments, 3, 5);
+
+        assertThat(slice.getNumReadingBasesPerFragment(5), is(3));
+        assertThat(Arrays.copyOf(rawFragments, 9), is(new byte[] {1, 2, 3, 11, 12, 13, 21, 22, 23}));
+    }
+
+    @Test
+    public void sliceThrowsExceptionGivenInvalidRange() {
+        assertThrows(IllegalArgumentException.class, () -> FragmentTransforms.slice(-1, 2));
+        assertThrows(IllegalArgumentException.class, () -> FragmentTransforms.slice(2, 2));
+        assertThrows(IllegalArgumentException.class, () -> FragmentTransforms.slice(0, 6).apply(new byte[10], 2, 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> FragmentTransforms.slice(0, 6).getNumReadingBasesPerFragment(5));
+    }
+
+    @Test
+    public void capQualitiesLowersOnlyHigherScores() {
+        byte[] rawFragments = {(byte) 0b11_111111, 0b01_011110, 0b00_011111, (byte) 0b10_100000};
+
+        FragmentTransforms.capQualities(30).apply(rawFragments, 2, 2);
+
+        assertThat(rawFragments, is(new byte[] {(byte) 0b11_011110, 0b01_011110, 0b00_011110, (byte) 0b10_011110}));
+        assertThrows(IllegalArgumentException.class, () -> FragmentTransforms.capQualities(-1));
+        assertThrows(IllegalArgumentException.class, () -> FragmentTransforms.capQualities(64));
+    }
+
+    @Test
+    public void applyThrowsExceptionGivenTooFewFragments() {
+        assertThrows(IndexOutOfBoundsException.class, () -> FragmentTransforms.none().apply(new byte[5], 2, 3));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> FragmentTransforms.reverseComplement().apply(new byte[5], 2, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> FragmentTransforms.slice(0, 2).apply(new byte[5], 2, 3));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> FragmentTransforms.capQualities(10).apply(new byte[5], 2, 3));
+    }
+
+    @Test
+    public void andThenAppliesTransformsInOrder() {
+        byte[] rawFragments = {0b00_000001, 0b01_000010, (byte) 0b10_000011, (byte) 0b11_000100};
+        FragmentTransform transform = FragmentTransforms.slice(1, 4).andThen(FragmentTransforms.reverseComplement());
+
+        transform.apply(rawFragments, 1, 4);
+
+        assertThat(transform.getNumReadingBasesPerFragment(4), is(3));
+        assertThat(Arrays.copyOf(rawFragments, 3),
+                is(new byte[] {0b00_000100, 0b01_000011, (byte) 0b10_000010}));
+    }
+
+    @Test
+    public void convertSequentiallyWritesTransformedFragments() throws IOException {
+        // ACGT with qualities 0, 10, 20, 30
+        Path input = Files.write(directory.resolve("input"),
+                new byte[] {0b00_000000, 0b01_001010, (byte) 0b10_010100, (byte) 0b11_011110});
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        Main.convertSequentially(input, 4, Channels.newChannel(output),
+                FragmentTransforms.reverseComplement().andThen(FragmentTransforms.slice(0, 3)));
+
+        assertThat(output.toString(StandardCharsets.US_ASCII), is("@READ_1\nACG\n+READ_1\n?5+\n"));
+    }
+}
@@ -0,0 +1,201 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class KmerCounterTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void ofThrowsExceptionGivenInvalidK() {
+        assertThrows(IllegalArgumentException.class, () -> KmerCounter.of(0));
+        assertThrows(IllegalArgumentException.class, () -> KmerCounter.of(33));
+    }
+
+    @Test
+    public void withThrowsExceptionGivenInvalidPartitionsOrMemoryBudget() {
+        KmerCounter counter = KmerCounter.of(3);
+
+        assertThrows(IllegalArgumentException.class, () -> counter.withPartitions(0));
+        assertThrows(IllegalArgumentException.class, () -> counter.withPartitions(KmerCounter.MAX_PARTITIONS + 1));
+        assertThrows(IllegalArgumentException.class, () -> counter.withMemoryBudget(0, directory));
+    }
+
+    @Test
+    public void countCountsKmersWithinEachFragmentOnly() throws IOException {
+        // ACGTA and TTTAC, with arbitrary quality scores
+        Path input = Files.write(directory.resolve("input"), new byte[] {0b00000001, 0b01000010, (byte) 0b10000011,
+                (byte) 0b11000100, 0b00000101, (byte) 0b11111111, (byte) 0b11000000, (byte) 0b11000001, 0b00000010,
+                0b01000011});
+
+        try (KmerCounts counts = KmerCounter.of(2).withPartitions(3).count(input, 5, executor)) {
+            assertThat(countAll(counts), is(Map.of("AC", 2, "CG", 1, "GT", 1, "TA", 2, "TT", 2)));
+            assertThat(counts.get("AC"), is(2));
+            assertThat(counts.get("AT"), is(0));
+            assertThat(counts.getNumDistinct(), is(5L));
+            assertThat(counts.getTotal(), is(8L));
+        }
+    }
+
+    @Test
+    public void countWithCanonicalCountsKmersTogetherWithTheirReverseComplements() throws IOException {
+        // AACGTT has AAC, ACG, CGT and GTT, which are two pairs of reverse complements
+        Path input = Files.write(directory.resolve("input"), new byte[] {0, 0, 0b01000000, (byte) 0b10000000,
+                (byte) 0b11000000, (byte) 0b11000000});
+
+        try (KmerCounts counts = KmerCounter.of(3).withCanonical().count(input, 6, executor)) {
+            assertThat(countAll(counts), is(Map.of("AAC", 2, "ACG", 2)));
+            assertThat(counts.get("GTT"), is(2));
+            assertThat(counts.isCanonical(), is(true));
+        }
+    }
+
+    @Test
+    public void countFindsNoKmersInFragmentsShorterThanK() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[12]);
+
+        try (KmerCounts counts = KmerCounter.of(4).count(input, 3, executor)) {
+            assertThat(counts.getNumDistinct(), is(0L));
+            assertThat(counts.getTotal(), is(0L));
+        }
+    }
+
+    @Test
+    public void countMatchesNaiveCountingAcrossManyChunks() throws IOException {
+        byte[] rawFragments = randomBytes(150 * 40_000);
+        Path input = Files.write(directory.resolve("input"), rawFragments);
+
+        for (int k : new int[] {1, 7, 21, 32}) {
+            try (KmerCounts counts = KmerCounter.of(k).count(input, 150, executor)) {
+                assertThat(countAll(counts), is(countNaively(rawFragments, 150, k, false)));
+                assertThat(counts.getTotal(), is(40_000L * (150 - k + 1)));
+            }
+        }
+    }
+
+    @Test
+    public void countWithMostPartitionsMatchesNaiveCountingAcrossManyChunks() throws IOException {
+        // Each partition's buffer shrinks to a couple of k-mers, so they're added to the maps almost one at a time
+        byte[] rawFragments = randomBytes(150 * 40_000);
+        Path input = Files.write(directory.resolve("input"), rawFragments);
+
+        try (KmerCounts counts = KmerCounter.of(9).withPartitions(KmerCounter.MAX_PARTITIONS).count(input, 150,
+                executor)) {
+            assertThat(countAll(counts), is(countNaively(rawFragments, 150, 9, false)));
+        }
+    }
+
+    @Test
+    public void countWithMemoryBudgetSpillsAndStillMatchesNaiveCounting() throws IOException {
+        byte[] rawFragments = randomBytes(100 * 20_000);
+        Path input = Files.write(directory.resolve("input"), rawFragments);
+        Path spillDirectory = Files.createDirectory(directory.resolve("spill"));
+
+        KmerCounts counts = KmerCounter.of(11).withCanonical().withPartitions(16)
+                .withMemoryBudget(64 * 1024, spillDirectory).count(input, 100, executor);
+        Map<String, Integer> expected = countNaively(rawFragments, 100, 11, true);
+        try {
+            assertThat(listFiles(spillDirectory).isEmpty(), is(false));
+            assertThat(countAll(counts), is(expected));
+            assertThat(counts.getNumDistinct(), is((long) expected.size()));
+            String kmer = expected.keySet().iterator().next();
+            assertThat(counts.get(kmer), is(expected.get(kmer)));
+        } finally {
+            counts.close();
+        }
+        assertThat(listFiles(spillDirectory), is(empty()));
+    }
+
+    @Test
+    public void countThrowsExceptionGivenTruncatedLastFragment() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[7]);
+
+        assertThrows(IllegalStateException.class, () -> KmerCounter.of(2).count(input, 3, executor));
+    }
+
+    @Test
+    public void countThrowsExceptionGivenNonPositiveNumReadingBasesPerFragment() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[4]);
+
+        assertThrows(IllegalArgumentException.class, () -> KmerCounter.of(2).count(input, 0, executor));
+    }
+
+    @Test
+    public void writeWritesEveryKmerWithItsCount() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[] {0, 0, 0, (byte) 0b11000000});
+        Path output = directory.resolve("kmers.tsv");
+
+        try (KmerCounts counts = KmerCounter.of(2).count(input, 4, executor)) {
+            counts.write(output);
+        }
+
+        List<String> lines = Files.readAllLines(output);
+        assertThat(lines.subList(0, 2), is(List.of("#k\t2", "#kmer\tcount")));
+        assertThat(lines.subList(2, lines.size()).stream().sorted().collect(Collectors.toList()),
+                is(List.of("AA\t2", "AT\t1")));
+    }
+
+    private static Map<String, Integer> countAll(KmerCounts counts) {
+        Map<String, Integer> all = new HashMap<>();
+        counts.forEach((kmer, count) -> all.put(KmerCounts.decode(kmer, counts.getK()), count));
+        return all;
+    }
+
+    private static Map<String, Integer> countNaively(byte[] rawFragments, int numReadingBasesPerFragment, int k,
+            boolean canonical) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int start = 0; start < rawFragments.length; start += numReadingBasesPerFragment) {
+            StringBuilder bases = new StringBuilder();
+            for (int i = 0; i < numReadingBasesPerFragment; ++i) {
+                bases.append("ACGT".charAt((rawFragments[start + i] & 0xff) >>> 6));
+            }
+            for (int i = 0; i + k <= numReadingBasesPerFragment; ++i) {
+                String kmer = bases.substring(i, i + k);
+                if (canonical) {
+                    String reverseComplement = KmerCounts.decode(
+                            KmerCounts.reverseComplement(KmerCounts.encode(kmer), k), k);
+                    kmer = reverseComplement.compareTo(kmer) < 0 ? reverseComplement : kmer;
+                }
+                counts.merge(kmer, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static List<Path> listFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class KmerCountsTest {
+    @Test
+    public void encodePutsFirstBaseInHighestBits() {
+        assertThat(KmerCounts.encode("A"), is(0L));
+        assertThat(KmerCounts.encode("CGT"), is(0b01_10_11L));
+        assertThat(KmerCounts.encode("TTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTT"), is(-1L));
+    }
+
+    @Test
+    public void decodeIsInverseOfEncode() {
+        for (String kmer : new String[] {"A", "ACGT", "TTGCA", "GATTACAGATTACAGATTACAGATTACAGATT"}) {
+            assertThat(KmerCounts.decode(KmerCounts.encode(kmer), kmer.length()), is(kmer));
+        }
+    }
+
+    @Test
+    public void encodeThrowsExceptionGivenInvalidKmer() {
+        assertThrows(IllegalArgumentException.class, () -> KmerCounts.encode(""));
+        assertThrows(IllegalArgumentException.class, () -> KmerCounts.encode("ACGN"));
+        assertThrows(IllegalArgumentException.class,
+                () -> KmerCounts.encode("AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"));
+    }
+
+    @Test
+    public void reverseComplementReversesAndComplementsBases() {
+        assertThat(KmerCounts.reverseComplement(KmerCounts.encode("AACGT"), 5), is(KmerCounts.encode("ACGTT")));
+        assertThat(KmerCounts.reverseComplement(KmerCounts.encode("GATTACAGATTACAGATTACAGATTACAGATT"), 32),
+                is(KmerCounts.encode("AATCTGTAATCTGTAATCTGTAATCTGTAATC")));
+    }
+}
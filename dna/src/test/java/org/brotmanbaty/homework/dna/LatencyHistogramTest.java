@@ -0,0 +1,69 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    public void reportsZeroesWhenEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(histogram.getMeanNanos(), is(0L));
+        assertThat(histogram.getPercentileNanos(99), is(0L));
+    }
+
+    @Test
+    public void reportsCountTotalAndMean() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.record(300);
+
+        assertThat(histogram.getCount(), is(2L));
+        assertThat(histogram.getTotalNanos(), is(400L));
+        assertThat(histogram.getMeanNanos(), is(200L));
+    }
+
+    @Test
+    public void reportsPercentilesAsUpperBoundOfTheirBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; ++i) {
+            histogram.record(5);
+        }
+        histogram.record(1000);
+
+        assertThat(histogram.getPercentileNanos(0), is(7L));
+        assertThat(histogram.getPercentileNanos(50), is(7L));
+        assertThat(histogram.getPercentileNanos(99), is(7L));
+        assertThat(histogram.getPercentileNanos(100), is(1023L));
+    }
+
+    @Test
+    public void recordsNegativeLatenciesAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        assertThat(histogram.getTotalNanos(), is(0L));
+        assertThat(histogram.getPercentileNanos(100), is(0L));
+    }
+
+    @Test
+    public void recordsHugeLatencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+
+        assertThat(histogram.getPercentileNanos(100), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void getPercentileNanosThrowsExceptionGivenInvalidPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentileNanos(-1));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentileNanos(101));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentileNanos(Double.NaN));
+    }
+}
@@ -0,0 +1,83 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class LongIntHashMapTest {
+    @Test
+    public void getReturnsZeroForMissingKeys() {
+        LongIntHashMap map = new LongIntHashMap();
+
+        assertThat(map.get(0), is(0));
+        assertThat(map.get(42), is(0));
+        assertThat(map.size(), is(0));
+    }
+
+    @Test
+    public void addSumsCountsIncludingOfKeyZero() {
+        LongIntHashMap map = new LongIntHashMap();
+
+        map.add(0, 2);
+        map.add(-1, 1);
+        map.add(0, 3);
+        map.add(-1, 4);
+
+        assertThat(map.get(0), is(5));
+        assertThat(map.get(-1), is(5));
+        assertThat(map.size(), is(2));
+    }
+
+    @Test
+    public void addSaturatesAtMaxValue() {
+        LongIntHashMap map = new LongIntHashMap();
+
+        map.add(7, Integer.MAX_VALUE - 1);
+        map.add(7, 5);
+
+        assertThat(map.get(7), is(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void mapMatchesHashMapAcrossManyRehashes() {
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(21);
+        for (int i = 0; i < 200_000; ++i) {
+            // Few distinct high bits, so that many keys share hash prefixes
+            long key = random.nextInt(50_000) * 0x1_0000_0000L;
+            map.add(key, 1);
+            expected.merge(key, 1, Integer::sum);
+        }
+
+        Map<Long, Integer> actual = new HashMap<>();
+        map.forEach((key, count) -> actual.put(key, count));
+        assertThat(actual, is(expected));
+        assertThat(map.size(), is(expected.size()));
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertThat(map.get(entry.getKey()), is(entry.getValue()));
+        }
+    }
+
+    @Test
+    public void clearRemovesAllEntriesAndReleasesTables() {
+        LongIntHashMap map = new LongIntHashMap();
+        long emptyMemoryBytes = map.getMemoryBytes();
+        for (long key = 0; key < 1000; ++key) {
+            map.add(key, 1);
+        }
+        assertThat(map.getMemoryBytes() > emptyMemoryBytes, is(true));
+
+        map.clear();
+
+        assertThat(map.size(), is(0));
+        assertThat(map.get(0), is(0));
+        assertThat(map.get(500), is(0));
+        assertThat(map.getMemoryBytes(), is(emptyMemoryBytes));
+    }
+}
@@ -0,0 +1,133 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MotifSearcherTest {
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void shutdownPool() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void ofThrowsExceptionGivenInvalidPatterns() {
+        assertThrows(IllegalArgumentException.class, () -> MotifSearcher.of(pool, List.of()));
+        assertThrows(IllegalArgumentException.class, () -> MotifSearcher.of(pool, List.of("ACGT", "")));
+        assertThrows(IllegalArgumentException.class, () -> MotifSearcher.of(pool, List.of("ACGN")));
+        assertThrows(IllegalArgumentException.class, () -> MotifSearcher.of(pool, List.of("A".repeat(65))));
+    }
+
+    @Test
+    public void withMaxMismatchesThrowsExceptionUnlessLessThanEveryPatternLength() {
+        MotifSearcher searcher = MotifSearcher.of(pool, List.of("ACGT", "AC"));
+
+        assertThrows(IllegalArgumentException.class, () -> searcher.withMaxMismatches(-1));
+        assertThrows(IllegalArgumentException.class, () -> searcher.withMaxMismatches(2));
+        assertThat(searcher.withMaxMismatches(1).getMaxMismatches(), is(1));
+    }
+
+    @Test
+    public void searchFindsOverlappingMatchesWithinFragmentsOnly() throws IOException {
+        // AAAC and AACA, with arbitrary quality scores: AA never spans the two fragments
+        Path input = Files.write(directory.resolve("input"), new byte[] {0b00000001, 0b00111111, 0b00000010,
+                0b01000011, 0b00000100, 0b00000101, 0b01000110, 0b00000111});
+
+        List<MotifMatch> matches = MotifSearcher.of(pool, List.of("AA", "CA")).search(input, 4);
+
+        assertThat(matches, is(List.of(MotifMatch.of(1, 0, 0, 0), MotifMatch.of(1, 0, 1, 0),
+                MotifMatch.of(2, 0, 0, 0), MotifMatch.of(2, 1, 2, 0))));
+    }
+
+    @Test
+    public void searchWithMaxMismatchesReportsTheFewestMismatches() throws IOException {
+        // ACGTTCGT
+        Path input = Files.write(directory.resolve("input"), rawFragment("ACGTTCGT"));
+
+        List<MotifMatch> matches = MotifSearcher.of(pool, List.of("ACGT")).withMaxMismatches(1).search(input, 8);
+
+        assertThat(matches, is(List.of(MotifMatch.of(1, 0, 0, 0), MotifMatch.of(1, 0, 4, 1))));
+    }
+
+    @Test
+    public void searchMatchesNaiveSearchAcrossManyChunks() throws IOException {
+        byte[] rawFragments = new byte[150 * 60_000];
+        new Random(23).nextBytes(rawFragments);
+        Path input = Files.write(directory.resolve("input"), rawFragments);
+        List<String> patterns = List.of("ACGTAC", "TTTTT", "GATTACAGATTACA", "CCCCCCCCCCCCCCCCCCCCCCCCCCCCCCCCCCCCC"
+                + "CCCCCCCCCCCCCCCCCCCCCCCCCCC");
+
+        for (int maxMismatches : new int[] {0, 1, 3}) {
+            List<MotifMatch> expected = searchNaively(rawFragments, 150, patterns, maxMismatches);
+            List<MotifMatch> actual = new ArrayList<>();
+
+            long numMatches = MotifSearcher.of(pool, patterns).withMaxMismatches(maxMismatches).search(input, 150,
+                    actual::add);
+
+            assertThat(actual, is(expected));
+            assertThat(numMatches, is((long) expected.size()));
+        }
+    }
+
+    @Test
+    public void searchThrowsExceptionGivenTruncatedLastFragment() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[7]);
+
+        assertThrows(IllegalStateException.class, () -> MotifSearcher.of(pool, List.of("A")).search(input, 3));
+    }
+
+    @Test
+    public void searchThrowsExceptionGivenNonPositiveNumReadingBasesPerFragment() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[4]);
+
+        assertThrows(IllegalArgumentException.class, () -> MotifSearcher.of(pool, List.of("A")).search(input, 0));
+    }
+
+    private static byte[] rawFragment(String bases) {
+        byte[] rawFragment = new byte[bases.length()];
+        for (int i = 0; i < bases.length(); ++i) {
+            rawFragment[i] = (byte) ("ACGT".indexOf(bases.charAt(i)) << 6 | i);
+        }
+        return rawFragment;
+    }
+
+    private static List<MotifMatch> searchNaively(byte[] rawFragments, int numReadingBasesPerFragment,
+            List<String> patterns, int maxMismatches) {
+        List<MotifMatch> matches = new ArrayList<>();
+        for (int start = 0; start < rawFragments.length; start += numReadingBasesPerFragment) {
+            for (int pattern = 0; pattern < patterns.size(); ++pattern) {
+                String bases = patterns.get(pattern);
+                for (int offset = 0; offset + bases.length() <= numReadingBasesPerFragment; ++offset) {
+                    int numMismatches = 0;
+                    for (int i = 0; i < bases.length(); ++i) {
+                        char base = "ACGT".charAt((rawFragments[start + offset + i] & 0xff) >>> 6);
+                        if (base != bases.charAt(i)) {
+                            ++numMismatches;
+                        }
+                    }
+                    if (numMismatches <= maxMismatches) {
+                        matches.add(MotifMatch.of(start / numReadingBasesPerFragment + 1, pattern, offset,
+                                numMismatches));
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,131 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PairedFastqConverterTest {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void convertInterleavedAlternatesSameNumberedRecordsOfDifferentLengths() throws IOException {
+        Path input1 = Files.write(directory.resolve("r1"),
+                new byte[] {0b00000000, (byte) 0b11000001, 0b01000010, (byte) 0b10000011});
+        Path input2 = Files.write(directory.resolve("r2"),
+                new byte[] {0b00111111, 0b01000000, (byte) 0b10000001, (byte) 0b11000010, 0b00000011, 0b01000100});
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long numPairs = PairedFastqConverter.of(executor).convertInterleaved(input1, 2, input2, 3,
+                Channels.newChannel(output));
+
+        assertThat(numPairs, is(2L));
+        assertThat(new String(output.toByteArray(), StandardCharsets.US_ASCII), is(""
+                + "@READ_1\nAT\n+READ_1\n!\"\n"
+                + "@READ_1\nACG\n+READ_1\n`!\"\n"
+                + "@READ_2\nCG\n+READ_2\n#$\n"
+                + "@READ_2\nTAC\n+READ_2\n#$%\n"));
+    }
+
+    @Test
+    public void convertSeparatelyProducesTheSameOutputsAsSequentialConversionAcrossManyBatches() throws IOException {
+        Path input1 = writeRandomInput("r1", 200_000 * 7);
+        Path input2 = writeRandomInput("r2", 200_000 * 5);
+        ByteArrayOutputStream output1 = new ByteArrayOutputStream();
+        ByteArrayOutputStream output2 = new ByteArrayOutputStream();
+
+        long numPairs = PairedFastqConverter.of(executor).convertSeparately(input1, 7, input2, 5,
+                Channels.newChannel(output1), Channels.newChannel(output2));
+
+        assertThat(numPairs, is(200_000L));
+        assertThat(output1.toByteArray(), is(convertSequentially(input1, 7)));
+        assertThat(output2.toByteArray(), is(convertSequentially(input2, 5)));
+    }
+
+    @Test
+    public void convertInterleavedInterleavesTheSeparateOutputsAcrossManyBatches() throws IOException {
+        Path input1 = writeRandomInput("r1", 200_000 * 7);
+        Path input2 = writeRandomInput("r2", 200_000 * 5);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        PairedFastqConverter.of(executor).convertInterleaved(input1, 7, input2, 5, Channels.newChannel(output));
+
+        List<String> lines1 = lines(convertSequentially(input1, 7));
+        List<String> lines2 = lines(convertSequentially(input2, 5));
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < lines1.size(); i += 4) {
+            expected.append(String.join("\n", lines1.subList(i, i + 4))).append('\n');
+            expected.append(String.join("\n", lines2.subList(i, i + 4))).append('\n');
+        }
+        assertThat(new String(output.toByteArray(), StandardCharsets.US_ASCII), is(expected.toString()));
+    }
+
+    @Test
+    public void convertThrowsExceptionAndWritesNothingGivenDifferentNumbersOfFragments() throws IOException {
+        Path input1 = Files.write(directory.resolve("r1"), new byte[4]);
+        Path input2 = Files.write(directory.resolve("r2"), new byte[9]);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PairedFastqConverter converter = PairedFastqConverter.of(executor);
+
+        assertThrows(IllegalStateException.class,
+                () -> converter.convertInterleaved(input1, 2, input2, 3, Channels.newChannel(output)));
+        assertThrows(IllegalStateException.class, () -> converter.convertSeparately(input1, 2, input2, 3,
+                Channels.newChannel(output), Channels.newChannel(output)));
+        assertThat(output.size(), is(0));
+    }
+
+    @Test
+    public void convertThrowsExceptionGivenTruncatedLastFragment() throws IOException {
+        Path input1 = Files.write(directory.resolve("r1"), new byte[4]);
+        Path input2 = Files.write(directory.resolve("r2"), new byte[5]);
+
+        assertThrows(IllegalStateException.class, () -> PairedFastqConverter.of(executor).convertInterleaved(input1,
+                2, input2, 2, Channels.newChannel(new ByteArrayOutputStream())));
+    }
+
+    @Test
+    public void convertThrowsExceptionGivenNonPositiveNumReadingBasesPerFragment() throws IOException {
+        Path input = Files.write(directory.resolve("r1"), new byte[4]);
+
+        assertThrows(IllegalArgumentException.class, () -> PairedFastqConverter.of(executor).convertInterleaved(input,
+                2, input, 0, Channels.newChannel(new ByteArrayOutputStream())));
+    }
+
+    private Path writeRandomInput(String name, int size) throws IOException {
+        byte[] rawFragments = new byte[size];
+        new Random(size).nextBytes(rawFragments);
+        return Files.write(directory.resolve(name), rawFragments);
+    }
+
+    private byte[] convertSequentially(Path input, int numReadingBasesPerFragment) throws IOException {
+        Path output = directory.resolve(input.getFileName() + ".fastq");
+        Files.deleteIfExists(output);
+        Main.convertSequentially(input, numReadingBasesPerFragment, output);
+        return Files.readAllBytes(output);
+    }
+
+    private static List<String> lines(byte[] fastq) {
+        return List.of(new String(fastq, StandardCharsets.US_ASCII).split("\n"));
+    }
+}
@@ -0,0 +1,109 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ParallelFastqConverterTest {
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void shutdownPool() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void ofThrowsExceptionGivenNonPositiveChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> ParallelFastqConverter.of(pool, 0));
+    }
+
+    @Test
+    public void convertThrowsExceptionGivenNonPositiveNumReadingBasesPerFragment() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[1]);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ParallelFastqConverter.of(pool).convert(input, 0, directory.resolve("output")));
+    }
+
+    @Test
+    public void convertThrowsExceptionAndCreatesNoOutputGivenTruncatedLastFragment() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[5]);
+        Path output = directory.resolve("output");
+
+        assertThrows(IllegalStateException.class, () -> ParallelFastqConverter.of(pool).convert(input, 2, output));
+        assertThat(Files.exists(output), is(false));
+    }
+
+    @Test
+    public void convertThrowsExceptionIfOutputAlreadyExists() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[2]);
+        Path output = Files.write(directory.resolve("output"), new byte[0]);
+
+        UncheckedIOException thrown = assertThrows(UncheckedIOException.class,
+                () -> ParallelFastqConverter.of(pool).convert(input, 2, output));
+
+        assertThat(thrown.getCause(), instanceOf(FileAlreadyExistsException.class));
+    }
+
+    @Test
+    public void convertCanConvertAnEmptyFile() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[0]);
+        Path output = directory.resolve("output");
+
+        ParallelFastqConverter.of(pool).convert(input, 2, output);
+
+        assertThat(Files.readAllBytes(output), is(new byte[0]));
+    }
+
+    @Test
+    public void convertProducesTheSameOutputAsSequentialConversionAcrossManyChunks() throws IOException {
+        int numReadingBasesPerFragment = 3;
+        byte[] rawFragments = new byte[numReadingBasesPerFragment * 1000];
+        new Random(7).nextBytes(rawFragments);
+        Path input = Files.write(directory.resolve("input"), rawFragments);
+        Path output = directory.resolve("output");
+
+        // A chunk size that doesn't divide evenly into fragments, to make sure chunks are still fragment-aligned
+        ParallelFastqConverter.of(pool, 10).convert(input, numReadingBasesPerFragment, output);
+
+        assertThat(Files.readAllBytes(output), is(convertSequentially(rawFragments, numReadingBasesPerFragment)));
+    }
+
+    @Test
+    public void convertCanWriteToAChannelWhichIsLeftOpen() throws IOException {
+        byte[] rawFragments = new byte[2 * 100];
+        new Random(9).nextBytes(rawFragments);
+        Path input = Files.write(directory.resolve("input"), rawFragments);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        ParallelFastqConverter.of(pool, 16).convert(input, 2, Channels.newChannel(output));
+
+        assertThat(output.toByteArray(), is(convertSequentially(rawFragments, 2)));
+    }
+
+    private static byte[] convertSequentially(byte[] rawFragments, int numReadingBasesPerFragment) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int offset = 0; offset < rawFragments.length; offset += numReadingBasesPerFragment) {
+            long fragmentNumber = offset / numReadingBasesPerFragment + 1;
+            FastqWriterUtils.writeRawFragment(stream, rawFragments, offset, numReadingBasesPerFragment, fragmentNumber);
+        }
+        return stream.toByteArray();
+    }
+}
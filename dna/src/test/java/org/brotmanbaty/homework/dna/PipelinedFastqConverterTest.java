@@ -0,0 +1,246 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PipelinedFastqConverterTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void ofThrowsExceptionGivenNonPositiveSizes() {
+        assertThrows(IllegalArgumentException.class, () -> PipelinedFastqConverter.of(executor, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> PipelinedFastqConverter.of(executor, 1, 0));
+    }
+
+    @Test
+    public void convertThrowsExceptionGivenNonPositiveNumReadingBasesPerFragment() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[1]);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> PipelinedFastqConverter.of(executor).convert(input, 0, directory.resolve("output")));
+    }
+
+    @Test
+    public void convertThrowsExceptionAndCreatesNoOutputGivenTruncatedLastFragment() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[5]);
+        Path output = directory.resolve("output");
+
+        assertThrows(IllegalStateException.class, () -> PipelinedFastqConverter.of(executor).convert(input, 2, output));
+        assertThat(Files.exists(output), is(false));
+    }
+
+    @Test
+    public void convertThrowsExceptionIfOutputAlreadyExists() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[2]);
+        Path output = Files.write(directory.resolve("output"), new byte[0]);
+
+        UncheckedIOException thrown = assertThrows(UncheckedIOException.class,
+                () -> PipelinedFastqConverter.of(executor).convert(input, 2, output));
+        assertThat(thrown.getCause(), instanceOf(FileAlreadyExistsException.class));
+    }
+
+    @Test
+    public void convertCanConvertAnEmptyFile() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[0]);
+        Path output = directory.resolve("output");
+
+        PipelinedFastqConverter.of(executor).convert(input, 2, output);
+
+        assertThat(Files.readAllBytes(output), is(new byte[0]));
+    }
+
+    @Test
+    public void convertProducesTheSameOutputAsSequentialConversionAcrossManyBatches() throws IOException {
+        byte[] rawFragments = new byte[3 * 10_000];
+        new Random(13).nextBytes(rawFragments);
+        Path input = Files.write(directory.resolve("input"), rawFragments);
+        Path output = directory.resolve("output");
+
+        // Small batches and few of them in flight, so that every stage regularly waits on the others
+        PipelinedFastqConverter.of(executor, 10, 3).convert(input, 3, output);
+
+        assertThat(Files.readAllBytes(output), is(convertSequentially(input, 3)));
+    }
+
+    @Test
+    public void convertCanWriteToAChannelWhichIsLeftOpen() throws IOException {
+        byte[] rawFragments = new byte[2 * 1000];
+        new Random(14).nextBytes(rawFragments);
+        Path input = Files.write(directory.resolve("input"), rawFragments);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(output);
+
+        PipelinedFastqConverter.of(executor, 64, 2).convert(input, 2, channel);
+
+        assertThat(channel.isOpen(), is(true));
+        assertThat(output.toByteArray(), is(convertSequentially(input, 2)));
+    }
+
+    @Test
+    public void convertStopsAndRethrowsWhenWritingFails() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[2 * 1000]);
+        IOException failure = new IOException();
+        WritableByteChannel channel = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer source) throws IOException {
+                throw failure;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {}
+        };
+
+        UncheckedIOException thrown = assertThrows(UncheckedIOException.class,
+                () -> PipelinedFastqConverter.of(executor, 10, 2).convert(input, 2, channel));
+        assertThat(thrown.getCause(), is(failure));
+    }
+
+    @Test
+    public void convertRethrowsErrorsOfTheReaderInsteadOfWaitingForever() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[2 * 1000]);
+        OutOfMemoryError failure = new OutOfMemoryError();
+        // The reader submits each batch for decoding, so failing to submit one is an Error in the reader
+        ExecutorService failingExecutor = new AbstractExecutorService() {
+            @Override
+            public void execute(Runnable command) {
+                throw failure;
+            }
+
+            @Override
+            public void shutdown() {}
+
+            @Override
+            public List<Runnable> shutdownNow() {
+                return List.of();
+            }
+
+            @Override
+            public boolean isShutdown() {
+                return false;
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return false;
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, TimeUnit unit) {
+                return false;
+            }
+        };
+        Path output = directory.resolve("output");
+
+        OutOfMemoryError thrown = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(
+                OutOfMemoryError.class, () -> PipelinedFastqConverter.of(failingExecutor, 10, 2).convert(input, 2,
+                        output)));
+        assertThat(thrown, is(failure));
+    }
+
+    @Test
+    public void convertCancelsEveryQueuedBatchWhenWritingFails() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[2 * 1000]);
+        List<Future<?>> submitted = Collections.synchronizedList(new ArrayList<>());
+        // Only the first batch is ever decoded. Of the next 3, 2 fill up the queue and the reader is stuck queueing
+        // the last, which only the reader itself can cancel.
+        CountDownLatch allSubmitted = new CountDownLatch(4);
+        ExecutorService stallingExecutor = new AbstractExecutorService() {
+            @Override
+            public void execute(Runnable command) {
+                submitted.add((Future<?>) command);
+                if (submitted.size() == 1) {
+                    command.run();
+                }
+                allSubmitted.countDown();
+            }
+
+            @Override
+            public void shutdown() {}
+
+            @Override
+            public List<Runnable> shutdownNow() {
+                return List.of();
+            }
+
+            @Override
+            public boolean isShutdown() {
+                return false;
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return false;
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, TimeUnit unit) {
+                return false;
+            }
+        };
+        WritableByteChannel channel = Channels.newChannel(new ByteArrayOutputStream() {
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                try {
+                    allSubmitted.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new UncheckedIOException(new IOException());
+            }
+        });
+
+        assertThrows(UncheckedIOException.class,
+                () -> PipelinedFastqConverter.of(stallingExecutor, 10, 2).convert(input, 2, channel));
+
+        assertThat(submitted.size(), is(4));
+        for (Future<?> batch : submitted) {
+            assertThat(batch.isDone(), is(true));
+        }
+    }
+
+    private byte[] convertSequentially(Path input, int numReadingBasesPerFragment) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Main.convertSequentially(input, numReadingBasesPerFragment, Channels.newChannel(output));
+        return output.toByteArray();
+    }
+}
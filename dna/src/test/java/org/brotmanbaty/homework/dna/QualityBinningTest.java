@@ -0,0 +1,91 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class QualityBinningTest {
+    @Test
+    public void noneLeavesEveryScoreAsItIs() {
+        for (byte score = 0; score < 64; ++score) {
+            assertThat(QualityBinning.none().bin(QualityScore.ofBinary(score)), is(QualityScore.ofBinary(score)));
+        }
+    }
+
+    @Test
+    public void illumina8LevelBinsIntoEightLevels() {
+        QualityBinning binning = QualityBinning.illumina8Level();
+
+        int[] expected = {0, 0, 6, 6, 6, 6, 6, 6, 6, 6, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 22, 22, 22, 22, 22, 27,
+                27, 27, 27, 27, 33, 33, 33, 33, 33, 37, 37, 37, 37, 37};
+        for (byte score = 0; score < 64; ++score) {
+            byte expectedScore = (byte) (score < expected.length ? expected[score] : 40);
+            assertThat(binning.bin(QualityScore.ofBinary(score)), is(QualityScore.ofBinary(expectedScore)));
+        }
+    }
+
+    @Test
+    public void parseExtendsEachBinUpToTheNext() {
+        QualityBinning binning = QualityBinning.parse("0:5, 10:15,20:25");
+
+        assertThat(binning.bin(QualityScore.ofBinary((byte) 9)), is(QualityScore.ofBinary((byte) 5)));
+        assertThat(binning.bin(QualityScore.ofBinary((byte) 10)), is(QualityScore.ofBinary((byte) 15)));
+        assertThat(binning.bin(QualityScore.ofBinary((byte) 63)), is(QualityScore.ofBinary((byte) 25)));
+    }
+
+    @Test
+    public void parseThrowsExceptionGivenInvalidSpecification() {
+        assertThrows(IllegalArgumentException.class, () -> QualityBinning.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> QualityBinning.parse("1:5"));
+        assertThrows(IllegalArgumentException.class, () -> QualityBinning.parse("0:5,10:15,10:20"));
+        assertThrows(IllegalArgumentException.class, () -> QualityBinning.parse("0:5,10"));
+        assertThrows(IllegalArgumentException.class, () -> QualityBinning.parse("0:64"));
+        assertThrows(IllegalArgumentException.class, () -> QualityBinning.parse("0:5,64:10"));
+        IllegalArgumentException exception =
+                assertThrows(IllegalArgumentException.class, () -> QualityBinning.parse("0:x"));
+        assertThat(exception.getMessage(), containsString("0:x"));
+    }
+
+    @Test
+    public void ofUsesTheGivenTable() {
+        byte[] table = new byte[64];
+        table[63] = 1;
+        QualityBinning binning = QualityBinning.of(table);
+        table[63] = 2;
+
+        assertThat(binning.bin(QualityScore.ofBinary((byte) 63)), is(QualityScore.ofBinary((byte) 1)));
+        assertThat(binning.bin(QualityScore.ofBinary((byte) 62)), is(QualityScore.ofBinary((byte) 0)));
+    }
+
+    @Test
+    public void ofThrowsExceptionGivenInvalidTable() {
+        assertThrows(IllegalArgumentException.class, () -> QualityBinning.of(new byte[63]));
+        byte[] table = new byte[64];
+        table[0] = 64;
+        assertThrows(IllegalArgumentException.class, () -> QualityBinning.of(table));
+    }
+
+    @Test
+    public void binReadingBaseKeepsTheBase() {
+        ReadingBase readingBase = ReadingBase.of(Base.T, QualityScore.ofBinary((byte) 12));
+
+        assertThat(QualityBinning.illumina8Level().bin(readingBase),
+                is(ReadingBase.of(Base.T, QualityScore.ofBinary((byte) 15))));
+    }
+
+    @Test
+    public void binRawFragmentsBinsInPlace() {
+        byte[] rawFragments = {(byte) 0b11_000011, (byte) 0b10_001100, (byte) 0b01_111111};
+
+        QualityBinning.illumina8Level().binRawFragments(rawFragments, 1, 2);
+
+        assertThat(rawFragments[0], is((byte) 0b11_000011));
+        assertThat(ReadingBase.ofBinary(rawFragments[1]), is(ReadingBase.of(Base.G, QualityScore.ofBinary((byte) 15))));
+        assertThat(ReadingBase.ofBinary(rawFragments[2]), is(ReadingBase.of(Base.C, QualityScore.ofBinary((byte) 40))));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> QualityBinning.none().binRawFragments(rawFragments, 2, 2));
+    }
+}
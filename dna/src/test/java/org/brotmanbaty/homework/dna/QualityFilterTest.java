@@ -0,0 +1,139 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class QualityFilterTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void withMethodsThrowExceptionGivenInvalidArguments() {
+        QualityFilter filter = QualityFilter.of();
+
+        assertThrows(IllegalArgumentException.class, () -> filter.withMinMeanQuality(-1));
+        assertThrows(IllegalArgumentException.class, () -> filter.withMinQuality(64));
+        assertThrows(IllegalArgumentException.class, () -> filter.withTrailingTrim(0, 20));
+        assertThrows(IllegalArgumentException.class, () -> filter.withTrailingTrim(4, 64));
+        assertThrows(IllegalArgumentException.class, () -> filter.withMinLength(0));
+    }
+
+    @Test
+    public void ofKeepsEverythingButEmptyFragments() {
+        assertThat(QualityFilter.of().getKeptLength(rawFragment(0, 0, 0), 0, 3), is(3));
+        assertThat(QualityFilter.of().getKeptLength(new byte[0], 0, 0), is(0));
+    }
+
+    @Test
+    public void withMinMeanQualityDropsFragmentsBelowTheMean() {
+        QualityFilter filter = QualityFilter.of().withMinMeanQuality(20);
+
+        assertThat(filter.getKeptLength(rawFragment(10, 30, 20), 0, 3), is(3));
+        assertThat(filter.getKeptLength(rawFragment(10, 30, 19), 0, 3), is(0));
+    }
+
+    @Test
+    public void withMinQualityDropsFragmentsWithAnyLowerQuality() {
+        QualityFilter filter = QualityFilter.of().withMinQuality(5);
+
+        assertThat(filter.getKeptLength(rawFragment(5, 63, 5), 0, 3), is(3));
+        assertThat(filter.getKeptLength(rawFragment(63, 4, 63), 0, 3), is(0));
+    }
+
+    @Test
+    public void withTrailingTrimCutsAtTheLastGoodWindowAndThenTheLowBases() {
+        QualityFilter filter = QualityFilter.of().withTrailingTrim(2, 20);
+
+        // Windows from the end: (2, 2), (30, 2), (10, 30) has mean 20, so cut after it and then trim nothing
+        assertThat(filter.getKeptLength(rawFragment(30, 30, 10, 30, 2, 2), 0, 6), is(4));
+        // (30, 12) is the first good window from the end, and then the 12 at its end is trimmed too
+        assertThat(filter.getKeptLength(rawFragment(30, 12, 5, 1), 0, 4), is(1));
+        assertThat(filter.getKeptLength(rawFragment(30, 30, 30), 0, 3), is(3));
+        assertThat(filter.getKeptLength(rawFragment(1, 2, 3), 0, 3), is(0));
+    }
+
+    @Test
+    public void withTrailingTrimUsesTheWholeFragmentAsWindowIfItsShorter() {
+        QualityFilter filter = QualityFilter.of().withTrailingTrim(10, 20);
+
+        assertThat(filter.getKeptLength(rawFragment(40, 10), 0, 2), is(1));
+        assertThat(filter.getKeptLength(rawFragment(20, 10), 0, 2), is(0));
+    }
+
+    @Test
+    public void filtersApplyToTheTrimmedFragment() {
+        QualityFilter filter = QualityFilter.of().withTrailingTrim(1, 10).withMinQuality(10).withMinLength(2);
+
+        assertThat(filter.getKeptLength(rawFragment(10, 10, 3), 0, 3), is(2));
+        assertThat(filter.getKeptLength(rawFragment(10, 3, 3), 0, 3), is(0));
+    }
+
+    @Test
+    public void getKeptLengthReadsTheFragmentAtOffset() {
+        QualityFilter filter = QualityFilter.of().withMinQuality(10);
+        byte[] rawFragments = rawFragment(0, 0, 10, 10);
+
+        assertThat(filter.getKeptLength(rawFragments, 2, 2), is(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> filter.getKeptLength(rawFragments, 3, 2));
+    }
+
+    @Test
+    public void getKeptLengthIgnoresTheBaseBits() {
+        QualityFilter filter = QualityFilter.of().withMinQuality(10);
+
+        assertThat(filter.getKeptLength(new byte[] {(byte) 0b11_001010}, 0, 1), is(1));
+        assertThat(filter.getKeptLength(new byte[] {(byte) 0b11_001001}, 0, 1), is(0));
+    }
+
+    @Test
+    public void convertWritesOnlyKeptFragmentsNumberedConsecutively() throws IOException {
+        Path input = Files.write(directory.resolve("input"), rawFragment(30, 30, 5, 5, 30, 2));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long numFragmentsWritten = QualityFilter.of().withTrailingTrim(1, 20).convert(input, 2,
+                Channels.newChannel(output), false);
+
+        assertThat(numFragmentsWritten, is(2L));
+        assertThat(output.toString(StandardCharsets.US_ASCII),
+                is("@READ_1\nAA\n+READ_1\n??\n@READ_2\nA\n+READ_2\n?\n"));
+    }
+
+    @Test
+    public void convertCanKeepFragmentNumbers() throws IOException {
+        Path input = Files.write(directory.resolve("input"), rawFragment(30, 30, 5, 5, 30, 2, 30, 30));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        QualityFilter.of().withTrailingTrim(1, 20).convert(input, 2, Channels.newChannel(output), true);
+
+        assertThat(output.toString(StandardCharsets.US_ASCII),
+                is("@READ_1\nAA\n+READ_1\n??\n@READ_3\nA\n+READ_3\n?\n@READ_4\nAA\n+READ_4\n??\n"));
+    }
+
+    @Test
+    public void convertThrowsExceptionGivenTruncatedLastFragment() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[3]);
+
+        assertThrows(IllegalStateException.class, () -> QualityFilter.of().convert(input, 2,
+                Channels.newChannel(new ByteArrayOutputStream()), false));
+    }
+
+    /** Returns raw bases, all A, with the given quality scores. */
+    private static byte[] rawFragment(int... qualities) {
+        byte[] rawFragment = new byte[qualities.length];
+        for (int i = 0; i < qualities.length; ++i) {
+            rawFragment[i] = (byte) qualities[i];
+        }
+        return rawFragment;
+    }
+}
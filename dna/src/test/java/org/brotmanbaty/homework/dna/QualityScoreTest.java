@@ -1,5 +1,6 @@
 package org.brotmanbaty.homework.dna;
 
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
@@ -36,6 +37,15 @@ public class QualityScoreTest {
         assertThat(QualityScore.ofBinary((byte) 63).toFastq(), is('`'));
     }
 
+    @Test
+    public void toFastqWithBinningReturnsTransformedBinnedRepresentation() {
+        QualityBinning binning = QualityBinning.illumina8Level();
+
+        assertThat(QualityScore.ofBinary((byte) 1).toFastq(binning), is('!'));
+        assertThat(QualityScore.ofBinary((byte) 12).toFastq(binning), is('0'));
+        assertThat(QualityScore.ofBinary((byte) 63).toFastq(binning), is('I'));
+    }
+
     @Test
     public void hashCodeObeysContract() {
         QualityScore score1 = QualityScore.ofBinary((byte) 0b00010000);
@@ -66,4 +76,9 @@ public class QualityScoreTest {
     public void toStringReturnsDecimalStringRepresentationOfBinary() {
         assertThat(QualityScore.ofBinary((byte) 15).toString(), is("15"));
     }
+
+    @Test
+    public void ofBinaryReturnsTheSameInstanceForTheSameBinary() {
+        assertThat(QualityScore.ofBinary((byte) 15), sameInstance(QualityScore.ofBinary((byte) 15)));
+    }
 }
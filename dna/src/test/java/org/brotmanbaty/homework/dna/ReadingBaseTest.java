@@ -1,5 +1,7 @@
 package org.brotmanbaty.homework.dna;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
@@ -52,4 +54,37 @@ public class ReadingBaseTest {
 
         assertThat(reading.toString(), is("<C, 32>"));
     }
+
+    @Test
+    public void ofReturnsTheSameInstanceForEqualReadings() {
+        ReadingBase reading1 = ReadingBase.of(Base.G, QualityScore.ofBinary((byte) 0b00010000));
+        ReadingBase reading2 = ReadingBase.of(Base.G, QualityScore.ofBinary((byte) 0b00010000));
+
+        assertThat(reading1, sameInstance(reading2));
+    }
+
+    @Test
+    public void ofThrowsExceptionGivenNulls() {
+        assertThrows(NullPointerException.class, () -> ReadingBase.of(null, QualityScore.ofBinary((byte) 0)));
+        assertThrows(NullPointerException.class, () -> ReadingBase.of(Base.A, null));
+    }
+
+    @Test
+    public void ofBinaryParsesTheBaseFromFirstTwoBitsAndTheScoreFromLastSixBits() {
+        assertThat(ReadingBase.ofBinary((byte) 0b00000000),
+                is(ReadingBase.of(Base.A, QualityScore.ofBinary((byte) 0))));
+        assertThat(ReadingBase.ofBinary((byte) 0b01000001),
+                is(ReadingBase.of(Base.C, QualityScore.ofBinary((byte) 1))));
+        assertThat(ReadingBase.ofBinary((byte) 0b10111100),
+                is(ReadingBase.of(Base.G, QualityScore.ofBinary((byte) 60))));
+        assertThat(ReadingBase.ofBinary((byte) 0b11111111),
+                is(ReadingBase.of(Base.T, QualityScore.ofBinary((byte) 63))));
+    }
+
+    @Test
+    public void toBinaryIsTheInverseOfOfBinaryForAllBytes() {
+        for (int binary = 0; binary < 256; ++binary) {
+            assertThat(ReadingBase.ofBinary((byte) binary).toBinary(), is((byte) binary));
+        }
+    }
 }
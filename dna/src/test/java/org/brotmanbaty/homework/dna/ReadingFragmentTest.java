@@ -1,5 +1,7 @@
 package org.brotmanbaty.homework.dna;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
@@ -60,4 +62,49 @@ public class ReadingFragmentTest {
 
         assertThat(fragment.toString(), is("[<C, 32>, <A, 12>]"));
     }
+
+    @Test
+    public void ofBinaryCopiesTheGivenArray() {
+        byte[] binary = {0b01100000, (byte) 0b10100000};
+        ReadingFragment readingFragment = ReadingFragment.ofBinary(binary);
+        binary[0] = 0;
+
+        ReadingBase expectedBase1 = ReadingBase.of(Base.C, QualityScore.ofBinary((byte) 32));
+        ReadingBase expectedBase2 = ReadingBase.of(Base.G, QualityScore.ofBinary((byte) 32));
+        assertThat(readingFragment.getReadingBases(), is(List.of(expectedBase1, expectedBase2)));
+    }
+
+    @Test
+    public void ofBinaryIsEqualToOfForTheSameBases() {
+        ReadingBase readingBase1 = ReadingBase.of(Base.C, QualityScore.ofBinary((byte) 32));
+        ReadingBase readingBase2 = ReadingBase.of(Base.G, QualityScore.ofBinary((byte) 1));
+
+        ReadingFragment fromBinary = ReadingFragment.ofBinary(new byte[] {0b01100000, (byte) 0b10000001});
+        ReadingFragment fromReadingBases = ReadingFragment.of(List.of(readingBase1, readingBase2));
+
+        assertThat(fromBinary, is(fromReadingBases));
+        assertThat(fromBinary.hashCode(), is(fromReadingBases.hashCode()));
+    }
+
+    @Test
+    public void toBinaryReturnsACopyOfTheBinaryRepresentation() {
+        ReadingFragment readingFragment = ReadingFragment.ofBinary(new byte[] {0b01100000, (byte) 0b10000001});
+
+        byte[] binary = readingFragment.toBinary();
+        binary[0] = 0;
+
+        assertThat(readingFragment.toBinary(), is(new byte[] {0b01100000, (byte) 0b10000001}));
+    }
+
+    @Test
+    public void getReadingBasesReturnsUnmodifiableViewOfSharedInstances() {
+        ReadingBase readingBase = ReadingBase.of(Base.T, QualityScore.ofBinary((byte) 7));
+        ReadingFragment readingFragment = ReadingFragment.of(List.of(readingBase));
+
+        List<ReadingBase> readingBases = readingFragment.getReadingBases();
+
+        assertThat(readingBases.get(0), sameInstance(readingBase));
+        assertThrows(UnsupportedOperationException.class, () -> readingBases.add(readingBase));
+        assertThrows(UnsupportedOperationException.class, () -> readingBases.set(0, readingBase));
+    }
 }
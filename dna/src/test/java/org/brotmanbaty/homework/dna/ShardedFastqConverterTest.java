@@ -0,0 +1,147 @@
+package org.brotmanbaty.homework.dna;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ShardedFastqConverterTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void getShardPathNumbersShardsWithFiveDigits() {
+        assertThat(ShardedFastqConverter.getShardPath(directory, "output", 12),
+                is(directory.resolve("output.00012.fastq")));
+    }
+
+    @Test
+    public void convertByFragmentCountProducesShardsThatConcatenateToSequentialOutput() throws IOException {
+        Path input = writeRandomInput(7 * 1_000_000);
+
+        List<Path> shards = ShardedFastqConverter.of(executor).convertByFragmentCount(input, 7, directory, "output",
+                300_000);
+
+        assertThat(shards, is(List.of(directory.resolve("output.00000.fastq"), directory.resolve("output.00001.fastq"),
+                directory.resolve("output.00002.fastq"), directory.resolve("output.00003.fastq"))));
+        assertThat(concatenate(shards), is(convertSequentially(input, 7)));
+        assertThat(Files.readString(shards.get(3)).startsWith("@READ_900001\n"), is(true));
+        assertThat(partialFiles(), is(empty()));
+    }
+
+    @Test
+    public void convertBySizeKeepsShardsWithinTargetSize() throws IOException {
+        Path input = writeRandomInput(3 * 10_000);
+
+        List<Path> shards = ShardedFastqConverter.of(executor).convertBySize(input, 3, directory, "output", 50_000);
+
+        List<Long> sizes = new ArrayList<>();
+        for (Path shard : shards) {
+            sizes.add(Files.size(shard));
+        }
+        assertThat(sizes, everyItem(lessThanOrEqualTo(50_000L)));
+        assertThat(shards.size(), is(7));
+        assertThat(concatenate(shards), is(convertSequentially(input, 3)));
+    }
+
+    @Test
+    public void convertBySizeGivesEachShardAtLeastOneFragment() throws IOException {
+        Path input = writeRandomInput(3 * 5);
+
+        List<Path> shards = ShardedFastqConverter.of(executor).convertBySize(input, 3, directory, "output", 1);
+
+        assertThat(shards.size(), is(5));
+    }
+
+    @Test
+    public void convertCreatesNoShardsForAnEmptyInput() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[0]);
+
+        assertThat(ShardedFastqConverter.of(executor).convertByFragmentCount(input, 3, directory, "output", 10),
+                is(empty()));
+    }
+
+    @Test
+    public void convertThrowsExceptionAndCreatesNoShardsGivenTruncatedLastFragment() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[5]);
+
+        assertThrows(IllegalStateException.class,
+                () -> ShardedFastqConverter.of(executor).convertByFragmentCount(input, 2, directory, "output", 1));
+        assertThat(Files.exists(directory.resolve("output.00000.fastq")), is(false));
+    }
+
+    @Test
+    public void convertThrowsExceptionGivenNonPositiveSizes() throws IOException {
+        Path input = Files.write(directory.resolve("input"), new byte[4]);
+        ShardedFastqConverter converter = ShardedFastqConverter.of(executor);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> converter.convertByFragmentCount(input, 0, directory, "output", 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> converter.convertByFragmentCount(input, 2, directory, "output", 0));
+        assertThrows(IllegalArgumentException.class, () -> converter.convertBySize(input, 2, directory, "output", 0));
+    }
+
+    @Test
+    public void convertThrowsExceptionIfAShardAlreadyExists() throws IOException {
+        Path input = writeRandomInput(2 * 10);
+        Files.write(directory.resolve("output.00001.fastq"), new byte[0]);
+
+        UncheckedIOException thrown = assertThrows(UncheckedIOException.class,
+                () -> ShardedFastqConverter.of(executor).convertByFragmentCount(input, 2, directory, "output", 5));
+        assertThat(thrown.getCause(), instanceOf(FileAlreadyExistsException.class));
+    }
+
+    private Path writeRandomInput(int size) throws IOException {
+        byte[] rawFragments = new byte[size];
+        new Random(20).nextBytes(rawFragments);
+        return Files.write(directory.resolve("input"), rawFragments);
+    }
+
+    private byte[] convertSequentially(Path input, int numReadingBasesPerFragment) throws IOException {
+        Path output = directory.resolve("expected");
+        Main.convertSequentially(input, numReadingBasesPerFragment, output);
+        return Files.readAllBytes(output);
+    }
+
+    private static byte[] concatenate(List<Path> paths) throws IOException {
+        ByteArrayOutputStream concatenated = new ByteArrayOutputStream();
+        for (Path path : paths) {
+            concatenated.write(Files.readAllBytes(path));
+        }
+        return concatenated.toByteArray();
+    }
+
+    private List<Path> partialFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".partial")).collect(Collectors.toList());
+        }
+    }
+}